@@ -0,0 +1,115 @@
+// 318936507 Adir Tamam
+package Benchmarks;
+
+import Collidable.Block;
+import Collidable.Collidable;
+import Collidable.CollisionInfo;
+import Game.GameEnvironment;
+import Game.IndexType;
+import Geometry.Line;
+import Geometry.Point;
+import Geometry.RayHit;
+import Geometry.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the closest-collision query of GameEnvironment, by number of collidables and by
+ * kind of index. The blocks fill a grid whose size grows with their number, so the density, and the
+ * number of blocks near a trajectory, stays the same; the trajectories are ball-sized moves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private static final int TABLE_SIZE = 1024;
+    private static final double BLOCK_WIDTH = 50;
+    private static final double BLOCK_HEIGHT = 20;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int collidables;
+
+    @Param({"LINEAR", "GRID", "BVH"})
+    public IndexType index;
+
+    private GameEnvironment environment;
+    private Line[] trajectories;
+    private RayHit hit;
+    private int next;
+
+    /**
+     * Builds the environment and the table of trajectories.
+     */
+    @Setup
+    public void setUp() {
+        this.environment = new GameEnvironment(this.index);
+        int columns = (int) Math.ceil(Math.sqrt(this.collidables));
+        for (int i = 0; i < this.collidables; i++) {
+            // Leave a gap of a block around each block, so balls can move between them
+            Point upperLeft = new Point((i % columns) * 2 * BLOCK_WIDTH, (i / columns) * 2 * BLOCK_HEIGHT);
+            this.environment.addCollidable(new Block(new Rectangle(upperLeft, BLOCK_WIDTH, BLOCK_HEIGHT), Color.RED));
+        }
+
+        double worldWidth = columns * 2 * BLOCK_WIDTH;
+        double worldHeight = Math.ceil((double) this.collidables / columns) * 2 * BLOCK_HEIGHT;
+        Random random = new Random(42);
+        this.trajectories = new Line[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double x = random.nextDouble() * worldWidth;
+            double y = random.nextDouble() * worldHeight;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            this.trajectories[i] = new Line(x, y, x + 30 * Math.cos(angle), y + 30 * Math.sin(angle));
+        }
+        this.hit = new RayHit();
+    }
+
+    /**
+     * Advances to the next trajectory of the table.
+     *
+     * @return The next trajectory.
+     */
+    private Line nextTrajectory() {
+        this.next = (this.next + 1) & (TABLE_SIZE - 1);
+        return this.trajectories[this.next];
+    }
+
+    /**
+     * Measures GameEnvironment.getClosestCollision, the Line based query.
+     *
+     * @return The closest collision, or null.
+     */
+    @Benchmark
+    public CollisionInfo getClosestCollision() {
+        return this.environment.getClosestCollision(nextTrajectory());
+    }
+
+    /**
+     * Measures the allocation-free swept-circle query the balls use, with a ball of radius 5.
+     *
+     * @return The collidable hit first, or null.
+     */
+    @Benchmark
+    public Collidable findClosestCollision() {
+        Line trajectory = nextTrajectory();
+        double x = trajectory.start().getX();
+        double y = trajectory.start().getY();
+        return this.environment.findClosestCollision(x, y, trajectory.end().getX() - x,
+                trajectory.end().getY() - y, 5, this.hit);
+    }
+}
@@ -0,0 +1,121 @@
+// 318936507 Adir Tamam
+package Benchmarks;
+
+import Geometry.Line;
+import Geometry.Point;
+import Geometry.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the geometry primitives: line against line, and line against rectangle.
+ * Each call takes the next pair from a fixed, seeded table, so the branches are not all predicted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+    private static final int TABLE_SIZE = 1024;
+
+    private Line[] lines;
+    private Line[] others;
+    private Rectangle[] rectangles;
+    private int next;
+
+    /**
+     * Fills the tables with random lines and rectangles in the game area.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        this.lines = new Line[TABLE_SIZE];
+        this.others = new Line[TABLE_SIZE];
+        this.rectangles = new Rectangle[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            this.lines[i] = randomLine(random);
+            this.others[i] = randomLine(random);
+            Point upperLeft = new Point(random.nextDouble() * 700, random.nextDouble() * 500);
+            this.rectangles[i] = new Rectangle(upperLeft, 20 + random.nextDouble() * 80, 10 + random.nextDouble() * 40);
+        }
+    }
+
+    /**
+     * Returns a random line in the game area.
+     *
+     * @param random The source of randomness.
+     * @return A random line.
+     */
+    private static Line randomLine(Random random) {
+        return new Line(random.nextDouble() * 800, random.nextDouble() * 600,
+                random.nextDouble() * 800, random.nextDouble() * 600);
+    }
+
+    /**
+     * Advances to the next entry of the tables.
+     *
+     * @return The index of the entry.
+     */
+    private int nextIndex() {
+        this.next = (this.next + 1) & (TABLE_SIZE - 1);
+        return this.next;
+    }
+
+    /**
+     * Measures Line.intersectionWith.
+     *
+     * @return The intersection point, or null.
+     */
+    @Benchmark
+    public Point lineIntersectionWith() {
+        int i = nextIndex();
+        return this.lines[i].intersectionWith(this.others[i]);
+    }
+
+    /**
+     * Measures Line.isIntersecting.
+     *
+     * @return Whether the lines intersect.
+     */
+    @Benchmark
+    public boolean lineIsIntersecting() {
+        int i = nextIndex();
+        return this.lines[i].isIntersecting(this.others[i]);
+    }
+
+    /**
+     * Measures Rectangle.intersectionPoints.
+     *
+     * @return The intersection points.
+     */
+    @Benchmark
+    public List<Point> rectangleIntersectionPoints() {
+        int i = nextIndex();
+        return this.rectangles[i].intersectionPoints(this.lines[i]);
+    }
+
+    /**
+     * Measures Line.closestIntersectionToStartOfLine, the rectangle test the collision queries build on.
+     *
+     * @return The closest intersection point, or null.
+     */
+    @Benchmark
+    public Point lineClosestIntersectionToStart() {
+        int i = nextIndex();
+        return this.lines[i].closestIntersectionToStartOfLine(this.rectangles[i]);
+    }
+}
@@ -0,0 +1,96 @@
+// 318936507 Adir Tamam
+package Benchmarks;
+
+import Collidable.Block;
+import Game.GameEnvironment;
+import Game.IndexType;
+import Geometry.Point;
+import Geometry.Rectangle;
+import Sprites.Ball;
+import Sprites.BallSystem;
+import Sprites.SpriteCollection;
+import Sprites.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of one game tick of the balls, by number of balls: Ball sprites updated through
+ * SpriteCollection.notifyAllTimePassed, and the same balls in a BallSystem. The balls bounce in a
+ * closed box with the pyramid of blocks of the game, which never breaks since there are no listeners.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteUpdateBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    public int balls;
+
+    private SpriteCollection sprites;
+    private BallSystem system;
+
+    /**
+     * Builds the box, the blocks and the balls, the same for both benchmarks. It runs again for
+     * every iteration, so the balls do not settle into a state that is cheaper to step.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        GameEnvironment environment = new GameEnvironment(IndexType.GRID);
+        environment.addCollidable(new Block(new Rectangle(new Point(0, 20), 800, 20), Color.GRAY));
+        environment.addCollidable(new Block(new Rectangle(new Point(0, 0), 20, 600), Color.GRAY));
+        environment.addCollidable(new Block(new Rectangle(new Point(780, 0), 20, 600), Color.GRAY));
+        environment.addCollidable(new Block(new Rectangle(new Point(0, 580), 800, 20), Color.GRAY));
+        for (int j = 0; j < 6; j++) {
+            for (int i = 0; i < 12 - 2 * j; i++) {
+                Point p = new Point(100 + 50 * j + 50 * i, 20 * j + 40);
+                environment.addCollidable(new Block(new Rectangle(p, 50, 20), Color.RED));
+            }
+        }
+
+        this.sprites = new SpriteCollection();
+        this.system = new BallSystem(environment);
+        Random random = new Random(42);
+        for (int i = 0; i < this.balls; i++) {
+            double x = 30 + random.nextDouble() * 740;
+            double y = 200 + random.nextDouble() * 360;
+            Velocity v = Velocity.fromAngleAndSpeed(random.nextDouble() * 360, 3 + random.nextDouble() * 4);
+            Ball ball = new Ball(x, y, 2, Color.WHITE, environment);
+            ball.setVelocity(v);
+            this.sprites.addSprite(ball);
+            this.system.addBall(x, y, 2, v.getDx(), v.getDy(), Color.WHITE);
+        }
+    }
+
+    /**
+     * Measures one tick of the Ball sprites.
+     */
+    @Benchmark
+    public void notifyAllTimePassed() {
+        this.sprites.notifyAllTimePassed();
+    }
+
+    /**
+     * Measures one tick of the BallSystem.
+     */
+    @Benchmark
+    public void ballSystemTimePassed() {
+        this.system.timePassed();
+    }
+}
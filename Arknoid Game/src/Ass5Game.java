@@ -1,26 +1,56 @@
-// 318936507 Adir Tamam
-
-import Game.Game;
-
-/**
- * The main class for the Ass5Game program.
- * This class contains the main method to start and run the game.
- */
-public class Ass5Game {
-
-    /**
-     * The main method that initializes and runs the game.
-     *
-     * @param args The command line arguments (not used in this program).
-     */
-    public static void main(String[] args) {
-        // Create a new Game instance
-        Game game = new Game();
-
-        // Initialize the game
-        game.initialize();
-
-        // Run the game
-        game.run();
-    }
-}
+// 318936507 Adir Tamam
+
+import Game.Game;
+import Game.IndexType;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * The main class for the Ass5Game program.
+ * This class contains the main method to start and run the game.
+ */
+public class Ass5Game {
+
+    /**
+     * The main method that initializes and runs the game.
+     *
+     * @param args The command line arguments: optionally the collision index to use
+     *             (linear, grid or bvh), then the number of balls of a ball storm to add,
+     *             then the number of physics ticks per second, then a file to record the
+     *             session to, for ReplayGame ("-" for none), then a level file to play
+     *             instead of the level of initialize, which cannot be recorded.
+     * @throws IOException If the level file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        // Create a new Game instance
+        IndexType indexType = args.length > 0 ? IndexType.valueOf(args[0].toUpperCase()) : IndexType.GRID;
+        Game game = new Game(indexType);
+
+        // Initialize the game, from the level file if there is one
+        if (args.length > 4) {
+            game.loadLevel(Paths.get(args[4]));
+        } else {
+            game.initialize();
+        }
+        if (args.length > 1) {
+            game.addBallStorm(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            game.setTickRate(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3 && !args[3].equals("-")) {
+            game.recordTo(Paths.get(args[3]));
+        }
+
+        // Run the game
+        game.run();
+        if (game.getMetrics().getLevelLoadTime() >= 0) {
+            System.out.printf("Level loaded in %.1f ms, first frame after %.1f ms%n",
+                    game.getMetrics().getLevelLoadTime() / 1e6, game.getMetrics().getTimeToFirstFrame() / 1e6);
+        }
+        if (game.getDroppedTicks() > 0) {
+            System.out.println("Dropped " + game.getDroppedTicks() + " ticks that could not be caught up");
+        }
+    }
+}
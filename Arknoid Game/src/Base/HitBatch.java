@@ -0,0 +1,78 @@
+// 318936507 Adir Tamam
+package Base;
+
+import Collidable.Block;
+import Sprites.Ball;
+
+/**
+ * The HitBatch interface is a read-only view of the hit events of one tick that a hit listener
+ * listens to, in the order of their first hit. The hits of a ball on a block during a tick are
+ * coalesced into one event, which keeps the point of the first hit and counts the others. The
+ * batch is only valid during the hitEvents call it is passed to.
+ */
+public interface HitBatch {
+    /**
+     * Returns the number of events in the batch.
+     *
+     * @return The number of events.
+     */
+    int size();
+
+    /**
+     * Returns the block that was hit.
+     *
+     * @param i The index of the event.
+     * @return The block of the event.
+     */
+    Block getBlock(int i);
+
+    /**
+     * Returns the ball that hit the block. A ball of a ball system is a view, which is only valid
+     * until the next call.
+     *
+     * @param i The index of the event.
+     * @return The ball of the event.
+     */
+    Ball getHitter(int i);
+
+    /**
+     * Returns the tick of the hit.
+     *
+     * @param i The index of the event.
+     * @return The number of ticks the game had run when the block was hit.
+     */
+    long getTick(int i);
+
+    /**
+     * Returns the x-coordinate of the first hit.
+     *
+     * @param i The index of the event.
+     * @return The x-coordinate of the collision point.
+     */
+    double getX(int i);
+
+    /**
+     * Returns the y-coordinate of the first hit.
+     *
+     * @param i The index of the event.
+     * @return The y-coordinate of the collision point.
+     */
+    double getY(int i);
+
+    /**
+     * Returns the number of hits coalesced into the event.
+     *
+     * @param i The index of the event.
+     * @return The number of times the ball hit the block during the tick, at least 1.
+     */
+    int getHits(int i);
+
+    /**
+     * Checks if the event is the first one of its block in the tick, as several balls may hit a
+     * block during a tick. A listener that acts once per block looks only at these.
+     *
+     * @param i The index of the event.
+     * @return {@code true} if no earlier event of the tick is on the same block, {@code false} otherwise.
+     */
+    boolean isFirstHitOfBlock(int i);
+}
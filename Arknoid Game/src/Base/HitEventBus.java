@@ -0,0 +1,483 @@
+// 318936507 Adir Tamam
+package Base;
+
+import Collidable.Block;
+import Metrics.EngineMetrics;
+import Metrics.HitDispatchEvent;
+import Sprites.Ball;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The HitEventBus class queues the hits on the blocks of a game during a tick and passes them to
+ * the hit listeners at its end, so the listeners never change the game while the balls are still
+ * moving through it. A hit is a record of primitives in a ring of parallel arrays: the id of the
+ * block, the id and key of the ball, the tick, the collision point and the number of hits. Blocks
+ * and balls get an id the first time they hit or are hit after a dispatch, which they keep in a
+ * field of their own, stamped with the window of the bus it belongs to, so finding it takes no
+ * lookup; the ids, and the references to the blocks and balls, are given up at the next dispatch.
+ * A ball of a ball system shares the id of the system's view, and its index in the system is its
+ * key. The hits of a ball on a block during a tick are coalesced into the record of the first one,
+ * found through an open addressing table.
+ * <p>
+ * At the end of the tick, dispatch groups the records by listener, over the listeners of each
+ * block, and calls every listener once with its batch, in the order the listeners first appear.
+ * The ring and the table grow when a tick has more records than they hold; otherwise nothing is
+ * allocated, as the listener batches are kept from one tick to the next too.
+ */
+public class HitEventBus {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The last window given to a bus, so the ids of different buses and dispatches never mix
+    private static final AtomicLong WINDOWS = new AtomicLong();
+
+    // The records, in a ring of capacity slots; head and tail count the records ever added and
+    // dispatched, and a record lives in slot count & mask
+    private int[] blockIds;
+    private int[] ballIds;
+    private int[] ballKeys;
+    private long[] ticks;
+    private double[] xs;
+    private double[] ys;
+    private int[] hits;
+    private boolean[] firstOfBlock;
+    private int mask;
+    private long head;
+    private long tail;
+
+    // The open addressing table from a block, ball and key to the slot of its record plus one, or 0,
+    // and the position of each record in it, to empty it after the dispatch
+    private int[] table;
+    private int[] tablePositions;
+
+    // The window the ids are given in until the next dispatch, and the blocks and balls by id
+    private long window;
+    private Block[] blocks;
+    private int blockCount;
+    private Ball[] balls;
+    private int ballCount;
+
+    // The batch of each listener, as the slots of its records, and the listeners with a batch now;
+    // the name of the type of each listener is kept for the metrics
+    private final Map<HitListener, Integer> listenerIdMap;
+    private HitListener[] listeners;
+    private String[] listenerTypes;
+    private int[][] batchSlots;
+    private int[] batchSizes;
+    private int[] activeListeners;
+    private int activeCount;
+    private final ListenerBatch batch;
+
+    // The tick the next hits happen in, and the metrics the dispatch is counted in, or null
+    private long tick;
+    private EngineMetrics metrics;
+
+    /**
+     * Constructs an empty bus.
+     */
+    public HitEventBus() {
+        allocate(INITIAL_CAPACITY);
+        this.window = WINDOWS.incrementAndGet();
+        this.blocks = new Block[16];
+        this.balls = new Ball[16];
+        this.listenerIdMap = new IdentityHashMap<>();
+        this.listeners = new HitListener[4];
+        this.listenerTypes = new String[4];
+        this.batchSlots = new int[4][];
+        this.batchSizes = new int[4];
+        this.activeListeners = new int[4];
+        this.batch = new ListenerBatch();
+    }
+
+    /**
+     * Sets the metrics the dispatched hit events are counted and timed in.
+     *
+     * @param metrics The metrics of the game, or null.
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the tick of the hits that follow.
+     *
+     * @param currentTick The number of ticks the game has run.
+     */
+    public void beginTick(long currentTick) {
+        this.tick = currentTick;
+    }
+
+    /**
+     * Returns the number of hit events waiting to be dispatched.
+     *
+     * @return The number of queued records.
+     */
+    public int size() {
+        return (int) (this.tail - this.head);
+    }
+
+    /**
+     * Queues a hit of a ball on a block, or adds it to the record of an earlier hit of the same ball
+     * on the same block since the last dispatch.
+     *
+     * @param block  The block that was hit.
+     * @param hitter The ball that hit the block.
+     * @param x      The x-coordinate of the collision point.
+     * @param y      The y-coordinate of the collision point.
+     */
+    public void publish(Block block, Ball hitter, double x, double y) {
+        // Make room first, even for a hit that is coalesced, so the table is not rebuilt mid-insert
+        if (this.tail - this.head == this.blockIds.length) {
+            grow();
+        }
+
+        // A block new to the window has no record yet, so this is its first one
+        int knownBlocks = this.blockCount;
+        int blockId = blockIdOf(block);
+        boolean first = blockId == knownBlocks;
+        int ballId = ballIdOf(hitter);
+        int key = hitter.getHitterKey();
+
+        // Find the record of the same ball on the same block, or the empty entry it goes to
+        int tableMask = this.table.length - 1;
+        int position = hash(blockId, ballId, key) & tableMask;
+        while (this.table[position] != 0) {
+            int slot = this.table[position] - 1;
+            if (this.blockIds[slot] == blockId && this.ballIds[slot] == ballId && this.ballKeys[slot] == key) {
+                this.hits[slot]++;
+                return;
+            }
+            position = (position + 1) & tableMask;
+        }
+        int slot = (int) this.tail & this.mask;
+        this.tail++;
+        this.blockIds[slot] = blockId;
+        this.ballIds[slot] = ballId;
+        this.ballKeys[slot] = key;
+        this.ticks[slot] = this.tick;
+        this.xs[slot] = x;
+        this.ys[slot] = y;
+        this.hits[slot] = 1;
+        this.firstOfBlock[slot] = first;
+        this.table[position] = slot + 1;
+        this.tablePositions[slot] = position;
+    }
+
+    /**
+     * Passes the queued hit events to the listeners of their blocks, one batch per listener, and
+     * empties the queue, giving up the ids of the blocks and balls. The listeners of a block are the
+     * ones it has when the dispatch starts.
+     */
+    public void dispatch() {
+        if (this.head == this.tail) {
+            return;
+        }
+        long start = this.metrics != null ? this.metrics.startTimer() : 0;
+        long end = this.tail;
+        for (long r = this.head; r < end; r++) {
+            int slot = (int) r & this.mask;
+            for (HitListener hl : this.blocks[this.blockIds[slot]].getHitListeners()) {
+                addToBatch(listenerIdOf(hl), slot);
+            }
+        }
+        for (int k = 0; k < this.activeCount; k++) {
+            int id = this.activeListeners[k];
+            HitListener hl = this.listeners[id];
+            HitDispatchEvent event = new HitDispatchEvent();
+            if (event.isEnabled()) {
+                event.begin();
+            }
+            this.batch.set(this.batchSlots[id], this.batchSizes[id]);
+            hl.hitEvents(this.batch);
+            String type = this.listenerTypes[id];
+            if (this.metrics != null) {
+                this.metrics.countHitEvents(type, this.batchSizes[id]);
+            }
+            if (event.isEnabled()) {
+                event.setListener(type);
+                event.setEvents(this.batchSizes[id]);
+                event.commit();
+            }
+            this.batchSizes[id] = 0;
+        }
+        this.activeCount = 0;
+        for (long r = this.head; r < end; r++) {
+            this.table[this.tablePositions[(int) r & this.mask]] = 0;
+        }
+        this.head = end;
+        Arrays.fill(this.blocks, 0, this.blockCount, null);
+        Arrays.fill(this.balls, 0, this.ballCount, null);
+        this.blockCount = 0;
+        this.ballCount = 0;
+        this.window = WINDOWS.incrementAndGet();
+        if (this.metrics != null) {
+            this.metrics.countDispatch(start);
+        }
+    }
+
+    /**
+     * Adds a record to the batch of a listener.
+     *
+     * @param id   The id of the listener.
+     * @param slot The slot of the record.
+     */
+    private void addToBatch(int id, int slot) {
+        int size = this.batchSizes[id];
+        if (size == 0) {
+            if (this.activeCount == this.activeListeners.length) {
+                this.activeListeners = Arrays.copyOf(this.activeListeners, 2 * this.activeCount);
+            }
+            this.activeListeners[this.activeCount++] = id;
+        }
+        if (size == this.batchSlots[id].length) {
+            this.batchSlots[id] = Arrays.copyOf(this.batchSlots[id], 2 * size);
+        }
+        this.batchSlots[id][size] = slot;
+        this.batchSizes[id] = size + 1;
+    }
+
+    /**
+     * Returns the id of a listener, giving it the next one and an empty batch if it has none.
+     *
+     * @param hl The listener.
+     * @return The id of the listener.
+     */
+    private int listenerIdOf(HitListener hl) {
+        Integer id = this.listenerIdMap.get(hl);
+        if (id != null) {
+            return id;
+        }
+        int next = this.listenerIdMap.size();
+        if (next == this.listeners.length) {
+            this.listeners = Arrays.copyOf(this.listeners, 2 * next);
+            this.listenerTypes = Arrays.copyOf(this.listenerTypes, 2 * next);
+            this.batchSlots = Arrays.copyOf(this.batchSlots, 2 * next);
+            this.batchSizes = Arrays.copyOf(this.batchSizes, 2 * next);
+        }
+        this.listeners[next] = hl;
+        this.listenerTypes[next] = hl.getClass().getSimpleName();
+        this.batchSlots[next] = new int[16];
+        this.listenerIdMap.put(hl, next);
+        return next;
+    }
+
+    /**
+     * Returns the id of a block in the current window, giving it the next one if it has none.
+     *
+     * @param block The block.
+     * @return The id of the block.
+     */
+    private int blockIdOf(Block block) {
+        int id = block.getBusId(this.window);
+        if (id >= 0) {
+            return id;
+        }
+        int next = this.blockCount++;
+        if (next == this.blocks.length) {
+            this.blocks = Arrays.copyOf(this.blocks, 2 * next);
+        }
+        this.blocks[next] = block;
+        block.setBusId(this.window, next);
+        return next;
+    }
+
+    /**
+     * Returns the id of a ball in the current window, giving it the next one if it has none.
+     *
+     * @param ball The ball, or the view of a ball system.
+     * @return The id of the ball.
+     */
+    private int ballIdOf(Ball ball) {
+        int id = ball.getBusId(this.window);
+        if (id >= 0) {
+            return id;
+        }
+        int next = this.ballCount++;
+        if (next == this.balls.length) {
+            this.balls = Arrays.copyOf(this.balls, 2 * next);
+        }
+        this.balls[next] = ball;
+        ball.setBusId(this.window, next);
+        return next;
+    }
+
+    /**
+     * Mixes the ids of a block and a ball and the key of the ball into an index of the table.
+     *
+     * @param blockId The id of the block.
+     * @param ballId  The id of the ball.
+     * @param key     The key of the ball.
+     * @return The hash, to be masked.
+     */
+    private static int hash(int blockId, int ballId, int key) {
+        int h = blockId * 0x9E3779B1 + ballId * 0x85EBCA77 + key * 0xC2B2AE3D;
+        return h ^ (h >>> 15);
+    }
+
+    /**
+     * Allocates the ring and the table for the given number of records.
+     *
+     * @param capacity The number of records, a power of two.
+     */
+    private void allocate(int capacity) {
+        this.blockIds = new int[capacity];
+        this.ballIds = new int[capacity];
+        this.ballKeys = new int[capacity];
+        this.ticks = new long[capacity];
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.hits = new int[capacity];
+        this.firstOfBlock = new boolean[capacity];
+        this.tablePositions = new int[capacity];
+        this.table = new int[2 * capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Doubles the ring and the table, moving the queued records to the start of the new ring in
+     * order, and putting them back into the new table.
+     */
+    private void grow() {
+        int[] oldBlockIds = this.blockIds;
+        int[] oldBallIds = this.ballIds;
+        int[] oldBallKeys = this.ballKeys;
+        long[] oldTicks = this.ticks;
+        double[] oldXs = this.xs;
+        double[] oldYs = this.ys;
+        int[] oldHits = this.hits;
+        boolean[] oldFirst = this.firstOfBlock;
+        int oldMask = this.mask;
+        int count = size();
+        allocate(2 * oldBlockIds.length);
+        int tableMask = this.table.length - 1;
+        for (int k = 0; k < count; k++) {
+            int from = (int) (this.head + k) & oldMask;
+            this.blockIds[k] = oldBlockIds[from];
+            this.ballIds[k] = oldBallIds[from];
+            this.ballKeys[k] = oldBallKeys[from];
+            this.ticks[k] = oldTicks[from];
+            this.xs[k] = oldXs[from];
+            this.ys[k] = oldYs[from];
+            this.hits[k] = oldHits[from];
+            this.firstOfBlock[k] = oldFirst[from];
+            int position = hash(this.blockIds[k], this.ballIds[k], this.ballKeys[k]) & tableMask;
+            while (this.table[position] != 0) {
+                position = (position + 1) & tableMask;
+            }
+            this.table[position] = k + 1;
+            this.tablePositions[k] = position;
+        }
+        this.head = 0;
+        this.tail = count;
+    }
+
+    /**
+     * The batch of one listener, over the slots of its records in the ring.
+     */
+    private final class ListenerBatch implements HitBatch {
+        private int[] slots;
+        private int size;
+
+        /**
+         * Points the batch at the records of a listener.
+         *
+         * @param recordSlots The slots of the records.
+         * @param count       The number of records.
+         */
+        void set(int[] recordSlots, int count) {
+            this.slots = recordSlots;
+            this.size = count;
+        }
+
+        /**
+         * Returns the number of events in the batch.
+         *
+         * @return The number of events.
+         */
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Returns the block that was hit.
+         *
+         * @param i The index of the event.
+         * @return The block of the event.
+         */
+        @Override
+        public Block getBlock(int i) {
+            return blocks[blockIds[this.slots[i]]];
+        }
+
+        /**
+         * Returns the ball that hit the block, through its key for the view of a ball system.
+         *
+         * @param i The index of the event.
+         * @return The ball of the event.
+         */
+        @Override
+        public Ball getHitter(int i) {
+            int slot = this.slots[i];
+            return balls[ballIds[slot]].resolveHitter(ballKeys[slot]);
+        }
+
+        /**
+         * Returns the tick of the hit.
+         *
+         * @param i The index of the event.
+         * @return The number of ticks the game had run when the block was hit.
+         */
+        @Override
+        public long getTick(int i) {
+            return ticks[this.slots[i]];
+        }
+
+        /**
+         * Returns the x-coordinate of the first hit.
+         *
+         * @param i The index of the event.
+         * @return The x-coordinate of the collision point.
+         */
+        @Override
+        public double getX(int i) {
+            return xs[this.slots[i]];
+        }
+
+        /**
+         * Returns the y-coordinate of the first hit.
+         *
+         * @param i The index of the event.
+         * @return The y-coordinate of the collision point.
+         */
+        @Override
+        public double getY(int i) {
+            return ys[this.slots[i]];
+        }
+
+        /**
+         * Returns the number of hits coalesced into the event.
+         *
+         * @param i The index of the event.
+         * @return The number of times the ball hit the block during the tick.
+         */
+        @Override
+        public int getHits(int i) {
+            return hits[this.slots[i]];
+        }
+
+        /**
+         * Checks if the event is the first one of its block in the tick.
+         *
+         * @param i The index of the event.
+         * @return {@code true} if no earlier event of the tick is on the same block, {@code false} otherwise.
+         */
+        @Override
+        public boolean isFirstHitOfBlock(int i) {
+            return firstOfBlock[this.slots[i]];
+        }
+    }
+}
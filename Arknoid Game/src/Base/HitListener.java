@@ -1,21 +1,34 @@
-// 318936507 Adir Tamam
-package Base;
-
-import Collidable.Block;
-import Sprites.Ball;
-
-/**
- * The HitListener interface represents an object that listens for hit events.
- * Objects implementing this interface will be notified when a collision occurs
- * between a block and a ball in the game.
- */
-public interface HitListener {
-    /**
-     * This method is called whenever the beingHit object is hit.
-     * The hitter parameter is the Ball that's doing the hitting.
-     *
-     * @param beingHit The block that was hit.
-     * @param hitter   The ball that hit the block.
-     */
-    void hitEvent(Block beingHit, Ball hitter);
-}
+// 318936507 Adir Tamam
+package Base;
+
+import Collidable.Block;
+import Sprites.Ball;
+
+/**
+ * The HitListener interface represents an object that listens for hit events.
+ * Objects implementing this interface will be notified when a collision occurs
+ * between a block and a ball in the game. The hits of a tick are queued while the balls move, and
+ * passed to the listeners in one batch at the end of the tick.
+ */
+public interface HitListener {
+    /**
+     * This method is called whenever the beingHit object is hit.
+     * The hitter parameter is the Ball that's doing the hitting.
+     *
+     * @param beingHit The block that was hit.
+     * @param hitter   The ball that hit the block.
+     */
+    void hitEvent(Block beingHit, Ball hitter);
+
+    /**
+     * This method is called at the end of a tick with the hit events of the tick on the blocks the
+     * listener listens to. By default, hitEvent is called for each of them in turn.
+     *
+     * @param batch The hit events of the tick.
+     */
+    default void hitEvents(HitBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            hitEvent(batch.getBlock(i), batch.getHitter(i));
+        }
+    }
+}
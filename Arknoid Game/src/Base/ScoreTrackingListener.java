@@ -1,34 +1,52 @@
-// 318936507 Adir Tamam
-package Base;
-
-import Collidable.Block;
-
-import Sprites.Ball;
-
-/**
- * The ScoreTrackingListener class is responsible for tracking scores when a block is hit.
- * It implements the HitListener interface to respond to hit events.
- */
-public class ScoreTrackingListener implements HitListener {
-    private Counter currentScore;
-
-    /**
-     * Constructs a new ScoreTrackingListener with the specified score counter.
-     *
-     * @param scoreCounter The Counter to track the score.
-     */
-    public ScoreTrackingListener(Counter scoreCounter) {
-        this.currentScore = scoreCounter;
-    }
-
-    /**
-     * This method is called when a block is hit. It increases the current score by 5.
-     *
-     * @param beingHit The block that was hit.
-     * @param hitter   The ball that hit the block.
-     */
-    public void hitEvent(Block beingHit, Ball hitter) {
-        currentScore.increase(5);
-    }
-}
-
+// 318936507 Adir Tamam
+package Base;
+
+import Collidable.Block;
+
+import Sprites.Ball;
+
+/**
+ * The ScoreTrackingListener class is responsible for tracking scores when a block is hit.
+ * It implements the HitListener interface to respond to hit events.
+ */
+public class ScoreTrackingListener implements HitListener {
+    // The points a block scores when it is hit
+    public static final int POINTS = 5;
+
+    private Counter currentScore;
+
+    /**
+     * Constructs a new ScoreTrackingListener with the specified score counter.
+     *
+     * @param scoreCounter The Counter to track the score.
+     */
+    public ScoreTrackingListener(Counter scoreCounter) {
+        this.currentScore = scoreCounter;
+    }
+
+    /**
+     * This method is called when a block is hit. It increases the current score by POINTS.
+     *
+     * @param beingHit The block that was hit.
+     * @param hitter   The ball that hit the block.
+     */
+    public void hitEvent(Block beingHit, Ball hitter) {
+        currentScore.increase(POINTS);
+    }
+
+    /**
+     * Handles the hit events of a tick. A block hit by several balls in the tick scores once, as it
+     * did when the first hit removed it at once.
+     *
+     * @param batch The hit events of the tick.
+     */
+    @Override
+    public void hitEvents(HitBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.isFirstHitOfBlock(i)) {
+                hitEvent(batch.getBlock(i), batch.getHitter(i));
+            }
+        }
+    }
+}
+
@@ -0,0 +1,313 @@
+// 318936507 Adir Tamam
+package Base;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The SlotArray class keeps a set of objects in an array, giving each a stable integer handle, and
+ * adds and removes them in constant time. The handles index a table of the positions of the
+ * objects in the array; the handles of removed objects go on a free list and are given again.
+ * <p>
+ * An unordered array fills the hole of a removed object with its last one, so its objects stay
+ * packed but their order changes. An ordered array leaves a hole instead, skipped by iteration,
+ * and closes the holes in one pass, keeping the order, once they outnumber the objects.
+ * <p>
+ * Iteration may run while the array changes: between beginIteration and endIteration, removed
+ * objects stay in place, and are only taken out at endIteration, and added objects go after the
+ * last position an iteration started then visits. So the loops over the array need no copy of it.
+ *
+ * @param <T> The type of the objects.
+ */
+public class SlotArray<T> implements Iterable<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean ordered;
+
+    // The objects by position, holes being null, and the handle of each position
+    private Object[] items;
+    private int[] handleAt;
+    private int end;
+    private int size;
+
+    // The position of each handle, or, for a free handle, the next free one; the first free handle
+    private int[] positions;
+    private int handleCount;
+    private int freeHandle;
+
+    // The handle of each object in the array
+    private final Map<T, Integer> handles;
+
+    // The number of iterations running, and the handles removed meanwhile
+    private int iterating;
+    private int[] pendingRemovals;
+    private int pendingCount;
+
+    /**
+     * Constructs an empty array.
+     *
+     * @param ordered Whether removals keep the order of the objects.
+     */
+    public SlotArray(boolean ordered) {
+        this.ordered = ordered;
+        this.items = new Object[INITIAL_CAPACITY];
+        this.handleAt = new int[INITIAL_CAPACITY];
+        this.positions = new int[INITIAL_CAPACITY];
+        this.freeHandle = -1;
+        this.handles = new IdentityHashMap<>();
+        this.pendingRemovals = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds an object after the others.
+     *
+     * @param item The object to add.
+     * @return The handle of the object, valid until it is removed.
+     * @throws IllegalArgumentException If the object is already in the array.
+     */
+    public int add(T item) {
+        if (this.handles.containsKey(item)) {
+            throw new IllegalArgumentException("The object is already in the array: " + item);
+        }
+        int handle;
+        if (this.freeHandle >= 0) {
+            handle = this.freeHandle;
+            this.freeHandle = this.positions[handle];
+        } else {
+            if (this.handleCount == this.positions.length) {
+                this.positions = Arrays.copyOf(this.positions, 2 * this.handleCount);
+            }
+            handle = this.handleCount++;
+        }
+        if (this.end == this.items.length) {
+            this.items = Arrays.copyOf(this.items, 2 * this.end);
+            this.handleAt = Arrays.copyOf(this.handleAt, 2 * this.end);
+        }
+        this.items[this.end] = item;
+        this.handleAt[this.end] = handle;
+        this.positions[handle] = this.end++;
+        this.size++;
+        this.handles.put(item, handle);
+        return handle;
+    }
+
+    /**
+     * Removes an object. While an iteration runs, the object stays in place until it ends.
+     *
+     * @param item The object to remove.
+     * @return {@code true} if the object was in the array, {@code false} otherwise.
+     */
+    public boolean remove(T item) {
+        Integer handle = this.handles.remove(item);
+        if (handle == null) {
+            return false;
+        }
+        if (this.iterating > 0) {
+            if (this.pendingCount == this.pendingRemovals.length) {
+                this.pendingRemovals = Arrays.copyOf(this.pendingRemovals, 2 * this.pendingCount);
+            }
+            this.pendingRemovals[this.pendingCount++] = handle;
+        } else {
+            release(handle);
+        }
+        return true;
+    }
+
+    /**
+     * Puts an object in the place of another, in the same position and with the same handle.
+     *
+     * @param old  The object to replace.
+     * @param item The object to put in its place.
+     * @return {@code true} if the old object was in the array, {@code false} otherwise.
+     * @throws IllegalArgumentException If the new object is already in the array.
+     */
+    public boolean replace(T old, T item) {
+        if (this.handles.containsKey(item)) {
+            throw new IllegalArgumentException("The object is already in the array: " + item);
+        }
+        Integer handle = this.handles.remove(old);
+        if (handle == null) {
+            return false;
+        }
+        this.items[this.positions[handle]] = item;
+        this.handles.put(item, handle);
+        return true;
+    }
+
+    /**
+     * Takes the object of a handle out of the array, and frees the handle.
+     *
+     * @param handle The handle.
+     */
+    private void release(int handle) {
+        int position = this.positions[handle];
+        int last = this.end - 1;
+        if (this.ordered) {
+            this.items[position] = null;
+        } else {
+            // Move the last object into the hole
+            this.items[position] = this.items[last];
+            this.handleAt[position] = this.handleAt[last];
+            this.positions[this.handleAt[position]] = position;
+            this.items[last] = null;
+            this.end--;
+        }
+        this.size--;
+        this.positions[handle] = this.freeHandle;
+        this.freeHandle = handle;
+        if (this.ordered && this.end - this.size > this.size) {
+            compact();
+        }
+    }
+
+    /**
+     * Closes the holes of an ordered array, keeping the order of the objects.
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < this.end; i++) {
+            if (this.items[i] != null) {
+                this.items[kept] = this.items[i];
+                this.handleAt[kept] = this.handleAt[i];
+                this.positions[this.handleAt[kept]] = kept;
+                kept++;
+            }
+        }
+        Arrays.fill(this.items, kept, this.end, null);
+        this.end = kept;
+    }
+
+    /**
+     * Returns the object of a handle.
+     *
+     * @param handle A handle given by add, whose object is still in the array.
+     * @return The object.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int handle) {
+        return (T) this.items[this.positions[handle]];
+    }
+
+    /**
+     * Returns the handle of an object.
+     *
+     * @param item The object.
+     * @return The handle of the object, or -1 if it is not in the array.
+     */
+    public int handleOf(T item) {
+        Integer handle = this.handles.get(item);
+        return handle == null ? -1 : handle;
+    }
+
+    /**
+     * Checks if an object is in the array; an object removed during an iteration is not.
+     *
+     * @param item The object.
+     * @return {@code true} if the object is in the array, {@code false} otherwise.
+     */
+    public boolean contains(T item) {
+        return this.handles.containsKey(item);
+    }
+
+    /**
+     * Returns the number of objects in the array, counting the ones removed during an iteration
+     * until it ends.
+     *
+     * @return The number of objects.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes every object. Must not be called during an iteration.
+     */
+    public void clear() {
+        Arrays.fill(this.items, 0, this.end, null);
+        this.end = 0;
+        this.size = 0;
+        this.handleCount = 0;
+        this.freeHandle = -1;
+        this.handles.clear();
+    }
+
+    /**
+     * Starts an iteration that may change the array: until endIteration, removals are put off.
+     */
+    public void beginIteration() {
+        this.iterating++;
+    }
+
+    /**
+     * Ends an iteration started by beginIteration, removing the objects removed during it when no
+     * other iteration is running.
+     */
+    public void endIteration() {
+        if (--this.iterating > 0) {
+            return;
+        }
+        for (int i = 0; i < this.pendingCount; i++) {
+            release(this.pendingRemovals[i]);
+        }
+        this.pendingCount = 0;
+    }
+
+    /**
+     * Returns an iterator over the objects in the array, in order if the array is ordered. It visits
+     * the positions up to the last one when it is created, so it never visits objects added later.
+     *
+     * @return An iterator over the objects.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private final int last = end;
+            private int next = skipHoles(0, this.last);
+
+            /**
+             * Checks if there are objects left.
+             *
+             * @return {@code true} if there are objects left, {@code false} otherwise.
+             */
+            @Override
+            public boolean hasNext() {
+                return this.next < this.last;
+            }
+
+            /**
+             * Returns the next object.
+             *
+             * @return The next object.
+             * @throws NoSuchElementException If there are no objects left.
+             */
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (this.next >= this.last) {
+                    throw new NoSuchElementException();
+                }
+                T item = (T) items[this.next];
+                this.next = skipHoles(this.next + 1, this.last);
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Finds the first position from a given one that is not a hole.
+     *
+     * @param from The position to start at.
+     * @param last The position after the last one to look at.
+     * @return The first position holding an object, or last if there is none.
+     */
+    private int skipHoles(int from, int last) {
+        int i = from;
+        while (i < last && this.items[i] == null) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -1,230 +1,351 @@
-// 318936507 Adir Tamam
-package Collidable;
-
-import biuoop.DrawSurface;
-import Geometry.Rectangle;
-import Geometry.Line;
-import Geometry.Point;
-
-import java.awt.Color;
-
-import Sprites.Sprite;
-import Sprites.Velocity;
-import Game.Game;
-import Sprites.Ball;
-import Base.HitNotifier;
-import Base.HitListener;
-
-import java.util.List;
-import java.util.ArrayList;
-
-
-/**
- * A block that implements both the Collidable and Sprite interfaces.
- * Represents a rectangular object with a specified color.
- */
-public class Block implements Collidable, Sprite, HitNotifier {
-    private List<HitListener> hitListeners;
-    private final Rectangle rectangle;
-    private final Color color;
-
-    /**
-     * Constructs a Block with the specified rectangle and color.
-     *
-     * @param rectangle The rectangular shape defining the block.
-     * @param color     The color of the block.
-     */
-    public Block(Rectangle rectangle, Color color) {
-        this.rectangle = rectangle;
-        this.color = color;
-        this.hitListeners = new ArrayList<>();
-    }
-
-
-    /**
-     * Returns the collision rectangle associated with this Block.
-     *
-     * @return The collision rectangle of the Block.
-     */
-    public Rectangle getCollisionRectangle() {
-        return this.rectangle;
-    }
-
-
-    /**
-     * Returns the color of this Block.
-     *
-     * @return The color of the Block.
-     */
-    public Color getColor() {
-        return this.color;
-    }
-
-
-    /**
-     * Handles a collision with the block and returns the new velocity after the collision.
-     *
-     * @param collisionPoint  The point of collision with the block.
-     * @param currentVelocity The current velocity of the colliding object.
-     * @param hitter          The ball that hit the block.
-     * @return The new velocity after the collision.
-     */
-    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
-        Velocity newVelocity = new Velocity(currentVelocity.getDx(), currentVelocity.getDy());
-
-        // Check if the collision point is on the bottom or upper line of the block
-        if (rectangle.getBottomLine().onLine(collisionPoint) || rectangle.getUpperLine().onLine(collisionPoint)) {
-            newVelocity.setDy(-newVelocity.getDy());
-        }
-
-        // Check if the collision point is on the left or right line of the block
-        if (rectangle.getLeftLine().onLine(collisionPoint) || rectangle.getRightLine().onLine(collisionPoint)) {
-            newVelocity.setDx(-newVelocity.getDx());
-        }
-
-        if (!ballColorMatch(hitter)) {
-            this.notifyHit(hitter);
-        }
-
-        return newVelocity;
-    }
-
-
-    /**
-     * Draws the block on a given drawing surface.
-     *
-     * @param surface The drawing surface on which the block is to be drawn.
-     */
-    public void drawOn(DrawSurface surface) {
-        // Set the color of the drawing surface to the color of the rectangle
-        surface.setColor(this.getColor());
-
-        // Draw a filled rectangle
-        surface.fillRectangle((int) this.rectangle.getUpperLeft().getX(),
-                (int) this.rectangle.getUpperLeft().getY(),
-                (int) this.rectangle.getWidth(),
-                (int) this.rectangle.getHeight());
-
-        // Set the color to BLACK for drawing lines
-        surface.setColor(Color.BLACK);
-
-        // Draw all four sides of the rectangle using the drawLine method
-        drawRectangleLines(surface);
-    }
-
-
-    /**
-     * Draws the lines of the rectangle on the specified DrawSurface.
-     * This method draws the upper, bottom, left, and right lines of the rectangle.
-     *
-     * @param d The DrawSurface on which the rectangle lines will be drawn.
-     */
-    private void drawRectangleLines(DrawSurface d) {
-        drawLine(d, rectangle.getUpperLine());
-        drawLine(d, rectangle.getBottomLine());
-        drawLine(d, rectangle.getLeftLine());
-        drawLine(d, rectangle.getRightLine());
-    }
-
-    /**
-     * Draws a line on the specified DrawSurface.
-     *
-     * @param d    The DrawSurface on which the line will be drawn.
-     * @param line The Line object representing the line to be drawn.
-     */
-    private void drawLine(DrawSurface d, Line line) {
-        int x1 = (int) line.start().getX();
-        int y1 = (int) line.start().getY();
-        int x2 = (int) line.end().getX();
-        int y2 = (int) line.end().getY();
-        d.drawLine(x1, y1, x2, y2);
-    }
-
-
-
-    /**
-     * Empty implementation for the timePassed method.
-     * (No actions are performed in this method.)
-     */
-    public void timePassed() {
-
-    }
-
-
-    /**
-     * Adds this Block to the specified game, making it both a sprite and a collidable.
-     * The block will be rendered on the screen, and it will participate in collision detection and resolution.
-     *
-     * @param game The Game to which this Block will be added.
-     */
-    public void addToGame(Game game) {
-        // Add this Block as a sprite to be rendered.
-        game.addSprite(this);
-
-        // Add this Block as a collidable to participate in collision detection and resolution.
-        game.addCollidable(this);
-    }
-
-    /**
-     * Removes this Block from the specified game, removing it as both a sprite and a collidable.
-     * The block will no longer render, and it won't participate in collision detection and resolution.
-     *
-     * @param game The Game from which this Block will be removed.
-     */
-    public void removeFromGame(Game game) {
-        // Remove this Block as a sprite to stop rendering.
-        game.removeSprite(this);
-
-        // Remove this Block as a collidable to exclude it from collision detection and resolution.
-        game.removeCollidable(this);
-    }
-
-
-    /**
-     * Checks if the color of the ball matches the color of this Block.
-     *
-     * @param ball The Ball to check for color match.
-     * @return True if colors match, false otherwise.
-     */
-    public boolean ballColorMatch(Ball ball) {
-        return ball.getColor().getRGB() == this.getColor().getRGB();
-    }
-
-    /**
-     * Adds a HitListener to the list of listeners for hit events.
-     *
-     * @param hl The HitListener to be added.
-     */
-    @Override
-    public void addHitListener(HitListener hl) {
-        this.hitListeners.add(hl);
-    }
-
-    /**
-     * Removes a HitListener from the list of listeners for hit events.
-     *
-     * @param hl The HitListener to be removed.
-     */
-    @Override
-    public void removeHitListener(HitListener hl) {
-        this.hitListeners.remove(hl);
-    }
-
-    /**
-     * Notifies all HitListeners about a hit event with the specified hitter.
-     *
-     * @param hitter The Ball that hit this Block.
-     */
-    private void notifyHit(Ball hitter) {
-        // Make a copy of the hitListeners before iterating over them.
-        List<HitListener> listeners = new ArrayList<>(this.hitListeners);
-        // Notify all listeners about a hit event:
-        for (HitListener hl : listeners) {
-            hl.hitEvent(this, hitter);
-        }
-    }
-
-
-}
-
-
+// 318936507 Adir Tamam
+package Collidable;
+
+import biuoop.DrawSurface;
+import Geometry.Geom;
+import Geometry.Rectangle;
+import Geometry.Line;
+import Geometry.Point;
+
+import java.awt.Color;
+
+import Sprites.Sprite;
+import Sprites.Velocity;
+import Game.Game;
+import Sprites.Ball;
+import Base.HitEventBus;
+import Base.HitNotifier;
+import Base.HitListener;
+import Render.CommandBuffer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.ArrayList;
+
+
+/**
+ * A block that implements both the Collidable and Sprite interfaces.
+ * Represents a rectangular object with a specified color.
+ */
+public class Block implements Collidable, Sprite, HitNotifier {
+    // The shared layers of a command buffer the fills and the outlines of all the blocks go to, which
+    // anything drawn like a block may share
+    public static final int FILL_LAYER = 0;
+    public static final int OUTLINE_LAYER = 1;
+
+    private List<HitListener> hitListeners;
+    private final List<HitListener> hitListenersView;
+    private final Rectangle rectangle;
+    private final Color color;
+
+    // The bus of the game the block is in, which queues its hits until the end of the tick, or null
+    private HitEventBus hitEvents;
+
+    // The id the bus gave the block for its queued hits, and the window of the bus it is valid in
+    private long busWindow;
+    private int busId;
+
+    /**
+     * Constructs a Block with the specified rectangle and color.
+     *
+     * @param rectangle The rectangular shape defining the block.
+     * @param color     The color of the block.
+     */
+    public Block(Rectangle rectangle, Color color) {
+        this.rectangle = rectangle;
+        this.color = color;
+        this.hitListeners = new ArrayList<>();
+        this.hitListenersView = Collections.unmodifiableList(this.hitListeners);
+    }
+
+
+    /**
+     * Returns the collision rectangle associated with this Block.
+     *
+     * @return The collision rectangle of the Block.
+     */
+    public Rectangle getCollisionRectangle() {
+        return this.rectangle;
+    }
+
+
+    /**
+     * Returns the color of this Block.
+     *
+     * @return The color of the Block.
+     */
+    public Color getColor() {
+        return this.color;
+    }
+
+
+    /**
+     * Handles a collision with the block and returns the new velocity after the collision.
+     *
+     * @param collisionPoint  The point of collision with the block.
+     * @param currentVelocity The current velocity of the colliding object.
+     * @param hitter          The ball that hit the block.
+     * @return The new velocity after the collision.
+     */
+    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
+        Velocity newVelocity = new Velocity(currentVelocity.getDx(), currentVelocity.getDy());
+        hit(hitter, collisionPoint.getX(), collisionPoint.getY(), newVelocity);
+        return newVelocity;
+    }
+
+    /**
+     * Handles a collision with the block, changing the velocity of the hitter in place.
+     *
+     * @param hitter   The ball that hit the block.
+     * @param x        The x-coordinate of the collision point.
+     * @param y        The y-coordinate of the collision point.
+     * @param velocity The velocity of the ball, updated in place.
+     */
+    @Override
+    public void hit(Ball hitter, double x, double y, Velocity velocity) {
+        double minX = rectangle.getUpperLeft().getX();
+        double minY = rectangle.getUpperLeft().getY();
+        double maxX = minX + rectangle.getWidth();
+        double maxY = minY + rectangle.getHeight();
+
+        // Check if the collision point is on the bottom or upper line of the block
+        if (Geom.onHorizontal(x, y, maxY, minX, maxX) || Geom.onHorizontal(x, y, minY, minX, maxX)) {
+            velocity.setDy(-velocity.getDy());
+        }
+
+        // Check if the collision point is on the left or right line of the block
+        if (Geom.onVertical(x, y, minX, minY, maxY) || Geom.onVertical(x, y, maxX, minY, maxY)) {
+            velocity.setDx(-velocity.getDx());
+        }
+
+        if (!ballColorMatch(hitter) && takeHit()) {
+            if (this.hitEvents != null) {
+                this.hitEvents.publish(this, hitter, x, y);
+            } else {
+                this.notifyHit(hitter);
+            }
+        }
+    }
+
+
+    /**
+     * Draws the block on a given drawing surface.
+     *
+     * @param surface The drawing surface on which the block is to be drawn.
+     */
+    public void drawOn(DrawSurface surface) {
+        // Set the color of the drawing surface to the color of the rectangle
+        surface.setColor(this.getColor());
+
+        // Draw a filled rectangle
+        surface.fillRectangle((int) this.rectangle.getUpperLeft().getX(),
+                (int) this.rectangle.getUpperLeft().getY(),
+                (int) this.rectangle.getWidth(),
+                (int) this.rectangle.getHeight());
+
+        // Set the color to BLACK for drawing lines
+        surface.setColor(Color.BLACK);
+
+        // Draw all four sides of the rectangle using the drawLine method
+        drawRectangleLines(surface);
+    }
+
+
+    /**
+     * Records the block into a command buffer. Blocks do not overlap, so the fills of all the blocks
+     * share a layer, and so do their outlines, drawn after all the fills: the buffer then sets the
+     * color once per block color and once for all the outlines.
+     *
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void record(CommandBuffer buffer, double alpha) {
+        buffer.useLayer(FILL_LAYER);
+        buffer.setColor(this.getColor());
+        buffer.fillRectangle((int) this.rectangle.getUpperLeft().getX(),
+                (int) this.rectangle.getUpperLeft().getY(),
+                (int) this.rectangle.getWidth(),
+                (int) this.rectangle.getHeight());
+        buffer.useLayer(OUTLINE_LAYER);
+        buffer.setColor(Color.BLACK);
+        drawRectangleLines(buffer);
+    }
+
+    /**
+     * Draws the lines of the rectangle on the specified DrawSurface.
+     * This method draws the upper, bottom, left, and right lines of the rectangle.
+     *
+     * @param d The DrawSurface on which the rectangle lines will be drawn.
+     */
+    private void drawRectangleLines(DrawSurface d) {
+        drawLine(d, rectangle.getUpperLine());
+        drawLine(d, rectangle.getBottomLine());
+        drawLine(d, rectangle.getLeftLine());
+        drawLine(d, rectangle.getRightLine());
+    }
+
+    /**
+     * Draws a line on the specified DrawSurface.
+     *
+     * @param d    The DrawSurface on which the line will be drawn.
+     * @param line The Line object representing the line to be drawn.
+     */
+    private void drawLine(DrawSurface d, Line line) {
+        int x1 = (int) line.start().getX();
+        int y1 = (int) line.start().getY();
+        int x2 = (int) line.end().getX();
+        int y2 = (int) line.end().getY();
+        d.drawLine(x1, y1, x2, y2);
+    }
+
+
+
+    /**
+     * Returns the area of the block. Blocks never move or change color, so they are static sprites.
+     *
+     * @return The rectangle of the block.
+     */
+    @Override
+    public Rectangle getStaticBounds() {
+        return this.rectangle;
+    }
+
+    /**
+     * Empty implementation for the timePassed method.
+     * (No actions are performed in this method.)
+     */
+    public void timePassed() {
+
+    }
+
+
+    /**
+     * Adds this Block to the specified game, making it both a sprite and a collidable.
+     * The block will be rendered on the screen, and it will participate in collision detection and resolution.
+     *
+     * @param game The Game to which this Block will be added.
+     */
+    public void addToGame(Game game) {
+        this.hitEvents = game.getHitEvents();
+
+        // Add this Block as a sprite to be rendered.
+        game.addSprite(this);
+
+        // Add this Block as a collidable to participate in collision detection and resolution.
+        game.addCollidable(this);
+    }
+
+    /**
+     * Sets the bus the hits of the block are queued on, for a block put in a game without addToGame.
+     *
+     * @param hitEvents The hit event bus of the game, or null to notify the listeners at once.
+     */
+    public void setHitEvents(HitEventBus hitEvents) {
+        this.hitEvents = hitEvents;
+    }
+
+    /**
+     * Returns the id a hit event bus gave the block for the hits it queues until its next dispatch.
+     *
+     * @param window The window of the bus the id is asked for.
+     * @return The id, or -1 if the block has none in that window.
+     */
+    public int getBusId(long window) {
+        return this.busWindow == window ? this.busId : -1;
+    }
+
+    /**
+     * Keeps the id a hit event bus gave the block, until the window of the bus ends.
+     *
+     * @param window The window of the bus the id belongs to.
+     * @param id     The id.
+     */
+    public void setBusId(long window, int id) {
+        this.busWindow = window;
+        this.busId = id;
+    }
+
+    /**
+     * Removes this Block from the specified game, removing it as both a sprite and a collidable.
+     * The block will no longer render, and it won't participate in collision detection and resolution.
+     *
+     * @param game The Game from which this Block will be removed.
+     */
+    public void removeFromGame(Game game) {
+        // Remove this Block as a sprite to stop rendering.
+        game.removeSprite(this);
+
+        // Remove this Block as a collidable to exclude it from collision detection and resolution.
+        game.removeCollidable(this);
+    }
+
+
+    /**
+     * Takes a hit off the block and tells if the hit goes to the listeners. A block has no hit points
+     * of its own, so every hit does.
+     *
+     * @return {@code true} if the listeners are told of the hit, {@code false} otherwise.
+     */
+    boolean takeHit() {
+        return true;
+    }
+
+    /**
+     * Checks if the color of the ball matches the color of this Block.
+     *
+     * @param ball The Ball to check for color match.
+     * @return True if colors match, false otherwise.
+     */
+    public boolean ballColorMatch(Ball ball) {
+        return ball.getColor().getRGB() == this.getColor().getRGB();
+    }
+
+    /**
+     * Adds a HitListener to the list of listeners for hit events.
+     *
+     * @param hl The HitListener to be added.
+     */
+    @Override
+    public void addHitListener(HitListener hl) {
+        this.hitListeners.add(hl);
+    }
+
+    /**
+     * Removes a HitListener from the list of listeners for hit events.
+     *
+     * @param hl The HitListener to be removed.
+     */
+    @Override
+    public void removeHitListener(HitListener hl) {
+        this.hitListeners.remove(hl);
+    }
+
+    /**
+     * Returns the HitListeners of the block, as they are now.
+     *
+     * @return A read-only view of the listeners.
+     */
+    public List<HitListener> getHitListeners() {
+        return this.hitListenersView;
+    }
+
+    /**
+     * Notifies all HitListeners about a hit event with the specified hitter, at once, for a block
+     * that is not in a game and so has no hit event bus.
+     *
+     * @param hitter The Ball that hit this Block.
+     */
+    private void notifyHit(Ball hitter) {
+        // Make a copy of the hitListeners before iterating over them.
+        List<HitListener> listeners = new ArrayList<>(this.hitListeners);
+        // Notify all listeners about a hit event:
+        for (HitListener hl : listeners) {
+            hl.hitEvent(this, hitter);
+        }
+    }
+
+
+}
+
+
@@ -0,0 +1,771 @@
+// 318936507 Adir Tamam
+package Collidable;
+
+import Base.HitEventBus;
+import Base.HitListener;
+import Geometry.Point;
+import Geometry.RayHit;
+import Geometry.Rectangle;
+import Geometry.SweptCircle;
+import Render.CommandBuffer;
+import Sprites.Sprite;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The BlockTable class holds the blocks of a huge level off the heap, as rows of one direct buffer,
+ * instead of a Block object each, with its rectangle of four lines and eight points and its own
+ * list of listeners. A row is ROW_BYTES: the bounds of the block as four floats, its color as packed
+ * RGB, its hit points, the id of its listener group and its flags, of which the alive bit. The blocks
+ * of a group share the listeners of the group. A uniform grid of the rows, in two int arrays, finds
+ * the rows a collision query or a repaint has to look at, and both read the rows straight from the
+ * buffer.
+ * <p>
+ * A row becomes an object only when a ball hits it, for the hit and its listeners: the table makes a
+ * flyweight Block view of the row, with the listeners of its group, once, and keeps it, so the row
+ * always has the same view. A hit takes a hit point off the row, and only the hit that takes its last
+ * one, or any hit of a row that never breaks, goes to the listeners. Removing the view from the game
+ * environment clears the alive bit of the row and appends the row to a log of the removed rows, which
+ * the static layers read to draw the area of the block again. The table is drawn with the static
+ * sprites, and never moves.
+ */
+public class BlockTable implements Sprite {
+    // The size of a row, and where each field is in it
+    public static final int ROW_BYTES = 32;
+    private static final int X = 0;
+    private static final int Y = 4;
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 12;
+    private static final int RGB = 16;
+    private static final int HIT_POINTS = 20;
+    private static final int GROUP = 24;
+    private static final int FLAGS = 28;
+
+    // The flag of a row that is still in the game
+    private static final int ALIVE = 1;
+
+    // The smallest cell size of the grid, and how many times the size of an average block a cell is
+    private static final double MIN_CELL_SIZE = 1;
+    private static final double CELLS_PER_BLOCK = 2;
+
+    private final ByteBuffer rows;
+    private final int capacity;
+    private int count;
+
+    // The listeners of each group, and the bus the views queue their hits on
+    private final List<List<HitListener>> groups;
+    private HitEventBus hitEvents;
+
+    // The view of each row, made when the row is first hit
+    private final AtomicReferenceArray<Block> views;
+
+    // The rows removed, in order; a row is removed once at most, so the log never grows
+    private final int[] removed;
+    private int removedCount;
+
+    // The box around all the rows, and the rectangle of it for the static layer, null until asked for
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private Rectangle bounds;
+
+    // The grid: the cell size, the index of its first cell on each axis and its number of cells, and
+    // for each cell the start of its rows in the entries, the cells being in rows of columns
+    private double cellSize;
+    private int originX;
+    private int originY;
+    private int columns;
+    private int cellRows;
+    private int[] cellStart;
+    private int[] entries;
+
+    // While the grid is filled as the rows are added: the next free entry of each cell, and whether a
+    // row did not fit the cells it was given
+    private int[] cellFill;
+    private boolean gridBroken;
+
+    // The colors the rows are drawn in, by packed RGB
+    private final Map<Integer, Color> colors;
+
+    /**
+     * Constructs an empty table.
+     *
+     * @param capacity The number of rows the table holds.
+     */
+    public BlockTable(int capacity) {
+        if (capacity < 0 || (long) capacity * ROW_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A block table cannot hold " + capacity + " rows");
+        }
+        this.rows = ByteBuffer.allocateDirect(capacity * ROW_BYTES).order(ByteOrder.nativeOrder());
+        this.capacity = capacity;
+        this.groups = new ArrayList<>();
+        this.groups.add(new ArrayList<>());
+        this.views = new AtomicReferenceArray<>(capacity);
+        this.removed = new int[capacity];
+        this.colors = new ConcurrentHashMap<>();
+        this.minX = Double.POSITIVE_INFINITY;
+        this.minY = Double.POSITIVE_INFINITY;
+        this.maxX = Double.NEGATIVE_INFINITY;
+        this.maxY = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Adds a listener group, whose listeners every block of the group notifies of its hits. Group 0
+     * has no listeners.
+     *
+     * @param listeners The listeners of the group, in the order they are notified.
+     * @return The id of the group.
+     */
+    public int addGroup(HitListener... listeners) {
+        this.groups.add(new ArrayList<>(Arrays.asList(listeners)));
+        return this.groups.size() - 1;
+    }
+
+    /**
+     * Sets the bus the views of the rows queue their hits on.
+     *
+     * @param hitEvents The hit event bus of the game, or null to notify the listeners at once.
+     */
+    public void setHitEvents(HitEventBus hitEvents) {
+        this.hitEvents = hitEvents;
+    }
+
+    /**
+     * Starts a grid of the given cells, which the rows added next are put in as they are added, so
+     * no pass over the rows is needed after. The number of rows in every cell must be given by
+     * reserveCell before the first row is added; if a row then does not fit, buildGrid builds the
+     * grid again from the rows.
+     *
+     * @param size     The side length of a cell.
+     * @param minCellX The index along the x-axis of the first column of cells.
+     * @param minCellY The index along the y-axis of the first row of cells.
+     * @param maxCellX The index along the x-axis of the last column of cells.
+     * @param maxCellY The index along the y-axis of the last row of cells.
+     */
+    public void beginGrid(double size, int minCellX, int minCellY, int maxCellX, int maxCellY) {
+        setGrid(size, minCellX, minCellY, maxCellX, maxCellY);
+        this.cellFill = null;
+        this.gridBroken = this.count > 0;
+    }
+
+    /**
+     * Adds to the number of rows of a cell of the grid started by beginGrid.
+     *
+     * @param cellX The index of the cell along the x-axis.
+     * @param cellY The index of the cell along the y-axis.
+     * @param rowCount The number of rows that overlap the cell.
+     */
+    public void reserveCell(int cellX, int cellY, int rowCount) {
+        int cx = cellX - this.originX;
+        int cy = cellY - this.originY;
+        if (cx < 0 || cx >= this.columns || cy < 0 || cy >= this.cellRows || rowCount < 0 || this.cellFill != null) {
+            this.gridBroken = true;
+            return;
+        }
+        this.cellStart[cy * this.columns + cx + 1] += rowCount;
+    }
+
+    /**
+     * Adds a block.
+     *
+     * @param x         The x-coordinate of the upper-left corner of the block.
+     * @param y         The y-coordinate of the upper-left corner of the block.
+     * @param width     The width of the block.
+     * @param height    The height of the block.
+     * @param rgb       The color of the block, as packed RGB.
+     * @param hitPoints The number of hits the block takes before it breaks, or 0 if it never breaks.
+     * @param group     The id of the listener group of the block.
+     * @return The row of the block.
+     * @throws IllegalStateException If the table is full.
+     */
+    public int add(float x, float y, float width, float height, int rgb, int hitPoints, int group) {
+        if (this.count == this.capacity) {
+            throw new IllegalStateException("The block table is full");
+        }
+        if (group < 0 || group >= this.groups.size()) {
+            throw new IllegalArgumentException("No listener group " + group);
+        }
+        int row = this.count++;
+        int at = row * ROW_BYTES;
+        this.rows.putFloat(at + X, x).putFloat(at + Y, y).putFloat(at + WIDTH, width).putFloat(at + HEIGHT, height);
+        this.rows.putInt(at + RGB, rgb & 0xFFFFFF).putInt(at + HIT_POINTS, hitPoints);
+        this.rows.putInt(at + GROUP, group).putInt(at + FLAGS, ALIVE);
+        this.minX = Math.min(this.minX, x);
+        this.minY = Math.min(this.minY, y);
+        this.maxX = Math.max(this.maxX, (double) x + width);
+        this.maxY = Math.max(this.maxY, (double) y + height);
+        this.bounds = null;
+        if (this.cellStart != null && !this.gridBroken) {
+            fillCells(row);
+        }
+        return row;
+    }
+
+    /**
+     * Puts a row in the cells of the grid being filled, giving up the grid if it does not fit.
+     *
+     * @param row The row.
+     */
+    private void fillCells(int row) {
+        if (this.cellFill == null) {
+            // The cells have their sizes, so each starts where the ones before it end
+            for (int c = 0; c < this.columns * this.cellRows; c++) {
+                this.cellStart[c + 1] += this.cellStart[c];
+            }
+            this.entries = new int[this.cellStart[this.columns * this.cellRows]];
+            this.cellFill = Arrays.copyOf(this.cellStart, this.columns * this.cellRows);
+        }
+        int at = row * ROW_BYTES;
+        double x = this.rows.getFloat(at + X);
+        double y = this.rows.getFloat(at + Y);
+        int fromX = cellOf(x, this.originX);
+        int toX = cellOf(x + this.rows.getFloat(at + WIDTH), this.originX);
+        int fromY = cellOf(y, this.originY);
+        int toY = cellOf(y + this.rows.getFloat(at + HEIGHT), this.originY);
+        if (fromX < 0 || toX >= this.columns || fromY < 0 || toY >= this.cellRows) {
+            this.gridBroken = true;
+            return;
+        }
+        for (int cy = fromY; cy <= toY; cy++) {
+            for (int cx = fromX; cx <= toX; cx++) {
+                int c = cy * this.columns + cx;
+                if (this.cellFill[c] == this.cellStart[c + 1]) {
+                    this.gridBroken = true;
+                    return;
+                }
+                this.entries[this.cellFill[c]++] = row;
+            }
+        }
+    }
+
+    /**
+     * Finishes the grid of the rows: keeps the grid filled since beginGrid if every row fit it and
+     * every cell is full, and otherwise builds one in two passes over the rows, with the cell size
+     * of beginGrid or, without one, twice the side of an average block.
+     */
+    public void buildGrid() {
+        boolean filled = this.cellStart != null && !this.gridBroken
+                && (this.count > 0 ? this.cellFill != null : this.cellStart[this.cellStart.length - 1] == 0);
+        for (int c = 0; filled && this.cellFill != null && c < this.cellFill.length; c++) {
+            filled = this.cellFill[c] == this.cellStart[c + 1];
+        }
+        this.cellFill = null;
+        this.gridBroken = false;
+        if (filled) {
+            return;
+        }
+        double size = this.cellSize;
+        if (this.cellStart == null) {
+            double area = 0;
+            for (int row = 0; row < this.count; row++) {
+                int at = row * ROW_BYTES;
+                area += (double) this.rows.getFloat(at + WIDTH) * this.rows.getFloat(at + HEIGHT);
+            }
+            size = Math.max(MIN_CELL_SIZE, CELLS_PER_BLOCK * Math.sqrt(area / Math.max(1, this.count)));
+        }
+        if (this.count == 0) {
+            setGrid(size, 0, 0, 0, 0);
+            this.entries = new int[0];
+            return;
+        }
+        setGrid(size, (int) Math.floor(this.minX / size), (int) Math.floor(this.minY / size),
+                (int) Math.floor(this.maxX / size), (int) Math.floor(this.maxY / size));
+
+        // Count the rows of each cell, then put them in
+        for (int pass = 0; pass < 2; pass++) {
+            for (int row = 0; row < this.count; row++) {
+                int at = row * ROW_BYTES;
+                double x = this.rows.getFloat(at + X);
+                double y = this.rows.getFloat(at + Y);
+                int toX = cellOf(x + this.rows.getFloat(at + WIDTH), this.originX);
+                int toY = cellOf(y + this.rows.getFloat(at + HEIGHT), this.originY);
+                for (int cy = cellOf(y, this.originY); cy <= toY; cy++) {
+                    for (int cx = cellOf(x, this.originX); cx <= toX; cx++) {
+                        int c = cy * this.columns + cx;
+                        if (pass == 0) {
+                            this.cellStart[c + 1]++;
+                        } else {
+                            this.entries[this.cellFill[c]++] = row;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int c = 0; c < this.columns * this.cellRows; c++) {
+                    this.cellStart[c + 1] += this.cellStart[c];
+                }
+                this.entries = new int[this.cellStart[this.columns * this.cellRows]];
+                this.cellFill = Arrays.copyOf(this.cellStart, this.columns * this.cellRows);
+            }
+        }
+        this.cellFill = null;
+    }
+
+    /**
+     * Replaces the grid with an empty one, with no rows in any cell.
+     *
+     * @param size     The side length of a cell.
+     * @param minCellX The index along the x-axis of the first column of cells.
+     * @param minCellY The index along the y-axis of the first row of cells.
+     * @param maxCellX The index along the x-axis of the last column of cells.
+     * @param maxCellY The index along the y-axis of the last row of cells.
+     */
+    private void setGrid(double size, int minCellX, int minCellY, int maxCellX, int maxCellY) {
+        long cells = ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+        if (!(size > 0) || maxCellX < minCellX || maxCellY < minCellY || cells >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Not a valid grid of " + cells + " cells of size " + size);
+        }
+        this.cellSize = size;
+        this.originX = minCellX;
+        this.originY = minCellY;
+        this.columns = maxCellX - minCellX + 1;
+        this.cellRows = maxCellY - minCellY + 1;
+        this.cellStart = new int[(int) cells + 1];
+        this.entries = null;
+    }
+
+    /**
+     * Returns the index of the cell of the grid that contains a coordinate, from the first cell.
+     *
+     * @param coordinate The x or y coordinate.
+     * @param origin     The index of the first cell along the axis.
+     * @return The index of the cell along the axis.
+     */
+    private int cellOf(double coordinate, int origin) {
+        return (int) Math.floor(coordinate / this.cellSize) - origin;
+    }
+
+    /**
+     * Returns the number of rows in the table, removed or not.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Checks if a row is still in the game.
+     *
+     * @param row The row.
+     * @return {@code true} if the row was not removed, {@code false} otherwise.
+     */
+    public boolean isAlive(int row) {
+        return (this.rows.getInt(row * ROW_BYTES + FLAGS) & ALIVE) != 0;
+    }
+
+    /**
+     * Returns the x-coordinate of the upper-left corner of the block of a row.
+     *
+     * @param row The row.
+     * @return The x-coordinate.
+     */
+    public float getX(int row) {
+        return this.rows.getFloat(row * ROW_BYTES + X);
+    }
+
+    /**
+     * Returns the y-coordinate of the upper-left corner of the block of a row.
+     *
+     * @param row The row.
+     * @return The y-coordinate.
+     */
+    public float getY(int row) {
+        return this.rows.getFloat(row * ROW_BYTES + Y);
+    }
+
+    /**
+     * Returns the width of the block of a row.
+     *
+     * @param row The row.
+     * @return The width.
+     */
+    public float getWidth(int row) {
+        return this.rows.getFloat(row * ROW_BYTES + WIDTH);
+    }
+
+    /**
+     * Returns the height of the block of a row.
+     *
+     * @param row The row.
+     * @return The height.
+     */
+    public float getHeight(int row) {
+        return this.rows.getFloat(row * ROW_BYTES + HEIGHT);
+    }
+
+    /**
+     * Returns the color of the block of a row.
+     *
+     * @param row The row.
+     * @return The color, as packed RGB.
+     */
+    public int getRgb(int row) {
+        return this.rows.getInt(row * ROW_BYTES + RGB);
+    }
+
+    /**
+     * Takes a hit point off the block of a row, if it breaks at all. Hits are taken one at a time, on
+     * the thread that resolves them.
+     *
+     * @param row The row.
+     * @return {@code true} if the hit took the last point of the block or the block never breaks, so
+     * the hit goes to the listeners of the row; {@code false} if the block has points left.
+     */
+    public boolean takeHit(int row) {
+        int at = row * ROW_BYTES + HIT_POINTS;
+        int hitPoints = this.rows.getInt(at);
+        if (hitPoints <= 0) {
+            return true;
+        }
+        this.rows.putInt(at, hitPoints - 1);
+        return hitPoints == 1;
+    }
+
+    /**
+     * Returns the hit points of the block of a row.
+     *
+     * @param row The row.
+     * @return The number of hits the block still takes before it breaks, or 0 if it never breaks or
+     * is broken.
+     */
+    public int getHitPoints(int row) {
+        return this.rows.getInt(row * ROW_BYTES + HIT_POINTS);
+    }
+
+    /**
+     * Returns the id of the listener group of the block of a row.
+     *
+     * @param row The row.
+     * @return The id of the group.
+     */
+    public int getGroup(int row) {
+        return this.rows.getInt(row * ROW_BYTES + GROUP);
+    }
+
+    /**
+     * Removes a row from the game, clearing its alive bit and logging it.
+     *
+     * @param row The row.
+     * @return {@code true} if the row was alive, {@code false} if it was already removed.
+     */
+    public boolean remove(int row) {
+        if (!isAlive(row)) {
+            return false;
+        }
+        this.rows.putInt(row * ROW_BYTES + FLAGS, this.rows.getInt(row * ROW_BYTES + FLAGS) & ~ALIVE);
+        this.removed[this.removedCount++] = row;
+        return true;
+    }
+
+    /**
+     * Removes the row of a view from the game, if the collidable is a view of this table.
+     *
+     * @param c The collidable.
+     * @return {@code true} if the collidable is a view of a live row of the table, {@code false} otherwise.
+     */
+    public boolean remove(Collidable c) {
+        return c instanceof TableBlock && ((TableBlock) c).getTable() == this && remove(((TableBlock) c).getRow());
+    }
+
+    /**
+     * Returns the number of rows removed so far, the length of the log of removed rows. The log is
+     * only ever appended to, so another thread may read as far as a count it was handed.
+     *
+     * @return The number of removed rows.
+     */
+    public int getRemovedCount() {
+        return this.removedCount;
+    }
+
+    /**
+     * Returns a row of the log of removed rows.
+     *
+     * @param k The place of the row in the log, below getRemovedCount.
+     * @return The row removed k-th.
+     */
+    public int getRemovedRow(int k) {
+        return this.removed[k];
+    }
+
+    /**
+     * Returns the view of a row, making it the first time. Any number of threads may ask at once:
+     * they all get the same view.
+     *
+     * @param row The row.
+     * @return The Block view of the row.
+     */
+    public Block getView(int row) {
+        Block view = this.views.get(row);
+        if (view != null) {
+            return view;
+        }
+        int at = row * ROW_BYTES;
+        Rectangle rect = new Rectangle(new Point(this.rows.getFloat(at + X), this.rows.getFloat(at + Y)),
+                this.rows.getFloat(at + WIDTH), this.rows.getFloat(at + HEIGHT));
+        view = new TableBlock(this, row, rect, colorOf(getRgb(row)));
+        for (HitListener listener : this.groups.get(getGroup(row))) {
+            view.addHitListener(listener);
+        }
+        view.setHitEvents(this.hitEvents);
+        return this.views.compareAndSet(row, null, view) ? view : this.views.get(row);
+    }
+
+    /**
+     * Finds the first live row a circle moving along a segment hits before a limit, looking only at
+     * the cells of the grid around the move. A row in several of those cells is tested in the first
+     * one only. Queries read the table only, so any number of threads may run them at once.
+     *
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param limit  Only hits with a time of impact smaller than this are reported.
+     * @param hit    The holder the hit is written to, whose tests are counted on; untouched on a miss.
+     * @return The view of the row hit first, or null if no row is hit before the limit.
+     */
+    public Block findClosestCollision(double x, double y, double dx, double dy, double radius, double limit,
+                                      RayHit hit) {
+        if (this.entries == null) {
+            return null;
+        }
+        int fromX = Math.max(0, cellOf(Math.min(x, x + dx) - radius, this.originX));
+        int toX = Math.min(this.columns - 1, cellOf(Math.max(x, x + dx) + radius, this.originX));
+        int fromY = Math.max(0, cellOf(Math.min(y, y + dy) - radius, this.originY));
+        int toY = Math.min(this.cellRows - 1, cellOf(Math.max(y, y + dy) + radius, this.originY));
+        int closest = -1;
+        double best = limit;
+        for (int cy = fromY; cy <= toY; cy++) {
+            for (int cx = fromX; cx <= toX; cx++) {
+                int c = cy * this.columns + cx;
+                for (int e = this.cellStart[c]; e < this.cellStart[c + 1]; e++) {
+                    int row = this.entries[e];
+                    int at = row * ROW_BYTES;
+                    if ((this.rows.getInt(at + FLAGS) & ALIVE) == 0) {
+                        continue;
+                    }
+                    double left = this.rows.getFloat(at + X);
+                    double top = this.rows.getFloat(at + Y);
+                    if (!isFirstCell(cx, cy, left, top, fromX, fromY)) {
+                        continue;
+                    }
+                    hit.countTest();
+                    if (SweptCircle.sweep(x, y, dx, dy, radius, left, top, left + this.rows.getFloat(at + WIDTH),
+                            top + this.rows.getFloat(at + HEIGHT), best, hit)) {
+                        best = hit.getT();
+                        closest = row;
+                    }
+                }
+            }
+        }
+        return closest < 0 ? null : getView(closest);
+    }
+
+    /**
+     * Checks if a cell is the first cell of a range in which a row with the given corner is, so a row
+     * in several cells of the range is looked at once.
+     *
+     * @param cx    The index of the cell along the x-axis, from the first cell.
+     * @param cy    The index of the cell along the y-axis, from the first cell.
+     * @param left  The x-coordinate of the upper-left corner of the row.
+     * @param top   The y-coordinate of the upper-left corner of the row.
+     * @param fromX The first column of the range.
+     * @param fromY The first row of cells of the range.
+     * @return {@code true} if the row is looked at in this cell, {@code false} otherwise.
+     */
+    private boolean isFirstCell(int cx, int cy, double left, double top, int fromX, int fromY) {
+        return cx == Math.max(fromX, cellOf(left, this.originX)) && cy == Math.max(fromY, cellOf(top, this.originY));
+    }
+
+    /**
+     * Records the blocks of the rows that overlap an area into a command buffer, as Block.record
+     * does, leaving out the rows a static layer already took out of its drawing.
+     *
+     * @param buffer The command buffer.
+     * @param x      The x-coordinate of the upper-left corner of the area.
+     * @param y      The y-coordinate of the upper-left corner of the area.
+     * @param width  The width of the area.
+     * @param height The height of the area.
+     * @param hidden A bit per row, set if the row is left out, in words of 64 bits.
+     */
+    public void recordArea(CommandBuffer buffer, int x, int y, int width, int height, long[] hidden) {
+        if (this.entries == null) {
+            return;
+        }
+        // Lines are drawn on the right and bottom edges of a block too, so a block a pixel off counts
+        int fromX = Math.max(0, cellOf(x - 1, this.originX));
+        int toX = Math.min(this.columns - 1, cellOf(x + width, this.originX));
+        int fromY = Math.max(0, cellOf(y - 1, this.originY));
+        int toY = Math.min(this.cellRows - 1, cellOf(y + height, this.originY));
+        for (int layer = 0; layer < 2; layer++) {
+            buffer.useLayer(layer == 0 ? Block.FILL_LAYER : Block.OUTLINE_LAYER);
+            int drawnRgb = -1;
+            if (layer == 1) {
+                buffer.setColor(Color.BLACK);
+            }
+            for (int cy = fromY; cy <= toY; cy++) {
+                for (int cx = fromX; cx <= toX; cx++) {
+                    int c = cy * this.columns + cx;
+                    for (int e = this.cellStart[c]; e < this.cellStart[c + 1]; e++) {
+                        int row = this.entries[e];
+                        if ((hidden[row >>> 6] >>> row & 1) != 0) {
+                            continue;
+                        }
+                        int at = row * ROW_BYTES;
+                        double left = this.rows.getFloat(at + X);
+                        double top = this.rows.getFloat(at + Y);
+                        double right = left + this.rows.getFloat(at + WIDTH);
+                        double bottom = top + this.rows.getFloat(at + HEIGHT);
+                        if (!isFirstCell(cx, cy, left, top, fromX, fromY) || left > x + width || right + 1 < x
+                                || top > y + height || bottom + 1 < y) {
+                            continue;
+                        }
+                        if (layer == 0) {
+                            int rgb = this.rows.getInt(at + RGB);
+                            if (rgb != drawnRgb) {
+                                buffer.setColor(colorOf(rgb));
+                                drawnRgb = rgb;
+                            }
+                            drawFill(buffer, at);
+                        } else {
+                            drawOutline(buffer, at);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the block of a row in the current color, as Block does.
+     *
+     * @param d  The DrawSurface on which the block is filled.
+     * @param at The offset of the row.
+     */
+    private void drawFill(DrawSurface d, int at) {
+        float x = this.rows.getFloat(at + X);
+        float y = this.rows.getFloat(at + Y);
+        d.fillRectangle((int) x, (int) y, (int) this.rows.getFloat(at + WIDTH), (int) this.rows.getFloat(at + HEIGHT));
+    }
+
+    /**
+     * Draws the four lines of the block of a row in the current color, as Block does.
+     *
+     * @param d  The DrawSurface on which the block is outlined.
+     * @param at The offset of the row.
+     */
+    private void drawOutline(DrawSurface d, int at) {
+        double x = this.rows.getFloat(at + X);
+        double y = this.rows.getFloat(at + Y);
+        int left = (int) x;
+        int top = (int) y;
+        int right = (int) (x + this.rows.getFloat(at + WIDTH));
+        int bottom = (int) (y + this.rows.getFloat(at + HEIGHT));
+        d.drawLine(left, top, right, top);
+        d.drawLine(left, bottom, right, bottom);
+        d.drawLine(left, top, left, bottom);
+        d.drawLine(right, top, right, bottom);
+    }
+
+    /**
+     * Returns the color of a packed RGB, the same Color every time.
+     *
+     * @param rgb The packed RGB.
+     * @return The color.
+     */
+    private Color colorOf(int rgb) {
+        return this.colors.computeIfAbsent(rgb, Color::new);
+    }
+
+    /**
+     * Draws the blocks of all the live rows, their fills and then their outlines.
+     *
+     * @param d The DrawSurface on which the blocks are drawn.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        int drawnRgb = -1;
+        for (int row = 0; row < this.count; row++) {
+            int at = row * ROW_BYTES;
+            if ((this.rows.getInt(at + FLAGS) & ALIVE) != 0) {
+                int rgb = this.rows.getInt(at + RGB);
+                if (rgb != drawnRgb) {
+                    d.setColor(colorOf(rgb));
+                    drawnRgb = rgb;
+                }
+                drawFill(d, at);
+            }
+        }
+        d.setColor(Color.BLACK);
+        for (int row = 0; row < this.count; row++) {
+            int at = row * ROW_BYTES;
+            if ((this.rows.getInt(at + FLAGS) & ALIVE) != 0) {
+                drawOutline(d, at);
+            }
+        }
+    }
+
+    /**
+     * Records the blocks of all the live rows into the shared layers of the blocks.
+     *
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void record(CommandBuffer buffer, double alpha) {
+        buffer.useLayer(Block.FILL_LAYER);
+        int drawnRgb = -1;
+        for (int row = 0; row < this.count; row++) {
+            int at = row * ROW_BYTES;
+            if ((this.rows.getInt(at + FLAGS) & ALIVE) != 0) {
+                int rgb = this.rows.getInt(at + RGB);
+                if (rgb != drawnRgb) {
+                    buffer.setColor(colorOf(rgb));
+                    drawnRgb = rgb;
+                }
+                drawFill(buffer, at);
+            }
+        }
+        buffer.useLayer(Block.OUTLINE_LAYER);
+        buffer.setColor(Color.BLACK);
+        for (int row = 0; row < this.count; row++) {
+            int at = row * ROW_BYTES;
+            if ((this.rows.getInt(at + FLAGS) & ALIVE) != 0) {
+                drawOutline(buffer, at);
+            }
+        }
+    }
+
+    /**
+     * Returns the box around all the rows. The rows never move or change color, so the table is a
+     * static sprite, which a static layer draws through recordArea.
+     *
+     * @return The box around the rows, empty if there are none.
+     */
+    @Override
+    public Rectangle getStaticBounds() {
+        if (this.bounds == null) {
+            this.bounds = this.count == 0 ? new Rectangle(new Point(0, 0), 0, 0)
+                    : new Rectangle(new Point(this.minX, this.minY), this.maxX - this.minX, this.maxY - this.minY);
+        }
+        return this.bounds;
+    }
+
+    /**
+     * Empty implementation for the timePassed method: the blocks do nothing over time.
+     */
+    @Override
+    public void timePassed() {
+    }
+}
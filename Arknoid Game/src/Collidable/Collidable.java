@@ -1,34 +1,51 @@
-// 318936507 Adir Tamam
-package Collidable;
-
-import Geometry.Rectangle;
-import Geometry.Point;
-import Sprites.Ball;
-import Sprites.Velocity;
-
-
-/**
- * The Collidable interface represents an object that can be involved in collisions.
- * Implementing classes are required to provide methods for retrieving their collision rectangle
- * and handling collision events.
- */
-public interface Collidable {
-
-    /**
-     * Returns the collision rectangle (collision shape) of the object.
-     *
-     * @return The collision rectangle of the object.
-     */
-    Rectangle getCollisionRectangle();
-
-    /**
-     * Notifies the object that a collision occurred at the specified collision point
-     * with a given velocity. The method returns the new velocity expected after the hit.
-     *
-     * @param hitter           The ball that collided with the object.
-     * @param collisionPoint   The point of collision with the object.
-     * @param currentVelocity  The current velocity of the colliding object.
-     * @return The new velocity after the collision.
-     */
-    Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity);
-}
+// 318936507 Adir Tamam
+package Collidable;
+
+import Geometry.Rectangle;
+import Geometry.Point;
+import Sprites.Ball;
+import Sprites.Velocity;
+
+
+/**
+ * The Collidable interface represents an object that can be involved in collisions.
+ * Implementing classes are required to provide methods for retrieving their collision rectangle
+ * and handling collision events.
+ */
+public interface Collidable {
+
+    /**
+     * Returns the collision rectangle (collision shape) of the object.
+     *
+     * @return The collision rectangle of the object.
+     */
+    Rectangle getCollisionRectangle();
+
+    /**
+     * Notifies the object that a collision occurred at the specified collision point
+     * with a given velocity. The method returns the new velocity expected after the hit.
+     *
+     * @param hitter           The ball that collided with the object.
+     * @param collisionPoint   The point of collision with the object.
+     * @param currentVelocity  The current velocity of the colliding object.
+     * @return The new velocity after the collision.
+     */
+    Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity);
+
+    /**
+     * Notifies the object that a collision occurred at the specified collision point, and changes
+     * the given velocity in place to the velocity expected after the hit. This is the version used
+     * on the movement hot path; the default goes through the Point and Velocity version, and
+     * implementations override it to avoid allocating.
+     *
+     * @param hitter   The ball that collided with the object.
+     * @param x        The x-coordinate of the collision point.
+     * @param y        The y-coordinate of the collision point.
+     * @param velocity The velocity of the colliding object, updated in place.
+     */
+    default void hit(Ball hitter, double x, double y, Velocity velocity) {
+        Velocity newVelocity = hit(hitter, new Point(x, y), velocity);
+        velocity.setDx(newVelocity.getDx());
+        velocity.setDy(newVelocity.getDy());
+    }
+}
@@ -1,226 +1,379 @@
-// 318936507 Adir Tamam
-package Collidable;
-
-import Sprites.Sprite;
-import Sprites.Velocity;
-import biuoop.DrawSurface;
-import biuoop.KeyboardSensor;
-import Geometry.Rectangle;
-import Geometry.Line;
-import Geometry.Point;
-import Sprites.Ball;
-import Game.Game;
-
-import java.awt.Color;
-
-/**
- * The Paddle class represents a player-controlled paddle in a game.
- * It implements both the Sprite and Collidable interfaces.
- */
-public class Paddle implements Sprite, Collidable {
-    private Rectangle rectangle;
-    private final Color color;
-
-    private final double widthBound;
-    private int velocity;
-    private biuoop.KeyboardSensor keyboard;
-
-    /**
-     * Constructs a new Paddle with the specified parameters.
-     *
-     * @param rectangle  The rectangular shape defining the paddle.
-     * @param color      The color of the paddle.
-     * @param widthBound The width bound of the screen.
-     * @param velocity   The initial velocity of the paddle.
-     * @param keyboard   The keyboard sensor used to control the paddle.
-     */
-    public Paddle(Rectangle rectangle, Color color, double widthBound, int velocity, biuoop.KeyboardSensor keyboard) {
-        this.rectangle = rectangle;
-        this.color = color;
-        this.widthBound = widthBound;
-        this.velocity = velocity; // Consider using the provided velocity parameter
-        this.keyboard = keyboard;
-    }
-
-
-    /**
-     * Moves the paddle to the left, updating its position based on the current velocity.
-     * The paddle's position is adjusted to stay within the screen bounds.
-     */
-    public void moveLeft() {
-        // Calculate the next rectangle position
-        Rectangle nextRec = new Rectangle(new Point(rectangle.getUpperLeft().getX() - this.velocity,
-                rectangle.getUpperLeft().getY()), rectangle.getWidth(), rectangle.getHeight());
-
-        // Check if the next position is within the screen bounds
-        if (nextRec.getUpperLeft().getX() >= 0) {
-            this.rectangle = nextRec;
-        } else {
-            // If not, move the paddle to the rightmost position (wrap around)
-            nextRec = new Rectangle(new Point(widthBound - rectangle.getWidth(), rectangle.getUpperLeft().getY()),
-                    rectangle.getWidth(), rectangle.getHeight());
-            this.rectangle = nextRec;
-        }
-    }
-
-
-    /**
-     * Moves the paddle to the right, updating its position based on the current velocity.
-     * The paddle's position is adjusted to stay within the screen bounds.
-     */
-    public void moveRight() {
-        // Calculate the next rectangle position
-        Rectangle nextRec = new Rectangle(new Point(rectangle.getUpperLeft().getX() + this.velocity,
-                rectangle.getUpperLeft().getY()), rectangle.getWidth(), rectangle.getHeight());
-
-        // Check if the next position is within the screen bounds
-        if (nextRec.getUpperLeft().getX() + nextRec.getWidth() <= this.widthBound) {
-            this.rectangle = nextRec;
-        } else {
-            // If not, move the paddle to the leftmost position (wrap around)
-            nextRec = new Rectangle(new Point(0, rectangle.getUpperLeft().getY()),
-                    rectangle.getWidth(), rectangle.getHeight());
-            this.rectangle = nextRec;
-        }
-    }
-
-    /**
-     * Sets the velocity of the paddle.
-     *
-     * @param velocity The new velocity to be set.
-     */
-    public void setVelocity(int velocity) {
-        this.velocity = velocity;
-    }
-
-    // Sprite
-
-    /**
-     * Updates the paddle's position based on user input.
-     * If the left key is pressed, the paddle moves to the left.
-     * If the right key is pressed, the paddle moves to the right.
-     */
-    public void timePassed() {
-        // Check if the left key is pressed and move the paddle left
-        if (keyboard.isPressed(KeyboardSensor.LEFT_KEY)) {
-            moveLeft();
-        }
-
-        // Check if the right key is pressed and move the paddle right
-        if (keyboard.isPressed(KeyboardSensor.RIGHT_KEY)) {
-            moveRight();
-        }
-    }
-
-
-    /**
-     * Draws the paddle on the given DrawSurface.
-     *
-     * @param surface The DrawSurface on which the paddle is drawn.
-     */
-    public void drawOn(DrawSurface surface) {
-        surface.setColor(this.color);
-
-        // Draw a filled rectangle representing the paddle
-        surface.fillRectangle((int) this.rectangle.getUpperLeft().getX(), (int) this.rectangle.getUpperLeft().getY(),
-                (int) this.rectangle.getWidth(), (int) this.rectangle.getHeight());
-
-        // Set color to black for drawing lines
-        surface.setColor(Color.BLACK);
-
-        // Draw the lines of the rectangle
-        drawRectangleLines(surface);
-    }
-
-    private void drawRectangleLines(DrawSurface d) {
-        drawLine(d, rectangle.getUpperLine());
-        drawLine(d, rectangle.getBottomLine());
-        drawLine(d, rectangle.getLeftLine());
-        drawLine(d, rectangle.getRightLine());
-    }
-
-
-    /**
-     * Draws the specified line on the given DrawSurface.
-     *
-     * @param d    The DrawSurface on which the line is drawn.
-     * @param line The Line to be drawn.
-     */
-    public void drawLine(DrawSurface d, Line line) {
-        // Extract coordinates from the line and draw it on the surface
-        int x1 = (int) line.start().getX();
-        int y1 = (int) line.start().getY();
-        int x2 = (int) line.end().getX();
-        int y2 = (int) line.end().getY();
-        d.drawLine(x1, y1, x2, y2);
-    }
-
-
-    /**
-     * Returns the collision rectangle of the paddle.
-     *
-     * @return The collision rectangle of the paddle.
-     */
-    public Rectangle getCollisionRectangle() {
-        return this.rectangle;
-    }
-
-
-    /**
-     * Returns the new velocity of the ball after hitting the paddle, based on the collision point.
-     *
-     * @param collision       The point of collision.
-     * @param currentVelocity The current velocity of the ball.
-     * @param hitter The ball that hit the block.
-     * @return The new velocity after the hit.
-     */
-    public Velocity hit(Ball hitter, Point collision, Velocity currentVelocity) {
-        double upperLeftX = rectangle.getUpperLeft().getX();
-        double regionWidth = this.rectangle.getWidth() / 5;
-        double region1 = upperLeftX + 1 * regionWidth;
-        double region2 = upperLeftX + 2 * regionWidth;
-        double region3 = upperLeftX + 3 * regionWidth;
-        double region4 = upperLeftX + 4 * regionWidth;
-        double region5 = upperLeftX + 5 * regionWidth;
-
-        // Check which region the collision point is in and return a new velocity accordingly
-        if (collision.getX() >= upperLeftX && collision.getX() <= region1) {
-            return Velocity.fromAngleAndSpeed(300, currentVelocity.getSpeed());
-        }
-        if (collision.getX() >= region1 && collision.getX() <= region2) {
-            return Velocity.fromAngleAndSpeed(330, currentVelocity.getSpeed());
-        }
-        if (collision.getX() >= region2 && collision.getX() <= region3) {
-            currentVelocity.setDy(-currentVelocity.getDy());
-        }
-        if (collision.getX() >= region3 && collision.getX() <= region4) {
-            return Velocity.fromAngleAndSpeed(30, currentVelocity.getSpeed());
-        }
-        if (collision.getX() >= region4 && collision.getX() <= region5) {
-            return Velocity.fromAngleAndSpeed(60, currentVelocity.getSpeed());
-        }
-
-        // Check if the collision point is on the left or right side
-        // of the block, and return a new velocity accordingly.
-        if (this.rectangle.getLeftLine().onLine(collision) || this.rectangle.getRightLine().onLine(collision)) {
-            currentVelocity.setDx(-currentVelocity.getDx());
-        }
-
-        return currentVelocity;
-    }
-
-
-    // Add this paddle to the game.
-
-    /**
-     * Adds the paddle to the given game by registering it as both a collidable and a sprite.
-     *
-     * @param g The game to which the paddle is added.
-     */
-    public void addToGame(Game g) {
-        // Register the paddle as a collidable and a sprite in the game
-        g.addCollidable(this);
-        g.addSprite(this);
-    }
-
+// 318936507 Adir Tamam
+package Collidable;
+
+import Sprites.Sprite;
+import Sprites.Velocity;
+import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
+import Input.InputSource;
+import Input.KeyboardInput;
+import Geometry.Geom;
+import Geometry.Rectangle;
+import Geometry.Line;
+import Geometry.Point;
+import Sprites.Ball;
+import Game.Game;
+import Game.GameEnvironment;
+import Render.DirtyRegion;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+
+/**
+ * The Paddle class represents a player-controlled paddle in a game.
+ * It implements both the Sprite and Collidable interfaces.
+ */
+public class Paddle implements Sprite, Collidable {
+    // The number of bytes saveState writes
+    public static final int STATE_BYTES = 2 * Double.BYTES;
+
+    private Rectangle rectangle;
+    private final Color color;
+
+    private final double widthBound;
+    private int velocity;
+    private final InputSource input;
+
+    // The x-coordinate of the paddle before the last tick, to draw it between ticks
+    private double previousX;
+
+    // The environment the paddle is indexed in, notified whenever the paddle moves
+    private GameEnvironment environment;
+
+    // The x-coordinate the paddle was last reported drawn at, and whether it was drawn yet
+    private double drawnX;
+    private boolean drawn;
+
+    /**
+     * Constructs a new Paddle with the specified parameters.
+     *
+     * @param rectangle  The rectangular shape defining the paddle.
+     * @param color      The color of the paddle.
+     * @param widthBound The width bound of the screen.
+     * @param velocity   The initial velocity of the paddle.
+     * @param keyboard   The keyboard sensor used to control the paddle.
+     */
+    public Paddle(Rectangle rectangle, Color color, double widthBound, int velocity, KeyboardSensor keyboard) {
+        this(rectangle, color, widthBound, velocity, new KeyboardInput(keyboard));
+    }
+
+    /**
+     * Constructs a new Paddle controlled by the given input source.
+     *
+     * @param rectangle  The rectangular shape defining the paddle.
+     * @param color      The color of the paddle.
+     * @param widthBound The width bound of the screen.
+     * @param velocity   The initial velocity of the paddle.
+     * @param input      The input source used to control the paddle.
+     */
+    public Paddle(Rectangle rectangle, Color color, double widthBound, int velocity, InputSource input) {
+        this.rectangle = rectangle;
+        this.color = color;
+        this.widthBound = widthBound;
+        this.velocity = velocity; // Consider using the provided velocity parameter
+        this.input = input;
+        this.previousX = rectangle.getUpperLeft().getX();
+    }
+
+
+    /**
+     * Moves the paddle to the left, updating its position based on the current velocity.
+     * The paddle's position is adjusted to stay within the screen bounds.
+     */
+    public void moveLeft() {
+        // Calculate the next rectangle position
+        Rectangle nextRec = new Rectangle(new Point(rectangle.getUpperLeft().getX() - this.velocity,
+                rectangle.getUpperLeft().getY()), rectangle.getWidth(), rectangle.getHeight());
+
+        // Check if the next position is within the screen bounds
+        if (nextRec.getUpperLeft().getX() >= 0) {
+            this.rectangle = nextRec;
+        } else {
+            // If not, move the paddle to the rightmost position (wrap around)
+            nextRec = new Rectangle(new Point(widthBound - rectangle.getWidth(), rectangle.getUpperLeft().getY()),
+                    rectangle.getWidth(), rectangle.getHeight());
+            this.rectangle = nextRec;
+        }
+        reindex();
+    }
+
+
+    /**
+     * Moves the paddle to the right, updating its position based on the current velocity.
+     * The paddle's position is adjusted to stay within the screen bounds.
+     */
+    public void moveRight() {
+        // Calculate the next rectangle position
+        Rectangle nextRec = new Rectangle(new Point(rectangle.getUpperLeft().getX() + this.velocity,
+                rectangle.getUpperLeft().getY()), rectangle.getWidth(), rectangle.getHeight());
+
+        // Check if the next position is within the screen bounds
+        if (nextRec.getUpperLeft().getX() + nextRec.getWidth() <= this.widthBound) {
+            this.rectangle = nextRec;
+        } else {
+            // If not, move the paddle to the leftmost position (wrap around)
+            nextRec = new Rectangle(new Point(0, rectangle.getUpperLeft().getY()),
+                    rectangle.getWidth(), rectangle.getHeight());
+            this.rectangle = nextRec;
+        }
+        reindex();
+    }
+
+    /**
+     * Re-indexes the paddle in its game environment after its rectangle has changed.
+     */
+    private void reindex() {
+        if (this.environment != null) {
+            this.environment.updateCollidable(this);
+        }
+    }
+
+    /**
+     * Writes the state of the paddle that changes as the game runs into a snapshot: its
+     * x-coordinate and its x-coordinate before the last tick, STATE_BYTES in all.
+     *
+     * @param out The buffer the state is written to.
+     */
+    public void saveState(ByteBuffer out) {
+        out.putDouble(this.rectangle.getUpperLeft().getX()).putDouble(this.previousX);
+    }
+
+    /**
+     * Reads the state of the paddle back from a snapshot written by saveState, and re-indexes it.
+     *
+     * @param in The buffer the state is read from.
+     */
+    public void restoreState(ByteBuffer in) {
+        this.rectangle = new Rectangle(new Point(in.getDouble(), this.rectangle.getUpperLeft().getY()),
+                this.rectangle.getWidth(), this.rectangle.getHeight());
+        this.previousX = in.getDouble();
+        reindex();
+    }
+
+    /**
+     * Sets the velocity of the paddle.
+     *
+     * @param velocity The new velocity to be set.
+     */
+    public void setVelocity(int velocity) {
+        this.velocity = velocity;
+    }
+
+    // Sprite
+
+    /**
+     * Updates the paddle's position based on user input.
+     * If the left key is pressed, the paddle moves to the left.
+     * If the right key is pressed, the paddle moves to the right.
+     */
+    public void timePassed() {
+        this.previousX = rectangle.getUpperLeft().getX();
+
+        // Check if the left key is pressed and move the paddle left
+        if (input.isLeftPressed()) {
+            moveLeft();
+        }
+
+        // Check if the right key is pressed and move the paddle right
+        if (input.isRightPressed()) {
+            moveRight();
+        }
+    }
+
+
+    /**
+     * Draws the paddle on the given DrawSurface.
+     *
+     * @param surface The DrawSurface on which the paddle is drawn.
+     */
+    public void drawOn(DrawSurface surface) {
+        surface.setColor(this.color);
+
+        // Draw a filled rectangle representing the paddle
+        surface.fillRectangle((int) this.rectangle.getUpperLeft().getX(), (int) this.rectangle.getUpperLeft().getY(),
+                (int) this.rectangle.getWidth(), (int) this.rectangle.getHeight());
+
+        // Set color to black for drawing lines
+        surface.setColor(Color.BLACK);
+
+        // Draw the lines of the rectangle
+        drawRectangleLines(surface);
+    }
+
+    /**
+     * Draws the paddle between its position before the last tick and its current position.
+     * A move that wrapped around the screen is not interpolated, so the paddle does not sweep across it.
+     *
+     * @param surface The DrawSurface on which the paddle is drawn.
+     * @param alpha   How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void drawOn(DrawSurface surface, double alpha) {
+        double currentX = this.rectangle.getUpperLeft().getX();
+        if (Math.abs(currentX - this.previousX) > 2 * this.velocity) {
+            drawOn(surface);
+            return;
+        }
+        double x = drawX(alpha);
+        double y = this.rectangle.getUpperLeft().getY();
+        double width = this.rectangle.getWidth();
+        double height = this.rectangle.getHeight();
+        surface.setColor(this.color);
+        surface.fillRectangle((int) x, (int) y, (int) width, (int) height);
+        surface.setColor(Color.BLACK);
+        drawLine(surface, new Line(x, y, x + width, y));
+        drawLine(surface, new Line(x, y + height, x + width, y + height));
+        drawLine(surface, new Line(x, y, x, y + height));
+        drawLine(surface, new Line(x + width, y, x + width, y + height));
+    }
+
+    /**
+     * Adds to a region the area the paddle was last drawn in and the one it is drawn in now, if the
+     * paddle moved since. The outline is drawn on the right and bottom edges too, so both areas are
+     * a pixel wider and higher than the paddle.
+     *
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void addDamage(DirtyRegion region, double alpha) {
+        double x = drawX(alpha);
+        if (this.drawn && x == this.drawnX) {
+            return;
+        }
+        int y = (int) Math.floor(this.rectangle.getUpperLeft().getY());
+        int width = (int) Math.ceil(this.rectangle.getWidth()) + 2;
+        int height = (int) Math.ceil(this.rectangle.getHeight()) + 2;
+        if (this.drawn) {
+            region.add((int) Math.floor(this.drawnX), y, width, height);
+        }
+        region.add((int) Math.floor(x), y, width, height);
+        this.drawnX = x;
+        this.drawn = true;
+    }
+
+    /**
+     * Returns the x-coordinate the paddle is drawn at between its position before the last tick and
+     * its current position, or its current position if the last move wrapped around the screen.
+     *
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     * @return The x-coordinate of the left edge of the drawn paddle.
+     */
+    private double drawX(double alpha) {
+        double currentX = this.rectangle.getUpperLeft().getX();
+        if (Math.abs(currentX - this.previousX) > 2 * this.velocity) {
+            return currentX;
+        }
+        return this.previousX + (currentX - this.previousX) * alpha;
+    }
+
+    private void drawRectangleLines(DrawSurface d) {
+        drawLine(d, rectangle.getUpperLine());
+        drawLine(d, rectangle.getBottomLine());
+        drawLine(d, rectangle.getLeftLine());
+        drawLine(d, rectangle.getRightLine());
+    }
+
+
+    /**
+     * Draws the specified line on the given DrawSurface.
+     *
+     * @param d    The DrawSurface on which the line is drawn.
+     * @param line The Line to be drawn.
+     */
+    public void drawLine(DrawSurface d, Line line) {
+        // Extract coordinates from the line and draw it on the surface
+        int x1 = (int) line.start().getX();
+        int y1 = (int) line.start().getY();
+        int x2 = (int) line.end().getX();
+        int y2 = (int) line.end().getY();
+        d.drawLine(x1, y1, x2, y2);
+    }
+
+
+    /**
+     * Returns the collision rectangle of the paddle.
+     *
+     * @return The collision rectangle of the paddle.
+     */
+    public Rectangle getCollisionRectangle() {
+        return this.rectangle;
+    }
+
+
+    /**
+     * Returns the new velocity of the ball after hitting the paddle, based on the collision point.
+     *
+     * @param collision       The point of collision.
+     * @param currentVelocity The current velocity of the ball.
+     * @param hitter The ball that hit the block.
+     * @return The new velocity after the hit.
+     */
+    public Velocity hit(Ball hitter, Point collision, Velocity currentVelocity) {
+        hit(hitter, collision.getX(), collision.getY(), currentVelocity);
+        return currentVelocity;
+    }
+
+    /**
+     * Changes the velocity of the ball in place after hitting the paddle, based on the collision point.
+     *
+     * @param hitter   The ball that hit the paddle.
+     * @param x        The x-coordinate of the collision point.
+     * @param y        The y-coordinate of the collision point.
+     * @param velocity The velocity of the ball, updated in place.
+     */
+    @Override
+    public void hit(Ball hitter, double x, double y, Velocity velocity) {
+        double upperLeftX = rectangle.getUpperLeft().getX();
+        double regionWidth = this.rectangle.getWidth() / 5;
+        double region1 = upperLeftX + 1 * regionWidth;
+        double region2 = upperLeftX + 2 * regionWidth;
+        double region3 = upperLeftX + 3 * regionWidth;
+        double region4 = upperLeftX + 4 * regionWidth;
+        double region5 = upperLeftX + 5 * regionWidth;
+
+        // Check which region the collision point is in and set the new velocity accordingly
+        if (x >= upperLeftX && x <= region1) {
+            velocity.setFromAngleAndSpeed(300, velocity.getSpeed());
+            return;
+        }
+        if (x >= region1 && x <= region2) {
+            velocity.setFromAngleAndSpeed(330, velocity.getSpeed());
+            return;
+        }
+        if (x >= region2 && x <= region3) {
+            velocity.setDy(-velocity.getDy());
+        }
+        if (x >= region3 && x <= region4) {
+            velocity.setFromAngleAndSpeed(30, velocity.getSpeed());
+            return;
+        }
+        if (x >= region4 && x <= region5) {
+            velocity.setFromAngleAndSpeed(60, velocity.getSpeed());
+            return;
+        }
+
+        // Check if the collision point is on the left or right side
+        // of the block, and change the velocity accordingly.
+        double minY = rectangle.getUpperLeft().getY();
+        double maxY = minY + rectangle.getHeight();
+        if (Geom.onVertical(x, y, upperLeftX, minY, maxY) || Geom.onVertical(x, y, region5, minY, maxY)) {
+            velocity.setDx(-velocity.getDx());
+        }
+    }
+
+
+    // Add this paddle to the game.
+
+    /**
+     * Adds the paddle to the given game by registering it as both a collidable and a sprite.
+     *
+     * @param g The game to which the paddle is added.
+     */
+    public void addToGame(Game g) {
+        // Register the paddle as a collidable and a sprite in the game
+        g.addCollidable(this);
+        g.addSprite(this);
+        this.environment = g.getGameEnvironment();
+    }
+
 }
\ No newline at end of file
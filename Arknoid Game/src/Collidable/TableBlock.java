@@ -0,0 +1,72 @@
+// 318936507 Adir Tamam
+package Collidable;
+
+import Game.Game;
+import Geometry.Rectangle;
+
+import java.awt.Color;
+
+/**
+ * The TableBlock class is the Block view of a row of a BlockTable, which the table makes when the
+ * row is hit, so the hit and its listeners get a block as if it were an object. The view is not a
+ * sprite of the game and not a collidable of its environment: the table draws and finds the row,
+ * and removing the view from the game removes the row. A hit on the view takes a hit point off the
+ * row, and reaches the listeners only once the row has none left.
+ */
+class TableBlock extends Block {
+    private final BlockTable table;
+    private final int row;
+
+    /**
+     * Constructs the view of a row.
+     *
+     * @param table     The table of the row.
+     * @param row       The row.
+     * @param rectangle The bounds of the row.
+     * @param color     The color of the row.
+     */
+    TableBlock(BlockTable table, int row, Rectangle rectangle, Color color) {
+        super(rectangle, color);
+        this.table = table;
+        this.row = row;
+    }
+
+    /**
+     * Returns the table of the row of the view.
+     *
+     * @return The block table.
+     */
+    BlockTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * Returns the row of the view.
+     *
+     * @return The row.
+     */
+    int getRow() {
+        return this.row;
+    }
+
+    /**
+     * Takes a hit point off the row, and tells if that was its last one, or if the row never breaks.
+     *
+     * @return {@code true} if the listeners are told of the hit, {@code false} otherwise.
+     */
+    @Override
+    boolean takeHit() {
+        return this.table.takeHit(this.row);
+    }
+
+    /**
+     * Views are made by their table, which is in the game already, so they cannot be added to one.
+     *
+     * @param game The Game.
+     * @throws IllegalStateException Always.
+     */
+    @Override
+    public void addToGame(Game game) {
+        throw new IllegalStateException("The view of a row of a block table cannot be added to a game");
+    }
+}
@@ -0,0 +1,226 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import java.util.Arrays;
+
+/**
+ * The Archetype class is the table of the entities that have exactly one set of components. Every
+ * field of every component is a packed array, indexed by the row of the entity, and the rows are
+ * kept dense: removing a row moves the last one into it. The arrays of the components the archetype
+ * does not have are null. They are package-private, so the systems loop over them directly.
+ */
+public class Archetype {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int mask;
+
+    // The number of rows, and the entity of each row
+    int count;
+    int[] entities;
+
+    // The number of rows ever added, so a system can tell that rows came since it last looked
+    long added;
+
+    // POSITION
+    double[] x;
+    double[] y;
+
+    // VELOCITY
+    double[] dx;
+    double[] dy;
+    double[] previousX;
+    double[] previousY;
+
+    // BOUNDS
+    double[] width;
+    double[] height;
+
+    // COLOR
+    int[] rgb;
+
+    // HIT_POINTS
+    int[] hitPoints;
+
+    // LISTENERS
+    int[] listeners;
+
+    /**
+     * Constructs an empty table for the entities with the given components.
+     *
+     * @param mask The archetype mask of the components.
+     */
+    Archetype(int mask) {
+        this.mask = mask;
+        this.entities = new int[INITIAL_CAPACITY];
+        if (has(Component.POSITION.bit())) {
+            this.x = new double[INITIAL_CAPACITY];
+            this.y = new double[INITIAL_CAPACITY];
+        }
+        if (has(Component.VELOCITY.bit())) {
+            this.dx = new double[INITIAL_CAPACITY];
+            this.dy = new double[INITIAL_CAPACITY];
+            this.previousX = new double[INITIAL_CAPACITY];
+            this.previousY = new double[INITIAL_CAPACITY];
+        }
+        if (has(Component.BOUNDS.bit())) {
+            this.width = new double[INITIAL_CAPACITY];
+            this.height = new double[INITIAL_CAPACITY];
+        }
+        if (has(Component.COLOR.bit())) {
+            this.rgb = new int[INITIAL_CAPACITY];
+        }
+        if (has(Component.HIT_POINTS.bit())) {
+            this.hitPoints = new int[INITIAL_CAPACITY];
+        }
+        if (has(Component.LISTENERS.bit())) {
+            this.listeners = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Returns the archetype mask of the components of the table.
+     *
+     * @return The mask of the components.
+     */
+    public int getMask() {
+        return this.mask;
+    }
+
+    /**
+     * Checks if the table has all the given components.
+     *
+     * @param components The archetype mask of the components.
+     * @return {@code true} if the table has every one of them, {@code false} otherwise.
+     */
+    public boolean has(int components) {
+        return (this.mask & components) == components;
+    }
+
+    /**
+     * Returns the number of entities in the table.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Adds a row for an entity, with every field zero.
+     *
+     * @param entity The entity.
+     * @return The row of the entity.
+     */
+    int addRow(int entity) {
+        if (this.count == this.entities.length) {
+            grow(2 * this.count);
+        }
+        int row = this.count++;
+        this.entities[row] = entity;
+        this.added++;
+        return row;
+    }
+
+    /**
+     * Removes a row, moving the last row into it.
+     *
+     * @param row The row to remove.
+     * @return The entity moved into the row, or -1 if the row was the last one.
+     */
+    int removeRow(int row) {
+        int last = --this.count;
+        if (row == last) {
+            clearRow(last);
+            return -1;
+        }
+        this.entities[row] = this.entities[last];
+        if (this.x != null) {
+            this.x[row] = this.x[last];
+            this.y[row] = this.y[last];
+        }
+        if (this.dx != null) {
+            this.dx[row] = this.dx[last];
+            this.dy[row] = this.dy[last];
+            this.previousX[row] = this.previousX[last];
+            this.previousY[row] = this.previousY[last];
+        }
+        if (this.width != null) {
+            this.width[row] = this.width[last];
+            this.height[row] = this.height[last];
+        }
+        if (this.rgb != null) {
+            this.rgb[row] = this.rgb[last];
+        }
+        if (this.hitPoints != null) {
+            this.hitPoints[row] = this.hitPoints[last];
+        }
+        if (this.listeners != null) {
+            this.listeners[row] = this.listeners[last];
+        }
+        clearRow(last);
+        return this.entities[row];
+    }
+
+    /**
+     * Sets every field of a row back to zero, so a row added there later starts empty.
+     *
+     * @param row The row.
+     */
+    private void clearRow(int row) {
+        if (this.x != null) {
+            this.x[row] = 0;
+            this.y[row] = 0;
+        }
+        if (this.dx != null) {
+            this.dx[row] = 0;
+            this.dy[row] = 0;
+            this.previousX[row] = 0;
+            this.previousY[row] = 0;
+        }
+        if (this.width != null) {
+            this.width[row] = 0;
+            this.height[row] = 0;
+        }
+        if (this.rgb != null) {
+            this.rgb[row] = 0;
+        }
+        if (this.hitPoints != null) {
+            this.hitPoints[row] = 0;
+        }
+        if (this.listeners != null) {
+            this.listeners[row] = 0;
+        }
+    }
+
+    /**
+     * Grows every array of the table.
+     *
+     * @param capacity The new number of rows the arrays hold.
+     */
+    private void grow(int capacity) {
+        this.entities = Arrays.copyOf(this.entities, capacity);
+        if (this.x != null) {
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+        }
+        if (this.dx != null) {
+            this.dx = Arrays.copyOf(this.dx, capacity);
+            this.dy = Arrays.copyOf(this.dy, capacity);
+            this.previousX = Arrays.copyOf(this.previousX, capacity);
+            this.previousY = Arrays.copyOf(this.previousY, capacity);
+        }
+        if (this.width != null) {
+            this.width = Arrays.copyOf(this.width, capacity);
+            this.height = Arrays.copyOf(this.height, capacity);
+        }
+        if (this.rgb != null) {
+            this.rgb = Arrays.copyOf(this.rgb, capacity);
+        }
+        if (this.hitPoints != null) {
+            this.hitPoints = Arrays.copyOf(this.hitPoints, capacity);
+        }
+        if (this.listeners != null) {
+            this.listeners = Arrays.copyOf(this.listeners, capacity);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import Geometry.RayHit;
+import Geometry.SweptCircle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BoxGrid class is the broadphase of the boxes of a World: a uniform grid of them, in two int
+ * arrays like the grid of a BlockTable, each cell with the entities of the boxes that overlap it, so
+ * a ball looks at the boxes around its move only. Each entity comes with the index of its table
+ * in the list of tables of boxes, which only grows, so a query finds the table without a search.
+ * The grid is built again when a box was added, since boxes never move; a removed box is left in
+ * its cells and skipped, until the next build.
+ */
+class BoxGrid {
+    // The smallest cell size, and how many times the size of an average box a cell is
+    private static final double MIN_CELL_SIZE = 1;
+    private static final double CELLS_PER_BOX = 2;
+
+    // The most cells the grid has for each box, so boxes far apart do not make a huge grid
+    private static final int CELLS_PER_ENTRY = 4;
+
+    private final World world;
+
+    // The tables of the boxes of the grid, and the rows ever added to them when it was built
+    private final List<Archetype> boxes;
+    private int builtTables;
+    private long builtRows;
+
+    // The grid: the cell size, the index of its first cell on each axis and its number of cells, and
+    // for each cell the start of its entities in the entries, the cells being in rows of columns, and
+    // the index of the table of each entry
+    private double cellSize;
+    private int originX;
+    private int originY;
+    private int columns;
+    private int cellRows;
+    private int[] cellStart;
+    private int[] entries;
+    private int[] entryTables;
+
+    // The hit of the box being tested, kept apart until it is known to come first
+    private final RayHit candidate;
+
+    /**
+     * Constructs an empty grid of the boxes of a world.
+     *
+     * @param world The world.
+     * @param boxes The tables of the boxes, which the system that owns the grid keeps up to date.
+     */
+    BoxGrid(World world, List<Archetype> boxes) {
+        this.world = world;
+        this.boxes = boxes;
+        this.builtTables = -1;
+        this.candidate = new RayHit();
+    }
+
+    /**
+     * Builds the grid again if a table of boxes or a box was added since it was built.
+     */
+    void update() {
+        long rows = 0;
+        for (Archetype table : this.boxes) {
+            rows += table.added;
+        }
+        if (this.builtTables == this.boxes.size() && this.builtRows == rows) {
+            return;
+        }
+        this.builtTables = this.boxes.size();
+        this.builtRows = rows;
+        build();
+    }
+
+    /**
+     * Builds the grid in two passes over the boxes, with a cell twice the side of an average box.
+     */
+    private void build() {
+        int count = 0;
+        double area = 0;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (Archetype table : this.boxes) {
+            for (int j = 0; j < table.count; j++) {
+                count++;
+                area += table.width[j] * table.height[j];
+                minX = Math.min(minX, table.x[j]);
+                minY = Math.min(minY, table.y[j]);
+                maxX = Math.max(maxX, table.x[j] + table.width[j]);
+                maxY = Math.max(maxY, table.y[j] + table.height[j]);
+            }
+        }
+        if (count == 0) {
+            this.entries = null;
+            return;
+        }
+        double size = Math.max(MIN_CELL_SIZE, CELLS_PER_BOX * Math.sqrt(area / count));
+        while ((Math.floor(maxX / size) - Math.floor(minX / size) + 1)
+                * (Math.floor(maxY / size) - Math.floor(minY / size) + 1) > (double) CELLS_PER_ENTRY * count) {
+            size *= 2;
+        }
+        this.cellSize = size;
+        this.originX = (int) Math.floor(minX / size);
+        this.originY = (int) Math.floor(minY / size);
+        this.columns = (int) Math.floor(maxX / size) - this.originX + 1;
+        this.cellRows = (int) Math.floor(maxY / size) - this.originY + 1;
+        this.cellStart = new int[this.columns * this.cellRows + 1];
+
+        // Count the boxes of each cell, then put them in
+        int[] cellFill = null;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int t = 0; t < this.boxes.size(); t++) {
+                Archetype table = this.boxes.get(t);
+                for (int j = 0; j < table.count; j++) {
+                    int toX = cellOf(table.x[j] + table.width[j], this.originX);
+                    int toY = cellOf(table.y[j] + table.height[j], this.originY);
+                    for (int cy = cellOf(table.y[j], this.originY); cy <= toY; cy++) {
+                        for (int cx = cellOf(table.x[j], this.originX); cx <= toX; cx++) {
+                            int c = cy * this.columns + cx;
+                            if (pass == 0) {
+                                this.cellStart[c + 1]++;
+                            } else {
+                                this.entryTables[cellFill[c]] = t;
+                                this.entries[cellFill[c]++] = table.entities[j];
+                            }
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int c = 0; c < this.columns * this.cellRows; c++) {
+                    this.cellStart[c + 1] += this.cellStart[c];
+                }
+                this.entries = new int[this.cellStart[this.columns * this.cellRows]];
+                this.entryTables = new int[this.entries.length];
+                cellFill = Arrays.copyOf(this.cellStart, this.columns * this.cellRows);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the cell of the grid that contains a coordinate, from the first cell.
+     *
+     * @param coordinate The x or y coordinate.
+     * @param origin     The index of the first cell along the axis.
+     * @return The index of the cell along the axis.
+     */
+    private int cellOf(double coordinate, int origin) {
+        return (int) Math.floor(coordinate / this.cellSize) - origin;
+    }
+
+    /**
+     * Finds the box a circle moving along a segment hits first, among the boxes in the cells of the
+     * grid around the move. Of boxes hit at the same time, the one of the first table, then of the
+     * first row, is the one found, as when every box is tested in the order of the tables.
+     *
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param hit    The holder the hit is written to; untouched on a miss.
+     * @return The entity of the box hit first, or -1 if no box is hit.
+     */
+    int findClosestCollision(double x, double y, double dx, double dy, double radius, RayHit hit) {
+        if (this.entries == null) {
+            return -1;
+        }
+        int fromX = Math.max(0, cellOf(Math.min(x, x + dx) - radius, this.originX));
+        int toX = Math.min(this.columns - 1, cellOf(Math.max(x, x + dx) + radius, this.originX));
+        int fromY = Math.max(0, cellOf(Math.min(y, y + dy) - radius, this.originY));
+        int toY = Math.min(this.cellRows - 1, cellOf(Math.max(y, y + dy) + radius, this.originY));
+        int closest = -1;
+        long closestOrder = Long.MAX_VALUE;
+        double best = Double.POSITIVE_INFINITY;
+        for (int cy = fromY; cy <= toY; cy++) {
+            for (int cx = fromX; cx <= toX; cx++) {
+                int c = cy * this.columns + cx;
+                for (int e = this.cellStart[c]; e < this.cellStart[c + 1]; e++) {
+                    int entity = this.entries[e];
+                    int index = this.entryTables[e];
+                    Archetype table = this.boxes.get(index);
+                    // A removed box, or one whose entity is now something else
+                    if (this.world.getArchetype(entity) != table) {
+                        continue;
+                    }
+                    int j = this.world.getRow(entity);
+                    double left = table.x[j];
+                    double top = table.y[j];
+                    if (!SweptCircle.sweep(x, y, dx, dy, radius, left, top, left + table.width[j],
+                            top + table.height[j], Math.nextUp(best), this.candidate)) {
+                        continue;
+                    }
+                    long order = (long) index << Integer.SIZE | j;
+                    if (this.candidate.getT() < best || order < closestOrder) {
+                        best = this.candidate.getT();
+                        closest = entity;
+                        closestOrder = order;
+                        hit.set(this.candidate);
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+}
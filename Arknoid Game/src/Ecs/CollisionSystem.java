@@ -0,0 +1,188 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import Collidable.Collidable;
+import Game.GameEnvironment;
+import Geometry.Geom;
+import Geometry.RayHit;
+import Sprites.Ball;
+import Sprites.Velocity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CollisionSystem class moves the balls of a World, the entities with a position, a velocity
+ * and bounds, like Ball does: each ball is swept as a circle along its step, bounces off the first
+ * thing it hits and goes on with the rest of the step, up to Ball.MAX_BOUNCES sub-steps. What a ball may
+ * hit is the boxes of the world, the entities with a position and bounds but no velocity, which it
+ * finds through a BoxGrid of them, testing the boxes around its move only, and the collidables of
+ * the game environment, such as the paddle, which it asks the environment for.
+ * <p>
+ * A ball bounces off a box the way it bounces off a Block. The hit goes into the HitLog if the box
+ * has hit effects and another color than the ball, for the systems that carry the effects out at the
+ * end of the tick; until then every box stays where it is. The collidables of the environment handle
+ * their hits themselves, with a view of the ball as the hitter.
+ */
+public class CollisionSystem implements EntitySystem {
+    private static final int BALL = Component.POSITION.bit() | Component.VELOCITY.bit() | Component.BOUNDS.bit();
+    private static final int BOX = Component.POSITION.bit() | Component.BOUNDS.bit();
+
+    private final HitLog hits;
+    private final GameEnvironment environment;
+
+    // The tables of the boxes of the current update, their grid, and scratch holders for the queries
+    private final List<Archetype> boxes;
+    private BoxGrid grid;
+    private World world;
+    private final RayHit hit;
+    private final RayHit environmentHit;
+    private EntityBall view;
+
+    /**
+     * Constructs a system whose balls also collide with the collidables of a game environment.
+     *
+     * @param hits        The log the hits on the boxes are added to.
+     * @param environment The game environment.
+     */
+    public CollisionSystem(HitLog hits, GameEnvironment environment) {
+        this.hits = hits;
+        this.environment = environment;
+        this.boxes = new ArrayList<>();
+        this.hit = new RayHit();
+        this.environmentHit = new RayHit();
+    }
+
+    /**
+     * Moves every ball of the world by its velocity, bouncing off what it hits.
+     *
+     * @param world The world.
+     */
+    @Override
+    public void update(World world) {
+        if (this.view == null) {
+            this.view = new EntityBall(world, this.environment);
+        }
+        if (this.world != world) {
+            this.world = world;
+            this.grid = new BoxGrid(world, this.boxes);
+        }
+        this.boxes.clear();
+        for (Archetype table : world.getArchetypes()) {
+            if (table.has(BOX) && !table.has(Component.VELOCITY.bit())) {
+                this.boxes.add(table);
+            }
+        }
+        this.grid.update();
+        for (Archetype table : world.getArchetypes()) {
+            if (table.has(BALL)) {
+                for (int i = 0; i < table.count; i++) {
+                    moveBall(table, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves one ball one step, in up to Ball.MAX_BOUNCES sub-steps.
+     *
+     * @param balls The table of the ball.
+     * @param i     The row of the ball.
+     */
+    private void moveBall(Archetype balls, int i) {
+        this.hits.beginHitter();
+        double radius = balls.width[i] / 2;
+        double remaining = 1;
+        int steps = 0;
+        while (remaining > 0 && steps < Ball.MAX_BOUNCES) {
+            steps++;
+            double dx = balls.dx[i] * remaining;
+            double dy = balls.dy[i] * remaining;
+            double x = balls.x[i];
+            double y = balls.y[i];
+
+            // The first box hit, among the boxes of the grid around the move
+            Archetype hitTable = null;
+            int hitRow = -1;
+            double best = Double.POSITIVE_INFINITY;
+            int box = this.grid.findClosestCollision(x, y, dx, dy, radius, this.hit);
+            if (box >= 0) {
+                best = this.hit.getT();
+                hitTable = this.world.getArchetype(box);
+                hitRow = this.world.getRow(box);
+            }
+
+            // The first collidable of the environment hit, if it comes before
+            RayHit first = this.hit;
+            Collidable collidable = this.environment.findClosestCollision(x, y, dx, dy, radius, this.environmentHit);
+            if (collidable != null && this.environmentHit.getT() < best) {
+                first = this.environmentHit;
+                hitTable = null;
+            } else {
+                collidable = null;
+            }
+            if (hitTable == null && collidable == null) {
+                balls.x[i] += dx;
+                balls.y[i] += dy;
+                break;
+            }
+
+            if (first.isInside()) {
+                // The ball already overlaps what it hit (the paddle moved into it), so push it out
+                balls.x[i] = first.getX() + first.getNormalX() * (radius + Ball.SKIN);
+                balls.y[i] = first.getY() + first.getNormalY() * (radius + Ball.SKIN);
+            } else {
+                // Stop at the time of impact, just off the touched surface
+                balls.x[i] += first.getT() * dx + first.getNormalX() * Ball.SKIN;
+                balls.y[i] += first.getT() * dy + first.getNormalY() * Ball.SKIN;
+            }
+            remaining *= 1 - first.getT();
+
+            if (hitTable != null) {
+                bounceOffBox(balls, i, hitTable, hitRow, first.getX(), first.getY());
+            } else {
+                Velocity velocity = this.view.getHitVelocity();
+                velocity.setDx(balls.dx[i]);
+                velocity.setDy(balls.dy[i]);
+                this.view.attach(balls.entities[i]);
+                this.environment.hit(collidable, this.view, first.getX(), first.getY(), velocity);
+                balls.dx[i] = velocity.getDx();
+                balls.dy[i] = velocity.getDy();
+            }
+        }
+    }
+
+    /**
+     * Bounces a ball off a box, like Block.hit does, and logs the hit if the box has hit effects and
+     * another color than the ball.
+     *
+     * @param balls The table of the ball.
+     * @param i     The row of the ball.
+     * @param boxes The table of the box.
+     * @param j     The row of the box.
+     * @param x     The x-coordinate of the collision point.
+     * @param y     The y-coordinate of the collision point.
+     */
+    private void bounceOffBox(Archetype balls, int i, Archetype boxes, int j, double x, double y) {
+        double minX = boxes.x[j];
+        double minY = boxes.y[j];
+        double maxX = minX + boxes.width[j];
+        double maxY = minY + boxes.height[j];
+
+        // A hit on the bottom or upper line turns the ball vertically, on the left or right line horizontally
+        if (Geom.onHorizontal(x, y, maxY, minX, maxX) || Geom.onHorizontal(x, y, minY, minX, maxX)) {
+            balls.dy[i] = -balls.dy[i];
+        }
+        if (Geom.onVertical(x, y, minX, minY, maxY) || Geom.onVertical(x, y, maxX, minY, maxY)) {
+            balls.dx[i] = -balls.dx[i];
+        }
+
+        if (boxes.listeners == null || boxes.listeners[j] == 0) {
+            return;
+        }
+        if (boxes.rgb != null && balls.rgb != null && boxes.rgb[j] == balls.rgb[i]) {
+            return;
+        }
+        this.hits.add(balls.entities[i], boxes.entities[j]);
+    }
+}
@@ -0,0 +1,63 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+/**
+ * The Component enum lists the kinds of data an entity of a World may have. The set of components
+ * of an entity, kept as a mask of their bits, is its archetype, and the entities of an archetype are
+ * stored together in an Archetype table.
+ */
+public enum Component {
+    /**
+     * Where the entity is: the upper-left corner of a box, or the center of a ball.
+     */
+    POSITION,
+
+    /**
+     * The change in position per tick, and the position at the start of the tick. Entities with a
+     * velocity and bounds are balls, whose diameter is the width of their bounds.
+     */
+    VELOCITY,
+
+    /**
+     * The width and height of the axis-aligned box of the entity.
+     */
+    BOUNDS,
+
+    /**
+     * The color of the entity, as packed RGB.
+     */
+    COLOR,
+
+    /**
+     * The number of hits the entity takes before a hit removes it.
+     */
+    HIT_POINTS,
+
+    /**
+     * The effects of a hit on the entity, as a mask of HitEffect bits.
+     */
+    LISTENERS;
+
+    /**
+     * Returns the bit of the component in an archetype mask.
+     *
+     * @return The bit of the component.
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Returns the archetype mask of a set of components.
+     *
+     * @param components The components.
+     * @return The mask with the bits of the components set.
+     */
+    public static int maskOf(Component... components) {
+        int mask = 0;
+        for (Component c : components) {
+            mask |= c.bit();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,145 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import Base.BallRemover;
+import Base.BlockRemover;
+import Base.HitListener;
+import Base.ScoreTrackingListener;
+import Collidable.Block;
+import Game.Game;
+import Geometry.Rectangle;
+import Sprites.Ball;
+import Sprites.Sprite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The EntityAdapter class moves the blocks and balls a game was built with into the World of an
+ * EntityEngine, so levels are still built from Block and Ball objects, with their hit listeners.
+ * A block becomes a box entity whose hit effects stand for its listeners, and a ball a ball entity;
+ * both are then removed from the game, the first one moved giving its place among the sprites to
+ * the engine. Only plain blocks and balls are moved, and only blocks whose listeners all have a
+ * HitEffect; the others stay objects, which the balls still hit.
+ */
+public final class EntityAdapter {
+    private static final int BOX = Component.maskOf(Component.POSITION, Component.BOUNDS, Component.COLOR,
+            Component.LISTENERS);
+    private static final int BALL = Component.maskOf(Component.POSITION, Component.VELOCITY, Component.BOUNDS,
+            Component.COLOR);
+
+    /**
+     * Not instantiable.
+     */
+    private EntityAdapter() {
+    }
+
+    /**
+     * Moves the plain blocks and balls of a game into the world of an engine, and adds the engine to
+     * the game in the place of the first of them, or after the other sprites if there are none.
+     *
+     * @param game   The game, which must not be running a tick.
+     * @param engine The engine.
+     * @return The number of objects moved.
+     */
+    public static int adopt(Game game, EntityEngine engine) {
+        World world = engine.getWorld();
+        List<Sprite> sprites = new ArrayList<>();
+        for (Sprite s : game.getSpriteCollection().getSprites()) {
+            sprites.add(s);
+        }
+        int moved = 0;
+        for (Sprite s : sprites) {
+            if (s.getClass() == Block.class) {
+                Block block = (Block) s;
+                int effects = effectsOf(block);
+                if (effects < 0) {
+                    continue;
+                }
+                adoptBlock(world, block, effects);
+                if (moved++ == 0) {
+                    game.replaceSprite(block, engine);
+                }
+                block.removeFromGame(game);
+            } else if (s.getClass() == Ball.class && !((Ball) s).isRemoved()) {
+                Ball ball = (Ball) s;
+                adoptBall(world, ball);
+                if (moved++ == 0) {
+                    game.replaceSprite(ball, engine);
+                }
+                ball.removeFromGame(game);
+            }
+        }
+        if (moved == 0) {
+            engine.addToGame(game);
+        }
+        return moved;
+    }
+
+    /**
+     * Returns the hit effects that stand for the hit listeners of a block.
+     *
+     * @param block The block.
+     * @return The mask of the effects, or -1 if a listener has no effect standing for it.
+     */
+    private static int effectsOf(Block block) {
+        int effects = 0;
+        for (HitListener hl : block.getHitListeners()) {
+            if (hl.getClass() == BlockRemover.class) {
+                effects |= HitEffect.REMOVE_TARGET.bit();
+            } else if (hl.getClass() == BallRemover.class) {
+                effects |= HitEffect.REMOVE_HITTER.bit();
+            } else if (hl.getClass() == ScoreTrackingListener.class) {
+                effects |= HitEffect.SCORE.bit();
+            } else {
+                return -1;
+            }
+        }
+        return effects;
+    }
+
+    /**
+     * Creates the box entity of a block. A block that removes itself takes one hit.
+     *
+     * @param world   The world.
+     * @param block   The block.
+     * @param effects The hit effects of the block.
+     */
+    private static void adoptBlock(World world, Block block, int effects) {
+        boolean removable = (effects & HitEffect.REMOVE_TARGET.bit()) != 0;
+        int entity = world.create(removable ? BOX | Component.HIT_POINTS.bit() : BOX);
+        Archetype table = world.getArchetype(entity);
+        int row = world.getRow(entity);
+        Rectangle rect = block.getCollisionRectangle();
+        table.x[row] = rect.getUpperLeft().getX();
+        table.y[row] = rect.getUpperLeft().getY();
+        table.width[row] = rect.getWidth();
+        table.height[row] = rect.getHeight();
+        table.rgb[row] = block.getColor().getRGB();
+        table.listeners[row] = effects;
+        if (removable) {
+            table.hitPoints[row] = 1;
+        }
+    }
+
+    /**
+     * Creates the ball entity of a ball, whose bounds are as wide as the ball.
+     *
+     * @param world The world.
+     * @param ball  The ball.
+     */
+    private static void adoptBall(World world, Ball ball) {
+        int entity = world.create(BALL);
+        Archetype table = world.getArchetype(entity);
+        int row = world.getRow(entity);
+        table.x[row] = ball.getCenterX();
+        table.y[row] = ball.getCenterY();
+        table.previousX[row] = table.x[row];
+        table.previousY[row] = table.y[row];
+        table.dx[row] = ball.getVelocity().getDx();
+        table.dy[row] = ball.getVelocity().getDy();
+        table.width[row] = 2 * ball.getSize();
+        table.height[row] = 2 * ball.getSize();
+        table.rgb[row] = ball.getColor().getRGB();
+    }
+}
@@ -0,0 +1,156 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import Game.Game;
+import Game.GameEnvironment;
+import Sprites.Ball;
+import Sprites.Velocity;
+
+import java.awt.Color;
+
+/**
+ * A Ball that is a view of one ball entity of a World, passed to the collidables of the game
+ * environment, such as the paddle, and to the hit listeners of the blocks that are not entities.
+ * It reads and writes the tables of the world; its velocity is the one of the current hit. Its
+ * entity id is its key in hit events, so the same view serves every ball.
+ */
+final class EntityBall extends Ball {
+    private final World world;
+    private final Velocity velocity;
+    private int entity;
+
+    /**
+     * Constructs a view that is not attached to any ball.
+     *
+     * @param world           The world of the balls.
+     * @param gameEnvironment The game environment the balls collide with.
+     */
+    EntityBall(World world, GameEnvironment gameEnvironment) {
+        super(0, 0, 0, null, gameEnvironment);
+        this.world = world;
+        this.velocity = new Velocity(0, 0);
+    }
+
+    /**
+     * Points the view at a ball entity.
+     *
+     * @param e The id of the entity.
+     */
+    void attach(int e) {
+        this.entity = e;
+    }
+
+    /**
+     * Returns the velocity the collidable of the current hit changes.
+     *
+     * @return The velocity of the hit.
+     */
+    Velocity getHitVelocity() {
+        return this.velocity;
+    }
+
+    /**
+     * Returns the x-coordinate of the center of the viewed ball.
+     *
+     * @return The x-coordinate of the ball's center.
+     */
+    @Override
+    public int getX() {
+        return (int) this.world.getArchetype(this.entity).x[this.world.getRow(this.entity)];
+    }
+
+    /**
+     * Returns the y-coordinate of the center of the viewed ball.
+     *
+     * @return The y-coordinate of the ball's center.
+     */
+    @Override
+    public int getY() {
+        return (int) this.world.getArchetype(this.entity).y[this.world.getRow(this.entity)];
+    }
+
+    /**
+     * Returns the radius of the viewed ball.
+     *
+     * @return The radius of the ball.
+     */
+    @Override
+    public int getSize() {
+        return (int) (this.world.getArchetype(this.entity).width[this.world.getRow(this.entity)] / 2);
+    }
+
+    /**
+     * Returns the color of the viewed ball.
+     *
+     * @return The color of the ball.
+     */
+    @Override
+    public Color getColor() {
+        return new Color(this.world.getArchetype(this.entity).rgb[this.world.getRow(this.entity)], true);
+    }
+
+    /**
+     * Sets the color of the viewed ball, if it is still in the world.
+     *
+     * @param color The new color of the ball.
+     */
+    @Override
+    public void setColor(Color color) {
+        if (this.world.isAlive(this.entity)) {
+            this.world.getArchetype(this.entity).rgb[this.world.getRow(this.entity)] = color.getRGB();
+        }
+    }
+
+    /**
+     * Returns the velocity of the viewed ball during the current hit.
+     *
+     * @return The velocity of the ball.
+     */
+    @Override
+    public Velocity getVelocity() {
+        return this.velocity;
+    }
+
+    /**
+     * Sets the velocity of the viewed ball during the current hit.
+     *
+     * @param v The new velocity of the ball.
+     */
+    @Override
+    public void setVelocity(Velocity v) {
+        this.velocity.setDx(v.getDx());
+        this.velocity.setDy(v.getDy());
+    }
+
+    /**
+     * Destroys the viewed ball entity.
+     *
+     * @param g The game the ball is removed from.
+     */
+    @Override
+    public void removeFromGame(Game g) {
+        this.world.destroy(this.entity);
+    }
+
+    /**
+     * Returns the id of the viewed ball entity, its key in hit events.
+     *
+     * @return The id of the entity.
+     */
+    @Override
+    public int getHitterKey() {
+        return this.entity;
+    }
+
+    /**
+     * Points the view at the ball of a hit event.
+     *
+     * @param key The id of the ball entity.
+     * @return This view.
+     */
+    @Override
+    public Ball resolveHitter(int key) {
+        attach(key);
+        return this;
+    }
+}
@@ -0,0 +1,142 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import Base.Counter;
+import Game.Game;
+import Game.GameEnvironment;
+import Render.CommandBuffer;
+import Render.DirtyRegion;
+import Sprites.Sprite;
+import biuoop.DrawSurface;
+
+/**
+ * The EntityEngine class runs a World of entities inside a game, as one sprite: every tick it runs
+ * the systems, movement, collision, scoring and removal, in that order, and every frame the render
+ * system. The scoring and removal systems count in the counters of the game, as its hit listeners
+ * would, so the game ends the same way when the blocks or the balls run out.
+ */
+public class EntityEngine implements Sprite {
+    private final World world;
+    private final HitLog hits;
+    private final EntitySystem[] systems;
+    private final RenderSystem renderer;
+
+    /**
+     * Constructs an engine with an empty world.
+     *
+     * @param environment     The game environment the balls also collide with.
+     * @param remainingBlocks The counter of the blocks left.
+     * @param remainingBalls  The counter of the balls left.
+     * @param score           The score counter.
+     */
+    public EntityEngine(GameEnvironment environment, Counter remainingBlocks, Counter remainingBalls,
+                        Counter score) {
+        this.world = new World();
+        this.hits = new HitLog();
+        this.systems = new EntitySystem[] {
+                new MovementSystem(),
+                new CollisionSystem(this.hits, environment),
+                new ScoringSystem(this.hits, score),
+                new RemovalSystem(this.hits, remainingBlocks, remainingBalls)
+        };
+        this.renderer = new RenderSystem();
+    }
+
+    /**
+     * Returns the world of the engine.
+     *
+     * @return The world.
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Runs the systems over the world for one tick. The entities destroyed by the systems are
+     * removed from their tables after the last one.
+     */
+    @Override
+    public void timePassed() {
+        this.hits.beginTick();
+        this.world.beginUpdate();
+        try {
+            for (EntitySystem system : this.systems) {
+                system.update(this.world);
+            }
+        } finally {
+            this.world.endUpdate();
+        }
+    }
+
+    /**
+     * Draws the entities as they are at the current tick.
+     *
+     * @param d The DrawSurface on which the entities are drawn.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        drawOn(d, 1);
+    }
+
+    /**
+     * Draws the entities between the previous tick and the current one.
+     *
+     * @param d     The DrawSurface on which the entities are drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void drawOn(DrawSurface d, double alpha) {
+        this.renderer.drawOn(this.world, d, alpha);
+    }
+
+    /**
+     * Records the entities into a command buffer, the boxes in the shared layers of the blocks.
+     *
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void record(CommandBuffer buffer, double alpha) {
+        this.renderer.record(this.world, buffer, alpha);
+    }
+
+    /**
+     * Adds to a region the areas the entities change in the next frame.
+     *
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void addDamage(DirtyRegion region, double alpha) {
+        this.renderer.addDamage(this.world, region, alpha);
+    }
+
+    /**
+     * Returns a hash of the boxes of the world with a color, like Game.getBlockHash does for the
+     * blocks, so a game whose blocks are entities hashes them the same way.
+     *
+     * @return The hash of the boxes.
+     */
+    public long getBlockHash() {
+        int drawn = Component.POSITION.bit() | Component.BOUNDS.bit() | Component.COLOR.bit();
+        long hash = 0;
+        for (Archetype table : this.world.getArchetypes()) {
+            if (!table.has(drawn) || table.has(Component.VELOCITY.bit())) {
+                continue;
+            }
+            for (int i = 0; i < table.count; i++) {
+                hash += Game.hashBlock(table.x[i], table.y[i], table.width[i], table.height[i], table.rgb[i]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Adds the engine to a game as a sprite.
+     *
+     * @param game The game.
+     */
+    public void addToGame(Game game) {
+        game.addSprite(this);
+    }
+}
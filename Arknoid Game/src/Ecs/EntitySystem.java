@@ -0,0 +1,15 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+/**
+ * The EntitySystem interface is one step of the update of a World: a loop over the tables whose
+ * components it needs. The systems of a world run once per tick, in a fixed order.
+ */
+public interface EntitySystem {
+    /**
+     * Runs the system over the entities of a world.
+     *
+     * @param world The world.
+     */
+    void update(World world);
+}
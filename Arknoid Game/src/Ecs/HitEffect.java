@@ -0,0 +1,33 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+/**
+ * The HitEffect enum lists what a hit on an entity may do, in the LISTENERS component of the entity.
+ * Each effect stands for one of the hit listeners of the game, carried out by a system instead.
+ */
+public enum HitEffect {
+    /**
+     * The entity loses a hit point on the first hit of a tick, and is removed when it has none left;
+     * the ball of that hit takes its color (BlockRemover).
+     */
+    REMOVE_TARGET,
+
+    /**
+     * The ball that hit the entity is removed (BallRemover).
+     */
+    REMOVE_HITTER,
+
+    /**
+     * The hit scores points (ScoreTrackingListener).
+     */
+    SCORE;
+
+    /**
+     * Returns the bit of the effect in a LISTENERS mask.
+     *
+     * @return The bit of the effect.
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+}
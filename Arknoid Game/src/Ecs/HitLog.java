@@ -0,0 +1,120 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import java.util.Arrays;
+
+/**
+ * The HitLog class holds the hits of the balls of a World during a tick, for the systems that carry
+ * out their effects at its end. A hit is a pair of entity ids in two packed arrays, the ball and the
+ * entity it hit. The hits of a ball on the same entity during a tick are one hit, and the log tells
+ * the first hit on each entity in the tick, as the HitEventBus of the game does.
+ */
+public class HitLog {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // The hits of the tick: the ball, the entity hit, and whether it is the first hit on the entity
+    private int[] hitters;
+    private int[] targets;
+    private boolean[] firstOfTarget;
+    private int count;
+
+    // Where the hits of the current ball start
+    private int hitterStart;
+
+    // The tick each entity was last hit in, plus one, and the current tick
+    private int[] targetTick;
+    private int tick;
+
+    /**
+     * Constructs an empty log.
+     */
+    public HitLog() {
+        this.hitters = new int[INITIAL_CAPACITY];
+        this.targets = new int[INITIAL_CAPACITY];
+        this.firstOfTarget = new boolean[INITIAL_CAPACITY];
+        this.targetTick = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Empties the log for a new tick.
+     */
+    public void beginTick() {
+        this.count = 0;
+        this.tick++;
+    }
+
+    /**
+     * Marks the start of the hits of a ball: the ball adds all its hits of the tick before the next
+     * ball adds any.
+     */
+    public void beginHitter() {
+        this.hitterStart = this.count;
+    }
+
+    /**
+     * Adds a hit of the current ball, unless the ball already hit the same entity in the tick.
+     *
+     * @param hitter The id of the ball.
+     * @param target The id of the entity it hit.
+     */
+    public void add(int hitter, int target) {
+        for (int i = this.hitterStart; i < this.count; i++) {
+            if (this.targets[i] == target) {
+                return;
+            }
+        }
+        if (this.count == this.hitters.length) {
+            int capacity = 2 * this.count;
+            this.hitters = Arrays.copyOf(this.hitters, capacity);
+            this.targets = Arrays.copyOf(this.targets, capacity);
+            this.firstOfTarget = Arrays.copyOf(this.firstOfTarget, capacity);
+        }
+        if (target >= this.targetTick.length) {
+            this.targetTick = Arrays.copyOf(this.targetTick, Math.max(target + 1, 2 * this.targetTick.length));
+        }
+        this.hitters[this.count] = hitter;
+        this.targets[this.count] = target;
+        this.firstOfTarget[this.count] = this.targetTick[target] != this.tick;
+        this.targetTick[target] = this.tick;
+        this.count++;
+    }
+
+    /**
+     * Returns the number of hits in the tick.
+     *
+     * @return The number of hits.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the ball of a hit.
+     *
+     * @param i The index of the hit, below size.
+     * @return The id of the ball.
+     */
+    public int getHitter(int i) {
+        return this.hitters[i];
+    }
+
+    /**
+     * Returns the entity a hit was on.
+     *
+     * @param i The index of the hit, below size.
+     * @return The id of the entity.
+     */
+    public int getTarget(int i) {
+        return this.targets[i];
+    }
+
+    /**
+     * Checks if a hit is the first hit on its entity in the tick.
+     *
+     * @param i The index of the hit, below size.
+     * @return {@code true} if no earlier hit of the tick was on the same entity, {@code false} otherwise.
+     */
+    public boolean isFirstHitOfTarget(int i) {
+        return this.firstOfTarget[i];
+    }
+}
@@ -0,0 +1,34 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+/**
+ * The MovementSystem class starts the tick of the moving entities: it keeps where each one is, to
+ * draw it between ticks, and moves the ones without bounds, which collide with nothing. The ones
+ * with bounds, the balls, are moved by the CollisionSystem, which runs next.
+ */
+public class MovementSystem implements EntitySystem {
+    private static final int MOVING = Component.POSITION.bit() | Component.VELOCITY.bit();
+
+    /**
+     * Keeps the position of every moving entity, and moves the ones without bounds by their velocity.
+     *
+     * @param world The world.
+     */
+    @Override
+    public void update(World world) {
+        for (Archetype table : world.getArchetypes()) {
+            if (!table.has(MOVING)) {
+                continue;
+            }
+            int n = table.count;
+            System.arraycopy(table.x, 0, table.previousX, 0, n);
+            System.arraycopy(table.y, 0, table.previousY, 0, n);
+            if (!table.has(Component.BOUNDS.bit())) {
+                for (int i = 0; i < n; i++) {
+                    table.x[i] += table.dx[i];
+                    table.y[i] += table.dy[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import Base.Counter;
+
+/**
+ * The RemovalSystem class carries out the removals of the hits of a tick, as BlockRemover and
+ * BallRemover do: an entity with the REMOVE_TARGET effect loses a hit point on its first hit of
+ * the tick, whose ball takes its color, and is destroyed when it has none left; a ball that hit an
+ * entity with the REMOVE_HITTER effect is destroyed. The counters count the destroyed entities.
+ */
+public class RemovalSystem implements EntitySystem {
+    private final HitLog hits;
+    private final Counter remainingBlocks;
+    private final Counter remainingBalls;
+
+    /**
+     * Constructs a system counting the destroyed entities down in two counters.
+     *
+     * @param hits            The log of the hits of the tick.
+     * @param remainingBlocks The counter of the blocks left.
+     * @param remainingBalls  The counter of the balls left.
+     */
+    public RemovalSystem(HitLog hits, Counter remainingBlocks, Counter remainingBalls) {
+        this.hits = hits;
+        this.remainingBlocks = remainingBlocks;
+        this.remainingBalls = remainingBalls;
+    }
+
+    /**
+     * Destroys the entities the hits of the tick remove.
+     *
+     * @param world The world.
+     */
+    @Override
+    public void update(World world) {
+        for (int i = 0; i < this.hits.size(); i++) {
+            int target = this.hits.getTarget(i);
+            int hitter = this.hits.getHitter(i);
+            Archetype table = world.getArchetype(target);
+            int row = world.getRow(target);
+            int effects = table.listeners[row];
+            if ((effects & HitEffect.REMOVE_TARGET.bit()) != 0 && this.hits.isFirstHitOfTarget(i)) {
+                Archetype balls = world.getArchetype(hitter);
+                if (table.rgb != null && balls.rgb != null) {
+                    balls.rgb[world.getRow(hitter)] = table.rgb[row];
+                }
+                boolean dead = table.hitPoints == null || --table.hitPoints[row] <= 0;
+                if (dead && world.destroy(target)) {
+                    this.remainingBlocks.decrease(1);
+                }
+            }
+            if ((effects & HitEffect.REMOVE_HITTER.bit()) != 0 && world.destroy(hitter)) {
+                this.remainingBalls.decrease(1);
+            }
+        }
+    }
+}
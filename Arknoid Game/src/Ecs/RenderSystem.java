@@ -0,0 +1,191 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import Collidable.Block;
+import Render.CommandBuffer;
+import Render.DirtyRegion;
+import Sprites.Ball;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+
+/**
+ * The RenderSystem class draws the entities of a World: the boxes like blocks, filled in their color
+ * and outlined in black, and the balls as circles in their color, between their positions at the
+ * start and at the end of the last tick. The fills of all the boxes are drawn before their outlines,
+ * which is also how a command buffer draws the blocks, in the same shared layers.
+ */
+public class RenderSystem {
+    private static final int DRAWN = Component.POSITION.bit() | Component.BOUNDS.bit() | Component.COLOR.bit();
+
+    // The color of the last entity drawn, and its packed RGB, so a run of one color makes one Color
+    private Color color;
+    private int colorRgb;
+
+    // The box the balls were last reported drawn in; empty if right is not above left
+    private int drawnLeft;
+    private int drawnTop;
+    private int drawnRight;
+    private int drawnBottom;
+
+    /**
+     * Draws the entities of a world.
+     *
+     * @param world The world.
+     * @param d     The DrawSurface on which the entities are drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void drawOn(World world, DrawSurface d, double alpha) {
+        drawBoxFills(world, d);
+        drawBoxOutlines(world, d);
+        drawBalls(world, d, alpha);
+    }
+
+    /**
+     * Records the entities of a world into a command buffer: the fills and the outlines of the boxes
+     * into the shared layers of the blocks, and the balls into the shared layer of the balls.
+     *
+     * @param world  The world.
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void record(World world, CommandBuffer buffer, double alpha) {
+        buffer.useLayer(Block.FILL_LAYER);
+        drawBoxFills(world, buffer);
+        buffer.useLayer(Block.OUTLINE_LAYER);
+        drawBoxOutlines(world, buffer);
+        buffer.useLayer(Ball.LAYER);
+        drawBalls(world, buffer, alpha);
+    }
+
+    /**
+     * Fills every box in its color.
+     *
+     * @param world The world.
+     * @param d     The DrawSurface on which the boxes are filled.
+     */
+    private void drawBoxFills(World world, DrawSurface d) {
+        for (Archetype table : world.getArchetypes()) {
+            if (!table.has(DRAWN) || table.has(Component.VELOCITY.bit())) {
+                continue;
+            }
+            for (int i = 0; i < table.count; i++) {
+                d.setColor(colorOf(table.rgb[i]));
+                d.fillRectangle((int) table.x[i], (int) table.y[i], (int) table.width[i], (int) table.height[i]);
+            }
+        }
+    }
+
+    /**
+     * Outlines every box in black, with the four lines a Block draws.
+     *
+     * @param world The world.
+     * @param d     The DrawSurface on which the boxes are outlined.
+     */
+    private void drawBoxOutlines(World world, DrawSurface d) {
+        d.setColor(Color.BLACK);
+        for (Archetype table : world.getArchetypes()) {
+            if (!table.has(DRAWN) || table.has(Component.VELOCITY.bit())) {
+                continue;
+            }
+            for (int i = 0; i < table.count; i++) {
+                int left = (int) table.x[i];
+                int top = (int) table.y[i];
+                int right = (int) (table.x[i] + table.width[i]);
+                int bottom = (int) (table.y[i] + table.height[i]);
+                d.drawLine(left, top, right, top);
+                d.drawLine(left, bottom, right, bottom);
+                d.drawLine(left, top, left, bottom);
+                d.drawLine(right, top, right, bottom);
+            }
+        }
+    }
+
+    /**
+     * Draws every ball as a circle in its color.
+     *
+     * @param world The world.
+     * @param d     The DrawSurface on which the balls are drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    private void drawBalls(World world, DrawSurface d, double alpha) {
+        for (Archetype table : world.getArchetypes()) {
+            if (!table.has(DRAWN | Component.VELOCITY.bit())) {
+                continue;
+            }
+            for (int i = 0; i < table.count; i++) {
+                d.setColor(colorOf(table.rgb[i]));
+                d.fillCircle((int) (table.previousX[i] + (table.x[i] - table.previousX[i]) * alpha),
+                        (int) (table.previousY[i] + (table.y[i] - table.previousY[i]) * alpha),
+                        (int) (table.width[i] / 2));
+            }
+        }
+    }
+
+    /**
+     * Adds to a region the areas the entities of a world change in the next frame: the box around
+     * all the balls, where they were last drawn and where they are drawn now, and the boxes of the
+     * entities removed since the last frame. The boxes never move, so they change nothing else.
+     *
+     * @param world  The world.
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void addDamage(World world, DirtyRegion region, double alpha) {
+        if (world.getRemovedBoxCount() < 0) {
+            region.addAll();
+        } else {
+            int[] removed = world.getRemovedBoxes();
+            for (int k = 0; k < world.getRemovedBoxCount(); k += 4) {
+                region.add(removed[k], removed[k + 1], removed[k + 2], removed[k + 3]);
+            }
+        }
+        world.clearRemovedBoxes();
+
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (Archetype table : world.getArchetypes()) {
+            if (!table.has(DRAWN | Component.VELOCITY.bit())) {
+                continue;
+            }
+            for (int i = 0; i < table.count; i++) {
+                int bx = (int) (table.previousX[i] + (table.x[i] - table.previousX[i]) * alpha);
+                int by = (int) (table.previousY[i] + (table.y[i] - table.previousY[i]) * alpha);
+                int r = (int) (table.width[i] / 2);
+                left = Math.min(left, bx - r);
+                top = Math.min(top, by - r);
+                right = Math.max(right, bx + r + 1);
+                bottom = Math.max(bottom, by + r + 1);
+            }
+        }
+        if (this.drawnRight > this.drawnLeft) {
+            region.add(this.drawnLeft, this.drawnTop, this.drawnRight - this.drawnLeft,
+                    this.drawnBottom - this.drawnTop);
+        }
+        if (right < left) {
+            this.drawnRight = this.drawnLeft;
+            return;
+        }
+        region.add(left, top, right - left, bottom - top);
+        this.drawnLeft = left;
+        this.drawnTop = top;
+        this.drawnRight = right;
+        this.drawnBottom = bottom;
+    }
+
+    /**
+     * Returns the Color of a packed RGB, made again only when it differs from the last one.
+     *
+     * @param rgb The packed RGB, with its alpha.
+     * @return The color.
+     */
+    private Color colorOf(int rgb) {
+        if (this.color == null || rgb != this.colorRgb) {
+            this.color = new Color(rgb, true);
+            this.colorRgb = rgb;
+        }
+        return this.color;
+    }
+}
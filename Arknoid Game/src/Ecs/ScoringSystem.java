@@ -0,0 +1,49 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import Base.Counter;
+import Base.ScoreTrackingListener;
+
+/**
+ * The ScoringSystem class scores the hits of a tick on the entities with the SCORE effect, as
+ * ScoreTrackingListener does: an entity hit in the tick scores its POINTS once, whatever the number of
+ * balls that hit it.
+ */
+public class ScoringSystem implements EntitySystem {
+    private final HitLog hits;
+    private final Counter score;
+
+    /**
+     * Constructs a system adding the points to a counter.
+     *
+     * @param hits  The log of the hits of the tick.
+     * @param score The score counter.
+     */
+    public ScoringSystem(HitLog hits, Counter score) {
+        this.hits = hits;
+        this.score = score;
+    }
+
+    /**
+     * Adds the points of the hits of the tick to the score.
+     *
+     * @param world The world.
+     */
+    @Override
+    public void update(World world) {
+        int points = 0;
+        for (int i = 0; i < this.hits.size(); i++) {
+            if (!this.hits.isFirstHitOfTarget(i)) {
+                continue;
+            }
+            int target = this.hits.getTarget(i);
+            Archetype table = world.getArchetype(target);
+            if ((table.listeners[world.getRow(target)] & HitEffect.SCORE.bit()) != 0) {
+                points += ScoreTrackingListener.POINTS;
+            }
+        }
+        if (points != 0) {
+            this.score.increase(points);
+        }
+    }
+}
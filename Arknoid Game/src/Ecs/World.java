@@ -0,0 +1,274 @@
+// 318936507 Adir Tamam
+package Ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The World class holds the entities of an entity-component-system: an entity is an int id, and its
+ * components live in the row of the Archetype table of its set of components. The systems go over
+ * the tables one by one, each a loop over packed arrays, with no call per entity.
+ * <p>
+ * The ids of destroyed entities are given again, from a free list. While the systems run, between
+ * beginUpdate and endUpdate, destroying an entity only marks it, and its row is removed at
+ * endUpdate, so the rows never move under a system. The world also keeps the boxes of the entities
+ * removed since the last frame, which the frame must draw again.
+ */
+public class World {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // The most boxes of removed entities kept; past that, the next frame is drawn whole
+    private static final int MAX_REMOVED_BOXES = 1024;
+
+    // The tables, in the order they were made, and by mask
+    private final List<Archetype> archetypes;
+    private final Map<Integer, Archetype> byMask;
+
+    // The table and row of each entity id; a free id has no table, and its row is the next free id
+    private Archetype[] archetypeOf;
+    private int[] rowOf;
+    private boolean[] dying;
+    private int idCount;
+    private int freeId;
+    private int live;
+
+    // Whether the systems are running, and the entities destroyed meanwhile
+    private int updating;
+    private int[] pending;
+    private int pendingCount;
+
+    // The boxes of the removed entities not drawn again yet, four ints each, or -1 if there were too many
+    private int[] removedBoxes;
+    private int removedCount;
+
+    /**
+     * Constructs an empty world.
+     */
+    public World() {
+        this.archetypes = new ArrayList<>();
+        this.byMask = new HashMap<>();
+        this.archetypeOf = new Archetype[INITIAL_CAPACITY];
+        this.rowOf = new int[INITIAL_CAPACITY];
+        this.dying = new boolean[INITIAL_CAPACITY];
+        this.freeId = -1;
+        this.pending = new int[INITIAL_CAPACITY];
+        this.removedBoxes = new int[4 * INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates an entity with the given components, all zero.
+     *
+     * @param mask The archetype mask of the components.
+     * @return The id of the entity.
+     */
+    public int create(int mask) {
+        Archetype table = this.byMask.get(mask);
+        if (table == null) {
+            table = new Archetype(mask);
+            this.byMask.put(mask, table);
+            this.archetypes.add(table);
+        }
+        int id;
+        if (this.freeId >= 0) {
+            id = this.freeId;
+            this.freeId = this.rowOf[id];
+        } else {
+            if (this.idCount == this.archetypeOf.length) {
+                int capacity = 2 * this.idCount;
+                this.archetypeOf = Arrays.copyOf(this.archetypeOf, capacity);
+                this.rowOf = Arrays.copyOf(this.rowOf, capacity);
+                this.dying = Arrays.copyOf(this.dying, capacity);
+            }
+            id = this.idCount++;
+        }
+        this.archetypeOf[id] = table;
+        this.rowOf[id] = table.addRow(id);
+        this.live++;
+        return id;
+    }
+
+    /**
+     * Destroys an entity. While the systems run it stays in its table until they end.
+     *
+     * @param entity The id of the entity.
+     * @return {@code true} if the entity was alive, {@code false} if it was already destroyed.
+     */
+    public boolean destroy(int entity) {
+        if (!isAlive(entity)) {
+            return false;
+        }
+        if (this.updating > 0) {
+            this.dying[entity] = true;
+            if (this.pendingCount == this.pending.length) {
+                this.pending = Arrays.copyOf(this.pending, 2 * this.pendingCount);
+            }
+            this.pending[this.pendingCount++] = entity;
+        } else {
+            release(entity);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the row of an entity from its table, and frees its id.
+     *
+     * @param entity The id of the entity.
+     */
+    private void release(int entity) {
+        Archetype table = this.archetypeOf[entity];
+        int row = this.rowOf[entity];
+        if (table.has(Component.POSITION.bit() | Component.BOUNDS.bit())) {
+            addRemovedBox(table, row);
+        }
+        int moved = table.removeRow(row);
+        if (moved >= 0) {
+            this.rowOf[moved] = row;
+        }
+        this.archetypeOf[entity] = null;
+        this.dying[entity] = false;
+        this.rowOf[entity] = this.freeId;
+        this.freeId = entity;
+        this.live--;
+    }
+
+    /**
+     * Keeps the box an entity was drawn in, to draw it again in the next frame.
+     *
+     * @param table The table of the entity.
+     * @param row   The row of the entity.
+     */
+    private void addRemovedBox(Archetype table, int row) {
+        if (this.removedCount < 0) {
+            return;
+        }
+        if (this.removedCount == 4 * MAX_REMOVED_BOXES) {
+            // No frame drew them again for a while, so the next one is drawn whole
+            this.removedCount = -1;
+            return;
+        }
+        if (this.removedCount == this.removedBoxes.length) {
+            this.removedBoxes = Arrays.copyOf(this.removedBoxes, 2 * this.removedCount);
+        }
+        int left;
+        int top;
+        int right;
+        int bottom;
+        if (table.dx != null) {
+            // A ball is centered on its position, and was drawn somewhere between its last two
+            int r = (int) (table.width[row] / 2);
+            left = (int) Math.min(table.previousX[row], table.x[row]) - r;
+            top = (int) Math.min(table.previousY[row], table.y[row]) - r;
+            right = (int) Math.max(table.previousX[row], table.x[row]) + r + 1;
+            bottom = (int) Math.max(table.previousY[row], table.y[row]) + r + 1;
+        } else {
+            // A box with its outline, whose lines take the last column and row too
+            left = (int) table.x[row];
+            top = (int) table.y[row];
+            right = (int) (table.x[row] + table.width[row]) + 1;
+            bottom = (int) (table.y[row] + table.height[row]) + 1;
+        }
+        this.removedBoxes[this.removedCount++] = left;
+        this.removedBoxes[this.removedCount++] = top;
+        this.removedBoxes[this.removedCount++] = right - left;
+        this.removedBoxes[this.removedCount++] = bottom - top;
+    }
+
+    /**
+     * Checks if an entity is alive: created and not destroyed, even if its row stays in its table
+     * until the systems end.
+     *
+     * @param entity The id of the entity.
+     * @return {@code true} if the entity is alive, {@code false} otherwise.
+     */
+    public boolean isAlive(int entity) {
+        return entity >= 0 && entity < this.idCount && this.archetypeOf[entity] != null && !this.dying[entity];
+    }
+
+    /**
+     * Returns the table of an entity that was not removed yet.
+     *
+     * @param entity The id of the entity.
+     * @return The table of the entity.
+     */
+    Archetype getArchetype(int entity) {
+        return this.archetypeOf[entity];
+    }
+
+    /**
+     * Returns the row of an entity that was not removed yet.
+     *
+     * @param entity The id of the entity.
+     * @return The row of the entity in its table.
+     */
+    int getRow(int entity) {
+        return this.rowOf[entity];
+    }
+
+    /**
+     * Returns the tables of the world, in the order they were made.
+     *
+     * @return The tables.
+     */
+    public List<Archetype> getArchetypes() {
+        return this.archetypes;
+    }
+
+    /**
+     * Returns the number of live entities, counting the ones destroyed while the systems run until
+     * they end.
+     *
+     * @return The number of entities.
+     */
+    public int size() {
+        return this.live;
+    }
+
+    /**
+     * Marks the start of a run of the systems: until endUpdate, destroyed entities keep their rows.
+     */
+    public void beginUpdate() {
+        this.updating++;
+    }
+
+    /**
+     * Marks the end of a run of the systems, removing the rows of the entities destroyed during it.
+     */
+    public void endUpdate() {
+        if (--this.updating > 0) {
+            return;
+        }
+        for (int i = 0; i < this.pendingCount; i++) {
+            release(this.pending[i]);
+        }
+        this.pendingCount = 0;
+    }
+
+    /**
+     * Returns the number of ints of the boxes of the entities removed since clearRemovedBoxes.
+     *
+     * @return Four times the number of boxes, or -1 if there were too many to keep.
+     */
+    int getRemovedBoxCount() {
+        return this.removedCount;
+    }
+
+    /**
+     * Returns the boxes of the entities removed since clearRemovedBoxes, as the x, y, width and
+     * height of each, one after the other.
+     *
+     * @return The boxes, of which getRemovedBoxCount ints are used.
+     */
+    int[] getRemovedBoxes() {
+        return this.removedBoxes;
+    }
+
+    /**
+     * Forgets the boxes of the removed entities, once they were drawn again.
+     */
+    void clearRemovedBoxes() {
+        this.removedCount = 0;
+    }
+}
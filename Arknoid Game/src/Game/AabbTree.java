@@ -0,0 +1,408 @@
+// 318936507 Adir Tamam
+package Game;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import Geometry.Rectangle;
+import Geometry.RayHit;
+import Geometry.Slab;
+import Geometry.SweptCircle;
+import Collidable.Collidable;
+
+/**
+ * The AabbTree class is a dynamic bounding volume hierarchy over the collision rectangles of the
+ * collidables. Every leaf holds one collidable and every inner node holds the box enclosing its
+ * two children. The tree is kept balanced with AVL-style rotations, so insert, remove and refit
+ * all cost O(log n), and a closest-hit query skips every subtree whose box is entered after the
+ * best hit found so far.
+ */
+public class AabbTree implements CollidableIndex {
+    // Leaf boxes are enlarged by this margin, so small moves of a collidable need no re-insertion
+    static final double MARGIN = 8;
+
+    /**
+     * A node of the tree: a leaf holding a collidable, or an inner node with two children.
+     */
+    private static class Node {
+        private double minX;
+        private double minY;
+        private double maxX;
+        private double maxY;
+        private Node parent;
+        private Node left;
+        private Node right;
+        private Collidable collidable;
+        private int height;
+
+        /**
+         * Checks if this node is a leaf.
+         *
+         * @return {@code true} if the node has no children, {@code false} otherwise.
+         */
+        private boolean isLeaf() {
+            return this.left == null;
+        }
+    }
+
+    private Node root;
+    private final Map<Collidable, Node> leaves;
+
+    /**
+     * Constructs a new empty AabbTree.
+     */
+    public AabbTree() {
+        this.leaves = new HashMap<>();
+    }
+
+    /**
+     * Adds a collidable to the tree as a new leaf.
+     *
+     * @param c The Collidable to add.
+     */
+    @Override
+    public void insert(Collidable c) {
+        Node leaf = new Node();
+        leaf.collidable = c;
+        setFatBounds(leaf, c.getCollisionRectangle());
+        this.leaves.put(c, leaf);
+        insertLeaf(leaf);
+    }
+
+    /**
+     * Removes the leaf of a collidable from the tree.
+     *
+     * @param c The Collidable to remove.
+     */
+    @Override
+    public void remove(Collidable c) {
+        Node leaf = this.leaves.remove(c);
+        if (leaf != null) {
+            removeLeaf(leaf);
+        }
+    }
+
+    /**
+     * Refits the tree after a collidable moved. As long as its rectangle stays inside the enlarged
+     * box of its leaf nothing changes; otherwise the leaf is re-inserted with a new box.
+     *
+     * @param c The Collidable that moved.
+     */
+    @Override
+    public void update(Collidable c) {
+        Node leaf = this.leaves.get(c);
+        if (leaf == null) {
+            return;
+        }
+        Rectangle rect = c.getCollisionRectangle();
+        double x = rect.getUpperLeft().getX();
+        double y = rect.getUpperLeft().getY();
+        if (x >= leaf.minX && y >= leaf.minY
+                && x + rect.getWidth() <= leaf.maxX && y + rect.getHeight() <= leaf.maxY) {
+            return;
+        }
+        removeLeaf(leaf);
+        setFatBounds(leaf, rect);
+        insertLeaf(leaf);
+    }
+
+    /**
+     * Removes every collidable from the tree.
+     */
+    @Override
+    public void clear() {
+        this.root = null;
+        this.leaves.clear();
+    }
+
+    /**
+     * Finds the closest collision of a moving circle. The tree is walked depth first, nearer child
+     * first, and a subtree is skipped when the circle reaches its box after the best hit so far.
+     * Boxes are grown by the radius, so the center can be tested against them as a point.
+     *
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param hit    The holder the time of impact, touched point and normal are written to.
+     * @return The collidable hit first, or null if there are no collisions.
+     */
+    @Override
+    public Collidable findClosestCollision(double x, double y, double dx, double dy, double radius, RayHit hit) {
+        hit.resetTests();
+        if (this.root == null || entryParameter(this.root, x, y, dx, dy, radius) > 1) {
+            return null;
+        }
+        return search(this.root, x, y, dx, dy, radius, hit, null);
+    }
+
+    /**
+     * Searches a subtree for a collision closer than the best one found so far. The recursion keeps
+     * the walk free of allocations, and its depth is the height of the tree.
+     *
+     * @param node    The root of the subtree, whose box the circle reaches within the move.
+     * @param x       The x-coordinate of the center at the start of the move.
+     * @param y       The y-coordinate of the center at the start of the move.
+     * @param dx      The change in x of the center over the move.
+     * @param dy      The change in y of the center over the move.
+     * @param radius  The radius of the moving circle.
+     * @param hit     The holder of the best hit so far.
+     * @param closest The collidable of the best hit so far, or null if there is none yet.
+     * @return The collidable of the best hit after searching the subtree, or null if there is none.
+     */
+    private Collidable search(Node node, double x, double y, double dx, double dy, double radius,
+                              RayHit hit, Collidable closest) {
+        double limit = closest == null ? Double.POSITIVE_INFINITY : hit.getT();
+        if (node.isLeaf()) {
+            Rectangle rect = node.collidable.getCollisionRectangle();
+            hit.countTest();
+            return SweptCircle.sweep(x, y, dx, dy, radius, rect, limit, hit) ? node.collidable : closest;
+        }
+
+        // Visit the nearer child first, and skip a child the circle reaches after the best hit
+        double tLeft = entryParameter(node.left, x, y, dx, dy, radius);
+        double tRight = entryParameter(node.right, x, y, dx, dy, radius);
+        Node near = tLeft <= tRight ? node.left : node.right;
+        Node far = tLeft <= tRight ? node.right : node.left;
+        double tNear = Math.min(tLeft, tRight);
+        double tFar = Math.max(tLeft, tRight);
+        Collidable best = closest;
+        if (tNear <= 1 && tNear <= limit) {
+            best = search(near, x, y, dx, dy, radius, hit, best);
+            limit = best == null ? Double.POSITIVE_INFINITY : hit.getT();
+        }
+        if (tFar <= 1 && tFar <= limit) {
+            best = search(far, x, y, dx, dy, radius, hit, best);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the parameter in [0, 1] at which a moving circle reaches the box of a node.
+     *
+     * @param node   The node whose box is tested.
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @return The entry parameter, or infinity if the circle misses the box.
+     */
+    private static double entryParameter(Node node, double x, double y, double dx, double dy, double radius) {
+        return Slab.entry(x, y, dx, dy, node.minX - radius, node.minY - radius,
+                node.maxX + radius, node.maxY + radius);
+    }
+
+    /**
+     * Sets the box of a leaf to a rectangle enlarged by the margin on every side.
+     *
+     * @param leaf The leaf to set.
+     * @param rect The collision rectangle of the leaf's collidable.
+     */
+    private static void setFatBounds(Node leaf, Rectangle rect) {
+        leaf.minX = rect.getUpperLeft().getX() - MARGIN;
+        leaf.minY = rect.getUpperLeft().getY() - MARGIN;
+        leaf.maxX = rect.getUpperLeft().getX() + rect.getWidth() + MARGIN;
+        leaf.maxY = rect.getUpperLeft().getY() + rect.getHeight() + MARGIN;
+    }
+
+    /**
+     * Inserts a leaf next to the sibling that increases the total perimeter of the tree the least,
+     * then refits and rebalances the path back to the root.
+     *
+     * @param leaf The leaf to insert.
+     */
+    private void insertLeaf(Node leaf) {
+        leaf.parent = null;
+        if (this.root == null) {
+            this.root = leaf;
+            return;
+        }
+
+        // Descend towards the cheapest sibling
+        Node sibling = this.root;
+        while (!sibling.isLeaf()) {
+            double perimeter = perimeter(sibling);
+            double combined = unionPerimeter(sibling, leaf);
+
+            // Pairing with this node creates a parent here, and every ancestor below grows too
+            double cost = 2 * combined;
+            double inheritance = 2 * (combined - perimeter);
+            double costLeft = descendCost(sibling.left, leaf) + inheritance;
+            double costRight = descendCost(sibling.right, leaf) + inheritance;
+            if (cost < costLeft && cost < costRight) {
+                break;
+            }
+            sibling = costLeft < costRight ? sibling.left : sibling.right;
+        }
+
+        // Create a new parent for the sibling and the leaf
+        Node oldParent = sibling.parent;
+        Node newParent = new Node();
+        newParent.parent = oldParent;
+        newParent.left = sibling;
+        newParent.right = leaf;
+        sibling.parent = newParent;
+        leaf.parent = newParent;
+        if (oldParent == null) {
+            this.root = newParent;
+        } else if (oldParent.left == sibling) {
+            oldParent.left = newParent;
+        } else {
+            oldParent.right = newParent;
+        }
+        refitUpwards(newParent);
+    }
+
+    /**
+     * Removes a leaf from the tree, replacing its parent with its sibling.
+     *
+     * @param leaf The leaf to remove.
+     */
+    private void removeLeaf(Node leaf) {
+        if (leaf == this.root) {
+            this.root = null;
+            return;
+        }
+        Node parent = leaf.parent;
+        Node grandParent = parent.parent;
+        Node sibling = parent.left == leaf ? parent.right : parent.left;
+        sibling.parent = grandParent;
+        if (grandParent == null) {
+            this.root = sibling;
+        } else {
+            if (grandParent.left == parent) {
+                grandParent.left = sibling;
+            } else {
+                grandParent.right = sibling;
+            }
+            refitUpwards(grandParent);
+        }
+        leaf.parent = null;
+    }
+
+    /**
+     * Rebalances and refits every node from the given one up to the root.
+     *
+     * @param node The lowest inner node whose children changed.
+     */
+    private void refitUpwards(Node node) {
+        Node current = node;
+        while (current != null) {
+            current = balance(current);
+            refit(current);
+            current = current.parent;
+        }
+    }
+
+    /**
+     * Rotates a node whose children heights differ by more than one.
+     *
+     * @param a The node to balance.
+     * @return The node now at the position of the given one.
+     */
+    private Node balance(Node a) {
+        if (a.isLeaf() || a.height < 2) {
+            return a;
+        }
+        int balance = a.right.height - a.left.height;
+        if (balance > 1) {
+            return rotate(a, a.right);
+        }
+        if (balance < -1) {
+            return rotate(a, a.left);
+        }
+        return a;
+    }
+
+    /**
+     * Promotes a child of a node to the node's place. The taller child of the promoted node stays
+     * under it, and the shorter one moves under the demoted node.
+     *
+     * @param a  The node to demote.
+     * @param up The child of a to promote.
+     * @return The promoted node.
+     */
+    private Node rotate(Node a, Node up) {
+        Node keep = up.left.height > up.right.height ? up.left : up.right;
+        Node move = keep == up.left ? up.right : up.left;
+
+        // Put the promoted node in the place of a
+        up.parent = a.parent;
+        if (up.parent == null) {
+            this.root = up;
+        } else if (up.parent.left == a) {
+            up.parent.left = up;
+        } else {
+            up.parent.right = up;
+        }
+
+        // a becomes a child of the promoted node, and takes its shorter child
+        up.left = a;
+        up.right = keep;
+        a.parent = up;
+        if (a.left == up) {
+            a.left = move;
+        } else {
+            a.right = move;
+        }
+        move.parent = a;
+        refit(a);
+        refit(up);
+        return up;
+    }
+
+    /**
+     * Recomputes the box and height of an inner node from its children.
+     *
+     * @param node The node to refit.
+     */
+    private static void refit(Node node) {
+        if (node.isLeaf()) {
+            return;
+        }
+        node.minX = Math.min(node.left.minX, node.right.minX);
+        node.minY = Math.min(node.left.minY, node.right.minY);
+        node.maxX = Math.max(node.left.maxX, node.right.maxX);
+        node.maxY = Math.max(node.left.maxY, node.right.maxY);
+        node.height = 1 + Math.max(node.left.height, node.right.height);
+    }
+
+    /**
+     * Returns the cost of descending into a child when looking for the sibling of a new leaf.
+     *
+     * @param child The child to descend into.
+     * @param leaf  The leaf being inserted.
+     * @return The perimeter the subtree would grow by.
+     */
+    private static double descendCost(Node child, Node leaf) {
+        if (child.isLeaf()) {
+            return unionPerimeter(child, leaf);
+        }
+        return unionPerimeter(child, leaf) - perimeter(child);
+    }
+
+    /**
+     * Returns the perimeter of the box of a node.
+     *
+     * @param node The node.
+     * @return The perimeter of its box.
+     */
+    private static double perimeter(Node node) {
+        return 2 * ((node.maxX - node.minX) + (node.maxY - node.minY));
+    }
+
+    /**
+     * Returns the perimeter of the box enclosing the boxes of two nodes.
+     *
+     * @param a The first node.
+     * @param b The second node.
+     * @return The perimeter of the enclosing box.
+     */
+    private static double unionPerimeter(Node a, Node b) {
+        double width = Math.max(a.maxX, b.maxX) - Math.min(a.minX, b.minX);
+        double height = Math.max(a.maxY, b.maxY) - Math.min(a.minY, b.minY);
+        return 2 * (width + height);
+    }
+}
@@ -0,0 +1,36 @@
+// 318936507 Adir Tamam
+package Game;
+
+/**
+ * The BlockType enum lists the kinds of blocks a level file holds, which differ in their hit
+ * listeners. A block record keeps its type as the ordinal.
+ */
+public enum BlockType {
+    /**
+     * A block that is never removed, such as the boundaries of the screen.
+     */
+    WALL,
+
+    /**
+     * A block the balls remove, for points; the game is won when none is left.
+     */
+    BREAKABLE,
+
+    /**
+     * A block that removes the balls hitting it, such as the region under the paddle.
+     */
+    DEATH_REGION;
+
+    // The types by ordinal, so decoding a record does not copy values()
+    private static final BlockType[] TYPES = values();
+
+    /**
+     * Returns the type with the given ordinal.
+     *
+     * @param code The ordinal of the type, as a block record keeps it.
+     * @return The type, or null if there is no type with that ordinal.
+     */
+    public static BlockType of(int code) {
+        return code >= 0 && code < TYPES.length ? TYPES[code] : null;
+    }
+}
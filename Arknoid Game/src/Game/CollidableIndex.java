@@ -0,0 +1,54 @@
+// 318936507 Adir Tamam
+package Game;
+
+import Geometry.RayHit;
+import Collidable.Collidable;
+
+/**
+ * The CollidableIndex interface represents a broadphase structure over the collidables of a
+ * GameEnvironment, used to answer closest-collision queries without testing every collidable.
+ */
+public interface CollidableIndex {
+
+    /**
+     * Adds a collidable to the index, using its current collision rectangle.
+     *
+     * @param c The Collidable to add.
+     */
+    void insert(Collidable c);
+
+    /**
+     * Removes a collidable from the index. Does nothing if it is not indexed.
+     *
+     * @param c The Collidable to remove.
+     */
+    void remove(Collidable c);
+
+    /**
+     * Refits the index after the collision rectangle of a collidable has changed.
+     *
+     * @param c The Collidable that moved.
+     */
+    void update(Collidable c);
+
+    /**
+     * Removes every collidable from the index.
+     */
+    void clear();
+
+    /**
+     * Finds the closest collision of a circle moving along a segment with the indexed collidables.
+     * A radius of zero makes this a query for a point moving along the segment.
+     * Implementations must not change any state here, so that queries can run in parallel, and they
+     * count the exact tests against single collidables they make in the hit holder.
+     *
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param hit    The holder the time of impact, touched point and normal are written to.
+     * @return The collidable hit first, or null if there are no collisions.
+     */
+    Collidable findClosestCollision(double x, double y, double dx, double dy, double radius, RayHit hit);
+}
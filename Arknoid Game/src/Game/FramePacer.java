@@ -0,0 +1,38 @@
+// 318936507 Adir Tamam
+package Game;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Precise waiting on System.nanoTime for the game loop. Parking the thread wakes it up late by up
+ * to a millisecond or so, so the thread parks until shortly before the deadline and spins the rest.
+ */
+public final class FramePacer {
+    // How long before a deadline the thread stops parking and starts spinning
+    static final long SPIN_NANOS = 1_000_000L;
+
+    /**
+     * Not instantiable.
+     */
+    private FramePacer() {
+    }
+
+    /**
+     * Waits until System.nanoTime reaches the given deadline. Returns at once if it has passed.
+     *
+     * @param deadline The time to wait for, in the units of System.nanoTime.
+     */
+    public static void waitUntil(long deadline) {
+        while (true) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return;
+            }
+            if (left > SPIN_NANOS) {
+                LockSupport.parkNanos(left - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
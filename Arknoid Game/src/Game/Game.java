@@ -1,223 +1,1466 @@
-// 318936507 Adir Tamam
-package Game;
-
-import Collidable.Block;
-import Collidable.Paddle;
-import Sprites.Ball;
-import Sprites.ScoreIndicator;
-import Sprites.Sprite;
-import Sprites.SpriteCollection;
-import biuoop.DrawSurface;
-import biuoop.GUI;
-import Geometry.Rectangle;
-import Geometry.Point;
-import Collidable.Collidable;
-
-import java.awt.Color;
-
-import Base.BlockRemover;
-
-import java.util.Random;
-
-import Base.Counter;
-
-import Base.ScoreTrackingListener;
-import Base.BallRemover;
-
-/**
- * The Game class represents the main logic of the game, managing sprites, collidables, and game initialization.
- */
-public class Game {
-    private Counter numBlocks;
-
-    private Counter numBalls;
-
-    private Counter score;
-    private SpriteCollection sprites;
-    private GameEnvironment environment;
-
-    /**
-     * Constructs a new Game with an empty SpriteCollection and GameEnvironment.
-     */
-    public Game() {
-        this.sprites = new SpriteCollection();
-        this.environment = new GameEnvironment();
-        this.numBalls = new Counter();
-        this.numBlocks = new Counter();
-        this.score = new Counter();
-    }
-
-    /**
-     * Retrieves the SpriteCollection associated with this object.
-     *
-     * @return The SpriteCollection object containing sprites.
-     */
-    public SpriteCollection getSpriteCollection() {
-        return this.sprites;
-    }
-
-    /**
-     * Retrieves the GameEnvironment associated with this object.
-     *
-     * @return The GameEnvironment object containing the game environment.
-     */
-    public GameEnvironment getGameEnvironment() {
-        return this.environment;
-    }
-
-
-
-    /**
-     * Adds a Collidable to the game environment.
-     *
-     * @param c The Collidable to add.
-     */
-    public void addCollidable(Collidable c) {
-        environment.addCollidable(c);
-    }
-
-    /**
-     * Adds a Sprite to the game sprite collection.
-     *
-     * @param s The Sprite to add.
-     */
-    public void addSprite(Sprite s) {
-        sprites.addSprite(s);
-    }
-
-    /**
-     * Initializes a new game by creating Blocks, Balls, and Paddle and adding them to the game.
-     */
-    public void initialize() {
-        BlockRemover blockremover = new BlockRemover(this, this.numBlocks);
-        BallRemover ballRemover = new BallRemover(this, this.numBalls);
-        ScoreTrackingListener trackingListener = new ScoreTrackingListener(this.score);
-        Color[] ballsColors = {Color.YELLOW, Color.GREEN, Color.RED};
-        for (int i = 0; i < 3; i++) {
-            Ball ball1 = new Ball(398 - 5 * i, 370 - 5 * i, 5, ballsColors[i], environment);
-            ball1.setVelocity(0, -10 - i);
-            ball1.addToGame(this);
-            this.numBalls.increase(1);
-        }
-
-        // ... (code for creating and adding the top, left, and right blocks)
-        Block boundary1 = new Block(new Rectangle(new Point(0, 20), 800, 20), Color.gray);  // Top block
-        Block boundary2 = new Block(new Rectangle(new Point(0, 0), 20, 600), Color.gray);  // Left block
-        Block boundary3 = new Block(new Rectangle(new Point(780, 0), 20, 600), Color.gray);  // Right block
-        boundary1.addToGame(this);
-        boundary2.addToGame(this);
-        boundary3.addToGame(this);
-
-        // death block creation
-        Block deathRegion = new Block(new Rectangle(new Point(0, 601), 800, 1), Color.blue);  // death block
-        deathRegion.addToGame(this);
-        deathRegion.addHitListener(ballRemover);
-
-        // score indicator creation
-        ScoreIndicator indicator = new ScoreIndicator(this.score);
-        indicator.addToGame(this);
-
-
-        // blocks creation
-        Color[] colors = {Color.YELLOW, Color.GREEN, Color.MAGENTA, Color.CYAN, Color.pink, Color.RED};
-        Random random = new Random();
-        int color;
-        double width = 50;
-        double height = 20;
-
-        // Loop for creating and adding the blocks in a pyramid shape
-        for (int j = 0; j < 6; j++) {
-            for (int i = 0; i < 12 - 2 * j; i++) {
-                color = random.nextInt(6);
-                Point p = new Point(100 + width * j + width * i, height * j + height + 20);
-                Block block = new Block(new Rectangle(p, width, height), colors[color]);
-                block.addToGame(this);
-                block.addHitListener(blockremover);
-                block.addHitListener(trackingListener);
-                this.numBlocks.increase(1);
-            }
-        }
-    }
-
-
-    // Run the game -- start the animation loop.
-
-    /**
-     * Runs the game, starting the animation loop.
-     */
-    public void run() {
-        // Initialize the GUI and other necessary components
-        GUI gui = new GUI("Game Example", 800, 600);
-        biuoop.Sleeper sleeper = new biuoop.Sleeper();
-        biuoop.KeyboardSensor keyboard = gui.getKeyboardSensor();
-
-        // Create and add a paddle to the game
-        Paddle paddle = new Paddle(new Rectangle(new Point(360, 560), 100, 20), Color.YELLOW, 800, 10, keyboard);
-        paddle.addToGame(this);
-
-        // Set up animation parameters
-        int framesPerSecond = 60;
-        int millisecondsPerFrame = 1000 / framesPerSecond;
-
-        // Main game loop
-        while (true) {
-
-            long startTime = System.currentTimeMillis(); // timing
-
-            // Draw the background and game elements
-            DrawSurface d = gui.getDrawSurface();
-            d.setColor(Color.BLUE);
-            d.fillRectangle(0, 0, 800, 600);
-            this.sprites.drawAllOn(d);
-            d.setColor(Color.BLUE);
-
-            // Enhance the animation appearance
-            d.fillRectangle(0, 560, 20, 20);
-            d.fillRectangle(780, 560, 20, 20);
-            d.drawLine(20, 560, 20, 580);
-
-
-            // Draw the paddle
-            paddle.drawOn(d);
-            gui.show(d);
-            this.sprites.notifyAllTimePassed();
-
-            // Control the frame rate
-            long usedTime = System.currentTimeMillis() - startTime;
-            long milliSecondLeftToSleep = millisecondsPerFrame - usedTime;
-            if (milliSecondLeftToSleep > 0) {
-                sleeper.sleepFor(milliSecondLeftToSleep);
-            }
-
-            if (this.numBlocks.getValue() == 0) {
-                this.score.increase(100);
-                gui.close();
-                return;
-            }
-            if (this.numBalls.getValue() == 0) {
-                gui.close();
-                return;
-            }
-        }
-    }
-
-    /**
-     * Removes a collidable object from the game environment.
-     *
-     * @param c The Collidable object to be removed.
-     */
-    public void removeCollidable(Collidable c) {
-        this.environment.getCollidableList().remove(c);
-    }
-
-    /**
-     * Removes a sprite from the sprite collection.
-     *
-     * @param s The Sprite object to be removed.
-     */
-    public void removeSprite(Sprite s) {
-        this.sprites.getSprites().remove(s);
-    }
-
-
-}
+// 318936507 Adir Tamam
+package Game;
+
+import Collidable.Block;
+import Collidable.BlockTable;
+import Collidable.Paddle;
+import Ecs.EntityAdapter;
+import Ecs.EntityEngine;
+import Sprites.Ball;
+import Sprites.BallSystem;
+import Sprites.PerformanceOverlay;
+import Sprites.ScoreIndicator;
+import Sprites.Sprite;
+import Sprites.SpriteCollection;
+import Sprites.Velocity;
+import biuoop.DrawSurface;
+import biuoop.GUI;
+import Geometry.Rectangle;
+import Geometry.Point;
+import Collidable.Collidable;
+
+import java.awt.Color;
+
+import Base.BlockRemover;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import Base.Counter;
+import Base.HitEventBus;
+
+import Base.ScoreTrackingListener;
+import Base.BallRemover;
+import Input.InputRecorder;
+import Input.InputSource;
+import Input.KeyboardInput;
+import Metrics.EngineMetrics;
+import Metrics.EngineStats;
+import Metrics.Phase;
+import Metrics.RenderEvent;
+import Metrics.TickEvent;
+import Render.CommandBuffer;
+import Render.DirtyRegion;
+import Render.FrameSnapshot;
+import Render.ImageDrawSurface;
+import Render.StaticLayer;
+import Render.TripleBuffer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The Game class represents the main logic of the game, managing sprites, collidables, and game initialization.
+ */
+public class Game {
+    // The default number of physics ticks per second, and the number of frames drawn per second
+    static final int DEFAULT_TICK_RATE = 60;
+    static final int FRAMES_PER_SECOND = 60;
+
+    // The largest number of ticks run in one frame to catch up after the game fell behind
+    static final int MAX_CATCH_UP_TICKS = 5;
+
+    // Above this part of the frame changed, redrawing the changes into the kept frame and showing it
+    // costs more than drawing the frame whole
+    static final double MAX_DIRTY_FRACTION = 0.5;
+
+    // The key that shows and hides the performance overlay
+    static final String OVERLAY_KEY = "m";
+
+    // The number of ticks between two keyframes of a recorded session, ten seconds at the default rate
+    static final int KEYFRAME_INTERVAL = 600;
+
+    // The JMX domain of the engine MBeans, and the ids that keep the names of several games apart
+    static final String MBEAN_DOMAIN = "Arkanoid";
+    private static final AtomicInteger NEXT_MBEAN_ID = new AtomicInteger();
+
+    private Counter numBlocks;
+
+    private Counter numBalls;
+
+    private Counter score;
+    private SpriteCollection sprites;
+    private GameEnvironment environment;
+    private Paddle paddle;
+
+    // The source of the paddle controls, polled at the start of every tick
+    private InputSource input;
+
+    // The seed of all the randomness of the game, and the ball storm balls added, which with the
+    // input of every tick are all it takes to run the same game again
+    private final long seed;
+    private final Random random;
+    private int stormBalls;
+
+    // The file run records the session to, or null
+    private Path recordFile;
+
+    // The level file the blocks were loaded from by loadLevel, or null if they come from initialize
+    private Path levelFile;
+
+    // The balls of initialize or loadLevel, the blocks of initialize and the ball storms, in the order
+    // they were added, whose state makes up a snapshot together with the block table, the counters, the
+    // paddle and the ticks
+    private final List<Ball> balls;
+    private final List<Block> blocks;
+    private final List<BallSystem> storms;
+
+    // The blocks of loadLevel, or null
+    private BlockTable blockTable;
+
+    // The keyframes written every keyframeInterval ticks, or null
+    private SnapshotWriter keyframes;
+    private int keyframeInterval;
+
+    // The number of ticks run so far, and whether the bonus for clearing the blocks was given
+    private long ticks;
+    private boolean cleared;
+
+    // The physics rate of run
+    private int tickRate;
+
+    // The timings and counters of the engine, and the overlay that shows them
+    private final EngineMetrics metrics;
+    private final PerformanceOverlay overlay;
+
+    // The hits of the current tick, passed to the hit listeners at its end
+    private final HitEventBus hitEvents;
+
+    // The background and the static sprites, pre-drawn, and whether frames are drawn with it; while the
+    // game is pipelined, the render thread keeps a layer of its own and this one is left empty
+    private StaticLayer staticLayer;
+    private boolean staticLayerEnabled;
+
+    // The last frame, kept to draw only its changed areas again, the areas changed since, whether the
+    // kept frame missed changes and must be drawn whole, and whether frames are drawn that way
+    private ImageDrawSurface frame;
+    private final DirtyRegion damage;
+
+    // The drawings of the frame, recorded and then drawn sorted by color
+    private final CommandBuffer commands;
+    private boolean frameStale;
+    private boolean dirtyRenderingEnabled;
+
+    // The static sprites ever added, by id, and a bit per id, set while the sprite is in the game, which
+    // the snapshots of a render thread draw them by
+    private Sprite[] staticSprites;
+    private int staticCount;
+    private long[] liveStatic;
+    private final Map<Sprite, Integer> staticIds;
+
+    // Whether run draws the frames on a render thread of their own
+    private boolean pipelined;
+
+    // The engine the blocks and balls were moved into by convertToEntities, or null
+    private EntityEngine entities;
+
+    // The name the engine MBean is registered under, or null if it is not registered
+    private ObjectName mbeanName;
+
+    /**
+     * Constructs a new Game with an empty SpriteCollection and GameEnvironment.
+     */
+    public Game() {
+        this(IndexType.GRID);
+    }
+
+    /**
+     * Constructs a new Game with an empty SpriteCollection and a GameEnvironment indexed by
+     * the given type of broadphase structure.
+     *
+     * @param indexType The type of index used for collision queries.
+     */
+    public Game(IndexType indexType) {
+        this(indexType, new Random().nextLong());
+    }
+
+    /**
+     * Constructs a new Game like Game(IndexType), whose random choices all come from the given seed.
+     * Two games with the same seed, ball storm and input run exactly the same way.
+     *
+     * @param indexType The type of index used for collision queries.
+     * @param seed      The seed of the random choices of the game.
+     */
+    public Game(IndexType indexType, long seed) {
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.sprites = new SpriteCollection();
+        this.environment = new GameEnvironment(indexType);
+        this.metrics = new EngineMetrics();
+        this.environment.setMetrics(this.metrics);
+        this.overlay = new PerformanceOverlay(this.metrics);
+        this.hitEvents = new HitEventBus();
+        this.hitEvents.setMetrics(this.metrics);
+        this.staticLayer = new StaticLayer(800, 600, Color.BLUE);
+        this.staticLayerEnabled = true;
+        this.damage = new DirtyRegion(800, 600);
+        this.commands = new CommandBuffer(800, 600);
+        this.frameStale = true;
+        this.dirtyRenderingEnabled = true;
+        this.staticSprites = new Sprite[0];
+        this.liveStatic = new long[0];
+        this.staticIds = new IdentityHashMap<>();
+        this.pipelined = false;
+        this.numBalls = new Counter();
+        this.numBlocks = new Counter();
+        this.score = new Counter();
+        this.balls = new ArrayList<>();
+        this.blocks = new ArrayList<>();
+        this.storms = new ArrayList<>();
+        this.tickRate = DEFAULT_TICK_RATE;
+    }
+
+    /**
+     * Retrieves the SpriteCollection associated with this object.
+     *
+     * @return The SpriteCollection object containing sprites.
+     */
+    public SpriteCollection getSpriteCollection() {
+        return this.sprites;
+    }
+
+    /**
+     * Retrieves the GameEnvironment associated with this object.
+     *
+     * @return The GameEnvironment object containing the game environment.
+     */
+    public GameEnvironment getGameEnvironment() {
+        return this.environment;
+    }
+
+
+
+    /**
+     * Adds a Collidable to the game environment.
+     *
+     * @param c The Collidable to add.
+     */
+    public void addCollidable(Collidable c) {
+        environment.addCollidable(c);
+    }
+
+    /**
+     * Adds a Sprite to the game sprite collection, and to the static layer if it is static.
+     *
+     * @param s The Sprite to add.
+     */
+    public void addSprite(Sprite s) {
+        sprites.addSprite(s);
+        if (s.getStaticBounds() != null) {
+            if (!this.pipelined) {
+                this.staticLayer.add(s);
+            }
+            setStaticLive(s, true);
+        }
+    }
+
+    /**
+     * Sets the live bit of a static sprite, giving it the next id the first time it is added.
+     *
+     * @param s    The static sprite.
+     * @param live Whether the sprite is in the game.
+     */
+    private void setStaticLive(Sprite s, boolean live) {
+        Integer id = this.staticIds.get(s);
+        if (id == null) {
+            if (!live) {
+                return;
+            }
+            // The sprites grow into a new array, as the snapshots share the old one
+            if (this.staticCount == this.staticSprites.length) {
+                this.staticSprites = Arrays.copyOf(this.staticSprites, Math.max(16, 2 * this.staticCount));
+            }
+            if (this.staticCount / Long.SIZE == this.liveStatic.length) {
+                this.liveStatic = Arrays.copyOf(this.liveStatic, Math.max(1, 2 * this.liveStatic.length));
+            }
+            id = this.staticCount++;
+            this.staticSprites[id] = s;
+            this.staticIds.put(s, id);
+        }
+        if (live) {
+            this.liveStatic[id / Long.SIZE] |= 1L << id;
+        } else {
+            this.liveStatic[id / Long.SIZE] &= ~(1L << id);
+        }
+    }
+
+    /**
+     * Initializes a new game by creating Blocks, Balls, and Paddle and adding them to the game.
+     */
+    public void initialize() {
+        BlockRemover blockremover = new BlockRemover(this, this.numBlocks);
+        BallRemover ballRemover = new BallRemover(this, this.numBalls);
+        ScoreTrackingListener trackingListener = new ScoreTrackingListener(this.score);
+        addBalls();
+
+        // ... (code for creating and adding the top, left, and right blocks)
+        Block boundary1 = new Block(new Rectangle(new Point(0, 20), 800, 20), Color.gray);  // Top block
+        Block boundary2 = new Block(new Rectangle(new Point(0, 0), 20, 600), Color.gray);  // Left block
+        Block boundary3 = new Block(new Rectangle(new Point(780, 0), 20, 600), Color.gray);  // Right block
+        boundary1.addToGame(this);
+        boundary2.addToGame(this);
+        boundary3.addToGame(this);
+
+        // death block creation
+        Block deathRegion = new Block(new Rectangle(new Point(0, 601), 800, 1), Color.blue);  // death block
+        deathRegion.addToGame(this);
+        deathRegion.addHitListener(ballRemover);
+
+        // score indicator creation
+        ScoreIndicator indicator = new ScoreIndicator(this.score);
+        indicator.addToGame(this);
+        this.overlay.addToGame(this);
+
+
+        // blocks creation
+        Color[] colors = {Color.YELLOW, Color.GREEN, Color.MAGENTA, Color.CYAN, Color.pink, Color.RED};
+        int color;
+        double width = 50;
+        double height = 20;
+
+        // Loop for creating and adding the blocks in a pyramid shape
+        for (int j = 0; j < 6; j++) {
+            for (int i = 0; i < 12 - 2 * j; i++) {
+                color = this.random.nextInt(6);
+                Point p = new Point(100 + width * j + width * i, height * j + height + 20);
+                Block block = new Block(new Rectangle(p, width, height), colors[color]);
+                block.addToGame(this);
+                this.blocks.add(block);
+                block.addHitListener(blockremover);
+                block.addHitListener(trackingListener);
+                this.numBlocks.increase(1);
+            }
+        }
+    }
+
+
+    /**
+     * Initializes a new game from a level file written by LevelWriter, in place of initialize: the
+     * balls, the blocks of the level, in one pass over the mapped records, into a block table rather
+     * than a Block object each, then the score indicator and the overlay as initialize makes them.
+     * The table is kept off the heap, found by the collision queries of the game environment and drawn
+     * by the static layer, both straight from its rows; a block becomes an object only when it is hit.
+     * The blocks of a type share the listeners of a group of the table. If the file has an index
+     * section, the grid of the table is filled with the rows as they are read, and otherwise built
+     * after. The load time goes to the metrics, which then measure the time from the opening of the
+     * file to the end of the first frame.
+     *
+     * @param file The level file.
+     * @return The number of blocks loaded.
+     * @throws IOException           If the file cannot be read or is not a level file.
+     * @throws IllegalStateException If the game was already initialized.
+     */
+    public int loadLevel(Path file) throws IOException {
+        if (this.sprites.size() != 0) {
+            throw new IllegalStateException("A level can only be loaded into a new game");
+        }
+        long opened = System.nanoTime();
+        try (LevelReader level = new LevelReader(file)) {
+            BlockRemover blockRemover = new BlockRemover(this, this.numBlocks);
+            BallRemover ballRemover = new BallRemover(this, this.numBalls);
+            ScoreTrackingListener trackingListener = new ScoreTrackingListener(this.score);
+            addBalls();
+
+            int count = level.size();
+            BlockTable table = new BlockTable(count);
+            table.setHitEvents(this.hitEvents);
+            int breakable = table.addGroup(blockRemover, trackingListener);
+            int death = table.addGroup(ballRemover);
+            beginGrid(table, level);
+            for (int i = 0; i < count; i++) {
+                BlockType type = level.getType(i);
+                if (type == null) {
+                    throw new IOException("Block " + i + " of the level file has no known type: " + file);
+                }
+                // Walls are in group 0, which has no listeners
+                int group = type == BlockType.BREAKABLE ? breakable : (type == BlockType.DEATH_REGION ? death : 0);
+                table.add(level.getX(i), level.getY(i), level.getWidth(i), level.getHeight(i), level.getRgb(i),
+                        type == BlockType.BREAKABLE ? 1 : 0, group);
+                if (type == BlockType.BREAKABLE) {
+                    this.numBlocks.increase(1);
+                }
+            }
+            table.buildGrid();
+            this.blockTable = table;
+            this.environment.setBlockTable(table);
+            this.sprites.addSprite(table);
+            if (!this.pipelined) {
+                this.staticLayer.setBlockTable(table);
+            }
+
+            // The blocks come before the score, as the boundaries of initialize do, so they are drawn under it
+            new ScoreIndicator(this.score).addToGame(this);
+            this.overlay.addToGame(this);
+            this.levelFile = file;
+            this.metrics.levelLoaded(opened);
+            return count;
+        }
+    }
+
+    /**
+     * Starts the grid of a block table with the cells listed by the index section of a level file,
+     * each with room for its blocks, if the file has one.
+     *
+     * @param table The block table, still empty.
+     * @param level The level file.
+     */
+    private static void beginGrid(BlockTable table, LevelReader level) {
+        if (level.getCellCount() == 0) {
+            return;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int k = 0; k < level.getCellCount(); k++) {
+            minX = Math.min(minX, level.getCellX(k));
+            minY = Math.min(minY, level.getCellY(k));
+            maxX = Math.max(maxX, level.getCellX(k));
+            maxY = Math.max(maxY, level.getCellY(k));
+        }
+        table.beginGrid(level.getCellSize(), minX, minY, maxX, maxY);
+        for (int k = 0; k < level.getCellCount(); k++) {
+            table.reserveCell(level.getCellX(k), level.getCellY(k), level.getCellBlocks(k));
+        }
+    }
+
+    /**
+     * Adds the three balls every game starts with, above the paddle.
+     */
+    private void addBalls() {
+        Color[] ballsColors = {Color.YELLOW, Color.GREEN, Color.RED};
+        for (int i = 0; i < 3; i++) {
+            Ball ball1 = new Ball(398 - 5 * i, 370 - 5 * i, 5, ballsColors[i], environment);
+            ball1.setVelocity(0, -10 - i);
+            ball1.addToGame(this);
+            this.balls.add(ball1);
+            this.numBalls.increase(1);
+        }
+    }
+
+    /**
+     * Adds a ball storm for stress testing: many small balls with random directions, held in a single
+     * BallSystem instead of one Ball sprite each, which looks for their collisions in parallel on the
+     * common fork-join pool. The balls count as balls of the game, so losing all of them ends it.
+     * Must be called after initialize, which sets up the death region, and not after
+     * convertToEntities, as the balls of a storm do not collide with entities.
+     *
+     * @param count The number of balls in the storm.
+     * @throws IllegalStateException If the game was converted to entities.
+     */
+    public void addBallStorm(int count) {
+        if (this.entities != null) {
+            throw new IllegalStateException("Ball storms cannot be added to a game of entities");
+        }
+        BallSystem storm = new BallSystem(environment, ForkJoinPool.commonPool());
+        Color[] ballsColors = {Color.YELLOW, Color.GREEN, Color.RED, Color.WHITE};
+        for (int i = 0; i < count; i++) {
+            // Spread the balls over the free area between the blocks and the paddle
+            double x = 30 + this.random.nextDouble() * 740;
+            double y = 200 + this.random.nextDouble() * 340;
+            Velocity v = Velocity.fromAngleAndSpeed(this.random.nextDouble() * 360, 3 + this.random.nextDouble() * 4);
+            storm.addBall(x, y, 2, v.getDx(), v.getDy(), ballsColors[this.random.nextInt(ballsColors.length)]);
+        }
+        storm.addToGame(this);
+        this.storms.add(storm);
+        this.numBalls.increase(count);
+        this.stormBalls += count;
+    }
+
+
+    /**
+     * Moves the blocks and balls of the game into an entity world, run by the movement, collision,
+     * scoring and removal systems of an EntityEngine, which takes the place of the first of them
+     * among the sprites, so the balls still move before the paddle, and the blocks are drawn before
+     * the score, and the game runs as it would have with the objects. Levels are still built by
+     * initialize; this converts them. The paddle, any block with a hit listener the systems do not
+     * stand for, and the block table of loadLevel, stay objects. Games of entities cannot take
+     * snapshots, and must not have ball storms.
+     *
+     * @return The number of blocks and balls moved into the world.
+     * @throws IllegalStateException If the game has ball storms or was already converted.
+     */
+    public int convertToEntities() {
+        if (this.entities != null || !this.storms.isEmpty()) {
+            throw new IllegalStateException("Only a game without ball storms can be converted to entities, once");
+        }
+        this.entities = new EntityEngine(this.environment, this.numBlocks, this.numBalls, this.score);
+        return EntityAdapter.adopt(this, this.entities);
+    }
+
+    /**
+     * Returns the engine the blocks and balls were moved into by convertToEntities.
+     *
+     * @return The entity engine, or null if the game was not converted.
+     */
+    public EntityEngine getEntities() {
+        return this.entities;
+    }
+
+    /**
+     * Creates the paddle, controlled by the given input source, and adds it to the game.
+     *
+     * @param input The input source that moves the paddle.
+     */
+    public void addPaddle(InputSource input) {
+        this.input = input;
+        this.paddle = new Paddle(new Rectangle(new Point(360, 560), 100, 20), Color.YELLOW, 800, 10, input);
+        this.paddle.addToGame(this);
+    }
+
+    /**
+     * Checks if the game is over: all the blocks were removed, or all the balls were lost.
+     *
+     * @return {@code true} if the game is over, {@code false} otherwise.
+     */
+    public boolean isOver() {
+        return this.numBlocks.getValue() == 0 || this.numBalls.getValue() == 0;
+    }
+
+    /**
+     * Advances the game by one tick, and gives the bonus for clearing the blocks when that ends it.
+     * The controls are polled first, once per tick. If keyframes are recorded and one is due, it is
+     * written before anything else, so the keyframe of tick t holds the state after t ticks. The hits
+     * of the tick are passed to the hit listeners at its end, after every sprite moved, and only then
+     * are the balls the listeners removed dropped from the ball storms.
+     */
+    public void step() {
+        if (this.keyframes != null && this.ticks % this.keyframeInterval == 0) {
+            writeKeyframe();
+        }
+        TickEvent event = new TickEvent();
+        if (event.isEnabled()) {
+            event.begin();
+        }
+        if (this.input != null) {
+            this.input.poll();
+        }
+        long start = this.metrics.beginTick();
+        this.hitEvents.beginTick(this.ticks);
+        this.sprites.notifyAllTimePassed();
+        this.hitEvents.dispatch();
+        for (BallSystem storm : this.storms) {
+            storm.dropRemoved();
+        }
+        this.metrics.endTick(start);
+        if (event.isEnabled()) {
+            event.setTick(this.ticks);
+            event.setBalls(this.numBalls.getValue());
+            event.setBlocks(this.numBlocks.getValue());
+            event.commit();
+        }
+        this.ticks++;
+        if (this.numBlocks.getValue() == 0 && !this.cleared) {
+            this.cleared = true;
+            this.score.increase(100);
+        }
+    }
+
+    /**
+     * Advances the game by up to n ticks as fast as possible, without drawing or sleeping.
+     * Stops early if the game is over.
+     *
+     * @param n The largest number of ticks to run.
+     * @return The number of ticks that were run.
+     */
+    public long step(long n) {
+        long done = 0;
+        while (done < n && !isOver()) {
+            step();
+            done++;
+        }
+        return done;
+    }
+
+    /**
+     * Returns the number of ticks the game has run.
+     *
+     * @return The number of ticks run so far.
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Returns the current score.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return this.score.getValue();
+    }
+
+    /**
+     * Draws one frame of the game: the background, the sprites and the paddle.
+     *
+     * @param d The DrawSurface on which the frame is drawn.
+     */
+    public void drawOn(DrawSurface d) {
+        drawOn(d, 1);
+    }
+
+    /**
+     * Draws one frame of the game, with the moving sprites between the previous tick and the current one.
+     *
+     * @param d     The DrawSurface on which the frame is drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void drawOn(DrawSurface d, double alpha) {
+        RenderEvent event = new RenderEvent();
+        if (event.isEnabled()) {
+            event.begin();
+        }
+        if (this.blockTable != null && !this.pipelined) {
+            this.staticLayer.updateBlockTable(this.blockTable.getRemovedCount());
+        }
+        if (this.staticLayerEnabled && this.dirtyRenderingEnabled) {
+            drawChanges(d, alpha);
+        } else {
+            recordFrame(alpha);
+            this.commands.flush(d);
+            this.commands.clear();
+            this.metrics.setDirtyFraction(1);
+        }
+        if (event.isEnabled()) {
+            event.setAlpha(alpha);
+            event.setSprites(this.sprites.size());
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a whole frame of the game into the command buffer.
+     *
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    private void recordFrame(double alpha) {
+        if (this.staticLayerEnabled) {
+            // The background and the blocks come in one image; only what moves is drawn shape by shape
+            this.staticLayer.drawOn(this.commands);
+        }
+        recordSprites(this.commands, alpha);
+    }
+
+    /**
+     * Records the frame of the game but the static layer into a command buffer: the dynamic sprites,
+     * or the background and all the sprites if the static layer is not used, then the paddle.
+     *
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    private void recordSprites(CommandBuffer buffer, double alpha) {
+        if (this.staticLayerEnabled) {
+            this.sprites.recordDynamic(buffer, alpha);
+        } else {
+            buffer.setColor(Color.BLUE);
+            buffer.fillRectangle(0, 0, 800, 600);
+            this.sprites.recordAll(buffer, alpha);
+        }
+        buffer.beginOrdered();
+        buffer.setColor(Color.BLUE);
+
+        // Enhance the animation appearance
+        buffer.fillRectangle(0, 560, 20, 20);
+        buffer.fillRectangle(780, 560, 20, 20);
+        buffer.drawLine(20, 560, 20, 580);
+
+        // Draw the paddle
+        if (this.paddle != null) {
+            this.paddle.record(buffer, alpha);
+        }
+    }
+
+    /**
+     * Draws a frame by bringing the kept frame up to date and showing it. Only the areas that changed
+     * since the last frame are drawn again: the damaged areas of the static layer, the areas the
+     * dynamic sprites left and entered, and the areas of the sprites removed since. The frame is
+     * recorded once and drawn from the command buffer under the clip of each of those areas. When most
+     * of the frame changed, as in a ball storm, it is drawn whole straight on the surface instead, and
+     * the kept frame is drawn whole the next time it is used. The part of the frame drawn goes to the
+     * metrics.
+     *
+     * @param d     The DrawSurface on which the frame is drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    private void drawChanges(DrawSurface d, double alpha) {
+        this.staticLayer.addDamageTo(this.damage);
+        this.sprites.addDynamicDamage(this.damage, alpha);
+        if (this.damage.getFraction() > MAX_DIRTY_FRACTION) {
+            recordFrame(alpha);
+            this.commands.flush(d);
+            this.commands.clear();
+            this.frameStale = true;
+            this.metrics.setDirtyFraction(1);
+            this.damage.clear();
+            return;
+        }
+        if (this.frame == null) {
+            this.frame = new ImageDrawSurface(800, 600);
+        }
+        if (this.frameStale) {
+            this.damage.addAll();
+            this.frameStale = false;
+        }
+        this.metrics.setDirtyFraction(this.damage.getFraction());
+        if (!this.damage.isEmpty()) {
+            recordFrame(alpha);
+            for (int i = 0; i < this.damage.getCount(); i++) {
+                this.damage.clip(this.frame, i);
+                this.commands.flush(this.frame);
+            }
+            this.frame.clearClip();
+            this.commands.clear();
+        }
+        this.damage.clear();
+        d.drawImage(0, 0, this.frame.getImage());
+    }
+
+
+    /**
+     * Takes a snapshot of what the next frame draws, at the current tick, for a render thread to draw
+     * while the game goes on. The frame is the one drawOn draws, but that it is drawn whole. The
+     * moving sprites are recorded where the last tick left them and where the tick before left them,
+     * for the render thread to draw in between; the frames go to the last tick at once, unless
+     * setTickTime of the snapshot is called after.
+     *
+     * @param snapshot The snapshot to fill, which no other thread may use until it is published.
+     */
+    public void recordSnapshot(FrameSnapshot snapshot) {
+        CommandBuffer buffer = snapshot.getCommands();
+        buffer.clear();
+        recordSprites(buffer, 1);
+        CommandBuffer previous = snapshot.getPreviousCommands();
+        previous.clear();
+        recordSprites(previous, 0);
+        snapshot.setStaticSprites(this.staticSprites, this.staticCount, this.liveStatic, this.staticLayerEnabled);
+        snapshot.setBlockTable(this.blockTable, this.blockTable != null ? this.blockTable.getRemovedCount() : 0);
+        snapshot.setTick(this.ticks);
+    }
+
+
+    // Run the game -- start the animation loop.
+
+    /**
+     * Runs the game, starting the animation loop. The physics runs at a fixed rate of ticks per
+     * second, paced on System.nanoTime: the time since the last frame is added to an accumulator,
+     * and as many ticks as it holds are run. Each frame then draws the sprites between the last two
+     * ticks, by the part of a tick left in the accumulator, so the motion stays smooth even when
+     * the frame rate and the tick rate differ. A frame runs at most MAX_CATCH_UP_TICKS ticks; when
+     * the game falls further behind, the extra ticks are dropped and counted instead.
+     * Every phase of the loop is timed in the metrics; the OVERLAY_KEY shows and hides them.
+     * If the game is pipelined, runPipelined runs the loop instead.
+     */
+    public void run() {
+        // Initialize the GUI and other necessary components
+        GUI gui = new GUI("Game Example", 800, 600);
+
+        // Create and add a paddle to the game, recording its controls if asked to
+        InputRecorder recorder = startRecording(new KeyboardInput(gui.getKeyboardSensor()));
+        registerMBean();
+
+        if (this.pipelined) {
+            runPipelined(gui);
+        } else {
+            runFrames(gui);
+        }
+
+        finishRecording(recorder);
+        unregisterMBean();
+        gui.close();
+    }
+
+    /**
+     * Runs the animation loop of run on this thread, drawing a frame after the ticks that are due,
+     * until the game is over.
+     *
+     * @param gui The window of the game.
+     */
+    private void runFrames(GUI gui) {
+        biuoop.KeyboardSensor keyboard = gui.getKeyboardSensor();
+
+        // Set up animation parameters
+        long nanosPerTick = 1_000_000_000L / this.tickRate;
+        long nanosPerFrame = 1_000_000_000L / FRAMES_PER_SECOND;
+        long accumulator = 0;
+        long previous = System.nanoTime();
+        long nextFrame = previous;
+        boolean overlayKeyDown = false;
+
+        // Main game loop
+        while (true) {
+            long frameStart = this.metrics.startTimer();
+            long now = System.nanoTime();
+            accumulator = runDueTicks(accumulator + now - previous, nanosPerTick);
+            previous = now;
+            if (isOver()) {
+                return;
+            }
+            overlayKeyDown = pollOverlayKey(keyboard, overlayKeyDown);
+
+            // Draw the background and game elements between the last two ticks
+            long drawStart = this.metrics.startTimer();
+            DrawSurface d = gui.getDrawSurface();
+            drawOn(d, (double) accumulator / nanosPerTick);
+            this.metrics.stopTimer(Phase.DRAW, drawStart);
+            long showStart = this.metrics.startTimer();
+            gui.show(d);
+            this.metrics.stopTimer(Phase.SHOW, showStart);
+            this.metrics.endFrame(frameStart);
+
+            // Control the frame rate; after a long frame, start counting again from now
+            nextFrame += nanosPerFrame;
+            if (nextFrame < System.nanoTime() - nanosPerFrame) {
+                nextFrame = System.nanoTime();
+            }
+            FramePacer.waitUntil(nextFrame);
+        }
+    }
+
+    /**
+     * Runs the game with the physics on this thread and the drawing on a RenderLoop thread, so the
+     * tick rate does not depend on how fast the window shows the frames. The ticks are paced on
+     * System.nanoTime like in run, catching up by at most MAX_CATCH_UP_TICKS; after the ticks that
+     * are due, a snapshot of the frame is published to the render thread through a triple buffer, and
+     * the thread sleeps until the next tick. The render thread cannot read the game between two ticks,
+     * so the snapshot holds the moving sprites at the last two, and its frames move them from the one
+     * to the other over the length of a tick, like the frames of run. Frames are drawn whole from the
+     * static layer.
+     * Both threads mark their work as busy in the metrics, which measure how much they overlap.
+     *
+     * @param gui The window of the game.
+     */
+    private void runPipelined(GUI gui) {
+        biuoop.KeyboardSensor keyboard = gui.getKeyboardSensor();
+
+        // The render thread draws the latest snapshot; the first one is the state before any tick
+        TripleBuffer<FrameSnapshot> snapshots = new TripleBuffer<>(new FrameSnapshot(800, 600),
+                new FrameSnapshot(800, 600), new FrameSnapshot(800, 600));
+        recordSnapshot(snapshots.getBack());
+        snapshots.publish();
+        RenderLoop renderLoop = new RenderLoop(gui, snapshots, this.metrics, new StaticLayer(800, 600, Color.BLUE));
+        Thread renderThread = new Thread(renderLoop, "render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+
+        long nanosPerTick = 1_000_000_000L / this.tickRate;
+        long accumulator = 0;
+        long previous = System.nanoTime();
+        boolean overlayKeyDown = false;
+        while (true) {
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+            if (accumulator >= nanosPerTick) {
+                long busyStart = this.metrics.beginBusy();
+                accumulator = runDueTicks(accumulator, nanosPerTick);
+                if (isOver()) {
+                    this.metrics.endBusy(busyStart);
+                    break;
+                }
+
+                // Show or hide the overlay, then hand the frame over
+                overlayKeyDown = pollOverlayKey(keyboard, overlayKeyDown);
+                recordSnapshot(snapshots.getBack());
+                snapshots.getBack().setTickTime(previous - accumulator, nanosPerTick);
+                snapshots.publish();
+                this.metrics.endBusy(busyStart);
+            }
+            FramePacer.waitUntil(previous + nanosPerTick - accumulator);
+        }
+
+        renderLoop.stop();
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the ticks an accumulator of time holds, catching up by at most MAX_CATCH_UP_TICKS; when
+     * the game is further behind, the extra ticks are dropped and counted in the metrics.
+     *
+     * @param accumulator  The time not run yet, in nanoseconds.
+     * @param nanosPerTick The length of a tick, in nanoseconds.
+     * @return The time left in the accumulator, less than a tick.
+     */
+    private long runDueTicks(long accumulator, long nanosPerTick) {
+        int ran = 0;
+        while (accumulator >= nanosPerTick && ran < MAX_CATCH_UP_TICKS) {
+            step();
+            accumulator -= nanosPerTick;
+            ran++;
+        }
+        if (accumulator >= nanosPerTick) {
+            this.metrics.countDroppedTicks(accumulator / nanosPerTick);
+            accumulator %= nanosPerTick;
+        }
+        return accumulator;
+    }
+
+    /**
+     * Shows or hides the overlay when its key goes down.
+     *
+     * @param keyboard The keyboard of the window.
+     * @param wasDown  Whether the key was down at the last poll.
+     * @return Whether the key is down now.
+     */
+    private boolean pollOverlayKey(biuoop.KeyboardSensor keyboard, boolean wasDown) {
+        boolean down = keyboard.isPressed(OVERLAY_KEY);
+        if (down && !wasDown) {
+            this.overlay.toggle();
+        }
+        return down;
+    }
+
+    /**
+     * Makes run record the session to an input log: the seed, the ball storm and the controls of every
+     * tick. InputReplay plays the log back, and ReplayGame replays it headless at full speed.
+     * Keyframes are recorded into Replay.keyframesOf(file) every KEYFRAME_INTERVAL ticks too, so a
+     * Replay can seek in the session.
+     *
+     * @param file The file of the input log, or null not to record.
+     * @throws IllegalStateException If the game was loaded from a level file, which replays do not load.
+     */
+    public void recordTo(Path file) {
+        if (file != null && this.levelFile != null) {
+            throw new IllegalStateException("A game of a level file cannot be recorded, as replays run initialize");
+        }
+        this.recordFile = file;
+    }
+
+    /**
+     * Adds the paddle controlled by the given source, recorded into the record file if there is one.
+     * The log is closed when the JVM exits, as closing the window does, so it keeps every tick played.
+     *
+     * @param controls The source of the paddle controls.
+     * @return The recorder, or null if the session is not recorded.
+     */
+    private InputRecorder startRecording(InputSource controls) {
+        if (this.recordFile == null) {
+            addPaddle(controls);
+            return null;
+        }
+        InputRecorder recorder;
+        try {
+            recorder = new InputRecorder(controls, this.recordFile, this.seed, this.stormBalls);
+        } catch (IOException e) {
+            System.err.println("Could not record to " + this.recordFile + ": " + e.getMessage());
+            addPaddle(controls);
+            return null;
+        }
+        addPaddle(recorder);
+        if (this.keyframes == null) {
+            try {
+                recordKeyframesTo(Replay.keyframesOf(this.recordFile), KEYFRAME_INTERVAL);
+            } catch (IOException e) {
+                System.err.println("Could not record keyframes: " + e.getMessage());
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the input log: " + e.getMessage());
+            }
+        }));
+        return recorder;
+    }
+
+    /**
+     * Starts writing keyframes: a snapshot of the game every given number of ticks, starting with the
+     * next tick that is a multiple of it, so a replay of the same session can seek quickly.
+     *
+     * @param file     The snapshot file, replaced if it exists.
+     * @param interval The number of ticks between two keyframes.
+     * @throws IOException If the file cannot be created.
+     */
+    public void recordKeyframesTo(Path file, int interval) throws IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The keyframe interval must be positive: " + interval);
+        }
+        stopKeyframes();
+        this.keyframes = new SnapshotWriter(file, this.seed, interval);
+        this.keyframeInterval = interval;
+    }
+
+    /**
+     * Writes a keyframe, and stops writing them if that fails, as the game runs fine without them.
+     */
+    private void writeKeyframe() {
+        try {
+            this.keyframes.append(this);
+        } catch (IOException e) {
+            System.err.println("Could not write a keyframe: " + e.getMessage());
+            stopKeyframes();
+        }
+    }
+
+    /**
+     * Closes the snapshot file, if keyframes are recorded.
+     */
+    private void stopKeyframes() {
+        if (this.keyframes == null) {
+            return;
+        }
+        try {
+            this.keyframes.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the snapshot file: " + e.getMessage());
+        }
+        this.keyframes = null;
+    }
+
+    /**
+     * Returns the number of bytes saveSnapshot writes for the game as it is now.
+     *
+     * @return The size of a snapshot of the game.
+     * @throws IllegalStateException If the game was converted to entities.
+     */
+    public int getSnapshotSize() {
+        if (this.entities != null) {
+            throw new IllegalStateException("A game converted to entities has no snapshots");
+        }
+        int size = Long.BYTES + 1 + 3 * Integer.BYTES + 1 + Paddle.STATE_BYTES;
+        size += Integer.BYTES + this.blocks.size();
+        size += Integer.BYTES + tableWords() * Long.BYTES;
+        size += Integer.BYTES + this.balls.size() * (1 + Ball.STATE_BYTES);
+        size += Integer.BYTES;
+        for (BallSystem storm : this.storms) {
+            size += storm.getStateSize();
+        }
+        return size;
+    }
+
+    /**
+     * Writes a snapshot of the state of the game, in a flat layout of primitives: the ticks, the
+     * cleared flag, the counters of blocks, balls and score, the paddle, then whether each block
+     * of initialize is left, then the number of rows of the block table and their alive bits, 64 to a
+     * long, then each ball with whether it was removed, then the ball storms. The hit listeners keep
+     * no state but the counters, so this is the whole game.
+     *
+     * @param out The buffer the snapshot is written to, with getSnapshotSize bytes left at least.
+     * @throws IllegalStateException If the game was converted to entities.
+     */
+    public void saveSnapshot(ByteBuffer out) {
+        if (this.entities != null) {
+            throw new IllegalStateException("A game converted to entities has no snapshots");
+        }
+        out.putLong(this.ticks).put((byte) (this.cleared ? 1 : 0));
+        out.putInt(this.numBlocks.getValue()).putInt(this.numBalls.getValue()).putInt(this.score.getValue());
+        out.put((byte) (this.paddle != null ? 1 : 0));
+        if (this.paddle != null) {
+            this.paddle.saveState(out);
+        } else {
+            out.position(out.position() + Paddle.STATE_BYTES);
+        }
+        out.putInt(this.blocks.size());
+        for (Block block : this.blocks) {
+            out.put((byte) (this.environment.contains(block) ? 1 : 0));
+        }
+        out.putInt(this.blockTable != null ? this.blockTable.size() : 0);
+        for (int w = 0; w < tableWords(); w++) {
+            long alive = 0;
+            for (int row = w * Long.SIZE; row < Math.min(this.blockTable.size(), (w + 1) * Long.SIZE); row++) {
+                alive |= (this.blockTable.isAlive(row) ? 1L : 0L) << row;
+            }
+            out.putLong(alive);
+        }
+        out.putInt(this.balls.size());
+        for (Ball ball : this.balls) {
+            out.put((byte) (ball.isRemoved() ? 1 : 0));
+            ball.saveState(out);
+        }
+        out.putInt(this.storms.size());
+        for (BallSystem storm : this.storms) {
+            storm.saveState(out);
+        }
+    }
+
+    /**
+     * Restores a snapshot written by saveSnapshot. The game must be new, and set up exactly like the
+     * one the snapshot was taken of: the same seed, initialize or level, the same ball storms and a
+     * paddle. The blocks and balls that are gone in the snapshot are then removed from it as they were in
+     * the original game, which keeps the order of the rest, and so every later tick, the same.
+     *
+     * @param in The buffer the snapshot is read from.
+     * @throws IllegalStateException If the game already ran or is not set up like the snapshot.
+     */
+    public void restoreSnapshot(ByteBuffer in) {
+        if (this.ticks != 0) {
+            throw new IllegalStateException("Snapshots can only be restored into a new game");
+        }
+        this.ticks = in.getLong();
+        this.cleared = in.get() != 0;
+        setCounter(this.numBlocks, in.getInt());
+        setCounter(this.numBalls, in.getInt());
+        setCounter(this.score, in.getInt());
+        boolean hasPaddle = in.get() != 0;
+        if (hasPaddle != (this.paddle != null)) {
+            throw new IllegalStateException("The snapshot and the game do not agree on the paddle");
+        }
+        if (hasPaddle) {
+            this.paddle.restoreState(in);
+        } else {
+            in.position(in.position() + Paddle.STATE_BYTES);
+        }
+        checkCount(in.getInt(), this.blocks.size(), "blocks");
+        for (Block block : this.blocks) {
+            if (in.get() == 0) {
+                block.removeFromGame(this);
+            }
+        }
+        checkCount(in.getInt(), this.blockTable != null ? this.blockTable.size() : 0, "rows of the block table");
+        for (int w = 0; w < tableWords(); w++) {
+            long dead = ~in.getLong();
+            for (; dead != 0; dead &= dead - 1) {
+                int row = w * Long.SIZE + Long.numberOfTrailingZeros(dead);
+                if (row < this.blockTable.size()) {
+                    this.environment.removeBlockRow(row);
+                }
+            }
+        }
+        checkCount(in.getInt(), this.balls.size(), "balls");
+        for (Ball ball : this.balls) {
+            boolean removed = in.get() != 0;
+            ball.restoreState(in);
+            if (removed) {
+                ball.removeFromGame(this);
+            }
+        }
+        checkCount(in.getInt(), this.storms.size(), "ball storms");
+        for (BallSystem storm : this.storms) {
+            storm.restoreState(in);
+        }
+    }
+
+    /**
+     * Returns the number of words of 64 bits the alive bits of the block table take in a snapshot.
+     *
+     * @return The number of words, 0 if there is no block table.
+     */
+    private int tableWords() {
+        return this.blockTable != null ? (this.blockTable.size() + Long.SIZE - 1) / Long.SIZE : 0;
+    }
+
+    /**
+     * Sets a counter to a value.
+     *
+     * @param counter The counter.
+     * @param value   The value to set it to.
+     */
+    private static void setCounter(Counter counter, int value) {
+        counter.increase(value - counter.getValue());
+    }
+
+    /**
+     * Checks that a snapshot has as many objects of a kind as the game it is restored into.
+     *
+     * @param saved    The number of objects in the snapshot.
+     * @param expected The number of objects in the game.
+     * @param kind     The kind of objects, for the error message.
+     * @throws IllegalStateException If the numbers differ.
+     */
+    private static void checkCount(int saved, int expected, String kind) {
+        if (saved != expected) {
+            throw new IllegalStateException("The snapshot has " + saved + " " + kind + ", the game " + expected);
+        }
+    }
+
+    /**
+     * Ends the input log with the outcome of the game, and closes the snapshot file.
+     *
+     * @param recorder The recorder, or null if the session is not recorded.
+     */
+    private void finishRecording(InputRecorder recorder) {
+        stopKeyframes();
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.finish(getScore(), getBlockHash());
+        } catch (IOException e) {
+            System.err.println("Could not finish the input log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the number of physics ticks per second of run. The velocities of the balls and of the
+     * paddle are per tick, so this also sets the speed of the game.
+     *
+     * @param ticksPerSecond The number of ticks per second.
+     */
+    public void setTickRate(int ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("The tick rate must be positive: " + ticksPerSecond);
+        }
+        this.tickRate = ticksPerSecond;
+    }
+
+    /**
+     * Returns the number of ticks dropped by run because the game fell too far behind to catch up.
+     *
+     * @return The number of dropped ticks.
+     */
+    public long getDroppedTicks() {
+        return this.metrics.getDroppedTicks();
+    }
+
+    /**
+     * Registers the counters and timings of the game as an MBean in the platform MBean server, under
+     * the name Arkanoid:type=Engine,id=n, so JMX clients can watch the game while it runs.
+     * A failure to register is reported and otherwise ignored, as the game runs fine without it.
+     *
+     * @return The name the MBean is registered under, or null if registering failed.
+     */
+    public ObjectName registerMBean() {
+        if (this.mbeanName != null) {
+            return this.mbeanName;
+        }
+        try {
+            ObjectName name = new ObjectName(MBEAN_DOMAIN + ":type=Engine,id=" + NEXT_MBEAN_ID.getAndIncrement());
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new EngineStats(this.metrics, this.numBalls, this.numBlocks, this.score), name);
+            this.mbeanName = name;
+        } catch (JMException e) {
+            System.err.println("Could not register the engine MBean: " + e.getMessage());
+        }
+        return this.mbeanName;
+    }
+
+    /**
+     * Unregisters the engine MBean, if it is registered.
+     */
+    public void unregisterMBean() {
+        if (this.mbeanName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.mbeanName);
+        } catch (JMException e) {
+            System.err.println("Could not unregister the engine MBean: " + e.getMessage());
+        }
+        this.mbeanName = null;
+    }
+
+    /**
+     * Returns the seed of the random choices of the game.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns a hash of the blocks in the game, their places, sizes and colors. Games that end with
+     * the same blocks have the same hash, whatever order the blocks are kept in, and whether they are
+     * objects or entities.
+     *
+     * @return The hash of the blocks.
+     */
+    public long getBlockHash() {
+        long hash = this.entities != null ? this.entities.getBlockHash() : 0;
+        for (Collidable c : this.environment.getCollidables()) {
+            if (c instanceof Block) {
+                Rectangle rect = c.getCollisionRectangle();
+                hash += hashBlock(rect.getUpperLeft().getX(), rect.getUpperLeft().getY(), rect.getWidth(),
+                        rect.getHeight(), ((Block) c).getColor().getRGB());
+            }
+        }
+        BlockTable table = this.blockTable;
+        for (int row = 0; table != null && row < table.size(); row++) {
+            if (table.isAlive(row)) {
+                // The color with the opaque alpha Color.getRGB gives it
+                hash += hashBlock(table.getX(row), table.getY(row), table.getWidth(row), table.getHeight(row),
+                        0xFF000000 | table.getRgb(row));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the hash of one block for getBlockHash, whose bits are mixed so the hashes of the
+     * blocks can be added in any order.
+     *
+     * @param x      The x-coordinate of the upper-left corner of the block.
+     * @param y      The y-coordinate of the upper-left corner of the block.
+     * @param width  The width of the block.
+     * @param height The height of the block.
+     * @param rgb    The color of the block, as packed RGB.
+     * @return The hash of the block.
+     */
+    public static long hashBlock(double x, double y, double width, double height, int rgb) {
+        long h = Double.doubleToLongBits(x);
+        h = h * 31 + Double.doubleToLongBits(y);
+        h = h * 31 + Double.doubleToLongBits(width);
+        h = h * 31 + Double.doubleToLongBits(height);
+        h = h * 31 + rgb;
+        // Mix the bits, then add, so the order does not matter
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Returns the timings and counters of the engine.
+     *
+     * @return The metrics of the game.
+     */
+    public EngineMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns the bus the blocks of the game publish their hits to.
+     *
+     * @return The hit events of the game.
+     */
+    public HitEventBus getHitEvents() {
+        return this.hitEvents;
+    }
+
+    /**
+     * Returns the performance overlay, hidden until toggled.
+     *
+     * @return The performance overlay.
+     */
+    public PerformanceOverlay getOverlay() {
+        return this.overlay;
+    }
+
+    /**
+     * Removes a collidable object from the game environment.
+     *
+     * @param c The Collidable object to be removed.
+     */
+    public void removeCollidable(Collidable c) {
+        this.environment.removeCollidable(c);
+    }
+
+    /**
+     * Removes a sprite from the sprite collection.
+     *
+     * @param s The Sprite object to be removed.
+     */
+    public void removeSprite(Sprite s) {
+        if (this.sprites.removeSprite(s)) {
+            forgetSprite(s);
+        }
+    }
+
+    /**
+     * Puts a sprite in the place of another in the sprite collection, so it is updated and drawn when
+     * the other one was, and removes the other one from the game.
+     *
+     * @param old The Sprite object to be replaced.
+     * @param s   The Sprite object to put in its place.
+     * @throws IllegalArgumentException If the old sprite is not in the game.
+     */
+    public void replaceSprite(Sprite old, Sprite s) {
+        if (!this.sprites.replaceSprite(old, s)) {
+            throw new IllegalArgumentException("The sprite to replace is not in the game: " + old);
+        }
+        forgetSprite(old);
+        if (s.getStaticBounds() != null) {
+            if (!this.pipelined) {
+                this.staticLayer.add(s);
+            }
+            setStaticLive(s, true);
+        }
+    }
+
+    /**
+     * Takes a sprite that left the sprite collection out of the static layer, or out of the frame.
+     * While the game is pipelined, only its live bit is cleared, as the render thread draws the frames.
+     *
+     * @param s The Sprite object that left.
+     */
+    private void forgetSprite(Sprite s) {
+        if (s.getStaticBounds() != null) {
+            if (!this.pipelined) {
+                this.staticLayer.remove(s);
+            }
+            setStaticLive(s, false);
+        } else if (!this.pipelined) {
+            // The next frame clears where the sprite was last drawn
+            s.addDamage(this.damage, 1);
+        }
+    }
+
+    /**
+     * Chooses whether frames draw the static sprites from the pre-drawn static layer, in one image,
+     * or one by one like the other sprites. The layer is used by default.
+     *
+     * @param enabled Whether the static layer is used.
+     */
+    public void setStaticLayerEnabled(boolean enabled) {
+        this.staticLayerEnabled = enabled;
+        this.frameStale = true;
+    }
+
+    /**
+     * Chooses whether frames are drawn into a kept frame, of which only the areas that changed are
+     * drawn again, or whole every time. Drawing only the changes needs the static layer, and is the
+     * default.
+     *
+     * @param enabled Whether only the changed areas are drawn.
+     */
+    public void setDirtyRenderingEnabled(boolean enabled) {
+        this.dirtyRenderingEnabled = enabled;
+        this.frameStale = true;
+    }
+
+    /**
+     * Chooses whether run draws the frames on a render thread of their own, fed with snapshots of the
+     * game, or on the thread of the physics, between the ticks. The thread of the physics is the
+     * default, as the render thread draws every frame whole and not only the areas that changed.
+     * While pipelined, the game keeps no static layer of its own; it is built again when turned off.
+     *
+     * @param enabled Whether the frames are drawn on a render thread.
+     */
+    public void setPipelined(boolean enabled) {
+        if (this.pipelined && !enabled) {
+            rebuildStaticLayer();
+        }
+        this.pipelined = enabled;
+    }
+
+    /**
+     * Builds the static layer again from the static sprites in the game and the block table, and draws
+     * the next frame whole.
+     */
+    private void rebuildStaticLayer() {
+        this.staticLayer = new StaticLayer(800, 600, Color.BLUE);
+        for (int id = 0; id < this.staticCount; id++) {
+            if ((this.liveStatic[id / Long.SIZE] & 1L << id) != 0) {
+                this.staticLayer.add(this.staticSprites[id]);
+            }
+        }
+        if (this.blockTable != null) {
+            this.staticLayer.setBlockTable(this.blockTable);
+        }
+        this.frameStale = true;
+    }
+
+    /**
+     * Returns the static layer of the game, which holds the background and the static sprites.
+     *
+     * @return The static layer.
+     */
+    public StaticLayer getStaticLayer() {
+        return this.staticLayer;
+    }
+
+
+}
@@ -1,117 +1,293 @@
-// 318936507 Adir Tamam
-package Game;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import Geometry.Rectangle;
-import Geometry.Line;
-import Geometry.Point;
-import Collidable.Collidable;
-import Collidable.CollisionInfo;
-
-/**
- * The GameEnvironment class represents the environment of the game, managing a list of collidable objects.
- */
-public class GameEnvironment {
-    private List<Collidable> collidableList;
-
-    /**
-     * Constructs a new GameEnvironment with an empty list of collidables.
-     */
-    public GameEnvironment() {
-        this.collidableList = new ArrayList<>();
-    }
-
-    /**
-     * Returns the list of collidables managed by this GameEnvironment.
-     *
-     * @return The list of collidables in the game environment.
-     */
-    public List<Collidable> getCollidableList() {
-        return this.collidableList;
-    }
-
-    /**
-     * Adds a collidable object to the game environment.
-     *
-     * @param collidables The collidable object to be added.
-     */
-
-    public void setCollidables(List<Collidable> collidables) {
-        this.collidableList = collidables;
-    }
-
-    /**
-     * Adds a collidable object to the list of collidables in the game environment.
-     *
-     * @param c The Collidable object to be added.
-     */
-    public void addCollidable(Collidable c) {
-        collidableList.add(c);
-    }
-
-
-
-    // Assume an object moving from line.start() to line.end().
-    // If this object will not collide with any of the collidables
-    // in this collection, return null. Else, return the information
-    // about the closest collision that is going to occur.
-
-    /**
-     * Finds the closest collision point between a given trajectory and the collidables in the game environment.
-     *
-     * @param trajectory The trajectory to check for collisions.
-     * @return A CollisionInfo object containing information about the closest collision,
-     * or null if there are no collisions.
-     */
-    public CollisionInfo getClosestCollision(Line trajectory) {
-        if (this.collidableList.isEmpty()) {
-            return null;
-        }
-
-        // Initialize arrays to store intersection points and distances
-        int size = collidableList.size();
-        int[] intersectionIndex = new int[size];
-        int intersectionSize = 0;
-
-        // Check each collidable for intersections with the trajectory
-        for (int i = 0; i < size; i++) {
-            Rectangle rect = collidableList.get(i).getCollisionRectangle();
-            if (trajectory.closestIntersectionToStartOfLine(rect) != null) {
-                intersectionIndex[intersectionSize] = i;
-                intersectionSize++;
-            }
-        }
-
-        // If no intersections found, return null
-        if (intersectionSize == 0) {
-            return null;
-        }
-
-        // Retrieve intersection points
-        Point[] intersections = new Point[intersectionSize];
-        for (int i = 0; i < intersectionSize; i++) {
-            Rectangle rect = collidableList.get(intersectionIndex[i]).getCollisionRectangle();
-            intersections[i] = trajectory.closestIntersectionToStartOfLine(rect);
-        }
-
-        // Find the closest intersection to the start of the trajectory
-        double[] distances = new double[intersectionSize];
-        int index = 0;
-        Point start = trajectory.start();
-        for (int i = 0; i < intersectionSize; i++) {
-            distances[i] = start.distance(intersections[i]);
-            if (distances[i] < distances[index]) {
-                index = i;
-            }
-        }
-
-        // Construct and return a CollisionInfo object with information about the closest collision
-        Point collisionPoint = intersections[index];
-        Collidable collisionObject = collidableList.get(intersectionIndex[index]);
-        return new CollisionInfo(collisionPoint, collisionObject);
-    }
-
-
+// 318936507 Adir Tamam
+package Game;
+
+import java.util.List;
+
+import Base.SlotArray;
+import Collidable.BlockTable;
+import Geometry.Line;
+import Geometry.Point;
+import Geometry.RayHit;
+import Collidable.Collidable;
+import Collidable.CollisionInfo;
+import Metrics.CollisionQueryEvent;
+import Metrics.EngineMetrics;
+import Sprites.Ball;
+import Sprites.Velocity;
+
+/**
+ * The GameEnvironment class represents the environment of the game, managing a list of collidable objects.
+ * The collidables are kept in an unordered slot array, so removing one takes constant time; the
+ * collision queries go through the index, which does not depend on their order. The blocks of a
+ * huge level may be kept apart, in a block table, which the queries look in too.
+ */
+public class GameEnvironment {
+    private final SlotArray<Collidable> collidables;
+    private final CollidableIndex index;
+
+    // The block table of the level, or null
+    private BlockTable blockTable;
+
+    // Counts the changes to the collidables, so a caller can tell if an earlier query is still valid
+    private int modificationCount;
+
+    // The metrics the collision queries and hits are counted in, or null
+    private EngineMetrics metrics;
+
+    /**
+     * Constructs a new GameEnvironment with an empty list of collidables, indexed by a uniform grid.
+     */
+    public GameEnvironment() {
+        this(IndexType.GRID);
+    }
+
+    /**
+     * Constructs a new GameEnvironment with an empty list of collidables, indexed by the given
+     * type of broadphase structure.
+     *
+     * @param indexType The type of index used to answer collision queries.
+     */
+    public GameEnvironment(IndexType indexType) {
+        this(indexType.create());
+    }
+
+    /**
+     * Constructs a new GameEnvironment with an empty list of collidables, indexed by the given index.
+     *
+     * @param index An empty index used to answer collision queries.
+     */
+    public GameEnvironment(CollidableIndex index) {
+        this.collidables = new SlotArray<>(false);
+        this.index = index;
+    }
+
+    /**
+     * Returns the collidables managed by this GameEnvironment, in no particular order.
+     * They must not be added or removed through it, as that would bypass the collision index;
+     * use addCollidable and removeCollidable instead.
+     *
+     * @return The collidables in the game environment.
+     */
+    public SlotArray<Collidable> getCollidables() {
+        return this.collidables;
+    }
+
+    /**
+     * Replaces the collidables of the game environment.
+     *
+     * @param collidableList The new collidables.
+     */
+    public void setCollidables(List<Collidable> collidableList) {
+        this.collidables.clear();
+        this.modificationCount++;
+        this.index.clear();
+        for (Collidable c : collidableList) {
+            this.collidables.add(c);
+            this.index.insert(c);
+        }
+    }
+
+    /**
+     * Adds a collidable object to the list of collidables in the game environment.
+     *
+     * @param c The Collidable object to be added.
+     */
+    public void addCollidable(Collidable c) {
+        collidables.add(c);
+        index.insert(c);
+        modificationCount++;
+    }
+
+    /**
+     * Removes a collidable object from the game environment, in constant time. A view of a row of
+     * the block table removes the row.
+     *
+     * @param c The Collidable object to be removed.
+     */
+    public void removeCollidable(Collidable c) {
+        if (collidables.remove(c)) {
+            index.remove(c);
+            modificationCount++;
+        } else if (blockTable != null && blockTable.remove(c)) {
+            modificationCount++;
+        }
+    }
+
+    /**
+     * Removes a row of the block table from the game environment.
+     *
+     * @param row The row.
+     */
+    public void removeBlockRow(int row) {
+        if (blockTable.remove(row)) {
+            modificationCount++;
+        }
+    }
+
+    /**
+     * Checks if a collidable is in the game environment.
+     *
+     * @param c The Collidable.
+     * @return {@code true} if the collidable is in the game environment, {@code false} otherwise.
+     */
+    public boolean contains(Collidable c) {
+        return collidables.contains(c);
+    }
+
+    /**
+     * Sets the block table the collision queries look in besides the collidables.
+     *
+     * @param table The block table, whose grid is built, or null for none.
+     */
+    public void setBlockTable(BlockTable table) {
+        this.blockTable = table;
+        modificationCount++;
+    }
+
+    /**
+     * Returns the block table the collision queries look in besides the collidables.
+     *
+     * @return The block table, or null if there is none.
+     */
+    public BlockTable getBlockTable() {
+        return this.blockTable;
+    }
+
+    /**
+     * Notifies the game environment that the collision rectangle of a collidable has changed,
+     * so it can be re-indexed at its new position.
+     *
+     * @param c The Collidable that moved.
+     */
+    public void updateCollidable(Collidable c) {
+        index.update(c);
+        modificationCount++;
+    }
+
+    /**
+     * Returns the number of changes made to the collidables so far. If it is the same before and
+     * after some code runs, every collision query made before is still valid after.
+     *
+     * @return The number of changes made to the collidables.
+     */
+    public int getModificationCount() {
+        return this.modificationCount;
+    }
+
+    /**
+     * Sets the metrics the collision queries and hits are counted and timed in.
+     *
+     * @param metrics The metrics, or null to keep none.
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+
+
+    // Assume an object moving from line.start() to line.end().
+    // If this object will not collide with any of the collidables
+    // in this collection, return null. Else, return the information
+    // about the closest collision that is going to occur.
+
+    /**
+     * Finds the closest collision point between a given trajectory and the collidables in the game environment.
+     *
+     * @param trajectory The trajectory to check for collisions.
+     * @return A CollisionInfo object containing information about the closest collision,
+     * or null if there are no collisions.
+     */
+    public CollisionInfo getClosestCollision(Line trajectory) {
+        double x = trajectory.start().getX();
+        double y = trajectory.start().getY();
+        RayHit hit = new RayHit();
+        Collidable c = findClosestCollision(x, y, trajectory.end().getX() - x, trajectory.end().getY() - y, 0, hit);
+        if (c == null) {
+            return null;
+        }
+        return new CollisionInfo(new Point(hit.getX(), hit.getY()), c);
+    }
+
+    /**
+     * Finds the closest collision of a circle moving along a segment (swept-circle continuous
+     * collision detection). The hit holder receives the time of impact as a fraction of the move,
+     * the point of the collidable that is touched and the surface normal there.
+     * Queries do not change the environment, so any number of threads may run them at once,
+     * as long as no thread adds, removes or moves a collidable meanwhile.
+     *
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param hit    The holder the collision is written to.
+     * @return The collidable hit first, or null if there are no collisions.
+     */
+    public Collidable findClosestCollision(double x, double y, double dx, double dy, double radius, RayHit hit) {
+        CollisionQueryEvent event = new CollisionQueryEvent();
+        if (event.isEnabled()) {
+            event.begin();
+        }
+        EngineMetrics m = this.metrics;
+        Collidable c;
+        if (m == null) {
+            c = findClosest(x, y, dx, dy, radius, hit);
+        } else {
+            long start = m.startQuery();
+            c = findClosest(x, y, dx, dy, radius, hit);
+            m.countQuery(start, hit.getTests());
+        }
+        if (event.isEnabled()) {
+            event.setCandidates(hit.getTests());
+            event.setHit(c != null);
+            event.commit();
+        }
+        return c;
+    }
+
+    /**
+     * Finds the closest collision in the index, then in the block table, whose rows win only if they
+     * are hit strictly earlier.
+     *
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param hit    The holder the collision is written to.
+     * @return The collidable hit first, or null if there are no collisions.
+     */
+    private Collidable findClosest(double x, double y, double dx, double dy, double radius, RayHit hit) {
+        Collidable c = this.index.findClosestCollision(x, y, dx, dy, radius, hit);
+        BlockTable table = this.blockTable;
+        if (table == null) {
+            return c;
+        }
+        Collidable row = table.findClosestCollision(x, y, dx, dy, radius,
+                c == null ? Double.POSITIVE_INFINITY : hit.getT(), hit);
+        return row != null ? row : c;
+    }
+
+    /**
+     * Lets a collidable handle a hit by a ball, changing the velocity of the ball in place.
+     * Going through the environment lets it count and time the hit, with its hit listeners.
+     *
+     * @param c        The collidable that was hit.
+     * @param hitter   The ball that hit it.
+     * @param x        The x-coordinate of the collision point.
+     * @param y        The y-coordinate of the collision point.
+     * @param velocity The velocity of the ball, updated in place.
+     */
+    public void hit(Collidable c, Ball hitter, double x, double y, Velocity velocity) {
+        EngineMetrics m = this.metrics;
+        if (m == null) {
+            c.hit(hitter, x, y, velocity);
+            return;
+        }
+        long start = m.startTimer();
+        c.hit(hitter, x, y, velocity);
+        m.countHit(start);
+    }
+
+
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+// 318936507 Adir Tamam
+package Game;
+
+/**
+ * The IndexType enum lists the broadphase structures a GameEnvironment can be built with.
+ */
+public enum IndexType {
+    /**
+     * Tests every collidable against every trajectory.
+     */
+    LINEAR,
+
+    /**
+     * A uniform grid (spatial hash), walked along the trajectory.
+     */
+    GRID,
+
+    /**
+     * A dynamic AABB tree (bounding volume hierarchy).
+     */
+    BVH;
+
+    /**
+     * Creates a new empty index of this type.
+     *
+     * @return The new CollidableIndex.
+     */
+    public CollidableIndex create() {
+        switch (this) {
+            case LINEAR:
+                return new LinearIndex();
+            case BVH:
+                return new AabbTree();
+            default:
+                return new UniformGrid(UniformGrid.DEFAULT_CELL_SIZE);
+        }
+    }
+}
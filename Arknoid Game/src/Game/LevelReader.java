@@ -0,0 +1,213 @@
+// 318936507 Adir Tamam
+package Game;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The LevelReader class maps a level file written by LevelWriter and reads its block records and
+ * index section straight from the mapping. Opening the file only checks its header; nothing is
+ * copied out of the mapping until a record is read, so a loader streams over the records once.
+ */
+public class LevelReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int recordBytes;
+
+    // The cell size of the index section and its number of cells, 0 if there is none, and where its cells start
+    private final double cellSize;
+    private final int cellCount;
+    private final int cellsOffset;
+
+    /**
+     * Opens a level file and checks its header.
+     *
+     * @param file The level file.
+     * @throws IOException If the file cannot be read or is not a level file.
+     */
+    public LevelReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size < LevelWriter.HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a level file: " + file);
+            }
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (this.buffer.getInt() != LevelWriter.MAGIC) {
+                throw new IOException("Not a level file: " + file);
+            }
+            int version = this.buffer.getInt();
+            if (version != LevelWriter.VERSION) {
+                throw new IOException("Unsupported level file version " + version + ": " + file);
+            }
+            this.count = this.buffer.getInt();
+            this.recordBytes = this.buffer.getInt();
+            long indexOffset = this.buffer.getLong();
+            long recordsEnd = LevelWriter.HEADER_BYTES + (long) this.count * this.recordBytes;
+            long indexEnd = indexOffset + Float.BYTES + Integer.BYTES;
+            if (this.count < 0 || this.recordBytes < LevelWriter.RECORD_BYTES || recordsEnd > size
+                    || (indexOffset != 0 && (indexOffset < recordsEnd || indexEnd > size))) {
+                throw new IOException("The level file is damaged: " + file);
+            }
+            if (indexOffset == 0) {
+                this.cellSize = 0;
+                this.cellCount = 0;
+                this.cellsOffset = 0;
+            } else {
+                this.cellSize = this.buffer.getFloat((int) indexOffset);
+                this.cellCount = this.buffer.getInt((int) indexOffset + Float.BYTES);
+                this.cellsOffset = (int) indexOffset + Float.BYTES + Integer.BYTES;
+                if (!(this.cellSize > 0) || this.cellCount < 0
+                        || this.cellsOffset + (long) this.cellCount * LevelWriter.CELL_BYTES > size) {
+                    throw new IOException("The level file is damaged: " + file);
+                }
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of blocks in the file.
+     *
+     * @return The number of blocks.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the x-coordinate of the upper-left corner of a block.
+     *
+     * @param i The index of the block, below size.
+     * @return The x-coordinate.
+     */
+    public float getX(int i) {
+        return this.buffer.getFloat(recordOffset(i));
+    }
+
+    /**
+     * Returns the y-coordinate of the upper-left corner of a block.
+     *
+     * @param i The index of the block, below size.
+     * @return The y-coordinate.
+     */
+    public float getY(int i) {
+        return this.buffer.getFloat(recordOffset(i) + Float.BYTES);
+    }
+
+    /**
+     * Returns the width of a block.
+     *
+     * @param i The index of the block, below size.
+     * @return The width.
+     */
+    public float getWidth(int i) {
+        return this.buffer.getFloat(recordOffset(i) + 2 * Float.BYTES);
+    }
+
+    /**
+     * Returns the height of a block.
+     *
+     * @param i The index of the block, below size.
+     * @return The height.
+     */
+    public float getHeight(int i) {
+        return this.buffer.getFloat(recordOffset(i) + 3 * Float.BYTES);
+    }
+
+    /**
+     * Returns the color of a block.
+     *
+     * @param i The index of the block, below size.
+     * @return The color, as packed RGB.
+     */
+    public int getRgb(int i) {
+        return this.buffer.getInt(recordOffset(i) + 4 * Float.BYTES) & 0xFFFFFF;
+    }
+
+    /**
+     * Returns the type of a block.
+     *
+     * @param i The index of the block, below size.
+     * @return The type, or null if the record holds no known type.
+     */
+    public BlockType getType(int i) {
+        return BlockType.of(this.buffer.getInt(recordOffset(i) + 4 * Float.BYTES) >>> 24);
+    }
+
+    /**
+     * Returns the cell size of the uniform grid the index section is for.
+     *
+     * @return The cell size, or 0 if the file has no index section.
+     */
+    public double getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * Returns the number of grid cells the blocks overlap, as listed by the index section.
+     *
+     * @return The number of cells, or 0 if the file has no index section.
+     */
+    public int getCellCount() {
+        return this.cellCount;
+    }
+
+    /**
+     * Returns the index along the x-axis of a cell of the index section.
+     *
+     * @param k The index of the cell in the section, below getCellCount.
+     * @return The cell index along the x-axis.
+     */
+    public int getCellX(int k) {
+        return this.buffer.getInt(this.cellsOffset + k * LevelWriter.CELL_BYTES);
+    }
+
+    /**
+     * Returns the index along the y-axis of a cell of the index section.
+     *
+     * @param k The index of the cell in the section, below getCellCount.
+     * @return The cell index along the y-axis.
+     */
+    public int getCellY(int k) {
+        return this.buffer.getInt(this.cellsOffset + k * LevelWriter.CELL_BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Returns the number of blocks that overlap a cell of the index section.
+     *
+     * @param k The index of the cell in the section, below getCellCount.
+     * @return The number of blocks in the cell.
+     */
+    public int getCellBlocks(int k) {
+        return this.buffer.getInt(this.cellsOffset + k * LevelWriter.CELL_BYTES + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Returns where the record of a block starts in the file.
+     *
+     * @param i The index of the block, below size.
+     * @return The offset of the record.
+     */
+    private int recordOffset(int i) {
+        return LevelWriter.HEADER_BYTES + i * this.recordBytes;
+    }
+
+    /**
+     * Closes the file. The mapping stays valid until it is garbage collected.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,186 @@
+// 318936507 Adir Tamam
+package Game;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The LevelWriter class writes a level file, the blocks of a level in a compact binary layout that
+ * LevelReader maps and Game.loadLevel loads in one pass. The blocks are written straight into a
+ * memory-mapped file as they are added.
+ * <p>
+ * The file starts with a header of HEADER_BYTES: the magic number, the version, the number of
+ * blocks, the size of a block record and the offset of the index section, or 0 if there is none.
+ * The block records follow, RECORD_BYTES each: the x, y, width and height of the block as floats,
+ * then an int with the BlockType in its high byte and the RGB color in the others. The optional
+ * index section is the cell size of a uniform grid, the number of cells the blocks overlap, and
+ * for each of them its x and y indices and the number of blocks overlapping it, so a loader can
+ * make the cells of its grid, with room for their blocks, before inserting any block.
+ * Everything is little-endian. A single mapping limits the file to 2 GB.
+ */
+public class LevelWriter implements AutoCloseable {
+    // The first bytes of a level file ("ARKL"), and the version of the format
+    static final int MAGIC = 0x41524B4C;
+    static final int VERSION = 1;
+
+    // The size of the header, and where its fields written last are
+    static final int HEADER_BYTES = 24;
+    static final int COUNT_OFFSET = 8;
+    static final int INDEX_OFFSET = 16;
+
+    // The size of a block record, and of a cell of the index section
+    static final int RECORD_BYTES = 4 * Float.BYTES + Integer.BYTES;
+    static final int CELL_BYTES = 3 * Integer.BYTES;
+
+    // The size of the first mapping, doubled whenever it fills up
+    private static final int INITIAL_CAPACITY = 1 << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int count;
+    private boolean closed;
+
+    // The cell size of the index section, or 0 for none, and the number of blocks in each cell by key
+    private final double cellSize;
+    private final Map<Long, int[]> cells;
+
+    /**
+     * Creates a level file.
+     *
+     * @param file     The level file, replaced if it exists.
+     * @param cellSize The cell size of the uniform grid the index section is for, or 0 to write none.
+     * @throws IOException If the file cannot be created.
+     */
+    public LevelWriter(Path file, double cellSize) throws IOException {
+        if (cellSize < 0) {
+            throw new IllegalArgumentException("cell size must not be negative: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.cells = new LinkedHashMap<>();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        map(INITIAL_CAPACITY);
+        this.buffer.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(RECORD_BYTES).putLong(0);
+    }
+
+    /**
+     * Appends a block. Its bounds are kept as floats.
+     *
+     * @param x      The x-coordinate of the upper-left corner of the block.
+     * @param y      The y-coordinate of the upper-left corner of the block.
+     * @param width  The width of the block.
+     * @param height The height of the block.
+     * @param rgb    The color of the block, as packed RGB.
+     * @param type   The type of the block.
+     * @throws IOException If the file cannot grow.
+     */
+    public void add(double x, double y, double width, double height, int rgb, BlockType type) throws IOException {
+        if (this.closed) {
+            throw new IOException("The level file is closed");
+        }
+        ensureRoom(RECORD_BYTES);
+        float fx = (float) x;
+        float fy = (float) y;
+        float fw = (float) width;
+        float fh = (float) height;
+        this.buffer.putFloat(fx).putFloat(fy).putFloat(fw).putFloat(fh);
+        this.buffer.putInt(type.ordinal() << 24 | (rgb & 0xFFFFFF));
+        this.count++;
+        if (this.cellSize > 0) {
+            // The cells the grid registers the block in, from the floats it will be loaded with
+            int minX = cellOf(fx);
+            int minY = cellOf(fy);
+            int maxX = cellOf((double) fx + fw);
+            int maxY = cellOf((double) fy + fh);
+            for (int cx = minX; cx <= maxX; cx++) {
+                for (int cy = minY; cy <= maxY; cy++) {
+                    this.cells.computeIfAbsent(((long) cx << 32) | (cy & 0xffffffffL), k -> new int[1])[0]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of blocks written.
+     *
+     * @return The number of blocks.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Writes the index section and the header, writes the mapping to the disk, cuts the file to its
+     * end and closes it.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            if (this.cellSize > 0) {
+                ensureRoom(Float.BYTES + Integer.BYTES + (long) this.cells.size() * CELL_BYTES);
+                this.buffer.putLong(INDEX_OFFSET, this.buffer.position());
+                this.buffer.putFloat((float) this.cellSize).putInt(this.cells.size());
+                for (Map.Entry<Long, int[]> cell : this.cells.entrySet()) {
+                    long key = cell.getKey();
+                    this.buffer.putInt((int) (key >> 32)).putInt((int) key).putInt(cell.getValue()[0]);
+                }
+            }
+            this.buffer.putInt(COUNT_OFFSET, this.count);
+            this.buffer.force();
+            this.channel.truncate(this.buffer.position());
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Returns the index of the grid cell that contains a coordinate, as UniformGrid computes it.
+     *
+     * @param coordinate The x or y coordinate.
+     * @return The cell index along that axis.
+     */
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / (float) this.cellSize);
+    }
+
+    /**
+     * Grows the mapping if it has less room left than needed.
+     *
+     * @param bytes The number of bytes about to be written.
+     * @throws IOException If the file is full or cannot grow.
+     */
+    private void ensureRoom(long bytes) throws IOException {
+        long needed = this.buffer.position() + bytes;
+        if (needed > Integer.MAX_VALUE) {
+            throw new IOException("The level file is full");
+        }
+        if (needed > this.buffer.capacity()) {
+            map((int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * this.buffer.capacity())));
+        }
+    }
+
+    /**
+     * Maps the first bytes of the file, growing it if needed, and keeps the position of the old mapping.
+     *
+     * @param capacity The number of bytes to map.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private void map(int capacity) throws IOException {
+        int position = this.buffer == null ? 0 : this.buffer.position();
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.position(position);
+    }
+}
@@ -0,0 +1,90 @@
+// 318936507 Adir Tamam
+package Game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import Geometry.RayHit;
+import Geometry.SweptCircle;
+import Collidable.Collidable;
+
+/**
+ * The LinearIndex class is the trivial CollidableIndex: it keeps the collidables in a list and
+ * tests every one of them against each trajectory. It is kept as a baseline to compare against.
+ */
+public class LinearIndex implements CollidableIndex {
+    private final List<Collidable> collidables;
+
+    /**
+     * Constructs a new empty LinearIndex.
+     */
+    public LinearIndex() {
+        this.collidables = new ArrayList<>();
+    }
+
+    /**
+     * Adds a collidable to the end of the list.
+     *
+     * @param c The Collidable to add.
+     */
+    @Override
+    public void insert(Collidable c) {
+        this.collidables.add(c);
+    }
+
+    /**
+     * Removes a collidable from the list.
+     *
+     * @param c The Collidable to remove.
+     */
+    @Override
+    public void remove(Collidable c) {
+        this.collidables.remove(c);
+    }
+
+    /**
+     * Does nothing, as the rectangles are read again on every query.
+     *
+     * @param c The Collidable that moved.
+     */
+    @Override
+    public void update(Collidable c) {
+        // Nothing is cached about the rectangles, so there is nothing to refit
+    }
+
+    /**
+     * Removes every collidable from the list.
+     */
+    @Override
+    public void clear() {
+        this.collidables.clear();
+    }
+
+    /**
+     * Finds the closest collision by testing the moving circle against every collidable.
+     *
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param hit    The holder the time of impact, touched point and normal are written to.
+     * @return The collidable hit first, or null if there are no collisions.
+     */
+    @Override
+    public Collidable findClosestCollision(double x, double y, double dx, double dy, double radius, RayHit hit) {
+        Collidable closest = null;
+        hit.resetTests();
+
+        // Check each collidable for collisions with the moving circle, keeping the closest one
+        for (int i = 0; i < this.collidables.size(); i++) {
+            Collidable c = this.collidables.get(i);
+            double limit = closest == null ? Double.POSITIVE_INFINITY : hit.getT();
+            hit.countTest();
+            if (SweptCircle.sweep(x, y, dx, dy, radius, c.getCollisionRectangle(), limit, hit)) {
+                closest = c;
+            }
+        }
+        return closest;
+    }
+}
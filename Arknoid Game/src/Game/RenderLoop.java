@@ -0,0 +1,179 @@
+// 318936507 Adir Tamam
+package Game;
+
+import Collidable.BlockTable;
+import Metrics.EngineMetrics;
+import Metrics.Phase;
+import Render.CommandBuffer;
+import Render.FrameSnapshot;
+import Render.StaticLayer;
+import Render.TripleBuffer;
+import Sprites.Sprite;
+import biuoop.DrawSurface;
+import biuoop.GUI;
+
+import java.util.Arrays;
+
+/**
+ * The RenderLoop class draws and shows the frames of a game on a thread of its own, so a slow
+ * window never holds back the physics. The game publishes a FrameSnapshot after its ticks into a
+ * triple buffer; the loop takes the latest one FRAMES_PER_SECOND times a second, draws it and
+ * shows it, moving the sprites from the previous tick to the one of the snapshot as the time of
+ * the tick goes by, until they reach it and a new snapshot is needed to draw a new frame. It keeps
+ * its own static layer, which it brings up to date with the live static sprites of each snapshot:
+ * the sprites that died since the last one are removed from it, and the new ones added. The frames
+ * are drawn and shown on this thread, so it times and counts them in the metrics, and marks itself
+ * busy while it does, to measure how much it overlaps the game.
+ */
+public class RenderLoop implements Runnable {
+    private final GUI gui;
+    private final TripleBuffer<FrameSnapshot> snapshots;
+    private final EngineMetrics metrics;
+    private final StaticLayer staticLayer;
+
+    // A bit per static sprite id, set if the sprite is in the static layer
+    private long[] shown;
+
+    // The block table in the static layer, or null
+    private BlockTable shownTable;
+
+    // The commands of a frame between two ticks, and how far the last frame shown was between them
+    private CommandBuffer between;
+    private double shownAlpha;
+
+    private volatile boolean running;
+
+    /**
+     * Constructs a loop drawing the snapshots published into a triple buffer.
+     *
+     * @param gui         The window the frames are shown in.
+     * @param snapshots   The triple buffer the game publishes its snapshots into.
+     * @param metrics     The metrics the frames are timed in.
+     * @param staticLayer An empty static layer, of the size and background of the frames.
+     */
+    public RenderLoop(GUI gui, TripleBuffer<FrameSnapshot> snapshots, EngineMetrics metrics,
+                      StaticLayer staticLayer) {
+        this.gui = gui;
+        this.snapshots = snapshots;
+        this.metrics = metrics;
+        this.staticLayer = staticLayer;
+        this.shown = new long[0];
+        this.shownAlpha = 1;
+        this.running = true;
+    }
+
+    /**
+     * Makes the loop return after the frame it is drawing, if any. May be called from any thread.
+     */
+    public void stop() {
+        this.running = false;
+    }
+
+    /**
+     * Runs the loop until stop is called: takes the latest snapshot, draws it and shows it, then waits
+     * for the next frame. If no snapshot was published since the last frame, and that frame showed the
+     * tick of the snapshot already, the window is left as is.
+     */
+    @Override
+    public void run() {
+        long nanosPerFrame = 1_000_000_000L / Game.FRAMES_PER_SECOND;
+        long nextFrame = System.nanoTime();
+        while (this.running) {
+            if (this.snapshots.acquire() || this.shownAlpha < 1) {
+                long frameStart = this.metrics.startTimer();
+                long busyStart = this.metrics.beginBusy();
+                long drawStart = this.metrics.startTimer();
+                DrawSurface d = this.gui.getDrawSurface();
+                FrameSnapshot snapshot = this.snapshots.getFront();
+                this.shownAlpha = snapshot.getAlpha(System.nanoTime());
+                drawOn(d, snapshot, this.shownAlpha);
+                this.metrics.stopTimer(Phase.DRAW, drawStart);
+                long showStart = this.metrics.startTimer();
+                this.gui.show(d);
+                this.metrics.stopTimer(Phase.SHOW, showStart);
+                this.metrics.endBusy(busyStart);
+                this.metrics.endFrame(frameStart);
+            }
+
+            // Control the frame rate; after a long frame, start counting again from now
+            nextFrame += nanosPerFrame;
+            if (nextFrame < System.nanoTime() - nanosPerFrame) {
+                nextFrame = System.nanoTime();
+            }
+            FramePacer.waitUntil(nextFrame);
+        }
+    }
+
+    /**
+     * Draws a snapshot at its tick: the static layer, if the snapshot uses it, then the recorded
+     * commands.
+     *
+     * @param d        The DrawSurface on which the frame is drawn.
+     * @param snapshot The snapshot to draw.
+     */
+    public void drawOn(DrawSurface d, FrameSnapshot snapshot) {
+        drawOn(d, snapshot, 1);
+    }
+
+    /**
+     * Draws a snapshot between the previous tick and its tick: the static layer, if the snapshot uses
+     * it, then the recorded commands, moved from the ones of the previous tick by alpha.
+     *
+     * @param d        The DrawSurface on which the frame is drawn.
+     * @param snapshot The snapshot to draw.
+     * @param alpha    How far the frame is from the previous tick (0) to the tick of the snapshot (1).
+     */
+    public void drawOn(DrawSurface d, FrameSnapshot snapshot, double alpha) {
+        updateStaticLayer(snapshot);
+        if (snapshot.isStaticLayerUsed()) {
+            this.staticLayer.drawOn(d);
+        }
+        CommandBuffer commands = snapshot.getCommands();
+        if (alpha < 1) {
+            if (this.between == null) {
+                this.between = new CommandBuffer(commands.getWidth(), commands.getHeight());
+            }
+            this.between.interpolate(snapshot.getPreviousCommands(), commands, alpha);
+            commands = this.between;
+        }
+        commands.flush(d);
+        this.metrics.setDirtyFraction(1);
+    }
+
+    /**
+     * Brings the static layer up to date with the live static sprites of a snapshot, going over the
+     * ids 64 at a time and looking only at the ones whose bit changed, and with the rows of its block
+     * table removed since the last one.
+     *
+     * @param snapshot The snapshot.
+     */
+    private void updateStaticLayer(FrameSnapshot snapshot) {
+        int words = (snapshot.getStaticCount() + Long.SIZE - 1) / Long.SIZE;
+        if (this.shown.length < words) {
+            this.shown = Arrays.copyOf(this.shown, words);
+        }
+        for (int w = 0; w < words; w++) {
+            long live = snapshot.getLiveWord(w);
+            long changed = live ^ this.shown[w];
+            while (changed != 0) {
+                int bit = Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                Sprite s = snapshot.getStaticSprite(w * Long.SIZE + bit);
+                if ((live >>> bit & 1) != 0) {
+                    this.staticLayer.add(s);
+                } else {
+                    this.staticLayer.remove(s);
+                }
+            }
+            this.shown[w] = live;
+        }
+        BlockTable table = snapshot.getBlockTable();
+        if (table != null) {
+            if (table != this.shownTable) {
+                this.staticLayer.setBlockTable(table);
+                this.shownTable = table;
+            }
+            this.staticLayer.updateBlockTable(snapshot.getRemovedRows());
+        }
+    }
+}
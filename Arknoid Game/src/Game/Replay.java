@@ -0,0 +1,138 @@
+// 318936507 Adir Tamam
+package Game;
+
+import Input.InputReplay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The Replay class replays a recorded session: an input log, and the keyframes of the session if
+ * they were recorded next to it. Seeking restores the last keyframe before the target tick into a
+ * new game and runs only the ticks after it, so seeking to minute 50 of a session costs at most
+ * one keyframe interval of simulation instead of 50 minutes of it.
+ */
+public class Replay implements AutoCloseable {
+    private final Path log;
+    private final IndexType indexType;
+    private final SnapshotReader keyframes;
+
+    // The game being replayed, and its input
+    private Game game;
+    private InputReplay input;
+
+    /**
+     * Opens a recorded session, with the keyframes in keyframesOf(log) if there are any, and sets
+     * up its game at tick 0.
+     *
+     * @param log       The input log of the session.
+     * @param indexType The type of index the game uses for collision queries.
+     * @throws IOException If the log or the keyframes cannot be read.
+     */
+    public Replay(Path log, IndexType indexType) throws IOException {
+        this.log = log;
+        this.indexType = indexType;
+        Path snapshots = keyframesOf(log);
+        this.keyframes = Files.exists(snapshots) ? new SnapshotReader(snapshots) : null;
+        seek(0);
+    }
+
+    /**
+     * Returns the snapshot file that goes with an input log: the same name with ".snap" added.
+     *
+     * @param log The input log.
+     * @return The snapshot file of the log.
+     */
+    public static Path keyframesOf(Path log) {
+        return log.resolveSibling(log.getFileName() + ".snap");
+    }
+
+    /**
+     * Checks if the session has keyframes that go with its log.
+     *
+     * @return {@code true} if seeking can restore keyframes, {@code false} if it replays from the start.
+     */
+    public boolean hasKeyframes() {
+        return this.keyframes != null && this.keyframes.getSeed() == this.input.getSeed();
+    }
+
+    /**
+     * Moves the replay to a tick: restores the last keyframe at or before it into a new game, then
+     * runs the ticks left. Without keyframes, the new game runs from the start.
+     *
+     * @param tick The tick to move to. The replay stops early at the end of the log.
+     * @return The tick of the keyframe restored, 0 if the game started from the beginning.
+     * @throws IOException If the log cannot be read.
+     */
+    public long seek(long tick) throws IOException {
+        if (this.input != null) {
+            this.input.close();
+        }
+        this.input = new InputReplay(this.log);
+        this.game = new Game(this.indexType, this.input.getSeed());
+        this.game.initialize();
+        if (this.input.getStormBalls() > 0) {
+            this.game.addBallStorm(this.input.getStormBalls());
+        }
+        this.game.addPaddle(this.input);
+
+        long restored = 0;
+        if (hasKeyframes()) {
+            long keyframe = this.keyframes.findKeyframe(tick);
+            if (keyframe > 0) {
+                this.keyframes.restore(this.game, keyframe);
+                this.input.skip(keyframe);
+                restored = keyframe;
+            }
+        }
+        while (this.game.getTicks() < tick && this.input.hasNextTick()) {
+            this.game.step();
+        }
+        return restored;
+    }
+
+    /**
+     * Runs the next tick of the log, if there is one.
+     *
+     * @return {@code true} if a tick was run, {@code false} if the log is over.
+     */
+    public boolean step() {
+        if (!this.input.hasNextTick()) {
+            return false;
+        }
+        this.game.step();
+        return true;
+    }
+
+    /**
+     * Returns the game being replayed.
+     *
+     * @return The game.
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * Returns the input of the game being replayed, which also holds the recorded outcome.
+     *
+     * @return The input replay.
+     */
+    public InputReplay getInput() {
+        return this.input;
+    }
+
+    /**
+     * Closes the log and the keyframes.
+     *
+     * @throws IOException If they cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.input.close();
+        if (this.keyframes != null) {
+            this.keyframes.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+// 318936507 Adir Tamam
+package Game;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The SnapshotReader class maps a snapshot file written by SnapshotWriter and restores its
+ * keyframes. Opening the file walks the keyframes once to index their ticks; restoring one reads
+ * it straight from the mapping.
+ */
+public class SnapshotReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long seed;
+    private final int interval;
+
+    // The tick and the offset of the snapshot of every keyframe, in order of tick
+    private final long[] ticks;
+    private final int[] offsets;
+
+    /**
+     * Opens a snapshot file and indexes its keyframes.
+     *
+     * @param file The snapshot file.
+     * @throws IOException If the file cannot be read or is not a snapshot file.
+     */
+    public SnapshotReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size < SnapshotWriter.HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (this.buffer.getInt() != SnapshotWriter.MAGIC) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            int version = this.buffer.getInt();
+            if (version != SnapshotWriter.VERSION) {
+                throw new IOException("Unsupported snapshot file version " + version + ": " + file);
+            }
+            this.seed = this.buffer.getLong();
+            this.interval = this.buffer.getInt();
+            int frames = this.buffer.getInt();
+            long end = this.buffer.getLong();
+            if (frames < 0 || end > size) {
+                throw new IOException("The snapshot file is damaged: " + file);
+            }
+
+            // Walk the keyframes to index them
+            this.ticks = new long[frames];
+            this.offsets = new int[frames];
+            int offset = SnapshotWriter.HEADER_BYTES;
+            for (int k = 0; k < frames; k++) {
+                int length = this.buffer.getInt(offset);
+                this.ticks[k] = this.buffer.getLong(offset + Integer.BYTES);
+                this.offsets[k] = offset + SnapshotWriter.FRAME_HEADER_BYTES;
+                offset = this.offsets[k] + length;
+                if (length < 0 || offset > end || (k > 0 && this.ticks[k] <= this.ticks[k - 1])) {
+                    throw new IOException("The snapshot file is damaged: " + file);
+                }
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the seed of the game the keyframes were taken of.
+     *
+     * @return The seed of the game.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the number of ticks between two keyframes.
+     *
+     * @return The keyframe interval.
+     */
+    public int getInterval() {
+        return this.interval;
+    }
+
+    /**
+     * Returns the number of keyframes in the file.
+     *
+     * @return The number of keyframes.
+     */
+    public int size() {
+        return this.ticks.length;
+    }
+
+    /**
+     * Finds the last keyframe at or before a tick.
+     *
+     * @param tick The tick.
+     * @return The tick of the keyframe, or -1 if every keyframe is after the tick.
+     */
+    public long findKeyframe(long tick) {
+        int k = Arrays.binarySearch(this.ticks, tick);
+        if (k < 0) {
+            k = -k - 2;
+        }
+        return k < 0 ? -1 : this.ticks[k];
+    }
+
+    /**
+     * Restores a keyframe into a new game, set up as Game.restoreSnapshot requires.
+     *
+     * @param game The game.
+     * @param tick The tick of the keyframe, as returned by findKeyframe.
+     * @throws IllegalArgumentException If there is no keyframe at the tick.
+     */
+    public void restore(Game game, long tick) {
+        int k = Arrays.binarySearch(this.ticks, tick);
+        if (k < 0) {
+            throw new IllegalArgumentException("No keyframe at tick " + tick);
+        }
+        // A duplicate shares the mapping but has its own position, so readers do not disturb each other
+        MappedByteBuffer frame = this.buffer.duplicate();
+        frame.order(ByteOrder.LITTLE_ENDIAN).position(this.offsets[k]);
+        game.restoreSnapshot(frame);
+    }
+
+    /**
+     * Closes the file. The mapping stays valid until it is garbage collected.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,130 @@
+// 318936507 Adir Tamam
+package Game;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The SnapshotWriter class appends keyframes, snapshots of a game taken every so many ticks, to a
+ * memory-mapped snapshot file. Each keyframe is written straight into the mapping by
+ * Game.saveSnapshot, and the header is updated after it, so the file is valid after every keyframe
+ * even if the game never closes it. SnapshotReader reads the file back.
+ * <p>
+ * The file starts with a header of HEADER_BYTES: the magic number, the version, the seed of the
+ * game, the keyframe interval, the number of keyframes and the offset of the end of the last one.
+ * Each keyframe is then its length, its tick and the snapshot itself. Everything is little-endian.
+ * A single mapping limits the file to 2 GB.
+ */
+public class SnapshotWriter implements AutoCloseable {
+    // The first bytes of a snapshot file ("ARKS"), and the version of the format
+    static final int MAGIC = 0x41524B53;
+    static final int VERSION = 1;
+
+    // The size of the header, and where its fields that change are
+    static final int HEADER_BYTES = 32;
+    static final int FRAMES_OFFSET = 20;
+    static final int END_OFFSET = 24;
+
+    // The size of the length and tick before each snapshot
+    static final int FRAME_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    // The size of the first mapping, doubled whenever it fills up
+    private static final int INITIAL_CAPACITY = 1 << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int frames;
+    private boolean closed;
+
+    /**
+     * Creates a snapshot file.
+     *
+     * @param file     The snapshot file, replaced if it exists.
+     * @param seed     The seed of the game, to check the file against the input log it goes with.
+     * @param interval The number of ticks between two keyframes.
+     * @throws IOException If the file cannot be created.
+     */
+    public SnapshotWriter(Path file, long seed, int interval) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        map(INITIAL_CAPACITY);
+        this.buffer.putInt(MAGIC).putInt(VERSION).putLong(seed).putInt(interval).putInt(0).putLong(HEADER_BYTES);
+    }
+
+    /**
+     * Appends a snapshot of the game as it is now, at its current tick.
+     *
+     * @param game The game.
+     * @throws IOException If the file cannot grow.
+     */
+    public synchronized void append(Game game) throws IOException {
+        if (this.closed) {
+            throw new IOException("The snapshot file is closed");
+        }
+        int size = game.getSnapshotSize();
+        long needed = (long) this.buffer.position() + FRAME_HEADER_BYTES + size;
+        if (needed > Integer.MAX_VALUE) {
+            throw new IOException("The snapshot file is full");
+        }
+        if (needed > this.buffer.capacity()) {
+            map((int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * this.buffer.capacity())));
+        }
+        this.buffer.putInt(size).putLong(game.getTicks());
+        int start = this.buffer.position();
+        game.saveSnapshot(this.buffer);
+        if (this.buffer.position() - start != size) {
+            throw new IllegalStateException("The snapshot took " + (this.buffer.position() - start)
+                    + " bytes instead of " + size);
+        }
+
+        // Only now does the keyframe count
+        this.frames++;
+        this.buffer.putInt(FRAMES_OFFSET, this.frames);
+        this.buffer.putLong(END_OFFSET, this.buffer.position());
+    }
+
+    /**
+     * Returns the number of keyframes written.
+     *
+     * @return The number of keyframes.
+     */
+    public synchronized int getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Writes the mapping to the disk, cuts the file to the end of the last keyframe and closes it.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.buffer.force();
+            this.channel.truncate(this.buffer.position());
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Maps the first bytes of the file, growing it if needed, and keeps the position of the old mapping.
+     *
+     * @param capacity The number of bytes to map.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private void map(int capacity) throws IOException {
+        int position = this.buffer == null ? 0 : this.buffer.position();
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.position(position);
+    }
+}
@@ -0,0 +1,328 @@
+// 318936507 Adir Tamam
+package Game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Geometry.Rectangle;
+import Geometry.RayHit;
+import Geometry.SweptCircle;
+import Collidable.Collidable;
+
+/**
+ * The UniformGrid class is a spatial hash of collidables over square cells of a fixed size.
+ * Every collidable is registered in all the cells its collision rectangle overlaps, and a
+ * trajectory query only visits the cells the trajectory crosses (DDA traversal).
+ * The cells live in an open-addressing table keyed by primitive longs, so lookups do not allocate.
+ */
+public class UniformGrid implements CollidableIndex {
+    static final double EPSILON = 0.0000001;
+
+    // The default side length of a cell, about the size of a block
+    static final double DEFAULT_CELL_SIZE = 50;
+
+    // The initial number of slots of the cell table, a power of two
+    static final int INITIAL_CAPACITY = 256;
+
+    private final double cellSize;
+
+    // The cell table: the key of each slot, and its collidables (null for an empty slot)
+    private long[] keys;
+    private List<Collidable>[] cells;
+    private int cellCount;
+
+    // The rectangle each collidable was registered with, so it can be unregistered after it moves
+    private final Map<Collidable, Rectangle> indexedBounds;
+
+    /**
+     * Constructs a new empty UniformGrid with the given cell size.
+     *
+     * @param cellSize The side length of a grid cell, in pixels.
+     */
+    public UniformGrid(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.indexedBounds = new HashMap<>();
+        allocateTable(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Registers a collidable in all the cells overlapped by its collision rectangle.
+     *
+     * @param c The Collidable to add.
+     */
+    @Override
+    public void insert(Collidable c) {
+        Rectangle rect = c.getCollisionRectangle();
+        this.indexedBounds.put(c, rect);
+        int minX = cellOf(rect.getUpperLeft().getX());
+        int minY = cellOf(rect.getUpperLeft().getY());
+        int maxX = cellOf(rect.getUpperLeft().getX() + rect.getWidth());
+        int maxY = cellOf(rect.getUpperLeft().getY() + rect.getHeight());
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                cellForInsert(key(cx, cy)).add(c);
+            }
+        }
+    }
+
+    /**
+     * Unregisters a collidable from all the cells it was registered in.
+     *
+     * @param c The Collidable to remove.
+     */
+    @Override
+    public void remove(Collidable c) {
+        Rectangle rect = this.indexedBounds.remove(c);
+        if (rect == null) {
+            return;
+        }
+        int minX = cellOf(rect.getUpperLeft().getX());
+        int minY = cellOf(rect.getUpperLeft().getY());
+        int maxX = cellOf(rect.getUpperLeft().getX() + rect.getWidth());
+        int maxY = cellOf(rect.getUpperLeft().getY() + rect.getHeight());
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                // Emptied cells keep their slot, so the table never needs deletion markers
+                List<Collidable> cell = cell(key(cx, cy));
+                if (cell != null) {
+                    cell.remove(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-registers a collidable whose collision rectangle has changed since it was inserted.
+     *
+     * @param c The Collidable that moved.
+     */
+    @Override
+    public void update(Collidable c) {
+        if (this.indexedBounds.get(c) == c.getCollisionRectangle()) {
+            return;
+        }
+        remove(c);
+        insert(c);
+    }
+
+    /**
+     * Removes every collidable from the grid.
+     */
+    @Override
+    public void clear() {
+        allocateTable(INITIAL_CAPACITY);
+        this.indexedBounds.clear();
+    }
+
+    /**
+     * Finds the closest collision of a moving circle, walking the cells its center crosses in order
+     * and stopping at the first cell in which a collision is found. For every visited cell, the
+     * cells overlapped by the part of the move inside it, grown by the radius, are tested.
+     *
+     * @param x      The x-coordinate of the center at the start of the move.
+     * @param y      The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param hit    The holder the time of impact, touched point and normal are written to.
+     * @return The collidable hit first, or null if there are no collisions.
+     */
+    @Override
+    public Collidable findClosestCollision(double x, double y, double dx, double dy, double radius, RayHit hit) {
+        hit.resetTests();
+        int cx = cellOf(x);
+        int cy = cellOf(y);
+        int endX = cellOf(x + dx);
+        int endY = cellOf(y + dy);
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+
+        // The trajectory parameter at which the next vertical / horizontal cell border is crossed
+        double tMaxX = borderParameter(x, dx, cx, stepX);
+        double tMaxY = borderParameter(y, dy, cy, stepY);
+        double tDeltaX = stepX != 0 ? this.cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = stepY != 0 ? this.cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+
+        Collidable closest = null;
+        double tEnter = 0;
+        int cellsLeft = Math.abs(endX - cx) + Math.abs(endY - cy);
+        while (true) {
+            double tExit = Math.min(Math.min(tMaxX, tMaxY), 1);
+
+            // The cells within the radius of the part of the move inside this cell
+            double fromX = x + tEnter * dx;
+            double toX = x + tExit * dx;
+            double fromY = y + tEnter * dy;
+            double toY = y + tExit * dy;
+            int minX = cellOf(Math.min(fromX, toX) - radius);
+            int maxX = cellOf(Math.max(fromX, toX) + radius);
+            int minY = cellOf(Math.min(fromY, toY) - radius);
+            int maxY = cellOf(Math.max(fromY, toY) + radius);
+            for (int i = minX; i <= maxX; i++) {
+                for (int j = minY; j <= maxY; j++) {
+                    List<Collidable> cell = cell(key(i, j));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int k = 0; k < cell.size(); k++) {
+                        Collidable c = cell.get(k);
+                        double limit = closest == null ? Double.POSITIVE_INFINITY : hit.getT();
+                        hit.countTest();
+                        if (SweptCircle.sweep(x, y, dx, dy, radius, c.getCollisionRectangle(), limit, hit)) {
+                            closest = c;
+                        }
+                    }
+                }
+            }
+
+            // A hit before the trajectory leaves this cell cannot be beaten by a later cell
+            if (closest != null && hit.getT() <= tExit + EPSILON) {
+                break;
+            }
+            if (cellsLeft-- <= 0) {
+                break;
+            }
+            tEnter = tExit;
+            if (tMaxX < tMaxY) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Returns the trajectory parameter at which a coordinate first crosses a border of its cell.
+     *
+     * @param origin The starting coordinate.
+     * @param delta  The change of the coordinate over the whole trajectory.
+     * @param cell   The cell index of the starting coordinate.
+     * @param step   The direction of the change (-1, 0 or 1).
+     * @return The trajectory parameter of the first border crossing, or infinity if it never crosses one.
+     */
+    private double borderParameter(double origin, double delta, int cell, int step) {
+        if (step > 0) {
+            return ((cell + 1) * this.cellSize - origin) / delta;
+        }
+        if (step < 0) {
+            return (cell * this.cellSize - origin) / delta;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the index of the cell that contains a coordinate.
+     *
+     * @param coordinate The x or y coordinate.
+     * @return The cell index along that axis.
+     */
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / this.cellSize);
+    }
+
+    /**
+     * Packs a pair of cell indices into a single hash key.
+     *
+     * @param cx The cell index along the x-axis.
+     * @param cy The cell index along the y-axis.
+     * @return The key of the cell.
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    /**
+     * Returns the slot of the table a key is looked up from.
+     *
+     * @param key The key of a cell.
+     * @return The first slot to probe.
+     */
+    private int slotOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (this.keys.length - 1);
+    }
+
+    /**
+     * Returns the collidables of a cell, or null if no collidable was ever registered in it.
+     *
+     * @param key The key of the cell.
+     * @return The list of collidables of the cell, or null.
+     */
+    private List<Collidable> cell(long key) {
+        int mask = this.keys.length - 1;
+        for (int slot = slotOf(key); this.cells[slot] != null; slot = (slot + 1) & mask) {
+            if (this.keys[slot] == key) {
+                return this.cells[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the collidables of a cell, creating the cell if needed.
+     *
+     * @param key The key of the cell.
+     * @return The list of collidables of the cell.
+     */
+    private List<Collidable> cellForInsert(long key) {
+        int mask = this.keys.length - 1;
+        int slot = slotOf(key);
+        for (; this.cells[slot] != null; slot = (slot + 1) & mask) {
+            if (this.keys[slot] == key) {
+                return this.cells[slot];
+            }
+        }
+
+        // Keep the table at most half full, so probe sequences stay short
+        if (2 * (this.cellCount + 1) > this.keys.length) {
+            grow();
+            return cellForInsert(key);
+        }
+        List<Collidable> cell = new ArrayList<>();
+        this.keys[slot] = key;
+        this.cells[slot] = cell;
+        this.cellCount++;
+        return cell;
+    }
+
+    /**
+     * Doubles the capacity of the table and re-inserts every cell.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        List<Collidable>[] oldCells = this.cells;
+        allocateTable(oldKeys.length * 2);
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCells[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                while (this.cells[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.cells[slot] = oldCells[i];
+                this.cellCount++;
+            }
+        }
+    }
+
+    /**
+     * Replaces the table with an empty one of the given capacity.
+     *
+     * @param capacity The number of slots, a power of two.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void allocateTable(int capacity) {
+        this.keys = new long[capacity];
+        this.cells = new List[capacity];
+        this.cellCount = 0;
+    }
+}
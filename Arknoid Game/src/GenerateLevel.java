@@ -0,0 +1,64 @@
+// 318936507 Adir Tamam
+
+import Game.BlockType;
+import Game.LevelWriter;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Writes a level file for Game.loadLevel: the boundaries and the death region of the game, then a
+ * grid of the given number of breakable blocks of random colors, squeezed into the area above the
+ * balls however many there are, with an index section for a grid of cells twice the side of a
+ * block. Meant for testing how large levels load and play.
+ */
+public class GenerateLevel {
+
+    /**
+     * The main method that writes a level file.
+     *
+     * @param args The command line arguments: the level file, then optionally the number of blocks
+     *             (1000000 by default) and the seed of their colors.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: GenerateLevel <level file> [blocks] [seed]");
+            System.exit(2);
+        }
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 1);
+        Color[] colors = {Color.YELLOW, Color.GREEN, Color.MAGENTA, Color.CYAN, Color.pink, Color.RED};
+
+        // The blocks fill the area between the boundaries, from under the top one to above the balls
+        double left = 20;
+        double top = 40;
+        double width = 760;
+        double height = 320;
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(count * width / height)));
+        int rows = Math.max(1, (count + columns - 1) / columns);
+        double blockWidth = width / columns;
+        double blockHeight = height / rows;
+
+        double cellSize = 2 * Math.sqrt(blockWidth * blockHeight);
+
+        long start = System.nanoTime();
+        try (LevelWriter level = new LevelWriter(Paths.get(args[0]), cellSize)) {
+            level.add(0, 20, 800, 20, Color.gray.getRGB(), BlockType.WALL);
+            level.add(0, 0, 20, 600, Color.gray.getRGB(), BlockType.WALL);
+            level.add(780, 0, 20, 600, Color.gray.getRGB(), BlockType.WALL);
+            level.add(0, 601, 800, 1, Color.blue.getRGB(), BlockType.DEATH_REGION);
+            for (int i = 0; i < count; i++) {
+                int row = i / columns;
+                int column = i % columns;
+                level.add(left + column * blockWidth, top + row * blockHeight, blockWidth, blockHeight,
+                        colors[random.nextInt(colors.length)].getRGB(), BlockType.BREAKABLE);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d blocks of %.3f x %.3f in %d rows written in %.3f s%n", count, blockWidth, blockHeight,
+                rows, seconds);
+    }
+}
@@ -0,0 +1,121 @@
+// 318936507 Adir Tamam
+
+package Geometry;
+
+/**
+ * Primitive geometry on raw double coordinates. These are the allocation-free counterparts of the
+ * methods of Point, Line and Velocity, meant for the collision and movement hot paths; the
+ * immutable classes stay as the convenient layer on top.
+ */
+public final class Geom {
+    static final double EPSILON = 0.0000001;
+
+    /**
+     * Not instantiable.
+     */
+    private Geom() {
+    }
+
+    /**
+     * Returns the Euclidean distance between two points.
+     *
+     * @param x1 The x-coordinate of the first point.
+     * @param y1 The y-coordinate of the first point.
+     * @param x2 The x-coordinate of the second point.
+     * @param y2 The y-coordinate of the second point.
+     * @return The distance between the points.
+     */
+    public static double distance(double x1, double y1, double x2, double y2) {
+        return Math.sqrt(distanceSquared(x1, y1, x2, y2));
+    }
+
+    /**
+     * Returns the squared Euclidean distance between two points, which is enough for comparisons.
+     *
+     * @param x1 The x-coordinate of the first point.
+     * @param y1 The y-coordinate of the first point.
+     * @param x2 The x-coordinate of the second point.
+     * @param y2 The y-coordinate of the second point.
+     * @return The squared distance between the points.
+     */
+    public static double distanceSquared(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns the length of a vector.
+     *
+     * @param dx The x component of the vector.
+     * @param dy The y component of the vector.
+     * @return The length of the vector.
+     */
+    public static double length(double dx, double dy) {
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Clamps a value into a range.
+     *
+     * @param value The value to clamp.
+     * @param min   The lower bound of the range.
+     * @param max   The upper bound of the range.
+     * @return The value of the range closest to the given value.
+     */
+    public static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Returns the x component of a velocity given by an angle and a speed. The angle is in degrees,
+     * clockwise from straight up, as in Velocity.fromAngleAndSpeed.
+     *
+     * @param angle The angle in degrees.
+     * @param speed The speed.
+     * @return The change in x per step.
+     */
+    public static double dxFromAngle(double angle, double speed) {
+        return speed * Math.sin(Math.toRadians(angle));
+    }
+
+    /**
+     * Returns the y component of a velocity given by an angle and a speed. The angle is in degrees,
+     * clockwise from straight up, as in Velocity.fromAngleAndSpeed.
+     *
+     * @param angle The angle in degrees.
+     * @param speed The speed.
+     * @return The change in y per step.
+     */
+    public static double dyFromAngle(double angle, double speed) {
+        return speed * -Math.cos(Math.toRadians(angle));
+    }
+
+    /**
+     * Checks if a point lies on a horizontal segment, within a small epsilon.
+     *
+     * @param px The x-coordinate of the point.
+     * @param py The y-coordinate of the point.
+     * @param y  The y-coordinate of the segment.
+     * @param x1 The smaller x-coordinate of the segment.
+     * @param x2 The larger x-coordinate of the segment.
+     * @return {@code true} if the point lies on the segment, {@code false} otherwise.
+     */
+    public static boolean onHorizontal(double px, double py, double y, double x1, double x2) {
+        return Math.abs(py - y) < EPSILON && x1 - EPSILON <= px && px <= x2 + EPSILON;
+    }
+
+    /**
+     * Checks if a point lies on a vertical segment, within a small epsilon.
+     *
+     * @param px The x-coordinate of the point.
+     * @param py The y-coordinate of the point.
+     * @param x  The x-coordinate of the segment.
+     * @param y1 The smaller y-coordinate of the segment.
+     * @param y2 The larger y-coordinate of the segment.
+     * @return {@code true} if the point lies on the segment, {@code false} otherwise.
+     */
+    public static boolean onVertical(double px, double py, double x, double y1, double y2) {
+        return Math.abs(px - x) < EPSILON && y1 - EPSILON <= py && py <= y2 + EPSILON;
+    }
+}
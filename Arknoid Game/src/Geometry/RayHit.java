@@ -0,0 +1,186 @@
+// 318936507 Adir Tamam
+
+package Geometry;
+
+/**
+ * A mutable holder for the result of intersecting a segment with an axis-aligned box.
+ * It is meant to be reused between queries, so the hot collision path does not allocate.
+ */
+public class RayHit {
+    /**
+     * No face was hit.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The upper face of the box (the smaller y-coordinate).
+     */
+    public static final int TOP = 1;
+
+    /**
+     * The bottom face of the box (the larger y-coordinate).
+     */
+    public static final int BOTTOM = 2;
+
+    /**
+     * The left face of the box (the smaller x-coordinate).
+     */
+    public static final int LEFT = 3;
+
+    /**
+     * The right face of the box (the larger x-coordinate).
+     */
+    public static final int RIGHT = 4;
+
+    /**
+     * A rounded corner of the box, hit by a swept circle.
+     */
+    public static final int CORNER = 5;
+
+    private double t;
+    private int face;
+    private double x;
+    private double y;
+    private boolean inside;
+
+    // The unit normal of the box surface at the hit point, pointing out of the box
+    private double normalX;
+    private double normalY;
+
+    // The number of narrowphase tests the last query made, counted by the index
+    private int tests;
+
+    /**
+     * Constructs an empty RayHit.
+     */
+    public RayHit() {
+        this.face = NONE;
+    }
+
+    /**
+     * Sets all the fields of the hit at once. The normal is set to the outward normal of the face.
+     *
+     * @param t      The segment parameter of the hit, in [0, 1].
+     * @param face   The face of the box that was crossed.
+     * @param x      The x-coordinate of the hit point.
+     * @param y      The y-coordinate of the hit point.
+     * @param inside Whether the segment started inside the box.
+     */
+    public void set(double t, int face, double x, double y, boolean inside) {
+        this.t = t;
+        this.face = face;
+        this.x = x;
+        this.y = y;
+        this.inside = inside;
+        this.normalX = face == LEFT ? -1 : (face == RIGHT ? 1 : 0);
+        this.normalY = face == TOP ? -1 : (face == BOTTOM ? 1 : 0);
+    }
+
+    /**
+     * Overrides the normal of the hit, for hits that are not on a flat face.
+     *
+     * @param nx The x component of the unit normal.
+     * @param ny The y component of the unit normal.
+     */
+    public void setNormal(double nx, double ny) {
+        this.normalX = nx;
+        this.normalY = ny;
+    }
+
+    /**
+     * Copies another hit into this one.
+     *
+     * @param other The hit to copy.
+     */
+    public void set(RayHit other) {
+        set(other.t, other.face, other.x, other.y, other.inside);
+        setNormal(other.normalX, other.normalY);
+    }
+
+    /**
+     * Starts counting the narrowphase tests of a new query.
+     */
+    public void resetTests() {
+        this.tests = 0;
+    }
+
+    /**
+     * Counts one narrowphase test, an exact test of the segment or circle against one box.
+     */
+    public void countTest() {
+        this.tests++;
+    }
+
+    /**
+     * Returns the number of narrowphase tests counted since the last reset.
+     *
+     * @return The number of narrowphase tests.
+     */
+    public int getTests() {
+        return this.tests;
+    }
+
+    /**
+     * Returns the segment parameter of the hit: 0 at the start of the segment, 1 at its end.
+     *
+     * @return The segment parameter of the hit.
+     */
+    public double getT() {
+        return this.t;
+    }
+
+    /**
+     * Returns the face of the box that was crossed, one of TOP, BOTTOM, LEFT, RIGHT and CORNER.
+     *
+     * @return The face that was crossed.
+     */
+    public int getFace() {
+        return this.face;
+    }
+
+    /**
+     * Returns the x-coordinate of the hit point.
+     *
+     * @return The x-coordinate of the hit point.
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     * Returns the y-coordinate of the hit point.
+     *
+     * @return The y-coordinate of the hit point.
+     */
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     * Checks if the segment started inside the box. For a point this means the hit is where it
+     * leaves the box; for a swept circle it means the circle already overlapped the box at t = 0.
+     *
+     * @return {@code true} if the segment started inside the box, {@code false} otherwise.
+     */
+    public boolean isInside() {
+        return this.inside;
+    }
+
+    /**
+     * Returns the x component of the unit normal of the box surface at the hit point.
+     *
+     * @return The x component of the normal, pointing out of the box.
+     */
+    public double getNormalX() {
+        return this.normalX;
+    }
+
+    /**
+     * Returns the y component of the unit normal of the box surface at the hit point.
+     *
+     * @return The y component of the normal, pointing out of the box.
+     */
+    public double getNormalY() {
+        return this.normalY;
+    }
+}
@@ -0,0 +1,188 @@
+// 318936507 Adir Tamam
+
+package Geometry;
+
+/**
+ * Segment versus axis-aligned box intersection using the slab method. The segment is given as a
+ * start point and a displacement, and a point on it is start + t * displacement for t in [0, 1].
+ * Nothing here allocates, so it can run in the innermost loop of the collision queries.
+ */
+public final class Slab {
+
+    /**
+     * Not instantiable.
+     */
+    private Slab() {
+    }
+
+    /**
+     * Intersects a segment with a rectangle.
+     *
+     * @param x0   The x-coordinate of the start of the segment.
+     * @param y0   The y-coordinate of the start of the segment.
+     * @param dx   The change in x over the segment.
+     * @param dy   The change in y over the segment.
+     * @param rect The rectangle.
+     * @param hit  The holder the hit is written to.
+     * @return {@code true} if the segment crosses the border of the rectangle, {@code false} otherwise.
+     */
+    public static boolean intersect(double x0, double y0, double dx, double dy, Rectangle rect, RayHit hit) {
+        double minX = rect.getUpperLeft().getX();
+        double minY = rect.getUpperLeft().getY();
+        return intersect(x0, y0, dx, dy, minX, minY, minX + rect.getWidth(), minY + rect.getHeight(), hit);
+    }
+
+    /**
+     * Finds where a segment first crosses the border of a box.
+     *
+     * @param x0   The x-coordinate of the start of the segment.
+     * @param y0   The y-coordinate of the start of the segment.
+     * @param dx   The change in x over the segment.
+     * @param dy   The change in y over the segment.
+     * @param minX The smallest x-coordinate of the box.
+     * @param minY The smallest y-coordinate of the box.
+     * @param maxX The largest x-coordinate of the box.
+     * @param maxY The largest y-coordinate of the box.
+     * @param hit  The holder the hit is written to; it is untouched on a miss.
+     * @return {@code true} if the segment crosses the border of the box, {@code false} otherwise.
+     */
+    public static boolean intersect(double x0, double y0, double dx, double dy,
+                                    double minX, double minY, double maxX, double maxY, RayHit hit) {
+        return intersect(x0, y0, dx, dy, minX, minY, maxX, maxY, Double.POSITIVE_INFINITY, hit);
+    }
+
+    /**
+     * Finds where a segment first crosses the border of a box, if that happens before a limit.
+     * If the segment starts outside the box this is where it enters; if it starts inside, this is
+     * where it leaves. The coordinate of the hit point across the crossed face is exactly that face.
+     * Passing the parameter of the best hit so far as the limit lets a caller keep a single holder.
+     *
+     * @param x0    The x-coordinate of the start of the segment.
+     * @param y0    The y-coordinate of the start of the segment.
+     * @param dx    The change in x over the segment.
+     * @param dy    The change in y over the segment.
+     * @param minX  The smallest x-coordinate of the box.
+     * @param minY  The smallest y-coordinate of the box.
+     * @param maxX  The largest x-coordinate of the box.
+     * @param maxY  The largest y-coordinate of the box.
+     * @param limit Only hits with a parameter smaller than this are reported.
+     * @param hit   The holder the hit is written to; it is untouched on a miss.
+     * @return {@code true} if the segment crosses the border of the box before the limit,
+     * {@code false} otherwise.
+     */
+    public static boolean intersect(double x0, double y0, double dx, double dy, double minX, double minY,
+                                    double maxX, double maxY, double limit, RayHit hit) {
+        double tNear = Double.NEGATIVE_INFINITY;
+        double tFar = Double.POSITIVE_INFINITY;
+        int nearFace = RayHit.NONE;
+        int farFace = RayHit.NONE;
+
+        // The x slab
+        if (dx > 0) {
+            tNear = (minX - x0) / dx;
+            tFar = (maxX - x0) / dx;
+            nearFace = RayHit.LEFT;
+            farFace = RayHit.RIGHT;
+        } else if (dx < 0) {
+            tNear = (maxX - x0) / dx;
+            tFar = (minX - x0) / dx;
+            nearFace = RayHit.RIGHT;
+            farFace = RayHit.LEFT;
+        } else if (x0 < minX || x0 > maxX) {
+            return false;
+        }
+
+        // The y slab
+        if (dy != 0) {
+            double near = dy > 0 ? (minY - y0) / dy : (maxY - y0) / dy;
+            double far = dy > 0 ? (maxY - y0) / dy : (minY - y0) / dy;
+            if (near > tNear) {
+                tNear = near;
+                nearFace = dy > 0 ? RayHit.TOP : RayHit.BOTTOM;
+            }
+            if (far < tFar) {
+                tFar = far;
+                farFace = dy > 0 ? RayHit.BOTTOM : RayHit.TOP;
+            }
+        } else if (y0 < minY || y0 > maxY) {
+            return false;
+        }
+
+        if (tNear > tFar || tFar < 0 || tNear > 1) {
+            return false;
+        }
+        double t;
+        int face;
+        boolean inside = tNear < 0;
+        if (!inside) {
+            t = tNear;
+            face = nearFace;
+        } else if (tFar <= 1) {
+            t = tFar;
+            face = farFace;
+        } else {
+            // The segment never leaves the box, so it crosses no border
+            return false;
+        }
+        if (t >= limit) {
+            return false;
+        }
+
+        // Snap the coordinate across the face onto the face itself
+        double x = x0 + t * dx;
+        double y = y0 + t * dy;
+        if (face == RayHit.LEFT) {
+            x = minX;
+        } else if (face == RayHit.RIGHT) {
+            x = maxX;
+        } else if (face == RayHit.TOP) {
+            y = minY;
+        } else {
+            y = maxY;
+        }
+        hit.set(t, face, x, y, inside);
+        return true;
+    }
+
+    /**
+     * Returns the parameter at which a segment enters a box, without computing the hit point.
+     * This is the cheap test used to prune the bounding boxes of a broadphase structure.
+     *
+     * @param x0   The x-coordinate of the start of the segment.
+     * @param y0   The y-coordinate of the start of the segment.
+     * @param dx   The change in x over the segment.
+     * @param dy   The change in y over the segment.
+     * @param minX The smallest x-coordinate of the box.
+     * @param minY The smallest y-coordinate of the box.
+     * @param maxX The largest x-coordinate of the box.
+     * @param maxY The largest y-coordinate of the box.
+     * @return The entry parameter in [0, 1], 0 if the segment starts inside the box,
+     * or infinity if the segment misses the box.
+     */
+    public static double entry(double x0, double y0, double dx, double dy,
+                               double minX, double minY, double maxX, double maxY) {
+        double tNear = 0;
+        double tFar = 1;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double t1 = (minX - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else {
+            double t1 = (minY - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+}
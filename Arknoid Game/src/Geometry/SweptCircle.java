@@ -0,0 +1,242 @@
+// 318936507 Adir Tamam
+
+package Geometry;
+
+/**
+ * Continuous collision detection of a moving circle against an axis-aligned box.
+ * The circle hits the box exactly when its center hits the box grown by the radius with rounded
+ * corners (their Minkowski sum). That shape is the union of the box widened by the radius, the box
+ * heightened by the radius and four circles around the corners, so the time of impact is the
+ * earliest hit of the center against those six simple shapes. Nothing here allocates.
+ */
+public final class SweptCircle {
+
+    /**
+     * Not instantiable.
+     */
+    private SweptCircle() {
+    }
+
+    /**
+     * Sweeps a circle against a rectangle.
+     *
+     * @param x0     The x-coordinate of the center at the start of the move.
+     * @param y0     The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the circle.
+     * @param rect   The rectangle.
+     * @param hit    The holder the hit is written to.
+     * @return {@code true} if the circle touches the rectangle during the move, {@code false} otherwise.
+     */
+    public static boolean sweep(double x0, double y0, double dx, double dy, double radius, Rectangle rect, RayHit hit) {
+        return sweep(x0, y0, dx, dy, radius, rect, Double.POSITIVE_INFINITY, hit);
+    }
+
+    /**
+     * Sweeps a circle against a rectangle, reporting only hits before a limit.
+     *
+     * @param x0     The x-coordinate of the center at the start of the move.
+     * @param y0     The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the circle.
+     * @param rect   The rectangle.
+     * @param limit  Only hits with a time of impact smaller than this are reported.
+     * @param hit    The holder the hit is written to; it is untouched on a miss.
+     * @return {@code true} if the circle touches the rectangle before the limit, {@code false} otherwise.
+     */
+    public static boolean sweep(double x0, double y0, double dx, double dy, double radius, Rectangle rect,
+                                double limit, RayHit hit) {
+        double minX = rect.getUpperLeft().getX();
+        double minY = rect.getUpperLeft().getY();
+        return sweep(x0, y0, dx, dy, radius, minX, minY, minX + rect.getWidth(), minY + rect.getHeight(),
+                limit, hit);
+    }
+
+    /**
+     * Finds the time of impact of a circle moving along a segment against a box, if it is before a
+     * limit. The hit point is the point of the box the circle touches, and the normal points from it
+     * towards the center. If the circle already overlaps the box at the start, the hit is at t = 0,
+     * marked as inside, and the normal is the shortest way out. A radius of zero is the plain slab
+     * test. Passing the time of the best hit so far as the limit lets a caller keep a single holder.
+     *
+     * @param x0     The x-coordinate of the center at the start of the move.
+     * @param y0     The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the circle.
+     * @param minX   The smallest x-coordinate of the box.
+     * @param minY   The smallest y-coordinate of the box.
+     * @param maxX   The largest x-coordinate of the box.
+     * @param maxY   The largest y-coordinate of the box.
+     * @param limit  Only hits with a time of impact smaller than this are reported.
+     * @param hit    The holder the hit is written to; it is untouched on a miss.
+     * @return {@code true} if the circle touches the box before the limit, {@code false} otherwise.
+     */
+    public static boolean sweep(double x0, double y0, double dx, double dy, double radius,
+                                double minX, double minY, double maxX, double maxY, double limit, RayHit hit) {
+        if (radius <= 0) {
+            return Slab.intersect(x0, y0, dx, dy, minX, minY, maxX, maxY, limit, hit);
+        }
+
+        // Cheap rejection against the bounding box of the rounded shape
+        double entry = Slab.entry(x0, y0, dx, dy, minX - radius, minY - radius, maxX + radius, maxY + radius);
+        if (entry > 1 || entry >= limit) {
+            return false;
+        }
+        if (overlap(x0, y0, radius, minX, minY, maxX, maxY, hit)) {
+            return true;
+        }
+
+        // The earliest hit of the center against the six pieces of the rounded shape
+        double best = Math.min(boxTime(x0, y0, dx, dy, minX - radius, minY, maxX + radius, maxY),
+                boxTime(x0, y0, dx, dy, minX, minY - radius, maxX, maxY + radius));
+        best = Math.min(best, Math.min(Math.min(cornerTime(x0, y0, dx, dy, radius, minX, minY),
+                        cornerTime(x0, y0, dx, dy, radius, maxX, minY)),
+                Math.min(cornerTime(x0, y0, dx, dy, radius, minX, maxY),
+                        cornerTime(x0, y0, dx, dy, radius, maxX, maxY))));
+        if (best > 1 || best >= limit) {
+            return false;
+        }
+
+        // The touched point is the point of the box closest to the center at the time of impact
+        double cx = x0 + best * dx;
+        double cy = y0 + best * dy;
+        double px = Geom.clamp(cx, minX, maxX);
+        double py = Geom.clamp(cy, minY, maxY);
+        boolean besideX = cx < minX || cx > maxX;
+        boolean besideY = cy < minY || cy > maxY;
+        if (besideX && besideY) {
+            double length = Geom.distance(px, py, cx, cy);
+            hit.set(best, RayHit.CORNER, px, py, false);
+            hit.setNormal((cx - px) / length, (cy - py) / length);
+        } else if (besideX) {
+            hit.set(best, cx < minX ? RayHit.LEFT : RayHit.RIGHT, px, py, false);
+        } else {
+            hit.set(best, cy < minY ? RayHit.TOP : RayHit.BOTTOM, px, py, false);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a circle overlaps a box, and if so writes a hit at t = 0 with the shortest way out.
+     *
+     * @param x      The x-coordinate of the center.
+     * @param y      The y-coordinate of the center.
+     * @param radius The radius of the circle.
+     * @param minX   The smallest x-coordinate of the box.
+     * @param minY   The smallest y-coordinate of the box.
+     * @param maxX   The largest x-coordinate of the box.
+     * @param maxY   The largest y-coordinate of the box.
+     * @param hit    The holder the hit is written to.
+     * @return {@code true} if the circle overlaps the box, {@code false} otherwise.
+     */
+    private static boolean overlap(double x, double y, double radius,
+                                   double minX, double minY, double maxX, double maxY, RayHit hit) {
+        double px = Geom.clamp(x, minX, maxX);
+        double py = Geom.clamp(y, minY, maxY);
+        double distanceSquared = (x - px) * (x - px) + (y - py) * (y - py);
+        if (distanceSquared >= radius * radius) {
+            return false;
+        }
+        if (distanceSquared > 0) {
+            // The center is outside the box, so the closest point gives the way out
+            double distance = Math.sqrt(distanceSquared);
+            int face = px == minX ? RayHit.LEFT : (px == maxX ? RayHit.RIGHT
+                    : (py == minY ? RayHit.TOP : RayHit.BOTTOM));
+            hit.set(0, face, px, py, true);
+            hit.setNormal((x - px) / distance, (y - py) / distance);
+            return true;
+        }
+
+        // The center is inside the box: leave through the nearest face
+        double left = x - minX;
+        double right = maxX - x;
+        double top = y - minY;
+        double bottom = maxY - y;
+        double nearest = Math.min(Math.min(left, right), Math.min(top, bottom));
+        if (nearest == top) {
+            hit.set(0, RayHit.TOP, x, minY, true);
+        } else if (nearest == bottom) {
+            hit.set(0, RayHit.BOTTOM, x, maxY, true);
+        } else if (nearest == left) {
+            hit.set(0, RayHit.LEFT, minX, y, true);
+        } else {
+            hit.set(0, RayHit.RIGHT, maxX, y, true);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the time at which the center enters one of the two widened boxes of the rounded shape.
+     * Starting on the border of the box and moving away from it is not a hit.
+     *
+     * @param x0   The x-coordinate of the center at the start of the move.
+     * @param y0   The y-coordinate of the center at the start of the move.
+     * @param dx   The change in x of the center over the move.
+     * @param dy   The change in y of the center over the move.
+     * @param minX The smallest x-coordinate of the widened box.
+     * @param minY The smallest y-coordinate of the widened box.
+     * @param maxX The largest x-coordinate of the widened box.
+     * @param maxY The largest y-coordinate of the widened box.
+     * @return The entry time, or infinity if the center never enters the box.
+     */
+    private static double boxTime(double x0, double y0, double dx, double dy,
+                                  double minX, double minY, double maxX, double maxY) {
+        double tNear = Double.NEGATIVE_INFINITY;
+        double tFar = Double.POSITIVE_INFINITY;
+        if (dx != 0) {
+            double t1 = (minX - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            tNear = Math.min(t1, t2);
+            tFar = Math.max(t1, t2);
+        } else if (x0 < minX || x0 > maxX) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (dy != 0) {
+            double t1 = (minY - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        } else if (y0 < minY || y0 > maxY) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (tNear < 0 || tNear > tFar) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return tNear;
+    }
+
+    /**
+     * Returns the time at which the center enters the circle of the given radius around a corner.
+     *
+     * @param x0     The x-coordinate of the center at the start of the move.
+     * @param y0     The y-coordinate of the center at the start of the move.
+     * @param dx     The change in x of the center over the move.
+     * @param dy     The change in y of the center over the move.
+     * @param radius The radius of the moving circle.
+     * @param cx     The x-coordinate of the corner.
+     * @param cy     The y-coordinate of the corner.
+     * @return The entry time, or infinity if the center never enters the circle.
+     */
+    private static double cornerTime(double x0, double y0, double dx, double dy, double radius,
+                                     double cx, double cy) {
+        // Solve |start + t * d - corner| = radius, i.e. a * t^2 + 2 * b * t + c = 0
+        double ox = x0 - cx;
+        double oy = y0 - cy;
+        double a = dx * dx + dy * dy;
+        double b = ox * dx + oy * dy;
+        double c = ox * ox + oy * oy - radius * radius;
+        if (a == 0 || b >= 0) {
+            // Not moving, or moving away from the corner
+            return Double.POSITIVE_INFINITY;
+        }
+        double discriminant = b * b - a * c;
+        if (discriminant < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = (-b - Math.sqrt(discriminant)) / a;
+        return t >= 0 ? t : Double.POSITIVE_INFINITY;
+    }
+}
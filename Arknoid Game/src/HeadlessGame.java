@@ -0,0 +1,98 @@
+// 318936507 Adir Tamam
+
+import Game.Game;
+import Game.IndexType;
+import Input.IdleInput;
+import Metrics.LatencyHistogram;
+import Metrics.Phase;
+import Render.ImageDrawSurface;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Runs the game without a window, keyboard or frame rate limit, for simulations that run faster
+ * than real time on machines without a display. Prints the ticks run and the ticks per second.
+ */
+public class HeadlessGame {
+
+    /**
+     * The main method that runs a headless simulation.
+     *
+     * @param args The command line arguments, all optional: the number of ticks to run
+     *             (1000000 by default), the collision index to use (linear, grid or bvh), the number
+     *             of balls of a ball storm to add, then "draw" to also draw every frame off-screen,
+     *             "entities" to run the blocks and balls as entities (with no ball storm), and
+     *             "level=" and a level file to play instead of the level of initialize.
+     * @throws IOException If the level file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        long maxTicks = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        IndexType indexType = args.length > 1 ? IndexType.valueOf(args[1].toUpperCase()) : IndexType.GRID;
+        Game game = new Game(indexType);
+        boolean draw = false;
+        boolean entities = false;
+        String level = null;
+        for (int i = 3; i < args.length; i++) {
+            draw |= args[i].equals("draw");
+            entities |= args[i].equals("entities");
+            if (args[i].startsWith("level=")) {
+                level = args[i].substring("level=".length());
+            }
+        }
+        if (level != null) {
+            int blocks = game.loadLevel(Paths.get(level));
+            System.out.printf("level: %d blocks loaded in %.1f ms%n", blocks,
+                    game.getMetrics().getLevelLoadTime() / 1e6);
+        } else {
+            game.initialize();
+        }
+        if (entities) {
+            game.convertToEntities();
+        }
+        game.addPaddle(new IdleInput());
+        if (args.length > 2 && Integer.parseInt(args[2]) > 0) {
+            game.addBallStorm(Integer.parseInt(args[2]));
+        }
+        ImageDrawSurface surface = draw ? new ImageDrawSurface(800, 600) : null;
+        if (level != null) {
+            // The first frame, off-screen, ends the time from the opening of the level file to a playable game
+            ImageDrawSurface first = surface != null ? surface : new ImageDrawSurface(800, 600);
+            long frameStart = game.getMetrics().startTimer();
+            game.drawOn(first);
+            game.getMetrics().endFrame(frameStart);
+            if (first != surface) {
+                first.dispose();
+            }
+            System.out.printf("first frame after %.1f ms%n", game.getMetrics().getTimeToFirstFrame() / 1e6);
+        }
+
+        long start = System.nanoTime();
+        long ticks;
+        if (surface == null) {
+            ticks = game.step(maxTicks);
+        } else {
+            // Draw every frame off-screen, like the window would, but without showing or sleeping
+            ticks = 0;
+            while (ticks < maxTicks && !game.isOver()) {
+                game.drawOn(surface);
+                game.step();
+                ticks++;
+            }
+            surface.dispose();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("ticks: " + ticks + (game.isOver() ? " (game over)" : ""));
+        System.out.println("seconds: " + seconds);
+        System.out.println("ticks/s: " + (long) (ticks / seconds));
+        System.out.println("score: " + game.getScore());
+        System.out.println("queries: " + game.getMetrics().getQueries() + ", hits: " + game.getMetrics().getHits());
+        for (Phase phase : new Phase[]{Phase.TICK, Phase.COLLISION, Phase.HITS}) {
+            LatencyHistogram histogram = game.getMetrics().getHistogram(phase);
+            System.out.printf("%s p50/p99/max (us): %.1f / %.1f / %.1f%n", phase.getLabel(),
+                    histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3, histogram.getMax() / 1e3);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+// 318936507 Adir Tamam
+package Input;
+
+/**
+ * The IdleInput class is an InputSource on which nothing is ever pressed, for simulations
+ * where the paddle stays in place.
+ */
+public class IdleInput implements InputSource {
+
+    /**
+     * Left is never pressed.
+     *
+     * @return {@code false}.
+     */
+    public boolean isLeftPressed() {
+        return false;
+    }
+
+    /**
+     * Right is never pressed.
+     *
+     * @return {@code false}.
+     */
+    public boolean isRightPressed() {
+        return false;
+    }
+}
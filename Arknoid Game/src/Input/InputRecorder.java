@@ -0,0 +1,221 @@
+// 318936507 Adir Tamam
+package Input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The InputRecorder class is an InputSource that passes the controls of another source through,
+ * and writes them to an input log that InputReplay plays back. The controls are sampled once per
+ * tick, in poll, so the log holds exactly what the paddle saw.
+ * <p>
+ * The log starts with a header: the magic number, the version, the seed of the game and the number
+ * of ball storm balls, which is all the game needs besides the input to run again the same way.
+ * Then come runs of ticks with the same controls, each a mask byte (bit 0 for left, bit 1 for
+ * right) and the length of the run as an unsigned LEB128 varint, so holding a key for a minute
+ * takes three bytes. An END mask closes the runs, followed by the outcome: a byte telling if it
+ * is known, then the number of ticks, the score and the hash of the blocks left at the end.
+ * Everything is written through a small buffer onto a file channel.
+ */
+public class InputRecorder implements InputSource, AutoCloseable {
+    // The first bytes of an input log ("ARKR"), and the version of the format
+    static final int MAGIC = 0x41524B52;
+    static final byte VERSION = 1;
+
+    // The bits of the controls in a mask, and the mask that ends the runs
+    static final int LEFT = 1;
+    static final int RIGHT = 2;
+    static final int END = 0xFF;
+
+    // The size of the write buffer, and the room a run needs in it at most
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_RUN_BYTES = 11;
+
+    private final InputSource source;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    // The controls of the current tick, and the run of ticks with the same controls so far
+    private int mask;
+    private int runMask;
+    private long runLength;
+    private long ticks;
+    private boolean closed;
+
+    /**
+     * Creates an input log and starts recording the controls of a source into it.
+     *
+     * @param source     The source of the controls.
+     * @param file       The file the log is written to, replaced if it exists.
+     * @param seed       The seed of the game, as returned by Game.getSeed.
+     * @param stormBalls The number of ball storm balls added to the game after initialize.
+     * @throws IOException If the file cannot be created or written.
+     */
+    public InputRecorder(InputSource source, Path file, long seed, int stormBalls) throws IOException {
+        this.source = source;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.putInt(MAGIC).put(VERSION).putLong(seed).putInt(stormBalls);
+    }
+
+    /**
+     * Samples the controls of the source for this tick and records them.
+     */
+    @Override
+    public synchronized void poll() {
+        this.mask = (this.source.isLeftPressed() ? LEFT : 0) | (this.source.isRightPressed() ? RIGHT : 0);
+        if (this.closed) {
+            return;
+        }
+        this.ticks++;
+        if (this.runLength > 0 && this.mask == this.runMask) {
+            this.runLength++;
+            return;
+        }
+        try {
+            writeRun();
+        } catch (IOException e) {
+            // The game goes on without the rest of the recording
+            System.err.println("Could not write the input log: " + e.getMessage());
+            closeQuietly();
+            return;
+        }
+        this.runMask = this.mask;
+        this.runLength = 1;
+    }
+
+    /**
+     * Checks if left was pressed in the current tick.
+     *
+     * @return {@code true} if left is pressed, {@code false} otherwise.
+     */
+    @Override
+    public boolean isLeftPressed() {
+        return (this.mask & LEFT) != 0;
+    }
+
+    /**
+     * Checks if right was pressed in the current tick.
+     *
+     * @return {@code true} if right is pressed, {@code false} otherwise.
+     */
+    @Override
+    public boolean isRightPressed() {
+        return (this.mask & RIGHT) != 0;
+    }
+
+    /**
+     * Returns the number of ticks recorded.
+     *
+     * @return The number of ticks.
+     */
+    public synchronized long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Ends the log with the outcome of the game, which a replay checks itself against, and closes it.
+     *
+     * @param score     The final score.
+     * @param blockHash The hash of the blocks left, as returned by Game.getBlockHash.
+     * @throws IOException If the log cannot be written.
+     */
+    public synchronized void finish(int score, long blockHash) throws IOException {
+        finish(true, score, blockHash);
+    }
+
+    /**
+     * Ends the log without an outcome and closes it, for games that were cut short.
+     * Does nothing if the log is already closed.
+     *
+     * @throws IOException If the log cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        finish(false, 0, 0);
+    }
+
+    /**
+     * Writes the last run, the END mask and the outcome, and closes the log.
+     *
+     * @param known     Whether the outcome is known.
+     * @param score     The final score.
+     * @param blockHash The hash of the blocks left.
+     * @throws IOException If the log cannot be written.
+     */
+    private void finish(boolean known, int score, long blockHash) throws IOException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            writeRun();
+            ensureRoom(1 + 1 + 8 + 4 + 8);
+            this.buffer.put((byte) END).put((byte) (known ? 1 : 0));
+            this.buffer.putLong(this.ticks).putInt(score).putLong(blockHash);
+            flush();
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Writes the current run to the buffer, if there is one.
+     *
+     * @throws IOException If the buffer had to be flushed and the log cannot be written.
+     */
+    private void writeRun() throws IOException {
+        if (this.runLength == 0) {
+            return;
+        }
+        ensureRoom(MAX_RUN_BYTES);
+        this.buffer.put((byte) this.runMask);
+        long value = this.runLength;
+        while ((value & ~0x7FL) != 0) {
+            this.buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        this.buffer.put((byte) value);
+        this.runLength = 0;
+    }
+
+    /**
+     * Flushes the buffer if it has less room than needed.
+     *
+     * @param bytes The number of bytes about to be written.
+     * @throws IOException If the log cannot be written.
+     */
+    private void ensureRoom(int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffer to the channel.
+     *
+     * @throws IOException If the log cannot be written.
+     */
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Closes the channel, ignoring errors, and stops recording.
+     */
+    private void closeQuietly() {
+        this.closed = true;
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the input log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+// 318936507 Adir Tamam
+package Input;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The InputReplay class is an InputSource that plays back an input log written by InputRecorder,
+ * one tick per poll. A game created with the seed and ball storm of the log and driven by the
+ * replay runs exactly as the recorded one did, as fast as the machine allows.
+ * The log is read through a small buffer from a file channel, so its length does not matter.
+ */
+public class InputReplay implements InputSource, AutoCloseable {
+    // The size of the read buffer
+    private static final int BUFFER_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long seed;
+    private final int stormBalls;
+
+    // The controls of the current tick, and the controls and ticks left of the current run
+    private int mask;
+    private int runMask;
+    private long runLeft;
+    private boolean ended;
+
+    // The outcome of the recorded game, read after the runs
+    private boolean outcomeKnown;
+    private long recordedTicks;
+    private int recordedScore;
+    private long recordedBlockHash;
+
+    /**
+     * Opens an input log for replay and reads its header.
+     *
+     * @param file The input log.
+     * @throws IOException If the file cannot be read or is not an input log.
+     */
+    public InputReplay(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+        try {
+            require(4 + 1 + 8 + 4);
+            if (this.buffer.getInt() != InputRecorder.MAGIC) {
+                throw new IOException("Not an input log: " + file);
+            }
+            byte version = this.buffer.get();
+            if (version != InputRecorder.VERSION) {
+                throw new IOException("Unsupported input log version " + version + ": " + file);
+            }
+            this.seed = this.buffer.getLong();
+            this.stormBalls = this.buffer.getInt();
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the seed of the recorded game.
+     *
+     * @return The seed to create the game with.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the number of ball storm balls of the recorded game.
+     *
+     * @return The number of balls to add with Game.addBallStorm after initialize, 0 for none.
+     */
+    public int getStormBalls() {
+        return this.stormBalls;
+    }
+
+    /**
+     * Checks if there are ticks left to replay.
+     *
+     * @return {@code true} if the log has another tick, {@code false} if it is over.
+     * @throws UncheckedIOException If the log cannot be read.
+     */
+    public boolean hasNextTick() {
+        try {
+            while (this.runLeft == 0 && !this.ended) {
+                readRun();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this.runLeft > 0;
+    }
+
+    /**
+     * Moves to the controls of the next tick of the log. After the end of the log nothing is pressed.
+     *
+     * @throws UncheckedIOException If the log cannot be read.
+     */
+    @Override
+    public void poll() {
+        if (!hasNextTick()) {
+            this.mask = 0;
+            return;
+        }
+        this.mask = this.runMask;
+        this.runLeft--;
+    }
+
+    /**
+     * Skips ticks of the log without polling them one by one, whole runs at a time.
+     *
+     * @param ticks The number of ticks to skip.
+     * @return The number of ticks skipped, fewer if the log ends first.
+     * @throws UncheckedIOException If the log cannot be read.
+     */
+    public long skip(long ticks) {
+        long skipped = 0;
+        while (skipped < ticks && hasNextTick()) {
+            long n = Math.min(this.runLeft, ticks - skipped);
+            this.runLeft -= n;
+            skipped += n;
+        }
+        return skipped;
+    }
+
+    /**
+     * Checks if left was pressed in the current tick of the log.
+     *
+     * @return {@code true} if left is pressed, {@code false} otherwise.
+     */
+    @Override
+    public boolean isLeftPressed() {
+        return (this.mask & InputRecorder.LEFT) != 0;
+    }
+
+    /**
+     * Checks if right was pressed in the current tick of the log.
+     *
+     * @return {@code true} if right is pressed, {@code false} otherwise.
+     */
+    @Override
+    public boolean isRightPressed() {
+        return (this.mask & InputRecorder.RIGHT) != 0;
+    }
+
+    /**
+     * Checks if the log holds the outcome of the recorded game. Known once hasNextTick returned false.
+     *
+     * @return {@code true} if the outcome is known, {@code false} otherwise.
+     */
+    public boolean isOutcomeKnown() {
+        return this.outcomeKnown;
+    }
+
+    /**
+     * Returns the number of ticks recorded.
+     *
+     * @return The number of ticks of the recorded game.
+     */
+    public long getRecordedTicks() {
+        return this.recordedTicks;
+    }
+
+    /**
+     * Returns the final score of the recorded game.
+     *
+     * @return The recorded score.
+     */
+    public int getRecordedScore() {
+        return this.recordedScore;
+    }
+
+    /**
+     * Returns the hash of the blocks left at the end of the recorded game.
+     *
+     * @return The recorded block hash.
+     */
+    public long getRecordedBlockHash() {
+        return this.recordedBlockHash;
+    }
+
+    /**
+     * Closes the log.
+     *
+     * @throws IOException If the log cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Reads the next run, or the END mask and the outcome after it. A log that stops between two
+     * runs, as when the recording game was killed, ends there with an unknown outcome.
+     *
+     * @throws IOException If the log cannot be read or is cut short inside a run.
+     */
+    private void readRun() throws IOException {
+        if (!fill(1)) {
+            this.ended = true;
+            return;
+        }
+        int runMask = this.buffer.get() & 0xFF;
+        if (runMask == InputRecorder.END) {
+            require(1 + 8 + 4 + 8);
+            this.outcomeKnown = this.buffer.get() != 0;
+            this.recordedTicks = this.buffer.getLong();
+            this.recordedScore = this.buffer.getInt();
+            this.recordedBlockHash = this.buffer.getLong();
+            this.ended = true;
+            return;
+        }
+
+        // The length of the run is an unsigned LEB128 varint
+        long length = 0;
+        int shift = 0;
+        int b;
+        do {
+            require(1);
+            b = this.buffer.get();
+            length |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        this.runMask = runMask;
+        this.runLeft = length;
+    }
+
+    /**
+     * Makes sure the buffer holds at least the given number of bytes, reading more from the channel.
+     *
+     * @param bytes The number of bytes needed.
+     * @throws IOException If the log cannot be read or ends before the bytes.
+     */
+    private void require(int bytes) throws IOException {
+        if (!fill(bytes)) {
+            throw new IOException("The input log is cut short");
+        }
+    }
+
+    /**
+     * Reads from the channel until the buffer holds at least the given number of bytes, or the log ends.
+     *
+     * @param bytes The number of bytes needed.
+     * @return {@code true} if the bytes are in the buffer, {@code false} if the log ends before them.
+     * @throws IOException If the log cannot be read.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes) {
+            return true;
+        }
+        this.buffer.compact();
+        boolean full = true;
+        while (this.buffer.position() < bytes) {
+            if (this.channel.read(this.buffer) < 0) {
+                full = false;
+                break;
+            }
+        }
+        this.buffer.flip();
+        return full;
+    }
+}
@@ -0,0 +1,30 @@
+// 318936507 Adir Tamam
+package Input;
+
+/**
+ * The InputSource interface represents where the player's controls come from. It lets the game run
+ * from the keyboard of a window or without one, from a script or a recording.
+ */
+public interface InputSource {
+
+    /**
+     * Checks if the left control is pressed in the current tick.
+     *
+     * @return {@code true} if left is pressed, {@code false} otherwise.
+     */
+    boolean isLeftPressed();
+
+    /**
+     * Checks if the right control is pressed in the current tick.
+     *
+     * @return {@code true} if right is pressed, {@code false} otherwise.
+     */
+    boolean isRightPressed();
+
+    /**
+     * Called by the game once at the start of every tick, before the paddle reads the controls.
+     * Sources that read the controls per tick, such as recordings, advance here.
+     */
+    default void poll() {
+    }
+}
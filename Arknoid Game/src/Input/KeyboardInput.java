@@ -0,0 +1,38 @@
+// 318936507 Adir Tamam
+package Input;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The KeyboardInput class is an InputSource that reads the arrow keys of a biuoop keyboard sensor.
+ */
+public class KeyboardInput implements InputSource {
+    private final KeyboardSensor keyboard;
+
+    /**
+     * Constructs a new KeyboardInput reading the given keyboard sensor.
+     *
+     * @param keyboard The keyboard sensor of the game window.
+     */
+    public KeyboardInput(KeyboardSensor keyboard) {
+        this.keyboard = keyboard;
+    }
+
+    /**
+     * Checks if the left arrow key is pressed.
+     *
+     * @return {@code true} if the left arrow key is pressed, {@code false} otherwise.
+     */
+    public boolean isLeftPressed() {
+        return this.keyboard.isPressed(KeyboardSensor.LEFT_KEY);
+    }
+
+    /**
+     * Checks if the right arrow key is pressed.
+     *
+     * @return {@code true} if the right arrow key is pressed, {@code false} otherwise.
+     */
+    public boolean isRightPressed() {
+        return this.keyboard.isPressed(KeyboardSensor.RIGHT_KEY);
+    }
+}
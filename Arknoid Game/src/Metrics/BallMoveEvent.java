@@ -0,0 +1,35 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for the chain of sub-steps that moves one ball through one tick,
+ * a collision query and a bounce per sub-step. Like the collision queries, it is off unless the
+ * recording settings turn it on.
+ */
+@Name("arkanoid.BallMove")
+@Label("Ball Move")
+@Category({"Arkanoid", "Collision"})
+@Description("Moving one ball through one tick, bouncing off what it hits")
+@Enabled(false)
+@StackTrace(false)
+public class BallMoveEvent extends jdk.jfr.Event {
+    @Label("Sub-steps")
+    @Description("The number of collision queries the move made")
+    private int subSteps;
+
+    /**
+     * Sets the number of sub-steps of the move.
+     *
+     * @param subSteps The number of collision queries the move made.
+     */
+    public void setSubSteps(int subSteps) {
+        this.subSteps = subSteps;
+    }
+}
@@ -0,0 +1,47 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for one collision query of the game environment. There are
+ * thousands of queries per tick, so the event is off unless the recording settings turn it on.
+ */
+@Name("arkanoid.CollisionQuery")
+@Label("Collision Query")
+@Category({"Arkanoid", "Collision"})
+@Description("A swept collision query of the game environment")
+@Enabled(false)
+@StackTrace(false)
+public class CollisionQueryEvent extends jdk.jfr.Event {
+    @Label("Candidates")
+    @Description("The number of collidables tested exactly")
+    private int candidates;
+
+    @Label("Hit")
+    @Description("Whether the query found a collision")
+    private boolean hit;
+
+    /**
+     * Sets the number of collidables the query tested exactly.
+     *
+     * @param candidates The number of narrowphase tests.
+     */
+    public void setCandidates(int candidates) {
+        this.candidates = candidates;
+    }
+
+    /**
+     * Sets whether the query found a collision.
+     *
+     * @param hit {@code true} on a hit, {@code false} on a miss.
+     */
+    public void setHit(boolean hit) {
+        this.hit = hit;
+    }
+}
@@ -0,0 +1,526 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The EngineMetrics class collects the timings and counters of the game loop: a latency histogram
+ * per phase, the number of collision queries and hits, and the frame and allocation rates.
+ * Collision queries and hits may come from several threads at once, so they go to striped
+ * counters; everything else is written by the game thread alone. Readers never block the writers.
+ * There are far too many collision queries to read the clock twice for each, so only a random
+ * sample of them is timed, and scaled up. Timing can be switched off, which leaves only the counters.
+ * When the game is simulated and drawn on two threads, the frames are counted and timed by the
+ * render thread, and the time both threads are busy at once is measured, to see how much they overlap.
+ */
+public class EngineMetrics {
+    // The length of the window the frame rate and allocation rate are measured over
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    // One collision query in QUERY_SAMPLE is timed, standing for the others
+    static final int QUERY_SAMPLE = 64;
+
+    // The bits of the state of the busy threads that count them
+    private static final int BUSY_BITS = 2;
+    private static final long BUSY_MASK = (1 << BUSY_BITS) - 1;
+
+    private final Map<Phase, LatencyHistogram> histograms;
+    private volatile boolean enabled;
+
+    // Counters that any thread may add to
+    private final LongAdder queries;
+    private final LongAdder narrowphaseTests;
+    private final LongAdder queryNanos;
+    private final LongAdder hits;
+    private final LongAdder hitNanos;
+    private final Map<String, LongAdder> hitEvents;
+
+    // Counters of the game thread
+    private final AtomicLong ticks;
+    private final AtomicLong frames;
+    private final AtomicLong droppedTicks;
+
+    // The state at the start of the current tick, to turn the sums into per-tick figures
+    private long queriesAtTickStart;
+    private long queryNanosAtTickStart;
+    private long hitNanosAtTickStart;
+    private volatile long lastTickQueries;
+
+    // The id of the thread that runs the ticks, whose allocation is measured, or -1 before the first tick
+    private volatile long gameThread;
+
+    // The rates of the last full window
+    private long windowStart;
+    private long framesAtWindowStart;
+    private long bytesAtWindowStart;
+    private volatile double framesPerSecond;
+    private volatile double bytesPerSecond;
+
+    // The part of the last frame that was drawn again
+    private volatile double dirtyFraction;
+
+    // When the last level file was opened, how long loading it took, and how long after the opening
+    // the first frame ended, or -1 before each
+    private volatile long levelOpened;
+    private volatile long levelLoadNanos;
+    private volatile long firstFrameNanos;
+
+    // The number of threads busy now, in the low BUSY_BITS, and above them the time two of them got
+    // busy, from busyOrigin; the busy time of the threads, summed, and the time two were busy at once
+    private final long busyOrigin;
+    private final AtomicLong busyState;
+    private final LongAdder busyNanos;
+    private final AtomicLong overlapNanos;
+
+    /**
+     * Constructs new metrics, with timing enabled.
+     */
+    public EngineMetrics() {
+        this.histograms = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            this.histograms.put(phase, new LatencyHistogram());
+        }
+        this.queries = new LongAdder();
+        this.narrowphaseTests = new LongAdder();
+        this.queryNanos = new LongAdder();
+        this.hits = new LongAdder();
+        this.hitNanos = new LongAdder();
+        this.hitEvents = new ConcurrentHashMap<>();
+        this.ticks = new AtomicLong();
+        this.frames = new AtomicLong();
+        this.droppedTicks = new AtomicLong();
+        this.busyOrigin = System.nanoTime();
+        this.busyState = new AtomicLong();
+        this.busyNanos = new LongAdder();
+        this.overlapNanos = new AtomicLong();
+        this.gameThread = -1;
+        this.levelLoadNanos = -1;
+        this.firstFrameNanos = -1;
+        this.enabled = true;
+    }
+
+    /**
+     * Checks if timing is enabled.
+     *
+     * @return {@code true} if the phases are timed, {@code false} if only counters are kept.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Enables or disables timing. The counters are kept either way.
+     *
+     * @param enabled Whether the phases are timed.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts timing a phase.
+     *
+     * @return The start time to pass to stopTimer, or 0 if timing is disabled.
+     */
+    public long startTimer() {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops timing a phase and records its duration.
+     *
+     * @param phase The phase that was timed.
+     * @param start The start time returned by startTimer.
+     */
+    public void stopTimer(Phase phase, long start) {
+        if (start != 0) {
+            this.histograms.get(phase).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Starts a collision query, timing it if it is in the sample. May be called from any thread.
+     *
+     * @return The start time to pass to countQuery, or 0 if the query is not timed.
+     */
+    public long startQuery() {
+        if (!this.enabled || ThreadLocalRandom.current().nextInt(QUERY_SAMPLE) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a collision query. May be called from any thread.
+     *
+     * @param start The start time of the query returned by startQuery.
+     * @param tests The number of narrowphase tests the query made.
+     */
+    public void countQuery(long start, int tests) {
+        this.queries.increment();
+        this.narrowphaseTests.add(tests);
+        if (start != 0) {
+            this.queryNanos.add((System.nanoTime() - start) * QUERY_SAMPLE);
+        }
+    }
+
+    /**
+     * Records a hit, including its hit listeners. May be called from any thread.
+     *
+     * @param start The start time of the hit returned by startTimer.
+     */
+    public void countHit(long start) {
+        this.hits.increment();
+        if (start != 0) {
+            this.hitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the dispatch of the hit events of a tick to their listeners, whose time counts in the
+     * hits of the tick.
+     *
+     * @param start The start time of the dispatch returned by startTimer.
+     */
+    public void countDispatch(long start) {
+        if (start != 0) {
+            this.hitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a hit event dispatched to a hit listener. May be called from any thread.
+     *
+     * @param listenerType The name of the type of the listener.
+     */
+    public void countHitEvent(String listenerType) {
+        countHitEvents(listenerType, 1);
+    }
+
+    /**
+     * Records the hit events of a batch dispatched to a hit listener, in one update. May be called
+     * from any thread.
+     *
+     * @param listenerType The name of the type of the listener.
+     * @param count        The number of events in the batch.
+     */
+    public void countHitEvents(String listenerType, int count) {
+        this.hitEvents.computeIfAbsent(listenerType, type -> new LongAdder()).add(count);
+    }
+
+    /**
+     * Records ticks the game loop dropped because it could not catch up.
+     *
+     * @param count The number of dropped ticks.
+     */
+    public void countDroppedTicks(long count) {
+        this.droppedTicks.addAndGet(count);
+    }
+
+    /**
+     * Starts a tick.
+     *
+     * @return The start time to pass to endTick, or 0 if timing is disabled.
+     */
+    public long beginTick() {
+        this.gameThread = Thread.currentThread().getId();
+        this.queriesAtTickStart = this.queries.sum();
+        if (!this.enabled) {
+            return 0;
+        }
+        this.queryNanosAtTickStart = this.queryNanos.sum();
+        this.hitNanosAtTickStart = this.hitNanos.sum();
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends a tick, recording its duration and the time its collision queries and hits took.
+     *
+     * @param start The start time returned by beginTick.
+     */
+    public void endTick(long start) {
+        this.ticks.incrementAndGet();
+        this.lastTickQueries = this.queries.sum() - this.queriesAtTickStart;
+        if (start != 0) {
+            stopTimer(Phase.TICK, start);
+            this.histograms.get(Phase.COLLISION).record(this.queryNanos.sum() - this.queryNanosAtTickStart);
+            this.histograms.get(Phase.HITS).record(this.hitNanos.sum() - this.hitNanosAtTickStart);
+        }
+    }
+
+    /**
+     * Ends a frame, recording its duration and, once a second, the frame and allocation rates.
+     * The allocation rate is the one of the game thread, the thread that began the ticks, even when
+     * the frames are ended by the render thread.
+     *
+     * @param start The start time of the frame returned by startTimer.
+     */
+    public void endFrame(long start) {
+        long frameCount = this.frames.incrementAndGet();
+        stopTimer(Phase.FRAME, start);
+        long now = System.nanoTime();
+        if (this.firstFrameNanos < 0 && this.levelLoadNanos >= 0) {
+            this.firstFrameNanos = now - this.levelOpened;
+        }
+        if (this.windowStart == 0) {
+            this.windowStart = now;
+            this.framesAtWindowStart = frameCount;
+            this.bytesAtWindowStart = allocatedBytes(this.gameThread);
+            return;
+        }
+        long elapsed = now - this.windowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            long bytes = allocatedBytes(this.gameThread);
+            this.framesPerSecond = (frameCount - this.framesAtWindowStart) * 1e9 / elapsed;
+            this.bytesPerSecond = bytes < 0 || this.bytesAtWindowStart < 0
+                    ? -1 : (bytes - this.bytesAtWindowStart) * 1e9 / elapsed;
+            this.windowStart = now;
+            this.framesAtWindowStart = frameCount;
+            this.bytesAtWindowStart = bytes;
+        }
+    }
+
+    /**
+     * Records that a level was loaded, so the time from the opening of its file to the end of the
+     * next frame is measured too.
+     *
+     * @param opened The System.nanoTime when the level file was opened.
+     */
+    public void levelLoaded(long opened) {
+        this.levelOpened = opened;
+        this.firstFrameNanos = -1;
+        this.levelLoadNanos = System.nanoTime() - opened;
+    }
+
+    /**
+     * Returns how long loading the last level took, from the opening of its file.
+     *
+     * @return The load time in nanoseconds, or -1 if no level was loaded.
+     */
+    public long getLevelLoadTime() {
+        return this.levelLoadNanos;
+    }
+
+    /**
+     * Returns how long after the opening of the last level file the first frame of the level ended.
+     *
+     * @return The time to the first frame in nanoseconds, or -1 if no frame ended since a level was loaded.
+     */
+    public long getTimeToFirstFrame() {
+        return this.firstFrameNanos;
+    }
+
+    /**
+     * Returns the histogram of a phase.
+     *
+     * @param phase The phase.
+     * @return The latency histogram of the phase.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return this.histograms.get(phase);
+    }
+
+    /**
+     * Returns the number of ticks run.
+     *
+     * @return The number of ticks.
+     */
+    public long getTicks() {
+        return this.ticks.get();
+    }
+
+    /**
+     * Returns the number of frames drawn.
+     *
+     * @return The number of frames.
+     */
+    public long getFrames() {
+        return this.frames.get();
+    }
+
+    /**
+     * Returns the number of collision queries made.
+     *
+     * @return The number of collision queries.
+     */
+    public long getQueries() {
+        return this.queries.sum();
+    }
+
+    /**
+     * Returns the number of narrowphase tests made by the collision queries.
+     *
+     * @return The number of narrowphase tests.
+     */
+    public long getNarrowphaseTests() {
+        return this.narrowphaseTests.sum();
+    }
+
+    /**
+     * Returns the number of hit events dispatched, by type of hit listener.
+     *
+     * @return A sorted snapshot mapping the names of the listener types to their hit events.
+     */
+    public Map<String, Long> getHitEvents() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : this.hitEvents.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the number of ticks the game loop dropped because it could not catch up.
+     *
+     * @return The number of dropped ticks.
+     */
+    public long getDroppedTicks() {
+        return this.droppedTicks.get();
+    }
+
+    /**
+     * Returns the number of hits resolved.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of collision queries of the last tick.
+     *
+     * @return The number of queries in the last tick.
+     */
+    public long getLastTickQueries() {
+        return this.lastTickQueries;
+    }
+
+    /**
+     * Returns the frame rate over the last second.
+     *
+     * @return The number of frames per second.
+     */
+    public double getFramesPerSecond() {
+        return this.framesPerSecond;
+    }
+
+    /**
+     * Returns the allocation rate of the game thread over the last second.
+     *
+     * @return The number of bytes allocated per second, or -1 if the JVM cannot measure it.
+     */
+    public double getAllocationRate() {
+        return this.bytesPerSecond;
+    }
+
+    /**
+     * Records the part of the frame that was drawn again.
+     *
+     * @param fraction The area drawn divided by the area of the frame, from 0 to 1.
+     */
+    public void setDirtyFraction(double fraction) {
+        this.dirtyFraction = fraction;
+    }
+
+    /**
+     * Returns the part of the last frame that was drawn again.
+     *
+     * @return The area drawn divided by the area of the frame, from 0 to 1.
+     */
+    public double getDirtyFraction() {
+        return this.dirtyFraction;
+    }
+
+    /**
+     * Marks the calling thread as busy, until endBusy. The simulation and the render thread each mark
+     * their work, so the time they work at once can be measured. May be called from any thread.
+     *
+     * @return The start time to pass to endBusy.
+     */
+    public long beginBusy() {
+        long now = System.nanoTime();
+        long state;
+        long next;
+        do {
+            state = this.busyState.get();
+            long busy = state & BUSY_MASK;
+
+            // The overlap starts when a second thread gets busy
+            long since = busy == 1 ? now - this.busyOrigin : state >>> BUSY_BITS;
+            next = since << BUSY_BITS | (busy + 1);
+        } while (!this.busyState.compareAndSet(state, next));
+        return now;
+    }
+
+    /**
+     * Marks the calling thread as no longer busy. May be called from any thread.
+     *
+     * @param start The start time returned by beginBusy.
+     */
+    public void endBusy(long start) {
+        long now = System.nanoTime();
+        this.busyNanos.add(now - start);
+        long state;
+        long next;
+        do {
+            state = this.busyState.get();
+            long busy = state & BUSY_MASK;
+            next = (state & ~BUSY_MASK) | (busy - 1);
+        } while (!this.busyState.compareAndSet(state, next));
+
+        // The overlap ends when the second busy thread is done
+        if ((state & BUSY_MASK) == 2) {
+            this.overlapNanos.addAndGet(now - this.busyOrigin - (state >>> BUSY_BITS));
+        }
+    }
+
+    /**
+     * Returns the part of the busy time during which the threads were busy at once: 0 when they
+     * always take turns, 1 when they always work together.
+     *
+     * @return The time two threads were busy divided by the time any was, or 0 if none was yet.
+     */
+    public double getOverlap() {
+        long overlap = this.overlapNanos.get();
+        long union = this.busyNanos.sum() - overlap;
+        return union <= 0 ? 0 : (double) overlap / union;
+    }
+
+    /**
+     * Forgets the recorded durations of all the phases. The counters keep counting.
+     */
+    public void resetHistograms() {
+        for (LatencyHistogram histogram : this.histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Returns the number of bytes a thread allocated so far.
+     *
+     * @param thread The id of the thread, or -1 if there is none yet.
+     * @return The number of bytes, or -1 if there is no thread, it ended, or the JVM cannot measure it.
+     */
+    private static long allocatedBytes(long thread) {
+        if (thread < 0) {
+            return -1;
+        }
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(thread);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,276 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+import Base.Counter;
+
+import java.util.Map;
+
+/**
+ * The EngineStats class exposes the metrics of a game, and its live ball, block and score
+ * counters, as a platform MXBean. It only reads, so the JMX threads never touch the game state.
+ */
+public class EngineStats implements EngineStatsMXBean {
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final EngineMetrics metrics;
+    private final Counter balls;
+    private final Counter blocks;
+    private final Counter score;
+
+    /**
+     * Constructs the stats of a game.
+     *
+     * @param metrics The metrics of the game.
+     * @param balls   The counter of the balls in the game.
+     * @param blocks  The counter of the blocks left in the game.
+     * @param score   The score counter of the game.
+     */
+    public EngineStats(EngineMetrics metrics, Counter balls, Counter blocks, Counter score) {
+        this.metrics = metrics;
+        this.balls = balls;
+        this.blocks = blocks;
+        this.score = score;
+    }
+
+    /**
+     * Returns the number of ticks run.
+     *
+     * @return The number of ticks.
+     */
+    @Override
+    public long getTicks() {
+        return this.metrics.getTicks();
+    }
+
+    /**
+     * Returns the number of frames drawn.
+     *
+     * @return The number of frames.
+     */
+    @Override
+    public long getFrames() {
+        return this.metrics.getFrames();
+    }
+
+    /**
+     * Returns the number of ticks dropped because the game could not catch up.
+     *
+     * @return The number of dropped ticks.
+     */
+    @Override
+    public long getDroppedTicks() {
+        return this.metrics.getDroppedTicks();
+    }
+
+    /**
+     * Returns the number of collision queries made.
+     *
+     * @return The number of collision queries.
+     */
+    @Override
+    public long getCollisionQueries() {
+        return this.metrics.getQueries();
+    }
+
+    /**
+     * Returns the number of narrowphase tests, exact tests against a single collidable, made by the
+     * collision queries.
+     *
+     * @return The number of narrowphase tests.
+     */
+    @Override
+    public long getNarrowphaseTests() {
+        return this.metrics.getNarrowphaseTests();
+    }
+
+    /**
+     * Returns the number of hits resolved.
+     *
+     * @return The number of hits.
+     */
+    @Override
+    public long getHits() {
+        return this.metrics.getHits();
+    }
+
+    /**
+     * Returns the number of hit events dispatched, by type of hit listener.
+     *
+     * @return The number of hit events of each listener type.
+     */
+    @Override
+    public Map<String, Long> getHitEventsByListener() {
+        return this.metrics.getHitEvents();
+    }
+
+    /**
+     * Returns the number of balls in the game.
+     *
+     * @return The number of live balls.
+     */
+    @Override
+    public int getLiveBalls() {
+        return this.balls.getValue();
+    }
+
+    /**
+     * Returns the number of blocks left to remove.
+     *
+     * @return The number of live blocks.
+     */
+    @Override
+    public int getLiveBlocks() {
+        return this.blocks.getValue();
+    }
+
+    /**
+     * Returns the score.
+     *
+     * @return The score.
+     */
+    @Override
+    public int getScore() {
+        return this.score.getValue();
+    }
+
+    /**
+     * Returns the frame rate over the last second.
+     *
+     * @return The number of frames per second.
+     */
+    @Override
+    public double getFramesPerSecond() {
+        return this.metrics.getFramesPerSecond();
+    }
+
+    /**
+     * Returns the allocation rate of the game thread over the last second.
+     *
+     * @return The number of bytes allocated per second, or -1 if the JVM cannot measure it.
+     */
+    @Override
+    public double getAllocationRate() {
+        return this.metrics.getAllocationRate();
+    }
+
+    /**
+     * Returns the median frame time.
+     *
+     * @return The 50th percentile of the frame time.
+     */
+    @Override
+    public double getFrameTimeP50() {
+        return percentile(Phase.FRAME, 50);
+    }
+
+    /**
+     * Returns the 99th percentile of the frame time.
+     *
+     * @return The 99th percentile of the frame time.
+     */
+    @Override
+    public double getFrameTimeP99() {
+        return percentile(Phase.FRAME, 99);
+    }
+
+    /**
+     * Returns the longest frame time.
+     *
+     * @return The maximum frame time.
+     */
+    @Override
+    public double getFrameTimeMax() {
+        return this.metrics.getHistogram(Phase.FRAME).getMax() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the median tick time.
+     *
+     * @return The 50th percentile of the tick time.
+     */
+    @Override
+    public double getTickTimeP50() {
+        return percentile(Phase.TICK, 50);
+    }
+
+    /**
+     * Returns the 99th percentile of the tick time.
+     *
+     * @return The 99th percentile of the tick time.
+     */
+    @Override
+    public double getTickTimeP99() {
+        return percentile(Phase.TICK, 99);
+    }
+
+    /**
+     * Returns the part of their busy time during which the game and the render thread work at once.
+     *
+     * @return The overlap of the threads, from 0 to 1; 0 when the frames are drawn between the ticks.
+     */
+    @Override
+    public double getThreadOverlap() {
+        return this.metrics.getOverlap();
+    }
+
+    /**
+     * Returns how long loading the last level file took.
+     *
+     * @return The load time, or -1 if no level was loaded.
+     */
+    @Override
+    public double getLevelLoadTime() {
+        long nanos = this.metrics.getLevelLoadTime();
+        return nanos < 0 ? -1 : nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns how long after the opening of the last level file its first frame ended.
+     *
+     * @return The time to the first frame, or -1 if it was not drawn yet.
+     */
+    @Override
+    public double getTimeToFirstFrame() {
+        long nanos = this.metrics.getTimeToFirstFrame();
+        return nanos < 0 ? -1 : nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Checks if the phases of the loop are timed.
+     *
+     * @return {@code true} if timing is enabled, {@code false} otherwise.
+     */
+    @Override
+    public boolean isTimingEnabled() {
+        return this.metrics.isEnabled();
+    }
+
+    /**
+     * Enables or disables the timing of the phases of the loop.
+     *
+     * @param enabled Whether the phases are timed.
+     */
+    @Override
+    public void setTimingEnabled(boolean enabled) {
+        this.metrics.setEnabled(enabled);
+    }
+
+    /**
+     * Forgets the recorded durations, so the percentiles start over.
+     */
+    @Override
+    public void resetHistograms() {
+        this.metrics.resetHistograms();
+    }
+
+    /**
+     * Returns a percentile of the durations of a phase in milliseconds.
+     *
+     * @param phase      The phase.
+     * @param percentile The percentile, from 0 to 100.
+     * @return The percentile in milliseconds.
+     */
+    private double percentile(Phase phase, double percentile) {
+        return this.metrics.getHistogram(phase).getPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
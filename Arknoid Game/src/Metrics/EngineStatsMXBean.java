@@ -0,0 +1,172 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of the engine, as seen by JMX clients such as jconsole or a monitoring
+ * agent. Every attribute is read from atomic or striped counters, so reading it never blocks the
+ * game loop. Times are in milliseconds.
+ */
+public interface EngineStatsMXBean {
+
+    /**
+     * Returns the number of ticks run.
+     *
+     * @return The number of ticks.
+     */
+    long getTicks();
+
+    /**
+     * Returns the number of frames drawn.
+     *
+     * @return The number of frames.
+     */
+    long getFrames();
+
+    /**
+     * Returns the number of ticks dropped because the game could not catch up.
+     *
+     * @return The number of dropped ticks.
+     */
+    long getDroppedTicks();
+
+    /**
+     * Returns the number of collision queries made.
+     *
+     * @return The number of collision queries.
+     */
+    long getCollisionQueries();
+
+    /**
+     * Returns the number of narrowphase tests, exact tests against a single collidable, made by the
+     * collision queries.
+     *
+     * @return The number of narrowphase tests.
+     */
+    long getNarrowphaseTests();
+
+    /**
+     * Returns the number of hits resolved.
+     *
+     * @return The number of hits.
+     */
+    long getHits();
+
+    /**
+     * Returns the number of hit events dispatched, by type of hit listener.
+     *
+     * @return The number of hit events of each listener type.
+     */
+    Map<String, Long> getHitEventsByListener();
+
+    /**
+     * Returns the number of balls in the game.
+     *
+     * @return The number of live balls.
+     */
+    int getLiveBalls();
+
+    /**
+     * Returns the number of blocks left to remove.
+     *
+     * @return The number of live blocks.
+     */
+    int getLiveBlocks();
+
+    /**
+     * Returns the score.
+     *
+     * @return The score.
+     */
+    int getScore();
+
+    /**
+     * Returns the frame rate over the last second.
+     *
+     * @return The number of frames per second.
+     */
+    double getFramesPerSecond();
+
+    /**
+     * Returns the allocation rate of the game thread over the last second.
+     *
+     * @return The number of bytes allocated per second, or -1 if the JVM cannot measure it.
+     */
+    double getAllocationRate();
+
+    /**
+     * Returns the median frame time.
+     *
+     * @return The 50th percentile of the frame time.
+     */
+    double getFrameTimeP50();
+
+    /**
+     * Returns the 99th percentile of the frame time.
+     *
+     * @return The 99th percentile of the frame time.
+     */
+    double getFrameTimeP99();
+
+    /**
+     * Returns the longest frame time.
+     *
+     * @return The maximum frame time.
+     */
+    double getFrameTimeMax();
+
+    /**
+     * Returns the median tick time.
+     *
+     * @return The 50th percentile of the tick time.
+     */
+    double getTickTimeP50();
+
+    /**
+     * Returns the 99th percentile of the tick time.
+     *
+     * @return The 99th percentile of the tick time.
+     */
+    double getTickTimeP99();
+
+    /**
+     * Returns the part of their busy time during which the game and the render thread work at once.
+     *
+     * @return The overlap of the threads, from 0 to 1; 0 when the frames are drawn between the ticks.
+     */
+    double getThreadOverlap();
+
+    /**
+     * Returns how long loading the last level file took.
+     *
+     * @return The load time, or -1 if no level was loaded.
+     */
+    double getLevelLoadTime();
+
+    /**
+     * Returns how long after the opening of the last level file its first frame ended.
+     *
+     * @return The time to the first frame, or -1 if it was not drawn yet.
+     */
+    double getTimeToFirstFrame();
+
+    /**
+     * Checks if the phases of the loop are timed.
+     *
+     * @return {@code true} if timing is enabled, {@code false} otherwise.
+     */
+    boolean isTimingEnabled();
+
+    /**
+     * Enables or disables the timing of the phases of the loop.
+     *
+     * @param enabled Whether the phases are timed.
+     */
+    void setTimingEnabled(boolean enabled);
+
+    /**
+     * Forgets the recorded durations, so the percentiles start over.
+     */
+    void resetHistograms();
+}
@@ -0,0 +1,44 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for passing the hit events of a tick to one hit listener.
+ */
+@Name("arkanoid.HitDispatch")
+@Label("Hit Dispatch")
+@Category({"Arkanoid", "Collision"})
+@Description("Passing the hit events of a tick to a hit listener")
+@StackTrace(false)
+public class HitDispatchEvent extends jdk.jfr.Event {
+    @Label("Listener")
+    @Description("The type of the hit listener")
+    private String listener;
+
+    @Label("Events")
+    @Description("The number of hit events in the batch")
+    private int events;
+
+    /**
+     * Sets the type of the hit listener.
+     *
+     * @param listener The simple name of the class of the listener.
+     */
+    public void setListener(String listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the number of hit events in the batch.
+     *
+     * @param events The number of events.
+     */
+    public void setEvents(int events) {
+        this.events = events;
+    }
+}
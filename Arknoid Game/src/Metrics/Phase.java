@@ -0,0 +1,59 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+/**
+ * The phases of the game loop that are timed separately.
+ */
+public enum Phase {
+    /**
+     * A whole physics tick: all the sprites updated by notifyAllTimePassed.
+     */
+    TICK("tick"),
+
+    /**
+     * The collision queries of one tick, summed; estimated from a sample of the queries.
+     */
+    COLLISION("collision"),
+
+    /**
+     * The hits of one tick, summed: the collidables changing the velocities, and the dispatch of the
+     * hit events to their listeners at the end of the tick.
+     */
+    HITS("hits"),
+
+    /**
+     * Drawing the sprites of one frame.
+     */
+    DRAW("draw"),
+
+    /**
+     * Showing a drawn frame in the window.
+     */
+    SHOW("show"),
+
+    /**
+     * A whole frame: its ticks, drawing and showing, but not the wait for the next frame. On a render
+     * thread, only its drawing and showing.
+     */
+    FRAME("frame");
+
+    private final String label;
+
+    /**
+     * Constructs a phase.
+     *
+     * @param label The short name of the phase, used on screen.
+     */
+    Phase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the short name of the phase.
+     *
+     * @return The name of the phase.
+     */
+    public String getLabel() {
+        return this.label;
+    }
+}
@@ -0,0 +1,44 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for drawing one frame of the game onto a surface.
+ */
+@Name("arkanoid.Render")
+@Label("Render Pass")
+@Category({"Arkanoid", "Game Loop"})
+@Description("Drawing the game onto a surface")
+@StackTrace(false)
+public class RenderEvent extends jdk.jfr.Event {
+    @Label("Alpha")
+    @Description("The part of a tick between the last two ticks the frame is drawn at")
+    private double alpha;
+
+    @Label("Sprites")
+    @Description("The number of sprites drawn")
+    private int sprites;
+
+    /**
+     * Sets the part of a tick the frame is drawn at.
+     *
+     * @param alpha The interpolation factor, from 0 to 1.
+     */
+    public void setAlpha(double alpha) {
+        this.alpha = alpha;
+    }
+
+    /**
+     * Sets the number of sprites drawn.
+     *
+     * @param sprites The number of sprites.
+     */
+    public void setSprites(int sprites) {
+        this.sprites = sprites;
+    }
+}
@@ -0,0 +1,57 @@
+// 318936507 Adir Tamam
+package Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for one tick of the game, so long ticks can be lined up with the
+ * garbage collections and safepoints of the same recording.
+ */
+@Name("arkanoid.Tick")
+@Label("Game Tick")
+@Category({"Arkanoid", "Game Loop"})
+@Description("One physics tick of the game")
+@StackTrace(false)
+public class TickEvent extends jdk.jfr.Event {
+    @Label("Tick")
+    private long tick;
+
+    @Label("Balls")
+    @Description("The number of balls in the game after the tick")
+    private int balls;
+
+    @Label("Blocks")
+    @Description("The number of blocks left after the tick")
+    private int blocks;
+
+    /**
+     * Sets the number of the tick.
+     *
+     * @param tick The number of ticks run before this one.
+     */
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    /**
+     * Sets the number of balls in the game after the tick.
+     *
+     * @param balls The number of balls.
+     */
+    public void setBalls(int balls) {
+        this.balls = balls;
+    }
+
+    /**
+     * Sets the number of blocks left after the tick.
+     *
+     * @param blocks The number of blocks.
+     */
+    public void setBlocks(int blocks) {
+        this.blocks = blocks;
+    }
+}
@@ -0,0 +1,527 @@
+// 318936507 Adir Tamam
+package Render;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The CommandBuffer class is a DrawSurface that records the drawings of a frame as compact commands
+ * instead of drawing them, and later draws them on another surface sorted by color and kind, so the
+ * color is set once per batch rather than once or twice per shape.
+ * <p>
+ * A command is its kind, the palette index of its color, up to four int coordinates and, for text,
+ * images and polygons, a reference. The commands go into layers, drawn one after the other. Within
+ * a layer the commands may be drawn in any order, so only drawings that do not depend on each other
+ * may share one: in an ordered layer, the default, a new layer starts whenever the color or the kind
+ * changes, which keeps the drawings in order and batches only the runs of equal ones; a shared
+ * layer, which a sprite chooses by id, collects the drawings of every sprite using the id, wherever
+ * they come in the frame. The sort key of a command packs its layer, color, kind and position into
+ * one long, sorted by a stable radix sort into a kept array, so nothing is allocated once the
+ * buffer has grown to the size of a frame.
+ */
+public class CommandBuffer implements DrawSurface {
+    // The number of shared layer ids
+    public static final int SHARED_LAYERS = 16;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // The kinds of commands
+    private static final int FILL_RECTANGLE = 0;
+    private static final int DRAW_RECTANGLE = 1;
+    private static final int DRAW_LINE = 2;
+    private static final int FILL_OVAL = 3;
+    private static final int DRAW_OVAL = 4;
+    private static final int FILL_CIRCLE = 5;
+    private static final int DRAW_CIRCLE = 6;
+    private static final int DRAW_TEXT = 7;
+    private static final int DRAW_IMAGE = 8;
+    private static final int FILL_POLYGON = 9;
+    private static final int DRAW_POLYGON = 10;
+
+    // The layout of a sort key, from the lowest bits: position, kind, color, layer
+    private static final int POSITION_BITS = 24;
+    private static final int KIND_BITS = 4;
+    private static final int COLOR_BITS = 16;
+    private static final int LAYER_BITS = 19;
+    private static final int KIND_SHIFT = POSITION_BITS;
+    private static final int COLOR_SHIFT = KIND_SHIFT + KIND_BITS;
+    private static final int LAYER_SHIFT = COLOR_SHIFT + COLOR_BITS;
+    private static final int KEY_BITS = LAYER_SHIFT + LAYER_BITS;
+
+    // The radix sort skips the positions, which are already in order, and sorts the rest by digits
+    private static final int DIGIT_BITS = 13;
+    private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
+
+    private final int width;
+    private final int height;
+
+    // The commands, by position: their sort keys, coordinates and references
+    private long[] keys;
+    private long[] sortScratch;
+    private int[] a;
+    private int[] b;
+    private int[] c;
+    private int[] d;
+    private Object[] refs;
+    private int count;
+    private boolean sorted;
+    private final int[] digitCounts;
+
+    // The colors of the commands, by palette index
+    private final List<Color> palette;
+    private final Map<Color, Integer> paletteIds;
+    private int color;
+
+    // The layer of the next commands, the next free layer, and the layers given to the shared ids
+    private int layer;
+    private int nextLayer;
+    private final int[] sharedLayers;
+
+    // Whether the next commands go to an ordered layer, and the color and kind of the last one there
+    private boolean ordered;
+    private int lastColor;
+    private int lastKind;
+
+    /**
+     * Constructs an empty buffer for frames of the given size.
+     *
+     * @param width  The width of the frames.
+     * @param height The height of the frames.
+     */
+    public CommandBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.keys = new long[INITIAL_CAPACITY];
+        this.sortScratch = new long[INITIAL_CAPACITY];
+        this.a = new int[INITIAL_CAPACITY];
+        this.b = new int[INITIAL_CAPACITY];
+        this.c = new int[INITIAL_CAPACITY];
+        this.d = new int[INITIAL_CAPACITY];
+        this.refs = new Object[INITIAL_CAPACITY];
+        this.digitCounts = new int[1 << DIGIT_BITS];
+        this.palette = new ArrayList<>();
+        this.paletteIds = new HashMap<>();
+        this.sharedLayers = new int[SHARED_LAYERS];
+        clear();
+    }
+
+    /**
+     * Forgets the recorded commands, to record the next frame.
+     */
+    public void clear() {
+        Arrays.fill(this.refs, 0, this.count, null);
+        this.count = 0;
+        this.sorted = false;
+        this.nextLayer = 0;
+        Arrays.fill(this.sharedLayers, -1);
+        beginOrdered();
+    }
+
+    /**
+     * Starts a new ordered layer after all the layers so far. The commands that follow are drawn in
+     * the order they are recorded, after everything recorded before.
+     */
+    public void beginOrdered() {
+        this.ordered = true;
+        this.layer = this.nextLayer++;
+        this.lastKind = -1;
+    }
+
+    /**
+     * Sends the commands that follow to a shared layer. The first time an id is used in a frame, its
+     * layer comes after all the layers so far; later uses add to that same layer. Sprites that share
+     * an id promise that their commands in it may be drawn in any order.
+     *
+     * @param id The id of the shared layer, from 0 to SHARED_LAYERS - 1.
+     */
+    public void useLayer(int id) {
+        if (this.sharedLayers[id] < 0) {
+            this.sharedLayers[id] = this.nextLayer++;
+        }
+        this.ordered = false;
+        this.layer = this.sharedLayers[id];
+    }
+
+    /**
+     * Returns the number of commands recorded.
+     *
+     * @return The number of commands.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Draws the recorded commands on a surface, by layer, then by color, then by kind, setting the
+     * color once per run of commands of the same color. The commands are kept, so they can be drawn
+     * again, for example once per clip of a dirty region.
+     *
+     * @param surface The DrawSurface on which the commands are drawn.
+     */
+    public void flush(DrawSurface surface) {
+        if (!this.sorted) {
+            sort();
+            this.sorted = true;
+        }
+        int current = -1;
+        int i = 0;
+        while (i < this.count) {
+            long key = this.keys[i];
+            int colorId = (int) (key >>> COLOR_SHIFT) & ((1 << COLOR_BITS) - 1);
+            int kind = (int) (key >>> KIND_SHIFT) & ((1 << KIND_BITS) - 1);
+            if (colorId != current) {
+                surface.setColor(this.palette.get(colorId));
+                current = colorId;
+            }
+
+            // The run of commands of the same layer, color and kind, drawn in one loop
+            long run = key >>> KIND_SHIFT;
+            int end = i + 1;
+            while (end < this.count && this.keys[end] >>> KIND_SHIFT == run) {
+                end++;
+            }
+            drawRun(surface, kind, i, end);
+            i = end;
+        }
+    }
+
+    /**
+     * Replaces the commands with the ones of another buffer, each moved from where the same command of
+     * a buffer of the previous tick is by a part of the way, so a frame between two ticks is drawn
+     * from the recordings of both. The two recordings must be of the same sprites in the same order;
+     * a command whose kind or layer differs in the previous one, or every command if the number of
+     * commands differs, is taken as it is. The texts, images and polygons are not moved.
+     *
+     * @param previous The commands of the previous tick, not drawn yet, so still in recording order.
+     * @param current  The commands of the current tick.
+     * @param alpha    How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void interpolate(CommandBuffer previous, CommandBuffer current, double alpha) {
+        clear();
+        while (this.keys.length < current.count) {
+            grow();
+        }
+        boolean matched = previous.count == current.count && !previous.sorted;
+        long colorBits = (long) ((1 << COLOR_BITS) - 1) << COLOR_SHIFT;
+        long positionMask = (1 << POSITION_BITS) - 1;
+        for (int k = 0; k < current.count; k++) {
+            long key = current.keys[k];
+            int i = (int) (key & positionMask);
+            setColor(current.palette.get((int) ((key & colorBits) >>> COLOR_SHIFT)));
+            this.keys[k] = key & ~colorBits | (long) this.color << COLOR_SHIFT;
+            this.a[i] = current.a[i];
+            this.b[i] = current.b[i];
+            this.c[i] = current.c[i];
+            this.d[i] = current.d[i];
+            this.refs[i] = current.refs[i];
+            if (matched && ((previous.keys[i] ^ key) & ~colorBits & ~positionMask) == 0) {
+                this.a[i] = previous.a[i] + (int) Math.round(alpha * (current.a[i] - previous.a[i]));
+                this.b[i] = previous.b[i] + (int) Math.round(alpha * (current.b[i] - previous.b[i]));
+                this.c[i] = previous.c[i] + (int) Math.round(alpha * (current.c[i] - previous.c[i]));
+                this.d[i] = previous.d[i] + (int) Math.round(alpha * (current.d[i] - previous.d[i]));
+            }
+        }
+        this.count = current.count;
+        this.sorted = current.sorted;
+    }
+
+    /**
+     * Returns the width of the frames.
+     *
+     * @return The width of the buffer.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Returns the height of the frames.
+     *
+     * @return The height of the buffer.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Sets the color of the next commands.
+     *
+     * @param newColor The color to draw with.
+     */
+    public void setColor(Color newColor) {
+        Integer id = this.paletteIds.get(newColor);
+        if (id == null) {
+            if (this.palette.size() == 1 << COLOR_BITS) {
+                throw new IllegalStateException("Too many colors for a command buffer");
+            }
+            id = this.palette.size();
+            this.palette.add(newColor);
+            this.paletteIds.put(newColor, id);
+        }
+        this.color = id;
+    }
+
+    /**
+     * Records a line.
+     *
+     * @param x1 The x-coordinate of the start of the line.
+     * @param y1 The y-coordinate of the start of the line.
+     * @param x2 The x-coordinate of the end of the line.
+     * @param y2 The y-coordinate of the end of the line.
+     */
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        add(DRAW_LINE, x1, y1, x2, y2, null);
+    }
+
+    /**
+     * Records the outline of an oval.
+     *
+     * @param x The x-coordinate of the upper-left corner of the bounding box.
+     * @param y The y-coordinate of the upper-left corner of the bounding box.
+     * @param w The width of the oval.
+     * @param h The height of the oval.
+     */
+    public void drawOval(int x, int y, int w, int h) {
+        add(DRAW_OVAL, x, y, w, h, null);
+    }
+
+    /**
+     * Records a filled oval.
+     *
+     * @param x The x-coordinate of the upper-left corner of the bounding box.
+     * @param y The y-coordinate of the upper-left corner of the bounding box.
+     * @param w The width of the oval.
+     * @param h The height of the oval.
+     */
+    public void fillOval(int x, int y, int w, int h) {
+        add(FILL_OVAL, x, y, w, h, null);
+    }
+
+    /**
+     * Records the outline of a rectangle.
+     *
+     * @param x The x-coordinate of the upper-left corner.
+     * @param y The y-coordinate of the upper-left corner.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     */
+    public void drawRectangle(int x, int y, int w, int h) {
+        add(DRAW_RECTANGLE, x, y, w, h, null);
+    }
+
+    /**
+     * Records a filled rectangle.
+     *
+     * @param x The x-coordinate of the upper-left corner.
+     * @param y The y-coordinate of the upper-left corner.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     */
+    public void fillRectangle(int x, int y, int w, int h) {
+        add(FILL_RECTANGLE, x, y, w, h, null);
+    }
+
+    /**
+     * Records an image with its upper-left corner at the given point.
+     *
+     * @param x   The x-coordinate of the upper-left corner.
+     * @param y   The y-coordinate of the upper-left corner.
+     * @param img The image to draw.
+     */
+    public void drawImage(int x, int y, Image img) {
+        add(DRAW_IMAGE, x, y, 0, 0, img);
+    }
+
+    /**
+     * Records the outline of a circle.
+     *
+     * @param x      The x-coordinate of the center.
+     * @param y      The y-coordinate of the center.
+     * @param radius The radius of the circle.
+     */
+    public void drawCircle(int x, int y, int radius) {
+        add(DRAW_CIRCLE, x, y, radius, 0, null);
+    }
+
+    /**
+     * Records a filled circle.
+     *
+     * @param x      The x-coordinate of the center.
+     * @param y      The y-coordinate of the center.
+     * @param radius The radius of the circle.
+     */
+    public void fillCircle(int x, int y, int radius) {
+        add(FILL_CIRCLE, x, y, radius, 0, null);
+    }
+
+    /**
+     * Records text with its baseline starting at the given point.
+     *
+     * @param x        The x-coordinate of the start of the text.
+     * @param y        The y-coordinate of the baseline of the text.
+     * @param s        The text.
+     * @param fontSize The size of the font.
+     */
+    public void drawText(int x, int y, String s, int fontSize) {
+        add(DRAW_TEXT, x, y, fontSize, 0, s);
+    }
+
+    /**
+     * Records the outline of a polygon.
+     *
+     * @param polygon The polygon.
+     */
+    public void drawPolygon(Polygon polygon) {
+        add(DRAW_POLYGON, 0, 0, 0, 0, polygon);
+    }
+
+    /**
+     * Records a filled polygon.
+     *
+     * @param polygon The polygon.
+     */
+    public void fillPolygon(Polygon polygon) {
+        add(FILL_POLYGON, 0, 0, 0, 0, polygon);
+    }
+
+    /**
+     * Records a command in the current color and layer.
+     *
+     * @param kind The kind of the command.
+     * @param x    The first coordinate.
+     * @param y    The second coordinate.
+     * @param z    The third coordinate.
+     * @param w    The fourth coordinate.
+     * @param ref  The text, image or polygon of the command, or null.
+     */
+    private void add(int kind, int x, int y, int z, int w, Object ref) {
+        if (this.ordered && this.lastKind >= 0 && (kind != this.lastKind || this.color != this.lastColor)) {
+            this.layer = this.nextLayer++;
+        }
+        this.lastKind = kind;
+        this.lastColor = this.color;
+        if (this.count == 1 << POSITION_BITS || this.layer == 1 << LAYER_BITS) {
+            throw new IllegalStateException("Too many commands for a command buffer");
+        }
+        if (this.count == this.keys.length) {
+            grow();
+        }
+        int i = this.count++;
+        this.keys[i] = (long) this.layer << LAYER_SHIFT | (long) this.color << COLOR_SHIFT
+                | (long) kind << KIND_SHIFT | i;
+        this.a[i] = x;
+        this.b[i] = y;
+        this.c[i] = z;
+        this.d[i] = w;
+        this.refs[i] = ref;
+        this.sorted = false;
+    }
+
+    /**
+     * Draws a run of commands of the same kind, whose color is already set.
+     *
+     * @param surface The DrawSurface on which the commands are drawn.
+     * @param kind    The kind of the commands.
+     * @param from    The first index of the run in the sorted keys.
+     * @param to      The index after the last one of the run.
+     */
+    private void drawRun(DrawSurface surface, int kind, int from, int to) {
+        int positionMask = (1 << POSITION_BITS) - 1;
+        for (int k = from; k < to; k++) {
+            int i = (int) this.keys[k] & positionMask;
+            switch (kind) {
+                case FILL_RECTANGLE:
+                    surface.fillRectangle(this.a[i], this.b[i], this.c[i], this.d[i]);
+                    break;
+                case DRAW_RECTANGLE:
+                    surface.drawRectangle(this.a[i], this.b[i], this.c[i], this.d[i]);
+                    break;
+                case DRAW_LINE:
+                    surface.drawLine(this.a[i], this.b[i], this.c[i], this.d[i]);
+                    break;
+                case FILL_OVAL:
+                    surface.fillOval(this.a[i], this.b[i], this.c[i], this.d[i]);
+                    break;
+                case DRAW_OVAL:
+                    surface.drawOval(this.a[i], this.b[i], this.c[i], this.d[i]);
+                    break;
+                case FILL_CIRCLE:
+                    surface.fillCircle(this.a[i], this.b[i], this.c[i]);
+                    break;
+                case DRAW_CIRCLE:
+                    surface.drawCircle(this.a[i], this.b[i], this.c[i]);
+                    break;
+                case DRAW_TEXT:
+                    surface.drawText(this.a[i], this.b[i], (String) this.refs[i], this.c[i]);
+                    break;
+                case DRAW_IMAGE:
+                    surface.drawImage(this.a[i], this.b[i], (Image) this.refs[i]);
+                    break;
+                case FILL_POLYGON:
+                    surface.fillPolygon((Polygon) this.refs[i]);
+                    break;
+                default:
+                    surface.drawPolygon((Polygon) this.refs[i]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Sorts the keys by layer, color and kind with a least significant digit radix sort. The sort is
+     * stable and the keys start in recording order, so commands that tie stay in that order, and the
+     * position bits need no pass. A digit on which all the keys agree is skipped.
+     */
+    private void sort() {
+        long[] from = this.keys;
+        long[] to = this.sortScratch;
+        int[] counts = this.digitCounts;
+        for (int shift = POSITION_BITS; shift < KEY_BITS; shift += DIGIT_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < this.count; i++) {
+                counts[(int) (from[i] >>> shift) & DIGIT_MASK]++;
+            }
+            if (this.count == 0 || counts[(int) (from[0] >>> shift) & DIGIT_MASK] == this.count) {
+                continue;
+            }
+
+            // Turn the counts into the start of each digit, then scatter
+            int start = 0;
+            for (int digit = 0; digit < counts.length; digit++) {
+                int n = counts[digit];
+                counts[digit] = start;
+                start += n;
+            }
+            for (int i = 0; i < this.count; i++) {
+                to[counts[(int) (from[i] >>> shift) & DIGIT_MASK]++] = from[i];
+            }
+            long[] swap = from;
+            from = to;
+            to = swap;
+        }
+        this.keys = from;
+        this.sortScratch = to;
+    }
+
+    /**
+     * Doubles the capacity of the command arrays.
+     */
+    private void grow() {
+        int capacity = this.keys.length * 2;
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.sortScratch = new long[capacity];
+        this.a = Arrays.copyOf(this.a, capacity);
+        this.b = Arrays.copyOf(this.b, capacity);
+        this.c = Arrays.copyOf(this.c, capacity);
+        this.d = Arrays.copyOf(this.d, capacity);
+        this.refs = Arrays.copyOf(this.refs, capacity);
+    }
+}
@@ -0,0 +1,230 @@
+// 318936507 Adir Tamam
+package Render;
+
+/**
+ * The DirtyRegion class collects the areas of a surface that change between two frames, so only
+ * they are drawn again. The areas are kept as a few disjoint rectangles: a new rectangle that
+ * overlaps or touches one already in the region is merged with it, and when the region is full,
+ * the new rectangle is merged with the one it grows the least. The rectangles are clipped to the
+ * surface. Nothing is allocated after construction. The rectangles are drawn again one at a time,
+ * each under a rectangular clip: a clip of any other shape makes Java2D draw ovals by another rule,
+ * whose edges differ by a pixel from those of the frame around them.
+ */
+public class DirtyRegion {
+    // The most rectangles the region keeps apart before merging them
+    private static final int MAX_RECTANGLES = 16;
+
+    private final int width;
+    private final int height;
+
+    // The rectangles, as their left, top, right and bottom edges; the right and bottom are exclusive
+    private final int[] left;
+    private final int[] top;
+    private final int[] right;
+    private final int[] bottom;
+    private int count;
+
+    /**
+     * Constructs an empty region of a surface of the given size.
+     *
+     * @param width  The width of the surface.
+     * @param height The height of the surface.
+     */
+    public DirtyRegion(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.left = new int[MAX_RECTANGLES];
+        this.top = new int[MAX_RECTANGLES];
+        this.right = new int[MAX_RECTANGLES];
+        this.bottom = new int[MAX_RECTANGLES];
+    }
+
+    /**
+     * Adds a rectangle to the region.
+     *
+     * @param x The x-coordinate of the upper-left corner of the rectangle.
+     * @param y The y-coordinate of the upper-left corner of the rectangle.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     */
+    public void add(int x, int y, int w, int h) {
+        int x0 = Math.max(x, 0);
+        int y0 = Math.max(y, 0);
+        int x1 = Math.min(x + w, this.width);
+        int y1 = Math.min(y + h, this.height);
+        if (x1 <= x0 || y1 <= y0) {
+            return;
+        }
+
+        // Swallow every rectangle the new one touches, again after each merge, as the new one grows
+        int i = 0;
+        while (i < this.count) {
+            if (x0 <= this.right[i] && this.left[i] <= x1 && y0 <= this.bottom[i] && this.top[i] <= y1) {
+                x0 = Math.min(x0, this.left[i]);
+                y0 = Math.min(y0, this.top[i]);
+                x1 = Math.max(x1, this.right[i]);
+                y1 = Math.max(y1, this.bottom[i]);
+                removeAt(i);
+                i = 0;
+            } else {
+                i++;
+            }
+        }
+        if (this.count == MAX_RECTANGLES) {
+            int j = cheapestMerge(x0, y0, x1, y1);
+            int mergedLeft = Math.min(x0, this.left[j]);
+            int mergedTop = Math.min(y0, this.top[j]);
+            int mergedRight = Math.max(x1, this.right[j]);
+            int mergedBottom = Math.max(y1, this.bottom[j]);
+            removeAt(j);
+            add(mergedLeft, mergedTop, mergedRight - mergedLeft, mergedBottom - mergedTop);
+            return;
+        }
+        this.left[this.count] = x0;
+        this.top[this.count] = y0;
+        this.right[this.count] = x1;
+        this.bottom[this.count] = y1;
+        this.count++;
+    }
+
+    /**
+     * Adds the whole surface to the region.
+     */
+    public void addAll() {
+        add(0, 0, this.width, this.height);
+    }
+
+    /**
+     * Empties the region.
+     */
+    public void clear() {
+        this.count = 0;
+    }
+
+    /**
+     * Checks if nothing in the region changed.
+     *
+     * @return {@code true} if the region is empty, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    /**
+     * Returns the number of rectangles the region is made of.
+     *
+     * @return The number of rectangles.
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the area of the region, in pixels.
+     *
+     * @return The area of the region.
+     */
+    public long getArea() {
+        long area = 0;
+        for (int i = 0; i < this.count; i++) {
+            area += (long) (this.right[i] - this.left[i]) * (this.bottom[i] - this.top[i]);
+        }
+        return area;
+    }
+
+    /**
+     * Returns the part of the surface the region covers.
+     *
+     * @return The area of the region divided by the area of the surface, from 0 to 1.
+     */
+    public double getFraction() {
+        return (double) getArea() / ((long) this.width * this.height);
+    }
+
+    /**
+     * Returns the x-coordinate of the left edge of one of the rectangles of the region.
+     *
+     * @param i The index of the rectangle, below getCount.
+     * @return The left edge.
+     */
+    public int getLeft(int i) {
+        return this.left[i];
+    }
+
+    /**
+     * Returns the y-coordinate of the top edge of one of the rectangles of the region.
+     *
+     * @param i The index of the rectangle, below getCount.
+     * @return The top edge.
+     */
+    public int getTop(int i) {
+        return this.top[i];
+    }
+
+    /**
+     * Returns the width of one of the rectangles of the region.
+     *
+     * @param i The index of the rectangle, below getCount.
+     * @return The width.
+     */
+    public int getWidth(int i) {
+        return this.right[i] - this.left[i];
+    }
+
+    /**
+     * Returns the height of one of the rectangles of the region.
+     *
+     * @param i The index of the rectangle, below getCount.
+     * @return The height.
+     */
+    public int getHeight(int i) {
+        return this.bottom[i] - this.top[i];
+    }
+
+    /**
+     * Limits the next drawings on a surface to one of the rectangles of the region.
+     *
+     * @param surface The surface to clip.
+     * @param i       The index of the rectangle, below getCount.
+     */
+    public void clip(ImageDrawSurface surface, int i) {
+        surface.setClip(this.left[i], this.top[i], this.right[i] - this.left[i], this.bottom[i] - this.top[i]);
+    }
+
+    /**
+     * Returns the rectangle whose merge with the given one adds the least area.
+     *
+     * @param x0 The left edge of the given rectangle.
+     * @param y0 The top edge of the given rectangle.
+     * @param x1 The right edge of the given rectangle, exclusive.
+     * @param y1 The bottom edge of the given rectangle, exclusive.
+     * @return The index of the rectangle to merge with.
+     */
+    private int cheapestMerge(int x0, int y0, int x1, int y1) {
+        int best = 0;
+        long bestGrowth = Long.MAX_VALUE;
+        for (int i = 0; i < this.count; i++) {
+            long merged = (long) (Math.max(x1, this.right[i]) - Math.min(x0, this.left[i]))
+                    * (Math.max(y1, this.bottom[i]) - Math.min(y0, this.top[i]));
+            long growth = merged - (long) (this.right[i] - this.left[i]) * (this.bottom[i] - this.top[i]);
+            if (growth < bestGrowth) {
+                best = i;
+                bestGrowth = growth;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Removes a rectangle by moving the last one into its place.
+     *
+     * @param i The index of the rectangle.
+     */
+    private void removeAt(int i) {
+        this.count--;
+        this.left[i] = this.left[this.count];
+        this.top[i] = this.top[this.count];
+        this.right[i] = this.right[this.count];
+        this.bottom[i] = this.bottom[this.count];
+    }
+}
@@ -0,0 +1,207 @@
+// 318936507 Adir Tamam
+package Render;
+
+import Collidable.BlockTable;
+import Sprites.Sprite;
+
+import java.util.Arrays;
+
+/**
+ * The FrameSnapshot class holds what a render thread needs to draw one frame, taken by the game at
+ * the end of a tick, so the game can go on to the next tick while the frame is drawn. The moving
+ * state, the balls, the paddle, the score and the overlay, is recorded into a command buffer,
+ * which keeps only the coordinates and colors of the drawings, once where the tick left it and
+ * once where the tick before left it, so the render thread can draw the frames between the two
+ * ticks. The static sprites are immutable and drawn from a static layer the render thread keeps,
+ * so the snapshot only says which of them are live: a bit per static sprite id, over the array of
+ * the static sprites of the game. That array is only ever appended to, so the snapshot can share
+ * it, reading no further than its own count. The same goes for the block table of the game and its
+ * log of removed rows, of which the snapshot keeps the length.
+ */
+public class FrameSnapshot {
+    private final CommandBuffer commands;
+    private final CommandBuffer previousCommands;
+
+    // The static sprites by id, the number of ids, and a bit per id, set if the sprite is live
+    private Sprite[] staticSprites;
+    private int staticCount;
+    private long[] liveStatic;
+
+    // The block table of the game, or null, and the number of its rows removed at the tick
+    private BlockTable blockTable;
+    private int removedRows;
+
+    // Whether the frame draws the static sprites from a static layer, and the tick it was taken at
+    private boolean staticLayerUsed;
+    private long tick;
+
+    // The time the tick was due, and the length of a tick, or 0 if the frames are not interpolated
+    private long tickTime;
+    private long tickNanos;
+
+    /**
+     * Constructs an empty snapshot of frames of the given size.
+     *
+     * @param width  The width of the frames.
+     * @param height The height of the frames.
+     */
+    public FrameSnapshot(int width, int height) {
+        this.commands = new CommandBuffer(width, height);
+        this.previousCommands = new CommandBuffer(width, height);
+        this.staticSprites = new Sprite[0];
+        this.liveStatic = new long[0];
+    }
+
+    /**
+     * Returns the command buffer the moving state of the frame is recorded into.
+     *
+     * @return The commands of the snapshot.
+     */
+    public CommandBuffer getCommands() {
+        return this.commands;
+    }
+
+    /**
+     * Returns the command buffer the moving state is recorded into as the tick before left it.
+     *
+     * @return The commands of the previous tick.
+     */
+    public CommandBuffer getPreviousCommands() {
+        return this.previousCommands;
+    }
+
+    /**
+     * Sets the static sprites of the frame. The live bits are copied, the sprites are not.
+     *
+     * @param sprites  The static sprites by id, whose first count elements never change.
+     * @param count    The number of static sprite ids.
+     * @param live     A bit per id, set if the sprite is live, in words of 64 bits.
+     * @param useLayer Whether the frame draws the live static sprites from a static layer; if not,
+     *                 they are recorded in the commands.
+     */
+    public void setStaticSprites(Sprite[] sprites, int count, long[] live, boolean useLayer) {
+        int words = (count + Long.SIZE - 1) / Long.SIZE;
+        if (this.liveStatic.length < words) {
+            this.liveStatic = Arrays.copyOf(this.liveStatic, Math.max(words, 2 * this.liveStatic.length));
+        }
+        System.arraycopy(live, 0, this.liveStatic, 0, words);
+        this.staticSprites = sprites;
+        this.staticCount = count;
+        this.staticLayerUsed = useLayer;
+    }
+
+    /**
+     * Sets the block table of the frame. The table is shared; only the length of its log of removed
+     * rows is kept.
+     *
+     * @param table        The block table of the game, or null if it has none.
+     * @param removedCount The number of rows of the table removed so far.
+     */
+    public void setBlockTable(BlockTable table, int removedCount) {
+        this.blockTable = table;
+        this.removedRows = removedCount;
+    }
+
+    /**
+     * Returns the block table of the frame.
+     *
+     * @return The block table, or null if the game has none.
+     */
+    public BlockTable getBlockTable() {
+        return this.blockTable;
+    }
+
+    /**
+     * Returns the number of rows of the block table removed at the tick of the frame.
+     *
+     * @return The length of the log of removed rows to draw the frame with.
+     */
+    public int getRemovedRows() {
+        return this.removedRows;
+    }
+
+    /**
+     * Returns the number of static sprite ids of the frame.
+     *
+     * @return The number of ids, live or not.
+     */
+    public int getStaticCount() {
+        return this.staticCount;
+    }
+
+    /**
+     * Returns a static sprite.
+     *
+     * @param id The id of the sprite, below getStaticCount.
+     * @return The sprite.
+     */
+    public Sprite getStaticSprite(int id) {
+        return this.staticSprites[id];
+    }
+
+    /**
+     * Returns the live bits of 64 static sprite ids.
+     *
+     * @param word The index of the word: the ids from 64 * word to 64 * word + 63.
+     * @return The bits of the ids, set if the sprite is live.
+     */
+    public long getLiveWord(int word) {
+        return this.liveStatic[word];
+    }
+
+    /**
+     * Checks if the frame draws the static sprites from a static layer.
+     *
+     * @return {@code true} if the live static sprites are drawn from a layer, {@code false} if they
+     * are in the commands.
+     */
+    public boolean isStaticLayerUsed() {
+        return this.staticLayerUsed;
+    }
+
+    /**
+     * Returns the tick the snapshot was taken at.
+     *
+     * @return The number of ticks the game had run.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Sets the tick the snapshot was taken at. Its frames go to the tick at once, until setTickTime
+     * is called.
+     *
+     * @param tick The number of ticks the game had run.
+     */
+    public void setTick(long tick) {
+        this.tick = tick;
+        this.tickNanos = 0;
+    }
+
+    /**
+     * Makes the frames of the snapshot go from the previous tick to its tick over the length of a
+     * tick, starting when its tick was due.
+     *
+     * @param dueTime   The System.nanoTime when the tick was due.
+     * @param tickNanos The length of a tick, in nanoseconds.
+     */
+    public void setTickTime(long dueTime, long tickNanos) {
+        this.tickTime = dueTime;
+        this.tickNanos = tickNanos;
+    }
+
+    /**
+     * Returns how far a frame drawn at a given time is from the previous tick to the tick of the
+     * snapshot.
+     *
+     * @param now The System.nanoTime of the frame.
+     * @return The part of the way, from 0 to 1, or 1 if the frames of the snapshot are not interpolated.
+     */
+    public double getAlpha(long now) {
+        if (this.tickNanos <= 0) {
+            return 1;
+        }
+        return Math.max(0, Math.min(1, (double) (now - this.tickTime) / this.tickNanos));
+    }
+}
@@ -0,0 +1,308 @@
+// 318936507 Adir Tamam
+package Render;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * The ImageDrawSurface class is a DrawSurface that draws into an off-screen image instead of a
+ * window, so frames can be drawn without a display.
+ * <p>
+ * Filled rectangles and horizontal or vertical lines in an opaque color, which make up the blocks,
+ * are written straight into the pixels of an RGB image, a row at a time, rather than going through
+ * Java2D, whose fixed cost per shape is larger than the shape itself for small ones. The rows are
+ * copied from a scratch array filled with the color, which is filled again only when the color
+ * changes, so drawings sorted by color, as a command buffer draws them, cost the least. The
+ * raster marks the image as changed, so Java2D keeps track of it as of any other image.
+ */
+public class ImageDrawSurface implements DrawSurface {
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+
+    // The pixels of the image, if they can be written straight into, or null
+    private final WritableRaster raster;
+
+    // The current color as a pixel, and whether it is opaque, so it can be written straight
+    private int rgb;
+    private boolean opaque;
+
+    // The clip, which the pixels written straight are clipped to
+    private int clipX;
+    private int clipY;
+    private int clipWidth;
+    private int clipHeight;
+
+    // Rows of the pixel of fillColor, ready to be copied; the first fillLength hold it
+    private int[] fill;
+    private int fillColor;
+    private int fillLength;
+
+    /**
+     * Constructs a new ImageDrawSurface over a new image of the given size.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     */
+    public ImageDrawSurface(int width, int height) {
+        this(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+    }
+
+    /**
+     * Constructs a new ImageDrawSurface that draws into the given image.
+     *
+     * @param image The image drawn into.
+     */
+    public ImageDrawSurface(BufferedImage image) {
+        this.image = image;
+        this.graphics = image.createGraphics();
+        this.raster = image.getType() == BufferedImage.TYPE_INT_RGB ? image.getRaster() : null;
+        this.fill = new int[0];
+        clearClip();
+    }
+
+    /**
+     * Returns the image this surface draws into.
+     *
+     * @return The image of the surface.
+     */
+    public BufferedImage getImage() {
+        return this.image;
+    }
+
+    /**
+     * Limits the next drawings to a rectangle of the surface.
+     *
+     * @param x      The x-coordinate of the upper-left corner of the rectangle.
+     * @param y      The y-coordinate of the upper-left corner of the rectangle.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     */
+    public void setClip(int x, int y, int width, int height) {
+        this.graphics.setClip(x, y, width, height);
+        // The pixels cannot be written past the image, though the clip may reach past it
+        this.clipX = Math.max(x, 0);
+        this.clipY = Math.max(y, 0);
+        this.clipWidth = Math.min(x + width, this.image.getWidth()) - this.clipX;
+        this.clipHeight = Math.min(y + height, this.image.getHeight()) - this.clipY;
+    }
+
+    /**
+     * Lets the next drawings cover the whole surface again.
+     */
+    public void clearClip() {
+        this.graphics.setClip(null);
+        this.clipX = 0;
+        this.clipY = 0;
+        this.clipWidth = this.image.getWidth();
+        this.clipHeight = this.image.getHeight();
+    }
+
+    /**
+     * Releases the graphics context of the surface. Nothing may be drawn afterwards.
+     */
+    public void dispose() {
+        this.graphics.dispose();
+    }
+
+    /**
+     * Returns the width of the surface.
+     *
+     * @return The width of the image.
+     */
+    public int getWidth() {
+        return this.image.getWidth();
+    }
+
+    /**
+     * Returns the height of the surface.
+     *
+     * @return The height of the image.
+     */
+    public int getHeight() {
+        return this.image.getHeight();
+    }
+
+    /**
+     * Sets the color of the next drawings.
+     *
+     * @param color The color to draw with.
+     */
+    public void setColor(Color color) {
+        this.graphics.setColor(color);
+        this.rgb = color.getRGB();
+        this.opaque = color.getAlpha() == 255;
+    }
+
+    /**
+     * Draws a line.
+     *
+     * @param x1 The x-coordinate of the start of the line.
+     * @param y1 The y-coordinate of the start of the line.
+     * @param x2 The x-coordinate of the end of the line.
+     * @param y2 The y-coordinate of the end of the line.
+     */
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        // A straight line covers both its ends
+        if (this.raster != null && this.opaque && (x1 == x2 || y1 == y2)) {
+            fillPixels(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1) + 1, Math.abs(y2 - y1) + 1);
+        } else {
+            this.graphics.drawLine(x1, y1, x2, y2);
+        }
+    }
+
+    /**
+     * Draws the outline of an oval.
+     *
+     * @param x      The x-coordinate of the upper-left corner of the bounding box.
+     * @param y      The y-coordinate of the upper-left corner of the bounding box.
+     * @param width  The width of the oval.
+     * @param height The height of the oval.
+     */
+    public void drawOval(int x, int y, int width, int height) {
+        this.graphics.drawOval(x, y, width, height);
+    }
+
+    /**
+     * Draws a filled oval.
+     *
+     * @param x      The x-coordinate of the upper-left corner of the bounding box.
+     * @param y      The y-coordinate of the upper-left corner of the bounding box.
+     * @param width  The width of the oval.
+     * @param height The height of the oval.
+     */
+    public void fillOval(int x, int y, int width, int height) {
+        this.graphics.fillOval(x, y, width, height);
+    }
+
+    /**
+     * Draws the outline of a rectangle.
+     *
+     * @param x      The x-coordinate of the upper-left corner.
+     * @param y      The y-coordinate of the upper-left corner.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     */
+    public void drawRectangle(int x, int y, int width, int height) {
+        this.graphics.drawRect(x, y, width, height);
+    }
+
+    /**
+     * Draws a filled rectangle.
+     *
+     * @param x      The x-coordinate of the upper-left corner.
+     * @param y      The y-coordinate of the upper-left corner.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     */
+    public void fillRectangle(int x, int y, int width, int height) {
+        if (this.raster != null && this.opaque) {
+            fillPixels(x, y, width, height);
+        } else {
+            this.graphics.fillRect(x, y, width, height);
+        }
+    }
+
+    /**
+     * Draws an image with its upper-left corner at the given point.
+     *
+     * @param x   The x-coordinate of the upper-left corner.
+     * @param y   The y-coordinate of the upper-left corner.
+     * @param img The image to draw.
+     */
+    public void drawImage(int x, int y, Image img) {
+        this.graphics.drawImage(img, x, y, null);
+    }
+
+    /**
+     * Draws the outline of a circle.
+     *
+     * @param x      The x-coordinate of the center.
+     * @param y      The y-coordinate of the center.
+     * @param radius The radius of the circle.
+     */
+    public void drawCircle(int x, int y, int radius) {
+        this.graphics.drawOval(x - radius, y - radius, 2 * radius, 2 * radius);
+    }
+
+    /**
+     * Draws a filled circle.
+     *
+     * @param x      The x-coordinate of the center.
+     * @param y      The y-coordinate of the center.
+     * @param radius The radius of the circle.
+     */
+    public void fillCircle(int x, int y, int radius) {
+        this.graphics.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
+    }
+
+    /**
+     * Draws text with its baseline starting at the given point.
+     *
+     * @param x        The x-coordinate of the start of the text.
+     * @param y        The y-coordinate of the baseline of the text.
+     * @param s        The text.
+     * @param fontSize The size of the font.
+     */
+    public void drawText(int x, int y, String s, int fontSize) {
+        Font font = this.graphics.getFont();
+        this.graphics.setFont(new Font(font.getFontName(), font.getStyle(), fontSize));
+        this.graphics.drawString(s, x, y);
+    }
+
+    /**
+     * Draws the outline of a polygon.
+     *
+     * @param polygon The polygon.
+     */
+    public void drawPolygon(Polygon polygon) {
+        this.graphics.drawPolygon(polygon);
+    }
+
+    /**
+     * Draws a filled polygon.
+     *
+     * @param polygon The polygon.
+     */
+    public void fillPolygon(Polygon polygon) {
+        this.graphics.fillPolygon(polygon);
+    }
+
+    /**
+     * Writes a rectangle of the current color straight into the pixels, clipped to the clip.
+     *
+     * @param x      The x-coordinate of the upper-left corner.
+     * @param y      The y-coordinate of the upper-left corner.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     */
+    private void fillPixels(int x, int y, int width, int height) {
+        int left = Math.max(x, this.clipX);
+        int top = Math.max(y, this.clipY);
+        int right = Math.min(x + width, this.clipX + this.clipWidth);
+        int bottom = Math.min(y + height, this.clipY + this.clipHeight);
+        if (right <= left || bottom <= top) {
+            return;
+        }
+        int length = (right - left) * (bottom - top);
+        if (this.fillColor != this.rgb) {
+            this.fillColor = this.rgb;
+            this.fillLength = 0;
+        }
+        if (this.fillLength < length) {
+            if (this.fill.length < length) {
+                this.fill = new int[Math.max(length, 2 * this.fill.length)];
+            }
+            Arrays.fill(this.fill, this.fillLength, length, this.rgb);
+            this.fillLength = length;
+        }
+        this.raster.setDataElements(left, top, right - left, bottom - top, this.fill);
+    }
+}
@@ -0,0 +1,352 @@
+// 318936507 Adir Tamam
+package Render;
+
+import Base.SlotArray;
+import Collidable.BlockTable;
+import Geometry.Rectangle;
+import Sprites.Sprite;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * The StaticLayer class keeps the background and the static sprites, such as the blocks and the
+ * boundaries, pre-drawn in an off-screen image, so a frame draws all of them with a single image
+ * instead of a few shapes per block. Adding or removing a static sprite only marks its area as
+ * damaged, in a DirtyRegion, so blocks removed far apart stay apart; before the next frame, each
+ * rectangle of the damaged area alone is drawn again: the background, then the static sprites
+ * that overlap it, clipped to it. The sprites are drawn through a command buffer,
+ * which batches the drawings of the blocks by color. The blocks of a block table are drawn after the
+ * sprites, the rows that overlap the damaged area only, found through the grid of the table.
+ * The static sprites are found the same way, through a grid of cells over the layer, each with the
+ * handles of the sprites that overlap it, so adding, removing and repainting a block do not go
+ * over all the sprites.
+ */
+public class StaticLayer {
+    // The side of a cell of the grid of the sprites
+    private static final int CELL_SIZE = 32;
+
+    private final ImageDrawSurface surface;
+    private final Color background;
+
+    private final SlotArray<Sprite> sprites;
+
+    // The order in which each sprite, by handle, was added, and the next one
+    private int[] sequences;
+    private int nextSequence;
+
+    // The grid of cells over the layer, each with the handles of the sprites that overlap it; a
+    // sprite out of the layer is kept in the cells at its edges
+    private final int columns;
+    private final int rows;
+    private final int[][] cells;
+    private final int[] cellSizes;
+
+    // The cells of the last span asked for: the first and last column and row
+    private int fromColumn;
+    private int fromRow;
+    private int toColumn;
+    private int toRow;
+
+    // The handles of the sprites found by a lookup of a repaint, the lookup that last found each one,
+    // and the number of lookups so far
+    private long[] found;
+    private int[] foundBy;
+    private int lookups;
+
+    // The block table drawn after the sprites, or null, a bit per row of it, set once the layer took the
+    // row out, and how far the layer read the log of removed rows of the table
+    private BlockTable table;
+    private long[] hiddenRows;
+    private int removedShown;
+
+    // The commands of a repaint, kept to be reused
+    private final CommandBuffer commands;
+
+    // The damaged area
+    private final DirtyRegion damage;
+
+    // The number of times a damaged area was drawn again, for tests and the overlay
+    private long repaints;
+
+    /**
+     * Constructs an empty layer of the given size, filled with the background color.
+     *
+     * @param width      The width of the layer.
+     * @param height     The height of the layer.
+     * @param background The color of the background.
+     */
+    public StaticLayer(int width, int height, Color background) {
+        this.surface = new ImageDrawSurface(width, height);
+        this.background = background;
+        this.sprites = new SlotArray<>(false);
+        this.sequences = new int[16];
+        this.columns = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+        this.rows = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+        this.cells = new int[this.columns * this.rows][];
+        this.cellSizes = new int[this.columns * this.rows];
+        this.found = new long[16];
+        this.foundBy = new int[16];
+        this.commands = new CommandBuffer(width, height);
+        this.damage = new DirtyRegion(width, height);
+        this.damage.addAll();
+    }
+
+    /**
+     * Adds a static sprite on top of the others.
+     *
+     * @param s The sprite, whose getStaticBounds is not null.
+     */
+    public void add(Sprite s) {
+        int handle = this.sprites.add(s);
+        if (handle >= this.sequences.length) {
+            this.sequences = Arrays.copyOf(this.sequences, 2 * handle);
+            this.foundBy = Arrays.copyOf(this.foundBy, 2 * handle);
+        }
+        this.sequences[handle] = this.nextSequence++;
+        Rectangle b = s.getStaticBounds();
+        setSpan(b);
+        for (int row = this.fromRow; row <= this.toRow; row++) {
+            for (int column = this.fromColumn; column <= this.toColumn; column++) {
+                int cell = row * this.columns + column;
+                if (this.cells[cell] == null) {
+                    this.cells[cell] = new int[4];
+                } else if (this.cellSizes[cell] == this.cells[cell].length) {
+                    this.cells[cell] = Arrays.copyOf(this.cells[cell], 2 * this.cellSizes[cell]);
+                }
+                this.cells[cell][this.cellSizes[cell]++] = handle;
+            }
+        }
+        damage(b);
+    }
+
+    /**
+     * Removes a static sprite, if it is in the layer.
+     *
+     * @param s The sprite.
+     */
+    public void remove(Sprite s) {
+        int handle = this.sprites.handleOf(s);
+        if (handle < 0) {
+            return;
+        }
+        Rectangle b = s.getStaticBounds();
+        setSpan(b);
+        for (int row = this.fromRow; row <= this.toRow; row++) {
+            for (int column = this.fromColumn; column <= this.toColumn; column++) {
+                int cell = row * this.columns + column;
+                int[] handles = this.cells[cell];
+                int last = --this.cellSizes[cell];
+                for (int i = 0; i < last; i++) {
+                    if (handles[i] == handle) {
+                        handles[i] = handles[last];
+                        break;
+                    }
+                }
+            }
+        }
+        this.sprites.remove(s);
+        damage(b);
+    }
+
+    /**
+     * Sets the span to the cells of the grid a rectangle overlaps, grown by a pixel to the right and
+     * bottom as the damage is, and kept in the grid.
+     *
+     * @param b The rectangle.
+     */
+    private void setSpan(Rectangle b) {
+        double left = b.getUpperLeft().getX();
+        double top = b.getUpperLeft().getY();
+        setSpan(left, top, left + b.getWidth() + 1, top + b.getHeight() + 1);
+    }
+
+    /**
+     * Sets the span to the cells of the grid an area overlaps, kept in the grid.
+     *
+     * @param left   The left edge of the area.
+     * @param top    The top edge of the area.
+     * @param right  The right edge of the area.
+     * @param bottom The bottom edge of the area.
+     */
+    private void setSpan(double left, double top, double right, double bottom) {
+        this.fromColumn = cellOf(left, this.columns);
+        this.fromRow = cellOf(top, this.rows);
+        this.toColumn = cellOf(right, this.columns);
+        this.toRow = cellOf(bottom, this.rows);
+    }
+
+    /**
+     * Returns the column or row of the grid of a coordinate, kept in the grid.
+     *
+     * @param coordinate The coordinate.
+     * @param count      The number of columns or rows.
+     * @return The column or row.
+     */
+    private static int cellOf(double coordinate, int count) {
+        return (int) Math.max(0, Math.min(count - 1, Math.floor(coordinate / CELL_SIZE)));
+    }
+
+    /**
+     * Sets the block table the layer draws after the static sprites, with all its live rows.
+     *
+     * @param blockTable The block table, whose grid is built.
+     */
+    public void setBlockTable(BlockTable blockTable) {
+        if (this.table != null) {
+            damage(this.table.getStaticBounds());
+        }
+        this.table = blockTable;
+        this.hiddenRows = new long[(blockTable.size() + Long.SIZE - 1) / Long.SIZE];
+        this.removedShown = 0;
+        updateBlockTable(0);
+        damage(blockTable.getStaticBounds());
+    }
+
+    /**
+     * Takes the rows of the block table removed since the last update out of the layer, reading the
+     * log of removed rows of the table up to a count, the one it had when the frame was taken.
+     *
+     * @param removedCount The number of rows of the log the layer takes out, no more than the table has.
+     */
+    public void updateBlockTable(int removedCount) {
+        for (; this.removedShown < removedCount; this.removedShown++) {
+            int row = this.table.getRemovedRow(this.removedShown);
+            this.hiddenRows[row / Long.SIZE] |= 1L << row;
+            int x = (int) Math.floor(this.table.getX(row));
+            int y = (int) Math.floor(this.table.getY(row));
+            int right = (int) Math.ceil((double) this.table.getX(row) + this.table.getWidth(row)) + 1;
+            int bottom = (int) Math.ceil((double) this.table.getY(row) + this.table.getHeight(row)) + 1;
+            damage(x, y, right - x, bottom - y);
+        }
+    }
+
+    /**
+     * Draws the layer on a surface, drawing its damaged area again first.
+     *
+     * @param d The DrawSurface on which the layer is drawn.
+     */
+    public void drawOn(DrawSurface d) {
+        if (!this.damage.isEmpty()) {
+            repaint();
+        }
+        d.drawImage(0, 0, this.surface.getImage());
+    }
+
+    /**
+     * Adds the damaged area of the layer, which the next drawOn draws again, to a region.
+     *
+     * @param region The region of the frame to draw again.
+     */
+    public void addDamageTo(DirtyRegion region) {
+        for (int i = 0; i < this.damage.getCount(); i++) {
+            region.add(this.damage.getLeft(i), this.damage.getTop(i), this.damage.getWidth(i),
+                    this.damage.getHeight(i));
+        }
+    }
+
+    /**
+     * Returns the number of times a damaged area of the layer was drawn again.
+     *
+     * @return The number of repaints.
+     */
+    public long getRepaints() {
+        return this.repaints;
+    }
+
+    /**
+     * Marks the area of a sprite as damaged. Lines are drawn on the pixels of the right and bottom
+     * edges of a rectangle too, so the area is grown by a pixel there.
+     *
+     * @param bounds The area of the sprite.
+     */
+    private void damage(Rectangle bounds) {
+        int x = (int) Math.floor(bounds.getUpperLeft().getX());
+        int y = (int) Math.floor(bounds.getUpperLeft().getY());
+        int right = (int) Math.ceil(bounds.getUpperLeft().getX() + bounds.getWidth()) + 1;
+        int bottom = (int) Math.ceil(bounds.getUpperLeft().getY() + bounds.getHeight()) + 1;
+        damage(x, y, right - x, bottom - y);
+    }
+
+    /**
+     * Adds a rectangle to the damaged area.
+     *
+     * @param x      The x-coordinate of the upper-left corner of the rectangle.
+     * @param y      The y-coordinate of the upper-left corner of the rectangle.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     */
+    private void damage(int x, int y, int width, int height) {
+        this.damage.add(x, y, width, height);
+    }
+
+    /**
+     * Draws the damaged area again, one rectangle of it at a time, each clipped to itself.
+     */
+    private void repaint() {
+        for (int i = 0; i < this.damage.getCount(); i++) {
+            repaint(this.damage.getLeft(i), this.damage.getTop(i), this.damage.getWidth(i),
+                    this.damage.getHeight(i));
+        }
+        this.damage.clear();
+        this.repaints++;
+    }
+
+    /**
+     * Draws a rectangle of the damaged area again: the background, then every static sprite that
+     * overlaps it, found through the cells of the grid it overlaps and recorded in the order they
+     * were added, then the rows of the block table that overlap it, all drawn in batches, clipped to
+     * it.
+     *
+     * @param x      The x-coordinate of the upper-left corner of the rectangle.
+     * @param y      The y-coordinate of the upper-left corner of the rectangle.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     */
+    private void repaint(int x, int y, int width, int height) {
+        int right = x + width;
+        int bottom = y + height;
+        this.commands.setColor(this.background);
+        this.commands.fillRectangle(x, y, width, height);
+
+        // The lookups are numbered from 1, so a handle not found yet is not taken as found
+        int stamp = ++this.lookups;
+        int count = 0;
+        setSpan(x, y, right, bottom);
+        for (int row = this.fromRow; row <= this.toRow; row++) {
+            for (int column = this.fromColumn; column <= this.toColumn; column++) {
+                int cell = row * this.columns + column;
+                for (int i = 0; i < this.cellSizes[cell]; i++) {
+                    int handle = this.cells[cell][i];
+                    if (this.foundBy[handle] == stamp) {
+                        continue;
+                    }
+                    this.foundBy[handle] = stamp;
+                    if (count == this.found.length) {
+                        this.found = Arrays.copyOf(this.found, 2 * count);
+                    }
+                    // The order of the sprite goes in the high bits, so the keys sort as the sprites were added
+                    this.found[count++] = (long) this.sequences[handle] << Integer.SIZE | handle;
+                }
+            }
+        }
+        Arrays.sort(this.found, 0, count);
+        for (int i = 0; i < count; i++) {
+            Sprite s = this.sprites.get((int) this.found[i]);
+            Rectangle b = s.getStaticBounds();
+            double left = b.getUpperLeft().getX();
+            double top = b.getUpperLeft().getY();
+            if (left <= right && left + b.getWidth() + 1 >= x && top <= bottom && top + b.getHeight() + 1 >= y) {
+                s.record(this.commands, 1);
+            }
+        }
+        if (this.table != null) {
+            this.table.recordArea(this.commands, x, y, width, height, this.hiddenRows);
+        }
+        this.surface.setClip(x, y, width, height);
+        this.commands.flush(this.surface);
+        this.surface.clearClip();
+        this.commands.clear();
+    }
+}
@@ -0,0 +1,85 @@
+// 318936507 Adir Tamam
+package Render;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The TripleBuffer class hands objects from one writer thread to one reader thread without locks
+ * and without either thread ever waiting for the other. Of its three slots, the writer owns one,
+ * the back, the reader owns one, the front, and the third sits in the middle. Publishing swaps the
+ * back with the middle, marked fresh; acquiring swaps the front with the middle if it is fresh. Both
+ * swaps are a single atomic getAndSet of the middle index, which also makes everything the writer
+ * wrote into the back visible to the reader that takes it. The reader always gets the latest slot
+ * published, and slots published in between are skipped.
+ *
+ * @param <T> The type of the objects in the slots.
+ */
+public class TripleBuffer<T> {
+    // The middle index is in the low bits, with FRESH set while the reader has not taken it
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final Object[] slots;
+    private final AtomicInteger middle;
+
+    // The slot of the writer, and the slot of the reader
+    private int back;
+    private int front;
+
+    /**
+     * Constructs a buffer over three slots. The reader starts with the third.
+     *
+     * @param first  The first slot, the first back of the writer.
+     * @param second The second slot.
+     * @param third  The third slot, the first front of the reader.
+     */
+    public TripleBuffer(T first, T second, T third) {
+        this.slots = new Object[] {first, second, third};
+        this.back = 0;
+        this.middle = new AtomicInteger(1);
+        this.front = 2;
+    }
+
+    /**
+     * Returns the slot the writer fills. Only the writer thread may call this.
+     *
+     * @return The back slot.
+     */
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) this.slots[this.back];
+    }
+
+    /**
+     * Publishes the back slot to the reader and gives the writer another one to fill. Only the
+     * writer thread may call this.
+     */
+    public void publish() {
+        this.back = this.middle.getAndSet(this.back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Takes the latest slot published, if the reader has not taken it yet. Only the reader thread
+     * may call this.
+     *
+     * @return {@code true} if the front is now a slot not seen before, {@code false} if nothing was
+     * published since the last call.
+     */
+    public boolean acquire() {
+        if ((this.middle.get() & FRESH) == 0) {
+            return false;
+        }
+        this.front = this.middle.getAndSet(this.front) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Returns the slot the reader took last. Only the reader thread may call this.
+     *
+     * @return The front slot.
+     */
+    @SuppressWarnings("unchecked")
+    public T getFront() {
+        return (T) this.slots[this.front];
+    }
+}
@@ -0,0 +1,72 @@
+// 318936507 Adir Tamam
+
+import Game.Game;
+import Game.IndexType;
+import Game.Replay;
+import Input.InputReplay;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Replays an input log recorded by the game without a window, as fast as possible, and checks that
+ * the game ends with the recorded score and blocks. Given a tick, it seeks there instead, from the
+ * keyframes recorded with the log, and prints the state of the game at that tick.
+ */
+public class ReplayGame {
+
+    /**
+     * The main method that replays an input log.
+     *
+     * @param args The command line arguments: the input log, then optionally the collision index to
+     *             use (linear, grid or bvh), then the tick to seek to.
+     * @throws IOException If the log or its keyframes cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayGame <input log> [linear|grid|bvh] [tick]");
+            System.exit(2);
+        }
+        System.setProperty("java.awt.headless", "true");
+        IndexType indexType = args.length > 1 ? IndexType.valueOf(args[1].toUpperCase()) : IndexType.GRID;
+
+        try (Replay replay = new Replay(Paths.get(args[0]), indexType)) {
+            long start = System.nanoTime();
+            if (args.length > 2) {
+                // Seek to the tick and show the game there
+                long keyframe = replay.seek(Long.parseLong(args[2]));
+                double seconds = (System.nanoTime() - start) / 1e9;
+                Game game = replay.getGame();
+                System.out.println("tick: " + game.getTicks() + (game.isOver() ? " (game over)" : ""));
+                System.out.println("keyframe: " + (replay.hasKeyframes() ? String.valueOf(keyframe) : "none"));
+                System.out.println("seconds: " + seconds);
+                System.out.println("score: " + game.getScore());
+                System.out.println("blocks: " + Long.toHexString(game.getBlockHash()));
+                return;
+            }
+
+            long ticks = 0;
+            while (replay.step()) {
+                ticks++;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Game game = replay.getGame();
+            InputReplay input = replay.getInput();
+
+            System.out.println("ticks: " + ticks + (game.isOver() ? " (game over)" : ""));
+            System.out.println("seconds: " + seconds);
+            System.out.println("score: " + game.getScore());
+            System.out.println("blocks: " + Long.toHexString(game.getBlockHash()));
+            if (!input.isOutcomeKnown()) {
+                System.out.println("The recording has no outcome to check against");
+            } else if (input.getRecordedTicks() == ticks && input.getRecordedScore() == game.getScore()
+                    && input.getRecordedBlockHash() == game.getBlockHash()) {
+                System.out.println("Matches the recording");
+            } else {
+                System.out.println("Differs from the recording: ticks " + input.getRecordedTicks() + ", score "
+                        + input.getRecordedScore() + ", blocks " + Long.toHexString(input.getRecordedBlockHash()));
+                System.exit(1);
+            }
+        }
+    }
+}
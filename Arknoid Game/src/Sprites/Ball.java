@@ -1,262 +1,440 @@
-// 318936507 Adir Tamam
-package Sprites;
-
-import Collidable.CollisionInfo;
-import Collidable.Collidable;
-import Game.GameEnvironment;
-import Game.Game;
-import biuoop.DrawSurface;
-import Geometry.Rectangle;
-import Geometry.Line;
-import Geometry.Point;
-
-import java.awt.Color;
-
-
-/**
- * The Ball class represents a ball in a two-dimensional space.
- */
-public class Ball implements Sprite {
-    // The center point of the ball
-    private Point point;
-
-    // The radius of the ball
-    private final int size;
-
-    // The color of the ball
-    private java.awt.Color color;
-
-    // The velocity of the ball
-    private Velocity velocity;
-
-    private final GameEnvironment gameEnvironment;
-
-    /**
-     * Constructor for creating a new Ball instance.
-     *
-     * @param x               The x-coordinate of the ball's center.
-     * @param y               The y-coordinate of the ball's center.
-     * @param r               The radius of the ball.
-     * @param color           The color of the ball.
-     * @param gameEnvironment the game environment
-     */
-    public Ball(double x, double y, int r, java.awt.Color color, GameEnvironment gameEnvironment) {
-        this.point = new Point(x, y);
-        this.size = r;
-        this.color = color;
-        this.gameEnvironment = gameEnvironment;
-    }
-
-    /**
-     * Get the x-coordinate of the ball's center.
-     *
-     * @return The x-coordinate of the ball's center.
-     */
-    public int getX() {
-        return (int) this.point.getX();
-    }
-
-    /**
-     * Get the y-coordinate of the ball's center.
-     *
-     * @return The y-coordinate of the ball's center.
-     */
-    public int getY() {
-        return (int) this.point.getY();
-    }
-
-    /**
-     * Get the size (radius) of the ball.
-     *
-     * @return The size (radius) of the ball.
-     */
-    public int getSize() {
-        return this.size;
-    }
-
-    /**
-     * Get the color of the ball.
-     *
-     * @return The color of the ball.
-     */
-    public Color getColor() {
-        return color;
-    }
-
-    /**
-     * Get the velocity of the ball.
-     *
-     * @return The velocity of the ball.
-     */
-    public Velocity getVelocity() {
-        return this.velocity;
-    }
-
-
-    /**
-     * Set the velocity of the ball.
-     *
-     * @param v The new velocity of the ball.
-     */
-    public void setVelocity(Velocity v) {
-        this.velocity = v;
-    }
-
-    /**
-     * Sets the color of the object.
-     *
-     * @param color The Color to set for the object.
-     */
-    public void setColor(Color color) {
-        this.color = color;
-    }
-
-
-    /**
-     * Set the velocity of the ball given its components.
-     *
-     * @param dx The change in x-coordinate.
-     * @param dy The change in y-coordinate.
-     */
-    public void setVelocity(double dx, double dy) {
-        this.velocity = new Velocity(dx, dy);
-    }
-
-    /**
-     * Move the ball one step according to its velocity.
-     */
-    public void moveOneStep() {
-        Line trajectory = trajectory();
-        CollisionInfo collisionInfo = gameEnvironment.getClosestCollision(trajectory);
-        if (collisionInfo == null) {
-            this.point = this.getVelocity().applyToPoint(this.point);
-            // if the moving paddle is hiding the ball
-        } else if (isInRec(collisionInfo.getCollisionObject().getCollisionRectangle())) {
-            this.point = new Point(this.point.getX(), this.point.getY() - 50);
-            setVelocity(collisionInfo.getCollisionObject().hit(this, collisionInfo.getCollisionPoint(), this.velocity));
-        } else {
-            Point collisionPoint = collisionInfo.getCollisionPoint();
-            double dx = this.getVelocity().getDx();
-            double dy = this.getVelocity().getDy();
-            double x = collisionPoint.getX();
-            double y = collisionPoint.getY();
-            if (dx > 0) {
-                x = x - 1;
-            }
-            if (dx < 0) {
-                x = x + 1;
-            }
-            if (dy > 0) {
-                y = y - 1;
-            }
-            if (dy < 0) {
-                y = y + 1;
-            }
-            this.point = new Point(x, y);
-            notifyME(collisionInfo);
-            // if there is a sequence of collisions to make the animation look smooth it will move the ball further
-            // so that the next step will make the look like it moves in the same speed
-            collisionInfo = gameEnvironment.getClosestCollision(trajectory);
-            if (collisionInfo != null) {
-                moveOneStep();
-            }
-
-        }
-    }
-
-
-    /**
-     * Notifies the object about a collision and updates its velocity accordingly.
-     *
-     * @param collisionInfo Information about the collision, including the colliding object and collision point.
-     */
-    public void notifyME(CollisionInfo collisionInfo) {
-        // Retrieve the collidable object involved in the collision
-        Collidable collisionObject = collisionInfo.getCollisionObject();
-
-        // Update the velocity of the current object based on the collision
-        this.setVelocity(collisionObject.hit(this, collisionInfo.getCollisionPoint(), this.velocity));
-    }
-
-
-    /**
-     * Calculates the trajectory of the object based on its current velocity.
-     *
-     * @return A line representing the trajectory of the object from its current position to the next position.
-     */
-    public Line trajectory() {
-        // Calculate the next point based on the current velocity
-        Point nextPoint = this.getVelocity().applyToPoint(this.point);
-
-        // Create a line representing the trajectory from the current position to the next position
-        return new Line(this.point, nextPoint);
-    }
-
-
-    /**
-     * Checks if the current point is within the boundaries of a given rectangle.
-     *
-     * @param rec The rectangle to check against for containment.
-     * @return {@code true} if the current point is inside the specified rectangle, {@code false} otherwise.
-     */
-    /**
-     * Checks if the current point is within the boundaries of a given rectangle.
-     *
-     * @param rec The rectangle to check against for containment.
-     * @return {@code true} if the current point is inside the specified rectangle,
-     * {@code false} otherwise.
-     */
-    private boolean isInRec(Rectangle rec) {
-        // Extract coordinates of the current point and the upper-left corner of the rectangle
-        double x = this.point.getX();
-        double y = this.point.getY();
-        double upperLeftX = rec.getUpperLeft().getX();
-        double upperLeftY = rec.getUpperLeft().getY();
-
-        // Check if the current point is within the boundaries of the rectangle
-        return (x >= upperLeftX && x <= upperLeftX + rec.getWidth()
-                && y >= upperLeftY && y <= upperLeftY + rec.getHeight());
-    }
-
-
-    /**
-     * Draw the ball on the given DrawSurface.
-     *
-     * @param surface The DrawSurface on which to draw the ball.
-     */
-    public void drawOn(DrawSurface surface) {
-        // Set the color of the drawing surface to the color of the ball
-        surface.setColor(this.getColor());
-
-        // Draw a filled circle representing the ball on the surface
-        surface.fillCircle(this.getX(), this.getY(), this.size);
-    }
-
-    /**
-     * Handles the passage of time by moving the object one step.
-     */
-    public void timePassed() {
-        moveOneStep();
-    }
-
-
-    /**
-     * Adds the current sprite to the specified game.
-     *
-     * @param game The game to which the sprite is added.
-     */
-    public void addToGame(Game game) {
-        game.addSprite(this);
-    }
-
-    /**
-     * Removes the current sprite from the specified game.
-     *
-     * @param g The Game object from which the sprite will be removed.
-     */
-    public void removeFromGame(Game g) {
-        g.removeSprite(this);
-    }
-
-
-}
+// 318936507 Adir Tamam
+package Sprites;
+
+import Collidable.CollisionInfo;
+import Collidable.Collidable;
+import Game.GameEnvironment;
+import Game.Game;
+import biuoop.DrawSurface;
+import Geometry.Line;
+import Geometry.Point;
+import Geometry.RayHit;
+import Metrics.BallMoveEvent;
+import Render.CommandBuffer;
+import Render.DirtyRegion;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+
+
+/**
+ * The Ball class represents a ball in a two-dimensional space.
+ */
+public class Ball implements Sprite {
+    // The shared layer of a command buffer all the balls go to, after the layers of the blocks
+    public static final int LAYER = 2;
+
+    // How far from a touched surface the ball is left after a collision, so it does not touch it again
+    public static final double SKIN = 0.001;
+
+    // The largest number of bounces resolved in one step; the rest of the step is dropped
+    public static final int MAX_BOUNCES = 8;
+
+    // The number of bytes saveState writes
+    public static final int STATE_BYTES = 6 * Double.BYTES + Integer.BYTES;
+
+    // The center point of the ball, kept as raw coordinates so moving does not allocate
+    private double x;
+    private double y;
+
+    // The center point at the start of the last step, to draw the ball between ticks
+    private double previousX;
+    private double previousY;
+
+    // The radius of the ball
+    private final int size;
+
+    // The color of the ball
+    private java.awt.Color color;
+
+    // The velocity of the ball
+    private Velocity velocity;
+
+    private final GameEnvironment gameEnvironment;
+
+    // Scratch holder for collision queries, reused on every step
+    private final RayHit hit;
+
+    // Whether the ball was removed from the game, so it stops moving mid-step
+    private boolean removed;
+
+    // The number of sub-steps the last step used
+    private int subSteps;
+
+    // Where and in which color the ball was last reported drawn; the color is null before the first frame
+    private int drawnX;
+    private int drawnY;
+    private java.awt.Color drawnColor;
+
+    // The id the hit event bus gave the ball for its queued hits, and the window of the bus it is valid in
+    private long busWindow;
+    private int busId;
+
+    /**
+     * Constructor for creating a new Ball instance.
+     *
+     * @param x               The x-coordinate of the ball's center.
+     * @param y               The y-coordinate of the ball's center.
+     * @param r               The radius of the ball.
+     * @param color           The color of the ball.
+     * @param gameEnvironment the game environment
+     */
+    public Ball(double x, double y, int r, java.awt.Color color, GameEnvironment gameEnvironment) {
+        this.x = x;
+        this.y = y;
+        this.previousX = x;
+        this.previousY = y;
+        this.size = r;
+        this.color = color;
+        this.gameEnvironment = gameEnvironment;
+        this.hit = new RayHit();
+    }
+
+    /**
+     * Get the x-coordinate of the ball's center.
+     *
+     * @return The x-coordinate of the ball's center.
+     */
+    public int getX() {
+        return (int) this.x;
+    }
+
+    /**
+     * Get the y-coordinate of the ball's center.
+     *
+     * @return The y-coordinate of the ball's center.
+     */
+    public int getY() {
+        return (int) this.y;
+    }
+
+    /**
+     * Returns the exact x-coordinate of the ball's center.
+     *
+     * @return The x-coordinate of the ball's center.
+     */
+    public double getCenterX() {
+        return this.x;
+    }
+
+    /**
+     * Returns the exact y-coordinate of the ball's center.
+     *
+     * @return The y-coordinate of the ball's center.
+     */
+    public double getCenterY() {
+        return this.y;
+    }
+
+    /**
+     * Get the size (radius) of the ball.
+     *
+     * @return The size (radius) of the ball.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Get the color of the ball.
+     *
+     * @return The color of the ball.
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Get the velocity of the ball.
+     *
+     * @return The velocity of the ball.
+     */
+    public Velocity getVelocity() {
+        return this.velocity;
+    }
+
+
+    /**
+     * Set the velocity of the ball.
+     *
+     * @param v The new velocity of the ball.
+     */
+    public void setVelocity(Velocity v) {
+        this.velocity = v;
+    }
+
+    /**
+     * Sets the color of the object.
+     *
+     * @param color The Color to set for the object.
+     */
+    public void setColor(Color color) {
+        this.color = color;
+    }
+
+
+    /**
+     * Set the velocity of the ball given its components.
+     *
+     * @param dx The change in x-coordinate.
+     * @param dy The change in y-coordinate.
+     */
+    public void setVelocity(double dx, double dy) {
+        this.velocity = new Velocity(dx, dy);
+    }
+
+    /**
+     * Move the ball one step according to its velocity. The ball is swept as a circle against the
+     * collidables, so each query gives the exact time of impact, even for fast balls. After every
+     * impact the ball bounces and goes on with the rest of the step, up to MAX_BOUNCES sub-steps.
+     */
+    public void moveOneStep() {
+        BallMoveEvent event = new BallMoveEvent();
+        if (event.isEnabled()) {
+            event.begin();
+        }
+        RayHit hit = this.hit;
+        this.previousX = this.x;
+        this.previousY = this.y;
+        double remaining = 1;
+        int steps = 0;
+        while (remaining > 0 && steps < MAX_BOUNCES && !this.removed) {
+            steps++;
+            double dx = this.velocity.getDx() * remaining;
+            double dy = this.velocity.getDy() * remaining;
+            Collidable collisionObject = gameEnvironment.findClosestCollision(this.x, this.y, dx, dy, this.size, hit);
+            if (collisionObject == null) {
+                this.x += dx;
+                this.y += dy;
+                break;
+            }
+
+            if (hit.isInside()) {
+                // The ball already overlaps the collidable (the paddle moved into it), so push it out
+                this.x = hit.getX() + hit.getNormalX() * (this.size + SKIN);
+                this.y = hit.getY() + hit.getNormalY() * (this.size + SKIN);
+            } else {
+                // Stop at the time of impact, just off the touched surface
+                this.x += hit.getT() * dx + hit.getNormalX() * SKIN;
+                this.y += hit.getT() * dy + hit.getNormalY() * SKIN;
+            }
+            remaining *= 1 - hit.getT();
+
+            // The velocity is changed in place, through the allocation-free version of hit
+            gameEnvironment.hit(collisionObject, this, hit.getX(), hit.getY(), this.velocity);
+        }
+        this.subSteps = steps;
+        if (event.isEnabled()) {
+            event.setSubSteps(steps);
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the key that tells this ball apart from the others that share its object in a hit
+     * event; a plain ball has its own object, so its key is 0.
+     *
+     * @return The key of the ball in hit events.
+     */
+    public int getHitterKey() {
+        return 0;
+    }
+
+    /**
+     * Returns the id a hit event bus gave the ball for the hits it queues until its next dispatch.
+     *
+     * @param window The window of the bus the id is asked for.
+     * @return The id, or -1 if the ball has none in that window.
+     */
+    public int getBusId(long window) {
+        return this.busWindow == window ? this.busId : -1;
+    }
+
+    /**
+     * Keeps the id a hit event bus gave the ball, until the window of the bus ends.
+     *
+     * @param window The window of the bus the id belongs to.
+     * @param id     The id.
+     */
+    public void setBusId(long window, int id) {
+        this.busWindow = window;
+        this.busId = id;
+    }
+
+    /**
+     * Returns the ball of a hit event with the given key, recorded for this object.
+     *
+     * @param key The key returned by getHitterKey at the time of the hit.
+     * @return This ball.
+     */
+    public Ball resolveHitter(int key) {
+        return this;
+    }
+
+    /**
+     * Checks if the ball was removed from the game.
+     *
+     * @return {@code true} if the ball was removed, {@code false} otherwise.
+     */
+    public boolean isRemoved() {
+        return this.removed;
+    }
+
+    /**
+     * Writes the state of the ball that changes as the game runs into a snapshot: its position, its
+     * position before the last step, its velocity and its color, STATE_BYTES in all.
+     *
+     * @param out The buffer the state is written to.
+     */
+    public void saveState(ByteBuffer out) {
+        out.putDouble(this.x).putDouble(this.y).putDouble(this.previousX).putDouble(this.previousY);
+        out.putDouble(this.velocity.getDx()).putDouble(this.velocity.getDy());
+        out.putInt(this.color.getRGB());
+    }
+
+    /**
+     * Reads the state of the ball back from a snapshot written by saveState.
+     *
+     * @param in The buffer the state is read from.
+     */
+    public void restoreState(ByteBuffer in) {
+        this.x = in.getDouble();
+        this.y = in.getDouble();
+        this.previousX = in.getDouble();
+        this.previousY = in.getDouble();
+        double dx = in.getDouble();
+        this.velocity = new Velocity(dx, in.getDouble());
+        this.color = new Color(in.getInt(), true);
+    }
+
+    /**
+     * Returns the number of collision queries (sub-steps) the last call to moveOneStep used.
+     *
+     * @return The number of sub-steps of the last step.
+     */
+    public int getSubSteps() {
+        return this.subSteps;
+    }
+
+
+    /**
+     * Notifies the object about a collision and updates its velocity accordingly.
+     *
+     * @param collisionInfo Information about the collision, including the colliding object and collision point.
+     */
+    public void notifyME(CollisionInfo collisionInfo) {
+        // Retrieve the collidable object involved in the collision
+        Collidable collisionObject = collisionInfo.getCollisionObject();
+
+        // Update the velocity of the current object based on the collision
+        this.setVelocity(collisionObject.hit(this, collisionInfo.getCollisionPoint(), this.velocity));
+    }
+
+
+    /**
+     * Calculates the trajectory of the object based on its current velocity.
+     *
+     * @return A line representing the trajectory of the object from its current position to the next position.
+     */
+    public Line trajectory() {
+        // Calculate the next point based on the current velocity
+        Point start = new Point(this.x, this.y);
+        Point nextPoint = this.getVelocity().applyToPoint(start);
+
+        // Create a line representing the trajectory from the current position to the next position
+        return new Line(start, nextPoint);
+    }
+
+
+    /**
+     * Draw the ball on the given DrawSurface.
+     *
+     * @param surface The DrawSurface on which to draw the ball.
+     */
+    public void drawOn(DrawSurface surface) {
+        // Set the color of the drawing surface to the color of the ball
+        surface.setColor(this.getColor());
+
+        // Draw a filled circle representing the ball on the surface
+        surface.fillCircle(this.getX(), this.getY(), this.size);
+    }
+
+    /**
+     * Draw the ball between its position at the start of the last step and its current position.
+     *
+     * @param surface The DrawSurface on which to draw the ball.
+     * @param alpha   How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void drawOn(DrawSurface surface, double alpha) {
+        surface.setColor(this.getColor());
+        surface.fillCircle((int) (this.previousX + (this.x - this.previousX) * alpha),
+                (int) (this.previousY + (this.y - this.previousY) * alpha), this.size);
+    }
+
+    /**
+     * Records the ball into a command buffer. Balls are circles of one size that seldom overlap, so
+     * all of them share a layer, in which the buffer sets the color once per ball color instead of
+     * opening an ordered layer per ball. Where balls of two colors do overlap, the buffer decides
+     * which one is on top.
+     *
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void record(CommandBuffer buffer, double alpha) {
+        buffer.useLayer(LAYER);
+        drawOn(buffer, alpha);
+    }
+
+    /**
+     * Adds to a region the square the ball was last drawn in and the one it is drawn in now, if the
+     * ball moved or changed its color since.
+     *
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void addDamage(DirtyRegion region, double alpha) {
+        int drawX = (int) (this.previousX + (this.x - this.previousX) * alpha);
+        int drawY = (int) (this.previousY + (this.y - this.previousY) * alpha);
+        if (drawX == this.drawnX && drawY == this.drawnY && this.color.equals(this.drawnColor)) {
+            return;
+        }
+        if (this.drawnColor != null) {
+            region.add(this.drawnX - this.size, this.drawnY - this.size, 2 * this.size + 1, 2 * this.size + 1);
+        }
+        region.add(drawX - this.size, drawY - this.size, 2 * this.size + 1, 2 * this.size + 1);
+        this.drawnX = drawX;
+        this.drawnY = drawY;
+        this.drawnColor = this.color;
+    }
+
+    /**
+     * Handles the passage of time by moving the object one step.
+     */
+    public void timePassed() {
+        moveOneStep();
+    }
+
+
+    /**
+     * Adds the current sprite to the specified game.
+     *
+     * @param game The game to which the sprite is added.
+     */
+    public void addToGame(Game game) {
+        game.addSprite(this);
+    }
+
+    /**
+     * Removes the current sprite from the specified game.
+     *
+     * @param g The Game object from which the sprite will be removed.
+     */
+    public void removeFromGame(Game g) {
+        g.removeSprite(this);
+        this.removed = true;
+    }
+
+
+}
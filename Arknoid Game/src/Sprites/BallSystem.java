@@ -0,0 +1,808 @@
+// 318936507 Adir Tamam
+package Sprites;
+
+import Collidable.Collidable;
+import Game.Game;
+import Game.GameEnvironment;
+import Geometry.RayHit;
+import Metrics.BallMoveEvent;
+import Render.DirtyRegion;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The BallSystem class holds many balls as parallel primitive arrays (structure of arrays) instead of
+ * one Ball object each, for the ball storm stress mode. All the balls are moved in one loop against
+ * the collision index, with the same swept-circle bounces as Ball, and drawn in one pass grouped by color.
+ * Collidables and hit listeners still see a Ball: a single flyweight view is pointed at the ball
+ * being resolved, and is only valid during that hit.
+ * <p>
+ * A step has two phases. In the first, every ball looks for its first collision against the
+ * environment, which nothing changes meanwhile, so this can run in parallel on a ForkJoinPool;
+ * balls that hit nothing just move. In the second, the hits are sorted by time of impact and then
+ * by ball index, and committed one by one on the calling thread. The outcome does not depend on
+ * the pool, or on whether there is one.
+ * <p>
+ * The hits on blocks are queued and passed to the hit listeners at the end of the tick, with the
+ * index of the ball as its key, so the balls keep their indices until then: the balls the listeners
+ * remove are only dropped when dropRemoved is called, after the hit events are dispatched.
+ */
+public class BallSystem implements Sprite {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // The number of balls below which the first phase is not split further between threads
+    private static final int SPLIT_THRESHOLD = 2048;
+
+    // The state of the balls, ball i being at index i of every array
+    private double[] x;
+    private double[] y;
+    private double[] previousX;
+    private double[] previousY;
+    private double[] dx;
+    private double[] dy;
+    private int[] radius;
+    private int[] colorId;
+    private int count;
+
+    // The first collision of each ball in the current step, found in the first phase
+    private Collidable[] hitObject;
+    private double[] hitT;
+    private int[] hitFace;
+    private double[] hitX;
+    private double[] hitY;
+    private double[] hitNormalX;
+    private double[] hitNormalY;
+    private boolean[] hitInside;
+
+    // The balls removed since they were last dropped, and whether there are any
+    private boolean[] removed;
+    private boolean anyRemoved;
+
+    // The distinct colors of the balls, so each ball holds only a small index
+    private final List<Color> palette;
+    private final Map<Color, Integer> paletteIds;
+
+    private final GameEnvironment gameEnvironment;
+
+    // The pool of the first phase, or null to run it on the calling thread
+    private final ForkJoinPool pool;
+
+    // Scratch state reused on every step and frame
+    private final RayHit hit;
+    private final Velocity velocity;
+    private final BallView view;
+    private int[] drawOrder;
+    private int[] colorStarts;
+    private int[] pending;
+    private int[] sortScratch;
+
+    // The box the balls were last reported drawn in, empty when drawnRight <= drawnLeft
+    private int drawnLeft;
+    private int drawnTop;
+    private int drawnRight;
+    private int drawnBottom;
+
+    /**
+     * Constructs an empty BallSystem moving in the given game environment, stepped on the calling thread.
+     *
+     * @param gameEnvironment The game environment the balls collide with.
+     */
+    public BallSystem(GameEnvironment gameEnvironment) {
+        this(gameEnvironment, null);
+    }
+
+    /**
+     * Constructs an empty BallSystem moving in the given game environment, which looks for the
+     * collisions of its balls in parallel on the given pool.
+     *
+     * @param gameEnvironment The game environment the balls collide with.
+     * @param pool            The pool of the collision phase, or null to run it on the calling thread.
+     */
+    public BallSystem(GameEnvironment gameEnvironment, ForkJoinPool pool) {
+        this.gameEnvironment = gameEnvironment;
+        this.pool = pool;
+        this.x = new double[INITIAL_CAPACITY];
+        this.y = new double[INITIAL_CAPACITY];
+        this.previousX = new double[INITIAL_CAPACITY];
+        this.previousY = new double[INITIAL_CAPACITY];
+        this.dx = new double[INITIAL_CAPACITY];
+        this.dy = new double[INITIAL_CAPACITY];
+        this.radius = new int[INITIAL_CAPACITY];
+        this.colorId = new int[INITIAL_CAPACITY];
+        this.hitObject = new Collidable[INITIAL_CAPACITY];
+        this.hitT = new double[INITIAL_CAPACITY];
+        this.hitFace = new int[INITIAL_CAPACITY];
+        this.hitX = new double[INITIAL_CAPACITY];
+        this.hitY = new double[INITIAL_CAPACITY];
+        this.hitNormalX = new double[INITIAL_CAPACITY];
+        this.hitNormalY = new double[INITIAL_CAPACITY];
+        this.hitInside = new boolean[INITIAL_CAPACITY];
+        this.removed = new boolean[INITIAL_CAPACITY];
+        this.pending = new int[INITIAL_CAPACITY];
+        this.sortScratch = new int[INITIAL_CAPACITY];
+        this.drawOrder = new int[INITIAL_CAPACITY];
+        this.colorStarts = new int[1];
+        this.palette = new ArrayList<>();
+        this.paletteIds = new HashMap<>();
+        this.hit = new RayHit();
+        this.velocity = new Velocity(0, 0);
+        this.view = new BallView(gameEnvironment);
+    }
+
+    /**
+     * Adds a ball to the system.
+     *
+     * @param bx    The x-coordinate of the ball's center.
+     * @param by    The y-coordinate of the ball's center.
+     * @param r     The radius of the ball.
+     * @param vx    The change in x of the ball per step.
+     * @param vy    The change in y of the ball per step.
+     * @param color The color of the ball.
+     */
+    public void addBall(double bx, double by, int r, double vx, double vy, Color color) {
+        if (this.count == this.x.length) {
+            grow();
+        }
+        int i = this.count++;
+        this.x[i] = bx;
+        this.y[i] = by;
+        this.previousX[i] = bx;
+        this.previousY[i] = by;
+        this.dx[i] = vx;
+        this.dy[i] = vy;
+        this.radius[i] = r;
+        this.colorId[i] = colorIdOf(color);
+    }
+
+    /**
+     * Returns the number of balls in the system.
+     *
+     * @return The number of balls.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the x-coordinate of the center of a ball.
+     *
+     * @param i The index of the ball.
+     * @return The x-coordinate of the ball's center.
+     */
+    public double getX(int i) {
+        return this.x[i];
+    }
+
+    /**
+     * Returns the y-coordinate of the center of a ball.
+     *
+     * @param i The index of the ball.
+     * @return The y-coordinate of the ball's center.
+     */
+    public double getY(int i) {
+        return this.y[i];
+    }
+
+    /**
+     * Returns the color of a ball.
+     *
+     * @param i The index of the ball.
+     * @return The color of the ball.
+     */
+    public Color getColor(int i) {
+        return this.palette.get(this.colorId[i]);
+    }
+
+    /**
+     * Returns the number of bytes saveState writes for the balls the system holds now.
+     *
+     * @return The size of the state of the system.
+     */
+    public int getStateSize() {
+        return 2 * Integer.BYTES + this.palette.size() * Integer.BYTES
+                + this.count * (6 * Double.BYTES + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Writes the state of the system into a snapshot: the number of balls, the palette, then every
+     * array in turn, copied in bulk. Writing ints and doubles through views of the buffer keeps
+     * the layout flat, and restoring it a matter of bulk copies too.
+     *
+     * @param out The buffer the state is written to.
+     */
+    public void saveState(ByteBuffer out) {
+        out.putInt(this.count).putInt(this.palette.size());
+        for (Color color : this.palette) {
+            out.putInt(color.getRGB());
+        }
+        for (double[] array : new double[][]{this.x, this.y, this.previousX, this.previousY, this.dx, this.dy}) {
+            out.asDoubleBuffer().put(array, 0, this.count);
+            out.position(out.position() + this.count * Double.BYTES);
+        }
+        for (int[] array : new int[][]{this.radius, this.colorId}) {
+            out.asIntBuffer().put(array, 0, this.count);
+            out.position(out.position() + this.count * Integer.BYTES);
+        }
+    }
+
+    /**
+     * Reads the state of the system back from a snapshot written by saveState, replacing its balls.
+     *
+     * @param in The buffer the state is read from.
+     */
+    public void restoreState(ByteBuffer in) {
+        int balls = in.getInt();
+        int colors = in.getInt();
+        this.palette.clear();
+        this.paletteIds.clear();
+        for (int c = 0; c < colors; c++) {
+            colorIdOf(new Color(in.getInt(), true));
+        }
+        while (this.x.length < balls) {
+            grow();
+        }
+        this.count = balls;
+        for (double[] array : new double[][]{this.x, this.y, this.previousX, this.previousY, this.dx, this.dy}) {
+            in.asDoubleBuffer().get(array, 0, balls);
+            in.position(in.position() + balls * Double.BYTES);
+        }
+        for (int[] array : new int[][]{this.radius, this.colorId}) {
+            in.asIntBuffer().get(array, 0, balls);
+            in.position(in.position() + balls * Integer.BYTES);
+        }
+    }
+
+    /**
+     * Moves every ball one step, in the two phases described above. Balls removed during the step by
+     * a hit listener called at once are dropped at its end, keeping the order of the remaining balls.
+     */
+    public void timePassed() {
+        int version = this.gameEnvironment.getModificationCount();
+        System.arraycopy(this.x, 0, this.previousX, 0, this.count);
+        System.arraycopy(this.y, 0, this.previousY, 0, this.count);
+
+        // Phase one: find the first collision of every ball, possibly in parallel
+        if (this.pool == null || this.count <= SPLIT_THRESHOLD) {
+            findFirstHits(0, this.count, this.hit);
+        } else {
+            this.pool.invoke(new FirstHitTask(0, this.count));
+        }
+
+        // Phase two: commit the hits serially, in order of time of impact and then of ball index.
+        // Only these balls get a move event; the others made the single query of phase one
+        int hits = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (this.hitObject[i] != null) {
+                this.pending[hits++] = i;
+            }
+        }
+        sortPending(0, hits);
+        for (int k = 0; k < hits; k++) {
+            int i = this.pending[k];
+            BallMoveEvent event = new BallMoveEvent();
+            if (event.isEnabled()) {
+                event.begin();
+            }
+            int steps = 1;
+            if (this.gameEnvironment.getModificationCount() == version) {
+                // Nothing changed since phase one, so its hit is still the first one
+                this.hit.set(this.hitT[i], this.hitFace[i], this.hitX[i], this.hitY[i], this.hitInside[i]);
+                this.hit.setNormal(this.hitNormalX[i], this.hitNormalY[i]);
+                Collidable collisionObject = this.hitObject[i];
+                this.hitObject[i] = null;
+                if (bounce(i, collisionObject, this.dx[i], this.dy[i])) {
+                    steps = moveOneStep(i, 1 - this.hit.getT(), 1);
+                }
+            } else {
+                // An earlier hit changed the environment, so the step is found again from its start
+                this.hitObject[i] = null;
+                steps = moveOneStep(i, 1, 0);
+            }
+            if (event.isEnabled()) {
+                event.setSubSteps(steps);
+                event.commit();
+            }
+        }
+        compact();
+    }
+
+    /**
+     * Finds the first collision of the balls in a range over their whole step. Balls that hit
+     * nothing are moved; for the others the hit is recorded and they stay in place. Each ball only
+     * writes its own slots and nothing else is changed, so disjoint ranges can run in parallel.
+     *
+     * @param from The index of the first ball of the range.
+     * @param to   The index after the last ball of the range.
+     * @param h    A holder for the collision queries, owned by the calling thread.
+     */
+    private void findFirstHits(int from, int to, RayHit h) {
+        for (int i = from; i < to; i++) {
+            Collidable collisionObject = this.gameEnvironment.findClosestCollision(this.x[i], this.y[i],
+                    this.dx[i], this.dy[i], this.radius[i], h);
+            if (collisionObject == null) {
+                this.x[i] += this.dx[i];
+                this.y[i] += this.dy[i];
+                continue;
+            }
+            this.hitObject[i] = collisionObject;
+            this.hitT[i] = h.getT();
+            this.hitFace[i] = h.getFace();
+            this.hitX[i] = h.getX();
+            this.hitY[i] = h.getY();
+            this.hitNormalX[i] = h.getNormalX();
+            this.hitNormalY[i] = h.getNormalY();
+            this.hitInside[i] = h.isInside();
+        }
+    }
+
+    /**
+     * Moves one ball along the rest of its step, bouncing off the collidables it hits.
+     * This is the loop of Ball.moveOneStep on the arrays of the system.
+     *
+     * @param i         The index of the ball.
+     * @param remaining The fraction of the step that is left.
+     * @param steps     The number of sub-steps the ball already used in this step.
+     * @return The number of sub-steps the ball used in the whole step.
+     */
+    private int moveOneStep(int i, double remaining, int steps) {
+        while (remaining > 0 && steps < Ball.MAX_BOUNCES) {
+            steps++;
+            double mx = this.dx[i] * remaining;
+            double my = this.dy[i] * remaining;
+            Collidable collisionObject = this.gameEnvironment.findClosestCollision(this.x[i], this.y[i], mx, my,
+                    this.radius[i], this.hit);
+            if (collisionObject == null) {
+                this.x[i] += mx;
+                this.y[i] += my;
+                return steps;
+            }
+            if (!bounce(i, collisionObject, mx, my)) {
+                return steps;
+            }
+            remaining *= 1 - this.hit.getT();
+        }
+        return steps;
+    }
+
+    /**
+     * Moves a ball to the collision in the hit holder and lets the collidable change its velocity.
+     *
+     * @param i               The index of the ball.
+     * @param collisionObject The collidable that was hit.
+     * @param mx              The change in x of the move the hit was found on.
+     * @param my              The change in y of the move the hit was found on.
+     * @return {@code true} if the ball is still in the game, {@code false} if the hit removed it.
+     */
+    private boolean bounce(int i, Collidable collisionObject, double mx, double my) {
+        if (this.hit.isInside()) {
+            // The ball already overlaps the collidable, so push it out
+            this.x[i] = this.hit.getX() + this.hit.getNormalX() * (this.radius[i] + Ball.SKIN);
+            this.y[i] = this.hit.getY() + this.hit.getNormalY() * (this.radius[i] + Ball.SKIN);
+        } else {
+            // Stop at the time of impact, just off the touched surface
+            this.x[i] += this.hit.getT() * mx + this.hit.getNormalX() * Ball.SKIN;
+            this.y[i] += this.hit.getT() * my + this.hit.getNormalY() * Ball.SKIN;
+        }
+
+        // Resolve the hit through the flyweight view, which writes back any change of color
+        this.velocity.setDx(this.dx[i]);
+        this.velocity.setDy(this.dy[i]);
+        this.view.attach(i);
+        this.gameEnvironment.hit(collisionObject, this.view, this.hit.getX(), this.hit.getY(), this.velocity);
+        this.dx[i] = this.velocity.getDx();
+        this.dy[i] = this.velocity.getDy();
+        if (this.view.detach()) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sorts a range of the pending hits by time of impact, and then by ball index (a merge sort,
+     * which needs no boxing and is stable).
+     *
+     * @param from The first position of the range.
+     * @param to   The position after the last one of the range.
+     */
+    private void sortPending(int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortPending(from, middle);
+        sortPending(middle, to);
+        if (!before(this.pending[middle], this.pending[middle - 1])) {
+            return;
+        }
+        System.arraycopy(this.pending, from, this.sortScratch, from, to - from);
+        int a = from;
+        int b = middle;
+        for (int k = from; k < to; k++) {
+            if (b >= to || (a < middle && !before(this.sortScratch[b], this.sortScratch[a]))) {
+                this.pending[k] = this.sortScratch[a++];
+            } else {
+                this.pending[k] = this.sortScratch[b++];
+            }
+        }
+    }
+
+    /**
+     * Checks if the hit of one ball is committed before the hit of another.
+     *
+     * @param i The index of the first ball.
+     * @param j The index of the second ball.
+     * @return {@code true} if the hit of ball i comes first, {@code false} otherwise.
+     */
+    private boolean before(int i, int j) {
+        return this.hitT[i] < this.hitT[j] || (this.hitT[i] == this.hitT[j] && i < j);
+    }
+
+    /**
+     * Drops the balls removed by the hit listeners, keeping the order of the others. The game calls
+     * this after passing the hit events of a tick to the listeners; afterwards the indices of the
+     * balls, and so the keys of the hit events, change.
+     */
+    public void dropRemoved() {
+        compact();
+    }
+
+    /**
+     * Drops the removed balls, keeping the order of the others.
+     */
+    private void compact() {
+        if (!this.anyRemoved) {
+            return;
+        }
+        this.anyRemoved = false;
+        int kept = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (this.removed[i]) {
+                this.removed[i] = false;
+                continue;
+            }
+            if (kept != i) {
+                this.x[kept] = this.x[i];
+                this.y[kept] = this.y[i];
+                this.previousX[kept] = this.previousX[i];
+                this.previousY[kept] = this.previousY[i];
+                this.dx[kept] = this.dx[i];
+                this.dy[kept] = this.dy[i];
+                this.radius[kept] = this.radius[i];
+                this.colorId[kept] = this.colorId[i];
+            }
+            kept++;
+        }
+        this.count = kept;
+    }
+
+    /**
+     * Draws all the balls in one pass. The balls are bucketed by color first (a counting sort),
+     * so the color of the surface is set once per color rather than once per ball.
+     *
+     * @param d The DrawSurface on which the balls are drawn.
+     */
+    public void drawOn(DrawSurface d) {
+        drawOn(d, 1);
+    }
+
+    /**
+     * Draws all the balls in one pass, each between its position at the start of the last step
+     * and its current position.
+     *
+     * @param d     The DrawSurface on which the balls are drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void drawOn(DrawSurface d, double alpha) {
+        int colors = this.palette.size();
+        if (this.colorStarts.length < colors + 1) {
+            this.colorStarts = new int[colors + 1];
+        }
+        int[] starts = this.colorStarts;
+        Arrays.fill(starts, 0, colors + 1, 0);
+        for (int i = 0; i < this.count; i++) {
+            starts[this.colorId[i] + 1]++;
+        }
+        for (int c = 0; c < colors; c++) {
+            starts[c + 1] += starts[c];
+        }
+        if (this.drawOrder.length < this.count) {
+            this.drawOrder = new int[this.x.length];
+        }
+        for (int i = 0; i < this.count; i++) {
+            this.drawOrder[starts[this.colorId[i]]++] = i;
+        }
+
+        // After the sort every start has moved to the end of its bucket, which is the start of the next one
+        int from = 0;
+        for (int c = 0; c < colors; c++) {
+            int to = starts[c];
+            if (to > from) {
+                d.setColor(this.palette.get(c));
+                for (int k = from; k < to; k++) {
+                    int i = this.drawOrder[k];
+                    double bx = this.previousX[i] + (this.x[i] - this.previousX[i]) * alpha;
+                    double by = this.previousY[i] + (this.y[i] - this.previousY[i]) * alpha;
+                    d.fillCircle((int) bx, (int) by, this.radius[i]);
+                }
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Adds to a region the box the balls were last drawn in and the box they are drawn in now. The
+     * balls are too many to track one by one, and any of them may have moved or been removed, so
+     * both boxes are damaged whole on every frame.
+     *
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void addDamage(DirtyRegion region, double alpha) {
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (int i = 0; i < this.count; i++) {
+            int bx = (int) (this.previousX[i] + (this.x[i] - this.previousX[i]) * alpha);
+            int by = (int) (this.previousY[i] + (this.y[i] - this.previousY[i]) * alpha);
+            int r = this.radius[i];
+            left = Math.min(left, bx - r);
+            top = Math.min(top, by - r);
+            right = Math.max(right, bx + r + 1);
+            bottom = Math.max(bottom, by + r + 1);
+        }
+        if (this.drawnRight > this.drawnLeft) {
+            region.add(this.drawnLeft, this.drawnTop, this.drawnRight - this.drawnLeft,
+                    this.drawnBottom - this.drawnTop);
+        }
+        if (this.count == 0) {
+            this.drawnRight = this.drawnLeft;
+            return;
+        }
+        region.add(left, top, right - left, bottom - top);
+        this.drawnLeft = left;
+        this.drawnTop = top;
+        this.drawnRight = right;
+        this.drawnBottom = bottom;
+    }
+
+    /**
+     * Adds the ball system to the specified game as a single sprite.
+     *
+     * @param game The game to which the balls are added.
+     */
+    public void addToGame(Game game) {
+        game.addSprite(this);
+    }
+
+    /**
+     * Returns the palette index of a color, adding the color to the palette if it is new.
+     *
+     * @param color The color.
+     * @return The index of the color in the palette.
+     */
+    private int colorIdOf(Color color) {
+        Integer id = this.paletteIds.get(color);
+        if (id == null) {
+            id = this.palette.size();
+            this.palette.add(color);
+            this.paletteIds.put(color, id);
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the capacity of the arrays.
+     */
+    private void grow() {
+        int capacity = this.x.length * 2;
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.previousX = Arrays.copyOf(this.previousX, capacity);
+        this.previousY = Arrays.copyOf(this.previousY, capacity);
+        this.dx = Arrays.copyOf(this.dx, capacity);
+        this.dy = Arrays.copyOf(this.dy, capacity);
+        this.radius = Arrays.copyOf(this.radius, capacity);
+        this.colorId = Arrays.copyOf(this.colorId, capacity);
+        this.hitObject = Arrays.copyOf(this.hitObject, capacity);
+        this.hitT = Arrays.copyOf(this.hitT, capacity);
+        this.hitFace = Arrays.copyOf(this.hitFace, capacity);
+        this.hitX = Arrays.copyOf(this.hitX, capacity);
+        this.hitY = Arrays.copyOf(this.hitY, capacity);
+        this.hitNormalX = Arrays.copyOf(this.hitNormalX, capacity);
+        this.hitNormalY = Arrays.copyOf(this.hitNormalY, capacity);
+        this.hitInside = Arrays.copyOf(this.hitInside, capacity);
+        this.removed = Arrays.copyOf(this.removed, capacity);
+        this.pending = new int[capacity];
+        this.sortScratch = new int[capacity];
+    }
+
+    /**
+     * The first phase of a step over a range of balls, split in halves until the ranges are small.
+     */
+    private final class FirstHitTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a task over a range of balls.
+         *
+         * @param from The index of the first ball of the range.
+         * @param to   The index after the last ball of the range.
+         */
+        FirstHitTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Runs the first phase on the range, or splits it between two subtasks.
+         */
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= SPLIT_THRESHOLD) {
+                findFirstHits(this.from, this.to, new RayHit());
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new FirstHitTask(this.from, middle), new FirstHitTask(middle, this.to));
+        }
+    }
+
+    /**
+     * A Ball that is a view of one ball of the system, passed to collidables and hit listeners.
+     * It reads and writes the arrays of the system, and removing it from the game only marks the
+     * ball, which the system then drops after the step, or after the dispatch of the hit events.
+     */
+    private final class BallView extends Ball {
+        private int index;
+        private boolean removed;
+
+        /**
+         * Constructs a view that is not attached to any ball.
+         *
+         * @param gameEnvironment The game environment of the system.
+         */
+        BallView(GameEnvironment gameEnvironment) {
+            super(0, 0, 0, null, gameEnvironment);
+        }
+
+        /**
+         * Points the view at a ball of the system.
+         *
+         * @param i The index of the ball.
+         */
+        void attach(int i) {
+            this.index = i;
+            this.removed = false;
+        }
+
+        /**
+         * Ends a hit, reporting whether the ball was removed during it.
+         *
+         * @return {@code true} if the ball was removed from the game, {@code false} otherwise.
+         */
+        boolean detach() {
+            return this.removed;
+        }
+
+        /**
+         * Returns the x-coordinate of the center of the viewed ball.
+         *
+         * @return The x-coordinate of the ball's center.
+         */
+        @Override
+        public int getX() {
+            return (int) x[this.index];
+        }
+
+        /**
+         * Returns the y-coordinate of the center of the viewed ball.
+         *
+         * @return The y-coordinate of the ball's center.
+         */
+        @Override
+        public int getY() {
+            return (int) y[this.index];
+        }
+
+        /**
+         * Returns the radius of the viewed ball.
+         *
+         * @return The radius of the ball.
+         */
+        @Override
+        public int getSize() {
+            return radius[this.index];
+        }
+
+        /**
+         * Returns the color of the viewed ball.
+         *
+         * @return The color of the ball.
+         */
+        @Override
+        public Color getColor() {
+            return palette.get(colorId[this.index]);
+        }
+
+        /**
+         * Sets the color of the viewed ball.
+         *
+         * @param color The new color of the ball.
+         */
+        @Override
+        public void setColor(Color color) {
+            colorId[this.index] = colorIdOf(color);
+        }
+
+        /**
+         * Returns the velocity of the viewed ball during the current hit.
+         *
+         * @return The velocity of the ball.
+         */
+        @Override
+        public Velocity getVelocity() {
+            return velocity;
+        }
+
+        /**
+         * Sets the velocity of the viewed ball during the current hit.
+         *
+         * @param v The new velocity of the ball.
+         */
+        @Override
+        public void setVelocity(Velocity v) {
+            velocity.setDx(v.getDx());
+            velocity.setDy(v.getDy());
+        }
+
+        /**
+         * Marks the viewed ball as removed; the system drops it after the step, or after the
+         * dispatch of the hit events.
+         *
+         * @param g The game the ball is removed from.
+         */
+        @Override
+        public void removeFromGame(Game g) {
+            this.removed = true;
+            BallSystem.this.removed[this.index] = true;
+            anyRemoved = true;
+        }
+
+        /**
+         * Returns the index of the viewed ball, which tells it apart in hit events until the removed
+         * balls are dropped.
+         *
+         * @return The index of the ball.
+         */
+        @Override
+        public int getHitterKey() {
+            return this.index;
+        }
+
+        /**
+         * Points the view at the ball of a hit event.
+         *
+         * @param key The index of the ball at the time of the hit.
+         * @return This view.
+         */
+        @Override
+        public Ball resolveHitter(int key) {
+            attach(key);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+// 318936507 Adir Tamam
+package Sprites;
+
+import Game.Game;
+import Metrics.EngineMetrics;
+import Metrics.LatencyHistogram;
+import Metrics.Phase;
+import Render.DirtyRegion;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+
+/**
+ * A sprite that shows the engine metrics over the game: the frame rate, the tick time, the
+ * collision queries per tick and the allocation rate in the score bar, next to the score, and the
+ * p50/p99/max time of every phase of the loop at the bottom of the screen, with the part of the
+ * frame drawn again and how much the game and render threads overlap. It can be toggled.
+ */
+public class PerformanceOverlay implements Sprite {
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    // The areas the overlay draws its text in: the right of the score bar, and the phase table
+    private static final int SUMMARY_X = 450;
+    private static final int TABLE_X = 25;
+    private static final int TABLE_Y = 440;
+    private static final int TABLE_WIDTH = 400;
+    private static final int LINE_HEIGHT = 15;
+
+    private final EngineMetrics metrics;
+    private boolean visible;
+
+    // Whether the overlay was shown in the last frame, so hiding it clears its areas once
+    private boolean drawnVisible;
+
+    /**
+     * Constructs a hidden overlay showing the given metrics.
+     *
+     * @param metrics The metrics to show.
+     */
+    public PerformanceOverlay(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Checks if the overlay is shown.
+     *
+     * @return {@code true} if the overlay is shown, {@code false} otherwise.
+     */
+    public boolean isVisible() {
+        return this.visible;
+    }
+
+    /**
+     * Shows or hides the overlay.
+     *
+     * @param visible Whether the overlay is shown.
+     */
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+    }
+
+    /**
+     * Shows the overlay if it is hidden, and hides it if it is shown.
+     */
+    public void toggle() {
+        this.visible = !this.visible;
+    }
+
+    /**
+     * Draws the overlay on the specified DrawSurface, if it is shown.
+     *
+     * @param d The DrawSurface on which the overlay is drawn.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        if (!this.visible) {
+            return;
+        }
+
+        // The summary goes on the right of the score bar, after the score
+        LatencyHistogram tick = this.metrics.getHistogram(Phase.TICK);
+        double allocation = this.metrics.getAllocationRate();
+        d.setColor(Color.black);
+        d.drawText(SUMMARY_X, 15, String.format("FPS %.0f | tick %.2f ms | %d q/tick | %s",
+                this.metrics.getFramesPerSecond(), tick.getPercentile(50) / NANOS_PER_MILLI,
+                this.metrics.getLastTickQueries(),
+                allocation < 0 ? "n/a" : String.format("%.1f MB/s", allocation / BYTES_PER_MEGABYTE)), 12);
+
+        // The phases go at the bottom left, below the blocks
+        d.setColor(Color.white);
+        int y = TABLE_Y;
+        d.drawText(TABLE_X, y, "phase       p50      p99      max  (ms)", 12);
+        for (Phase phase : Phase.values()) {
+            y += LINE_HEIGHT;
+            LatencyHistogram histogram = this.metrics.getHistogram(phase);
+            d.drawText(TABLE_X, y, String.format("%-9s %7.2f  %7.2f  %7.2f", phase.getLabel(),
+                    histogram.getPercentile(50) / NANOS_PER_MILLI, histogram.getPercentile(99) / NANOS_PER_MILLI,
+                    histogram.getMax() / NANOS_PER_MILLI), 12);
+        }
+
+        // The part of the last frame that was drawn again
+        y += LINE_HEIGHT;
+        d.drawText(TABLE_X, y, String.format("dirty %.1f%% of the frame", this.metrics.getDirtyFraction() * 100), 12);
+
+        // How much the game and the render thread work at once, when the frames are drawn on one
+        y += LINE_HEIGHT;
+        d.drawText(TABLE_X, y, String.format("threads overlap %.1f%% of the busy time",
+                this.metrics.getOverlap() * 100), 12);
+    }
+
+    /**
+     * Adds the areas of the overlay text to a region while the overlay is shown, as the figures
+     * change on every frame, and once more when it is hidden.
+     *
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void addDamage(DirtyRegion region, double alpha) {
+        if (this.visible || this.drawnVisible) {
+            region.add(SUMMARY_X, 0, 800 - SUMMARY_X, 20);
+            region.add(TABLE_X, TABLE_Y - LINE_HEIGHT, TABLE_WIDTH, (Phase.values().length + 4) * LINE_HEIGHT);
+        }
+        this.drawnVisible = this.visible;
+    }
+
+    /**
+     * An empty implementation of the timePassed method, as the overlay does not move.
+     */
+    @Override
+    public void timePassed() {
+
+    }
+
+    /**
+     * Adds the overlay to the specified Game's sprite collection.
+     *
+     * @param g The Game to which the overlay is added.
+     */
+    public void addToGame(Game g) {
+        g.addSprite(this);
+    }
+}
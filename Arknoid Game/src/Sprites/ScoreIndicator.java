@@ -1,56 +1,77 @@
-// 318936507 Adir Tamam
-package Sprites;
-
-
-import Base.Counter;
-import biuoop.DrawSurface;
-import Game.Game;
-
-import java.awt.Color;
-
-/**
- * A class representing a ScoreIndicator that implements the Sprite interface.
- * It displays the current score on the game screen.
- */
-public class ScoreIndicator implements Sprite {
-    private Counter score;
-
-    /**
-     * Constructs a ScoreIndicator with the given Counter object.
-     *
-     * @param score The Counter object representing the score to be displayed.
-     */
-    public ScoreIndicator(Counter score) {
-        this.score = score;
-    }
-
-    /**
-     * Draws the score indicator on the specified DrawSurface.
-     *
-     * @param d The DrawSurface on which the score indicator will be drawn.
-     */
-    @Override
-    public void drawOn(DrawSurface d) {
-        d.setColor(Color.white);
-        d.fillRectangle(0, 0, 800, 20);
-        d.setColor(Color.black);
-        d.drawText(350, 15, "Score: " + this.score.toString(), 15);
-    }
-
-    /**
-     * An empty implementation of the timePassed method, as it is not relevant for ScoreIndicator.
-     */
-    @Override
-    public void timePassed() {
-
-    }
-
-    /**
-     * Adds the ScoreIndicator to the specified Game's sprite collection.
-     *
-     * @param game The Game object to which the ScoreIndicator will be added.
-     */
-    public void addToGame(Game game) {
-        game.getSpriteCollection().getSprites().add(this);
-    }
-}
+// 318936507 Adir Tamam
+package Sprites;
+
+
+import Base.Counter;
+import Render.DirtyRegion;
+import biuoop.DrawSurface;
+import Game.Game;
+
+import java.awt.Color;
+
+/**
+ * A class representing a ScoreIndicator that implements the Sprite interface.
+ * It displays the current score on the game screen.
+ */
+public class ScoreIndicator implements Sprite {
+    private Counter score;
+
+    // The score last reported drawn, and whether it was drawn yet
+    private int drawnScore;
+    private boolean drawn;
+
+    /**
+     * Constructs a ScoreIndicator with the given Counter object.
+     *
+     * @param score The Counter object representing the score to be displayed.
+     */
+    public ScoreIndicator(Counter score) {
+        this.score = score;
+    }
+
+    /**
+     * Draws the score indicator on the specified DrawSurface.
+     *
+     * @param d The DrawSurface on which the score indicator will be drawn.
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        d.setColor(Color.white);
+        d.fillRectangle(0, 0, 800, 20);
+        d.setColor(Color.black);
+        d.drawText(350, 15, "Score: " + this.score.toString(), 15);
+    }
+
+    /**
+     * Adds the score bar to a region if the score changed since it was last drawn.
+     *
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    @Override
+    public void addDamage(DirtyRegion region, double alpha) {
+        int value = this.score.getValue();
+        if (!this.drawn || value != this.drawnScore) {
+            region.add(0, 0, 800, 20);
+            this.drawnScore = value;
+            this.drawn = true;
+        }
+    }
+
+    /**
+     * An empty implementation of the timePassed method, as it is not relevant for ScoreIndicator.
+     */
+    @Override
+    public void timePassed() {
+
+    }
+
+    /**
+     * Adds the ScoreIndicator to the specified Game's sprite collection.
+     *
+     * @param game The Game object to which the ScoreIndicator will be added.
+     */
+    public void addToGame(Game game) {
+        game.addSprite(this);
+    }
+}
@@ -1,25 +1,75 @@
-// 318936507 Adir Tamam
-package Sprites;
-
-import biuoop.DrawSurface;
-
-
-/**
- * This interface represents a sprite in the game.
- * Sprites can be drawn on a DrawSurface and are notified when time has passed.
- */
-public interface Sprite {
-
-    /**
-     * Draws the sprite on the given DrawSurface.
-     *
-     * @param d The DrawSurface on which the sprite is drawn.
-     */
-    void drawOn(DrawSurface d);
-
-    /**
-     * Notifies the sprite that a unit of time has passed.
-     * This method is called by the game to update the sprite's state.
-     */
-    void timePassed();
-}
+// 318936507 Adir Tamam
+package Sprites;
+
+import Geometry.Rectangle;
+import Render.CommandBuffer;
+import Render.DirtyRegion;
+import biuoop.DrawSurface;
+
+
+/**
+ * This interface represents a sprite in the game.
+ * Sprites can be drawn on a DrawSurface and are notified when time has passed.
+ */
+public interface Sprite {
+
+    /**
+     * Draws the sprite on the given DrawSurface.
+     *
+     * @param d The DrawSurface on which the sprite is drawn.
+     */
+    void drawOn(DrawSurface d);
+
+    /**
+     * Draws the sprite as it is between the previous tick and the current one, for rendering
+     * between physics ticks. Sprites that do not move draw themselves as they are.
+     *
+     * @param d     The DrawSurface on which the sprite is drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    default void drawOn(DrawSurface d, double alpha) {
+        drawOn(d);
+    }
+
+    /**
+     * Records the drawing of the sprite into a command buffer, which sorts the commands of the frame
+     * by color before drawing them. By default the sprite draws on the buffer like on any surface, in
+     * ordered layers of its own, so its drawings keep their order with respect to everything else;
+     * sprites whose drawings do not depend on the order can put them in shared layers instead.
+     *
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    default void record(CommandBuffer buffer, double alpha) {
+        buffer.beginOrdered();
+        drawOn(buffer, alpha);
+    }
+
+    /**
+     * Returns the area a static sprite covers: one that never moves or changes, so it can be drawn
+     * once into the static layer instead of every frame. Sprites are dynamic by default.
+     *
+     * @return The area the sprite covers, or null if the sprite is dynamic.
+     */
+    default Rectangle getStaticBounds() {
+        return null;
+    }
+
+    /**
+     * Adds to a region the areas a dynamic sprite changes in the next frame: where it was drawn in the
+     * last frame and where it will be drawn in this one, or nothing if the two are the same. The
+     * sprite remembers the area it reports as drawn. Sprites that cannot tell damage the whole surface.
+     *
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    default void addDamage(DirtyRegion region, double alpha) {
+        region.addAll();
+    }
+
+    /**
+     * Notifies the sprite that a unit of time has passed.
+     * This method is called by the game to update the sprite's state.
+     */
+    void timePassed();
+}
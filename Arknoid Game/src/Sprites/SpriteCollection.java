@@ -1,75 +1,190 @@
-// 318936507 Adir Tamam
-
-package Sprites;
-
-import biuoop.DrawSurface;
-
-import java.util.ArrayList;
-import java.util.List;
-
-
-/**
- * The SpriteCollection class represents a collection of sprites in the game.
- * It provides methods to manage and interact with the collection of sprites.
- */
-public class SpriteCollection {
-    private List<Sprite> sprites;
-
-    /**
-     * Constructs a new SpriteCollection with an empty list of sprites.
-     */
-    public SpriteCollection() {
-        this.sprites = new ArrayList<>();
-    }
-
-    /**
-     * Returns the list of sprites in the collection.
-     *
-     * @return The list of sprites in the collection.
-     */
-    public List<Sprite> getSprites() {
-        return this.sprites;
-    }
-
-    /**
-     * Adds a sprite to the collection.
-     *
-     * @param sprites The sprite to be added.
-     */
-
-    public void setSprites(List<Sprite> sprites) {
-        this.sprites = sprites;
-    }
-
-    /**
-     * Adds a Sprite to the collection of sprites.
-     *
-     * @param s The Sprite object to be added to the collection.
-     */
-    public void addSprite(Sprite s) {
-        sprites.add(s);
-    }
-
-    /**
-     * Calls the timePassed() method on all sprites in the collection.
-     * This method is typically used to update the state of the sprites as time passes in the game.
-     */
-    public void notifyAllTimePassed() {
-        List<Sprite> list = new ArrayList<>(sprites);
-        for (Sprite s : list) {
-            s.timePassed();
-        }
-    }
-
-    /**
-     * Calls the drawOn(d) method on all sprites in the collection.
-     * This method is used to draw all sprites on a given DrawSurface.
-     *
-     * @param d The DrawSurface on which the sprites are drawn.
-     */
-    public void drawAllOn(DrawSurface d) {
-        for (Sprite s : sprites) {
-            s.drawOn(d);
-        }
-    }
-}
+// 318936507 Adir Tamam
+
+package Sprites;
+
+import Base.SlotArray;
+import Render.CommandBuffer;
+import Render.DirtyRegion;
+import biuoop.DrawSurface;
+
+import java.util.List;
+
+
+/**
+ * The SpriteCollection class represents a collection of sprites in the game.
+ * It provides methods to manage and interact with the collection of sprites.
+ * The sprites are kept in an ordered slot array, so they are always updated and drawn in the order
+ * they were added, whichever were removed in between, and a sprite is removed in constant time.
+ */
+public class SpriteCollection {
+    private final SlotArray<Sprite> sprites;
+
+    /**
+     * Constructs a new SpriteCollection with an empty list of sprites.
+     */
+    public SpriteCollection() {
+        this.sprites = new SlotArray<>(true);
+    }
+
+    /**
+     * Returns the sprites in the collection, in the order they were added. The sprites must not be
+     * added or removed through it; use addSprite and removeSprite instead.
+     *
+     * @return The sprites in the collection.
+     */
+    public SlotArray<Sprite> getSprites() {
+        return this.sprites;
+    }
+
+    /**
+     * Replaces the sprites of the collection.
+     *
+     * @param sprites The new sprites, in order.
+     */
+    public void setSprites(List<Sprite> sprites) {
+        this.sprites.clear();
+        for (Sprite s : sprites) {
+            this.sprites.add(s);
+        }
+    }
+
+    /**
+     * Adds a Sprite to the collection of sprites.
+     *
+     * @param s The Sprite object to be added to the collection.
+     * @return The handle of the sprite in the collection.
+     */
+    public int addSprite(Sprite s) {
+        return sprites.add(s);
+    }
+
+    /**
+     * Removes a Sprite from the collection. A sprite removed while time passes is still updated in
+     * that pass, and taken out at its end.
+     *
+     * @param s The Sprite object to be removed.
+     * @return {@code true} if the sprite was in the collection, {@code false} otherwise.
+     */
+    public boolean removeSprite(Sprite s) {
+        return sprites.remove(s);
+    }
+
+    /**
+     * Puts a Sprite in the place of another, so it is updated and drawn when the other one was.
+     *
+     * @param old The Sprite object to be replaced.
+     * @param s   The Sprite object to put in its place.
+     * @return {@code true} if the old sprite was in the collection, {@code false} otherwise.
+     */
+    public boolean replaceSprite(Sprite old, Sprite s) {
+        return sprites.replace(old, s);
+    }
+
+    /**
+     * Returns the number of sprites in the collection.
+     *
+     * @return The number of sprites.
+     */
+    public int size() {
+        return sprites.size();
+    }
+
+    /**
+     * Calls the timePassed() method on all sprites in the collection.
+     * This method is typically used to update the state of the sprites as time passes in the game.
+     * Sprites added meanwhile are first updated in the next pass, and sprites removed meanwhile are
+     * taken out at the end of this one, so the sprites are not copied.
+     */
+    public void notifyAllTimePassed() {
+        sprites.beginIteration();
+        try {
+            for (Sprite s : sprites) {
+                s.timePassed();
+            }
+        } finally {
+            sprites.endIteration();
+        }
+    }
+
+    /**
+     * Calls the drawOn(d) method on all sprites in the collection.
+     * This method is used to draw all sprites on a given DrawSurface.
+     *
+     * @param d The DrawSurface on which the sprites are drawn.
+     */
+    public void drawAllOn(DrawSurface d) {
+        for (Sprite s : sprites) {
+            s.drawOn(d);
+        }
+    }
+
+    /**
+     * Calls the drawOn(d, alpha) method on all sprites in the collection, drawing them between
+     * the previous tick and the current one.
+     *
+     * @param d     The DrawSurface on which the sprites are drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void drawAllOn(DrawSurface d, double alpha) {
+        for (Sprite s : sprites) {
+            s.drawOn(d, alpha);
+        }
+    }
+
+    /**
+     * Calls the drawOn(d, alpha) method on the dynamic sprites of the collection only, for when the
+     * static ones are already drawn by a static layer.
+     *
+     * @param d     The DrawSurface on which the sprites are drawn.
+     * @param alpha How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void drawDynamicOn(DrawSurface d, double alpha) {
+        for (Sprite s : sprites) {
+            if (s.getStaticBounds() == null) {
+                s.drawOn(d, alpha);
+            }
+        }
+    }
+
+    /**
+     * Records all the sprites in the collection into a command buffer, between the previous tick
+     * and the current one.
+     *
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void recordAll(CommandBuffer buffer, double alpha) {
+        for (Sprite s : sprites) {
+            s.record(buffer, alpha);
+        }
+    }
+
+    /**
+     * Records the dynamic sprites of the collection only into a command buffer, for when the static
+     * ones are already drawn by a static layer.
+     *
+     * @param buffer The command buffer of the frame.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void recordDynamic(CommandBuffer buffer, double alpha) {
+        for (Sprite s : sprites) {
+            if (s.getStaticBounds() == null) {
+                s.record(buffer, alpha);
+            }
+        }
+    }
+
+    /**
+     * Adds to a region the areas the dynamic sprites of the collection change in the next frame.
+     *
+     * @param region The region of the frame to draw again.
+     * @param alpha  How far the frame is from the previous tick (0) to the current one (1).
+     */
+    public void addDynamicDamage(DirtyRegion region, double alpha) {
+        for (Sprite s : sprites) {
+            if (s.getStaticBounds() == null) {
+                s.addDamage(region, alpha);
+            }
+        }
+    }
+}